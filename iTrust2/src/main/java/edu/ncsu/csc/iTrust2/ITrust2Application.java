@@ -6,6 +6,7 @@ import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomi
 import org.springframework.context.annotation.Bean;
 
 import edu.ncsu.csc.iTrust2.config.SchemaValidateIntegrator;
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
 
 /**
  * Main entrypoint to the iTrust2 application
@@ -28,17 +29,21 @@ public class ITrust2Application {
 
     /**
      * Used to register a Schema Validator to make sure the database is
-     * up-to-date
+     * up-to-date, and the counter that records how many statements each
+     * request makes
      *
      * @param schemaValidateIntegrator
      *            Schema Validator to register
+     * @param sqlStatementCounter
+     *            Statement counter to register
      * @return Updated Hibernate properties file
      */
     @Bean
     public HibernatePropertiesCustomizer registerSchemaValidator (
-            final SchemaValidateIntegrator schemaValidateIntegrator ) {
+            final SchemaValidateIntegrator schemaValidateIntegrator, final SqlStatementCounter sqlStatementCounter ) {
         return ( prop -> {
             prop.put( "hibernate.integrator_provider", schemaValidateIntegrator );
+            prop.put( "hibernate.session_factory.statement_inspector", sqlStatementCounter );
         } );
     }
 }
@@ -0,0 +1,123 @@
+package edu.ncsu.csc.iTrust2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc.iTrust2.forms.display.ImportReport;
+import edu.ncsu.csc.iTrust2.services.ImportService;
+
+/**
+ * Imports a file from the command line instead of starting the web
+ * application normally, for loading a new clinic's records:
+ *
+ * `java -jar iTrust2.jar --import.kind=users --import.file=users.csv`
+ *
+ * `--import.kind` is one of users, patients, icdcodes, cptcodes or drugs.
+ * `--import.format` (csv or ndjson) is taken from the file's extension if it
+ * isn't given, and `--import.user` names who the import is logged against.
+ * Progress is logged after every chunk. Once the file is imported the
+ * application exits: with 0 if every record was imported, 1 if some were
+ * rejected, and 2 if the file couldn't be read.
+ *
+ * Without `--import.kind` this does nothing.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class ImportRunner implements ApplicationRunner {
+
+    /** Logger, for the outcome of the import */
+    private static final Logger LOG = LoggerFactory.getLogger( ImportRunner.class );
+
+    /** Does the importing */
+    @Autowired
+    private ImportService       service;
+
+    /** Application to shut down afterwards */
+    @Autowired
+    private ApplicationContext  context;
+
+    @Override
+    public void run ( final ApplicationArguments args ) {
+        final String kind = option( args, "import.kind" );
+        if ( null == kind ) {
+            return;
+        }
+        final String file = option( args, "import.file" );
+        final String format = option( args, "import.format" );
+        final String user = option( args, "import.user" );
+
+        final int exitCode;
+        if ( null == file ) {
+            LOG.error( "--import.file must name the file to import" );
+            exitCode = 2;
+        }
+        else {
+            exitCode = importFile( kind, file, format, user );
+        }
+        System.exit( SpringApplication.exit( context, () -> exitCode ) );
+    }
+
+    /**
+     * Imports a file
+     *
+     * @param kind
+     *            What the file holds
+     * @param file
+     *            Path to the file
+     * @param format
+     *            Format of the file, or null to go by its extension
+     * @param user
+     *            Who the import is logged against, or null
+     * @return Exit status
+     */
+    private int importFile ( final String kind, final String file, final String format, final String user ) {
+        try {
+            final Path path = Paths.get( file );
+            final ImportService.Format f = null != format ? ImportService.Format.parse( format )
+                    : path.toString().toLowerCase().endsWith( ".csv" ) ? ImportService.Format.CSV
+                            : ImportService.Format.NDJSON;
+            try ( InputStream in = Files.newInputStream( path ) ) {
+                final ImportReport report = service.importFile( ImportService.Kind.parse( kind ), f, in,
+                        null != user ? user : "SYSTEM_IMPORT", null );
+                report.getErrors().forEach( e -> LOG.warn( "Record {} ({}) rejected: {}", e.getRecord(),
+                        e.getKey(), e.getMessage() ) );
+                LOG.info( "Imported {} in {} ms", report, report.getElapsedMs() );
+                return 0 == report.getFailed() ? 0 : 1;
+            }
+        }
+        catch ( final IOException | RuntimeException e ) {
+            LOG.error( "Unable to import " + file, e );
+            return 2;
+        }
+    }
+
+    /**
+     * Gets the value of a command-line option
+     *
+     * @param args
+     *            The command line
+     * @param name
+     *            Name of the option
+     * @return Its value, or null if it wasn't given
+     */
+    private static String option ( final ApplicationArguments args, final String name ) {
+        final List<String> values = args.getOptionValues( name );
+        return null == values || values.isEmpty() ? null : values.get( 0 );
+    }
+
+}
@@ -8,7 +8,9 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 
 /**
  * Configure permissions for Actuator endpoints, so it doesn't require
- * authentication on those endpoints.
+ * authentication on the health and info endpoints. The others, such as
+ * metrics (which include the cache and SQL statistics), are only shown to a
+ * logged-in admin.
  * 
  * @author bvolpat
  */
@@ -18,6 +20,8 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 public class ActuatorWebSecurityConfigurationAdapter extends WebSecurityConfigurerAdapter {
     @Override
     protected void configure ( final HttpSecurity http ) throws Exception {
-        http.antMatcher( "/actuator/**" ).anonymous().and().csrf().disable();
+        http.antMatcher( "/actuator/**" ).authorizeRequests()
+                .antMatchers( "/actuator/health/**", "/actuator/info" ).permitAll().anyRequest()
+                .hasRole( "ADMIN" ).and().anonymous().and().csrf().disable();
     }
 }
@@ -5,14 +5,14 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
-import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
-import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.AccessLogWriter;
 
 /**
- * Interceptor to log HTTP requests to the API endpoint
+ * Interceptor to log HTTP requests to the API endpoint. Requests are handed to
+ * the AccessLogWriter, which records them off of the request thread.
  *
  * @author Kai Presler-Marshall
  *
@@ -20,27 +20,32 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @Component
 public class AuditLogInterceptor extends HandlerInterceptorAdapter {
 
-    /** LoggerUtil instance for logging events to the database */
+    /** Request attribute holding the time (ns) the request started */
+    private static final String START_ATTRIBUTE = AuditLogInterceptor.class.getName() + ".start";
+
+    /** Access log, for recording requests */
     @Autowired
-    private LoggerUtil loggerUtil;
+    private AccessLogWriter     accessLog;
 
     @Override
     public boolean preHandle ( final HttpServletRequest request, final HttpServletResponse response,
             final Object handler ) throws Exception {
+        request.setAttribute( START_ATTRIBUTE, System.nanoTime() );
         return true;
     }
 
     @Override
     public void afterCompletion ( final HttpServletRequest request, final HttpServletResponse response,
             final Object handler, final Exception exception ) throws Exception {
-    }
+        final Object start = request.getAttribute( START_ATTRIBUTE );
+        final long latencyMicros = start instanceof Long ? ( System.nanoTime() - (Long) start ) / 1000 : 0;
 
-    @Override
-    public void postHandle ( final HttpServletRequest request, final HttpServletResponse response, final Object handler,
-            final ModelAndView modelAndView ) throws Exception {
+        // Prefer the mapped pattern (`/api/v1/patients/{username}`) so that
+        // records for the same endpoint look the same
+        final Object pattern = request.getAttribute( HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE );
+        final String uri = null != pattern ? pattern.toString() : request.getRequestURI();
 
-        loggerUtil.log( TransactionType.HTTP_REQUEST, request.getRemoteUser() + ":" + request.getRemoteAddr(),
-                "Request " + request.getMethod() + " " + request.getRequestURI() + ", response code: "
-                        + response.getStatus() );
+        accessLog.record( request.getMethod(), uri, response.getStatus(), latencyMicros, request.getRemoteUser(),
+                request.getRemoteAddr() );
     }
 }
@@ -0,0 +1,243 @@
+package edu.ncsu.csc.iTrust2.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * BCrypt PasswordEncoder that does its hashing on a small, dedicated thread
+ * pool rather than on the request thread. BCrypt is deliberately slow, so
+ * without a limit a burst of logins can tie up every request thread hashing
+ * passwords. Here at most `threads` hashes run at once and at most `queueSize`
+ * more wait; anything beyond that fails straight away with a `BusyException`,
+ * which is reported to the client as a 503.
+ *
+ * The work factor (`strength`) is configurable. Any stored hash made with a
+ * different work factor is reported as needing an upgrade, so Spring Security
+ * rehashes the password with the current one the next time the user logs in.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder {
+
+    /** Does the actual hashing */
+    private final BCryptPasswordEncoder delegate;
+
+    /** BCrypt work factor for new hashes */
+    private final int                   strength;
+
+    /** Threads that run the hashing */
+    private final ThreadPoolExecutor    executor;
+
+    /** How long (ms) a caller waits for its hash before giving up */
+    private final long                  timeoutMs;
+
+    /** Number of hashes turned away because the pool was full */
+    private final AtomicLong            rejected = new AtomicLong();
+
+    /**
+     * Creates an encoder with its own thread pool
+     *
+     * @param strength
+     *            BCrypt work factor (4 - 31)
+     * @param threads
+     *            Number of hashes that may run at once
+     * @param queueSize
+     *            Number of hashes that may wait for a thread
+     * @param timeoutMs
+     *            How long (ms) a caller waits for its hash before giving up
+     */
+    public BoundedBCryptPasswordEncoder ( final int strength, final int threads, final int queueSize,
+            final long timeoutMs ) {
+        this( strength, newExecutor( threads, queueSize ), timeoutMs );
+    }
+
+    /**
+     * Creates an encoder that hashes on the given pool
+     *
+     * @param strength
+     *            BCrypt work factor (4 - 31)
+     * @param executor
+     *            Pool to hash on. Should reject work when full.
+     * @param timeoutMs
+     *            How long (ms) a caller waits for its hash before giving up
+     */
+    public BoundedBCryptPasswordEncoder ( final int strength, final ThreadPoolExecutor executor,
+            final long timeoutMs ) {
+        this.delegate = new BCryptPasswordEncoder( strength );
+        this.strength = strength;
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public String encode ( final CharSequence rawPassword ) {
+        return run( () -> delegate.encode( rawPassword ) );
+    }
+
+    @Override
+    public boolean matches ( final CharSequence rawPassword, final String encodedPassword ) {
+        return run( () -> delegate.matches( rawPassword, encodedPassword ) );
+    }
+
+    @Override
+    public boolean upgradeEncoding ( final String encodedPassword ) {
+        final int stored = strengthOf( encodedPassword );
+        return stored > 0 && stored != strength;
+    }
+
+    /**
+     * Number of hashes turned away because the pool was full or too slow
+     *
+     * @return Rejected hashes
+     */
+    public long getRejected () {
+        return rejected.get();
+    }
+
+    /**
+     * Number of hashes waiting for a thread
+     *
+     * @return Queued hashes
+     */
+    public int getQueued () {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Number of hashes currently running
+     *
+     * @return Active hashes
+     */
+    public int getActive () {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Stops the hashing threads
+     */
+    public void shutdown () {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for the result
+     *
+     * @param <T>
+     *            Type of the result
+     * @param task
+     *            Task to run
+     * @return The task's result
+     * @throws BusyException
+     *             If the pool is full, or the task took too long
+     */
+    private <T> T run ( final Callable<T> task ) {
+        final Future<T> future;
+        try {
+            future = executor.submit( task );
+        }
+        catch ( final RejectedExecutionException e ) {
+            rejected.incrementAndGet();
+            throw new BusyException();
+        }
+        try {
+            return future.get( timeoutMs, TimeUnit.MILLISECONDS );
+        }
+        catch ( final TimeoutException e ) {
+            future.cancel( true );
+            rejected.incrementAndGet();
+            throw new BusyException();
+        }
+        catch ( final InterruptedException e ) {
+            future.cancel( true );
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        }
+        catch ( final ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException( e.getCause() );
+        }
+    }
+
+    /**
+     * Reads the work factor out of a BCrypt hash (`$2a$10$...`)
+     *
+     * @param encodedPassword
+     *            Hash to read
+     * @return The work factor, or -1 if this is not a BCrypt hash
+     */
+    private static int strengthOf ( final String encodedPassword ) {
+        if ( null == encodedPassword || encodedPassword.length() < 7 || encodedPassword.charAt( 0 ) != '$'
+                || encodedPassword.charAt( 3 ) != '$' ) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt( encodedPassword.substring( 4, 6 ) );
+        }
+        catch ( final NumberFormatException e ) {
+            return -1;
+        }
+    }
+
+    /**
+     * Creates the pool hashes run on
+     *
+     * @param threads
+     *            Number of threads
+     * @param queueSize
+     *            Number of hashes that may wait; 0 for none
+     * @return The pool
+     */
+    private static ThreadPoolExecutor newExecutor ( final int threads, final int queueSize ) {
+        final BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<Runnable>( queueSize )
+                : new SynchronousQueue<Runnable>();
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor( threads, threads, 0, TimeUnit.MILLISECONDS, queue, r -> {
+            final Thread t = new Thread( r, "password-hasher-" + count.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy() );
+    }
+
+    /**
+     * Thrown when a password can't be hashed because too many others are
+     * already being hashed. It is an AuthenticationException so that a login
+     * that hits it goes to the `FailureHandler`, and is mapped to 503 Service
+     * Unavailable anywhere else.
+     *
+     * @author Kai Presler-Marshall
+     *
+     */
+    @ResponseStatus ( HttpStatus.SERVICE_UNAVAILABLE )
+    public static class BusyException extends AuthenticationServiceException {
+
+        /** For serialization */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates the exception
+         */
+        public BusyException () {
+            super( "Too many passwords are being checked right now; try again shortly" );
+        }
+    }
+
+}
@@ -1,7 +1,6 @@
 package edu.ncsu.csc.iTrust2.config;
 
 import java.io.IOException;
-import java.time.ZonedDateTime;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -16,19 +15,17 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
-import edu.ncsu.csc.iTrust2.models.security.LoginAttempt;
-import edu.ncsu.csc.iTrust2.models.security.LoginBan;
-import edu.ncsu.csc.iTrust2.models.security.LoginLockout;
 import edu.ncsu.csc.iTrust2.services.UserService;
-import edu.ncsu.csc.iTrust2.services.security.LoginAttemptService;
 import edu.ncsu.csc.iTrust2.services.security.LoginBanService;
 import edu.ncsu.csc.iTrust2.services.security.LoginLockoutService;
+import edu.ncsu.csc.iTrust2.services.security.LoginThrottle;
 import edu.ncsu.csc.iTrust2.utils.EmailUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
  * Custom AuthenticationFailureHandler to record Failed attempts, and lockout or
- * ban a user or IP if necessary.
+ * ban a user or IP if necessary. Counting the failures, and deciding when to
+ * lock out or ban, is left to the `LoginThrottle`.
  *
  * @author Thomas
  * @author Kai Presler-Marshall
@@ -56,9 +53,9 @@ public class FailureHandler extends SimpleUrlAuthenticationFailureHandler {
     @Autowired
     private LoginLockoutService loginLockoutService;
 
-    /** LoginAttempt service */
+    /** Counts failed logins and decides on lockouts and bans */
     @Autowired
-    private LoginAttemptService loginAttemptService;
+    private LoginThrottle       loginThrottle;
 
     /** UserService */
     @Autowired
@@ -77,89 +74,46 @@ public class FailureHandler extends SimpleUrlAuthenticationFailureHandler {
         User user = null;
         final String addr = request.getRemoteAddr();
 
-        if ( username != null ) {
-            user = userService.findByName( username );
+        if ( ae instanceof BoundedBCryptPasswordEncoder.BusyException ) {
+            // Too many logins at once; ask the client to come back shortly
+            response.setHeader( "Retry-After", "1" );
+            response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE, ae.getMessage() );
+            return;
         }
-
-        if ( ae instanceof BadCredentialsException ) {
-            // need to lockout IP
-            if ( loginAttemptService.countByIP( addr ) >= 5 ) {
-                loginAttemptService.clearIP( addr );
-                // Check if need to ban IP
-                if ( loginLockoutService.getRecentIPLockouts( addr ) >= 2 ) {
-                    // BAN
-                    final LoginBan ban = new LoginBan();
-                    ban.setIp( addr );
-                    ban.setTime( ZonedDateTime.now() );
-                    loginBanService.save( ban );
-
-                    loginLockoutService.clearIP( addr );
+        else if ( ae instanceof BadCredentialsException ) {
+            switch ( loginThrottle.recordIPFailure( addr ) ) {
+                case IP_BANNED:
                     loggerUtil.log( TransactionType.IP_BANNED, addr, null, addr + " has been banned." );
                     this.getRedirectStrategy().sendRedirect( request, response, "/login?ipbanned" );
-                }
-                else {
-                    // lockout IP.
-                    final LoginLockout lockout = new LoginLockout();
-                    lockout.setIp( addr );
-                    lockout.setTime( ZonedDateTime.now() );
-                    loginLockoutService.save( lockout );
+                    return;
+                case IP_LOCKED:
                     loggerUtil.log( TransactionType.IP_LOCKOUT, addr, null, addr + " has been locked out for 1 hour." );
                     this.getRedirectStrategy().sendRedirect( request, response, "/login?iplocked" );
 
                     sendEmail( username );
-                }
-                return;
-            }
-            else {
-                // fail for IP
-                final LoginAttempt attempt = new LoginAttempt();
-                attempt.setTime( ZonedDateTime.now() );
-                attempt.setIp( addr );
-                loginAttemptService.save( attempt );
+                    return;
+                default:
+                    break;
             }
 
             // check username
             if ( username != null ) {
-                user = userService.findByName( username );
-            }
-
-            if ( user != null ) {
-                // check if need to lockout username
-                if ( loginAttemptService.countByUser( user ) >= 2 ) {
-                    loginAttemptService.clearUser( user );
-                    // check if need to ban user
-                    if ( loginLockoutService.getRecentUserLockouts( user ) >= 2 ) {
-                        loginLockoutService.clearUser( user );
-                        final LoginBan ban = new LoginBan();
-                        ban.setTime( ZonedDateTime.now() );
-                        ban.setUser( user );
-                        loginBanService.save( ban );
+                switch ( loginThrottle.recordUserFailure( username ) ) {
+                    case USER_BANNED:
                         loggerUtil.log( TransactionType.USER_BANNED, username, null, username + " has been banned." );
                         this.getRedirectStrategy().sendRedirect( request, response, "/login?banned" );
 
                         sendEmail( username );
-
-                    }
-                    else {
-                        // lockout user
-                        final LoginLockout lock = new LoginLockout();
-                        lock.setTime( ZonedDateTime.now() );
-                        lock.setUser( user );
-                        loginLockoutService.save( lock );
+                        return;
+                    case USER_LOCKED:
                         loggerUtil.log( TransactionType.USER_LOCKOUT, username, null,
                                 username + " has been locked out for 1 hour." );
                         this.getRedirectStrategy().sendRedirect( request, response, "/login?locked" );
 
                         sendEmail( username );
-                    }
-                    return;
-                }
-                else {
-                    // fail for username
-                    final LoginAttempt attempt = new LoginAttempt();
-                    attempt.setTime( ZonedDateTime.now() );
-                    attempt.setUser( user );
-                    loginAttemptService.save( attempt );
+                        return;
+                    default:
+                        break;
                 }
             }
 
@@ -12,12 +12,12 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.filter.GenericFilterBean;
 
-import edu.ncsu.csc.iTrust2.services.security.LoginBanService;
-import edu.ncsu.csc.iTrust2.services.security.LoginLockoutService;
+import edu.ncsu.csc.iTrust2.services.security.LoginRestrictionCache;
 
 /**
  * IP Filter to figure out if a user's IP address is banned/locked. If so,
- * intercepts and disallows the requests.
+ * intercepts and disallows the requests. Runs on every request, so it checks
+ * the in-memory `LoginRestrictionCache` rather than the database.
  *
  * @author Kai Presler-Marshall
  * @author Thomas
@@ -25,13 +25,9 @@ import edu.ncsu.csc.iTrust2.services.security.LoginLockoutService;
  */
 public class IPFilter extends GenericFilterBean {
 
-    /** LoginBan service */
+    /** Active bans and lockouts */
     @Autowired
-    private LoginBanService     loginBanService;
-
-    /** LoginLockout service */
-    @Autowired
-    private LoginLockoutService loginLockoutService;
+    private LoginRestrictionCache restrictions;
 
     /*
      * Source for filter setup:
@@ -47,13 +43,13 @@ public class IPFilter extends GenericFilterBean {
         final String addr = request.getRemoteAddr();
 
         // Redirect all banned IPs to /login?ipbanned
-        if ( loginBanService.isIPBanned( addr )
+        if ( restrictions.isIPBanned( addr )
                 && ( !relative.contains( "/login" ) || !httpRequest.getParameterMap().containsKey( "ipbanned" ) ) ) {
             httpRequest.getSession().invalidate();
             httpResponse.sendRedirect( httpRequest.getContextPath() + "/login?ipbanned" );
         }
         // redirect all locked out IPs to /login?iplocked
-        else if ( loginLockoutService.isIPLocked( addr )
+        else if ( restrictions.isIPLocked( addr )
                 && ( !relative.contains( "/login" ) || !httpRequest.getParameterMap().containsKey( "iplocked" ) ) ) {
             httpRequest.getSession().invalidate();
             httpResponse.sendRedirect( httpRequest.getContextPath() + "/login?iplocked" );
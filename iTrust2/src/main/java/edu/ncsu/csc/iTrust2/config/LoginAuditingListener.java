@@ -11,12 +11,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
-import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
-import edu.ncsu.csc.iTrust2.services.UserService;
-import edu.ncsu.csc.iTrust2.services.security.LoginAttemptService;
-import edu.ncsu.csc.iTrust2.services.security.LoginBanService;
-import edu.ncsu.csc.iTrust2.services.security.LoginLockoutService;
+import edu.ncsu.csc.iTrust2.services.security.LoginRestrictionCache;
+import edu.ncsu.csc.iTrust2.services.security.LoginThrottle;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -31,23 +28,15 @@ public class LoginAuditingListener implements ApplicationListener<ApplicationEve
 
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil          util;
+    private LoggerUtil            util;
 
-    /** LoginAttempt service */
+    /** Counts failed logins */
     @Autowired
-    private LoginAttemptService loginAttemptService;
+    private LoginThrottle         loginThrottle;
 
-    /** LoginBan service */
+    /** Active bans and lockouts */
     @Autowired
-    private LoginBanService     loginBanService;
-
-    /** User service */
-    @Autowired
-    private UserService<User>   userService;
-
-    /** LoginLockout service */
-    @Autowired
-    private LoginLockoutService loginLockoutService;
+    private LoginRestrictionCache restrictions;
 
     @Override
     public void onApplicationEvent ( final ApplicationEvent event ) {
@@ -64,9 +53,8 @@ public class LoginAuditingListener implements ApplicationListener<ApplicationEve
             // invalidates the credentials if they happen to be correct (and
             // bypassed the lockout page via a direct API call).
             final String addr = det.getRemoteAddress();
-            if ( !loginLockoutService.isIPLocked( addr ) && !loginBanService.isIPBanned( addr ) ) {
-                loginAttemptService.clearIP( addr );
-                loginAttemptService.clearUser( userService.findByName( details.getUsername() ) );
+            if ( !restrictions.isIPLocked( addr ) && !restrictions.isIPBanned( addr ) ) {
+                loginThrottle.recordSuccess( addr, details.getUsername() );
                 util.log( TransactionType.LOGIN_SUCCESS, details.getUsername() );
             }
 
@@ -0,0 +1,48 @@
+package edu.ncsu.csc.iTrust2.config;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+
+/**
+ * Publishes the statistics of each region of Hibernate's second-level cache
+ * (see `ehcache.xml`) as the `cache.*` metrics, tagged with the region's name
+ * as `cache` and with `cacheManager=hibernate`. Hibernate's own totals across
+ * every region are published as `hibernate.second.level.cache.*`.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    /** Name the regions' metrics are tagged with */
+    public static final String   CACHE_MANAGER = "hibernate";
+
+    /** Hibernate, which holds the cache */
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Override
+    public void bindTo ( final MeterRegistry registry ) {
+        final RegionFactory factory = emf.unwrap( SessionFactoryImplementor.class ).getCache().getRegionFactory();
+        if ( ! ( factory instanceof JCacheRegionFactory ) ) {
+            // The second-level cache is turned off
+            return;
+        }
+        final CacheManager manager = ( (JCacheRegionFactory) factory ).getCacheManager();
+        for ( final String region : manager.getCacheNames() ) {
+            JCacheMetrics.monitor( registry, manager.getCache( region ), "cacheManager", CACHE_MANAGER );
+        }
+    }
+
+}
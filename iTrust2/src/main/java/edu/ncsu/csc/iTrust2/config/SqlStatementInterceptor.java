@@ -0,0 +1,57 @@
+package edu.ncsu.csc.iTrust2.config;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the SQL statements each request sends to the database. The count is
+ * published as the `itrust2.http.sql.statements` metric, tagged with the
+ * method and endpoint, and left on the request under `STATEMENTS_ATTRIBUTE`.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class SqlStatementInterceptor extends HandlerInterceptorAdapter {
+
+    /** Request attribute holding the number of statements the request made */
+    public static final String  STATEMENTS_ATTRIBUTE = SqlStatementInterceptor.class.getName() + ".statements";
+
+    /** Counts statements on the request thread */
+    @Autowired
+    private SqlStatementCounter counter;
+
+    /** Registry to publish the counts to */
+    @Autowired
+    private MeterRegistry       registry;
+
+    @Override
+    public boolean preHandle ( final HttpServletRequest request, final HttpServletResponse response,
+            final Object handler ) throws Exception {
+        counter.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion ( final HttpServletRequest request, final HttpServletResponse response,
+            final Object handler, final Exception exception ) throws Exception {
+        final long statements = counter.stop();
+        request.setAttribute( STATEMENTS_ATTRIBUTE, statements );
+
+        final Object pattern = request.getAttribute( HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE );
+        final String uri = null != pattern ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder( "itrust2.http.sql.statements" )
+                .description( "SQL statements sent to the database per request" ).baseUnit( "statements" )
+                .tag( "method", request.getMethod() ).tag( "uri", uri ).register( registry ).record( statements );
+    }
+}
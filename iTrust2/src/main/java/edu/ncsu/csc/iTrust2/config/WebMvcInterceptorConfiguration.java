@@ -1,12 +1,15 @@
 package edu.ncsu.csc.iTrust2.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * Registers our audit logger with Spring so that events are logged properly
+ * Registers our audit logger with Spring so that events are logged properly,
+ * and the interceptor that counts each request's SQL statements
  * 
  * @author Kai Presler-Marshall
  *
@@ -14,6 +17,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebMvcInterceptorConfiguration implements WebMvcConfigurer {
 
+    /**
+     * Paths that are never recorded in the access log: static resources and
+     * health probes
+     */
+    @Value ( "${itrust2.accesslog.exclude:/css/**,/js/**,/webjars/**,/favicon.ico,/DrJenkins,/actuator/**}" )
+    private String[]                excludedPaths;
+
     /**
      * Register the logging/audit interceptor on every REST endpoint
      *
@@ -24,8 +34,15 @@ public class WebMvcInterceptorConfiguration implements WebMvcConfigurer {
         return new AuditLogInterceptor();
     }
 
+    /**
+     * Counts the SQL statements made by each request
+     */
+    @Autowired
+    private SqlStatementInterceptor sqlStatementInterceptor;
+
     @Override
     public void addInterceptors ( final InterceptorRegistry registry ) {
-        registry.addInterceptor( getInterceptor() ).addPathPatterns( "/**" );
+        registry.addInterceptor( getInterceptor() ).addPathPatterns( "/**" ).excludePathPatterns( excludedPaths );
+        registry.addInterceptor( sqlStatementInterceptor ).addPathPatterns( "/**" ).excludePathPatterns( excludedPaths );
     }
 }
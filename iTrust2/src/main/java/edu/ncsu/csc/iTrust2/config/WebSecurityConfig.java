@@ -1,25 +1,28 @@
 package edu.ncsu.csc.iTrust2.config;
 
 import javax.servlet.Filter;
-import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
-import org.springframework.security.config.annotation.authentication.configurers.provisioning.JdbcUserDetailsManagerConfigurer;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.access.channel.ChannelProcessingFilter;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 
+import edu.ncsu.csc.iTrust2.services.security.CachedUserDetailsService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Configures Spring security. Tells Spring how to find users in the system,
  * which API routes (don't) require authentication, and configures a few other
@@ -34,10 +37,42 @@ import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
     /**
-     * DataSource used for connecting to and interacting with the database.
+     * Loads users (with caching) for authentication.
+     */
+    @Autowired
+    private CachedUserDetailsService userDetailsService;
+
+    /**
+     * Registry to publish password hashing metrics to.
      */
     @Autowired
-    DataSource dataSource;
+    private MeterRegistry            registry;
+
+    /**
+     * BCrypt work factor used for new password hashes. Existing hashes made
+     * with a different work factor are rehashed when the user next logs in.
+     */
+    @Value ( "${itrust2.security.bcrypt.strength:10}" )
+    private int                      bcryptStrength;
+
+    /**
+     * Number of passwords that may be hashed at once. 0 means one per CPU.
+     */
+    @Value ( "${itrust2.security.bcrypt.threads:0}" )
+    private int                      bcryptThreads;
+
+    /**
+     * Number of passwords that may wait to be hashed before requests are
+     * turned away with a 503.
+     */
+    @Value ( "${itrust2.security.bcrypt.queueSize:64}" )
+    private int                      bcryptQueueSize;
+
+    /**
+     * How long (ms) a request waits for its password to be hashed.
+     */
+    @Value ( "${itrust2.security.bcrypt.timeoutMs:5000}" )
+    private long                     bcryptTimeoutMs;
 
     /**
      * Login configuration for iTrust2.
@@ -50,18 +85,10 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
      */
     @Autowired
     public void configureGlobal ( final AuthenticationManagerBuilder auth ) throws Exception {
-        final JdbcUserDetailsManagerConfigurer<AuthenticationManagerBuilder> dbManager = auth.jdbcAuthentication();
-
-        // User query enabled flag also checks for locked or banned users. The
-        // FailureHandler then
-        // determines if the DisabledUser Exception was due to ban, lockout, or
-        // true disable.
-        // POSSIBLE FUTURE CHANGE: Refactor the UserSource here along the lines
-        // of this:
-        // http://websystique.com/springmvc/spring-mvc-4-and-spring-security-4-integration-example/
-        dbManager.dataSource( dataSource ).passwordEncoder( passwordEncoder() )
-                .usersByUsernameQuery( "select username,password,enabled from user WHERE username = ?;" )
-                .authoritiesByUsernameQuery( "select user_username, roles from user_roles where user_username=?" );
+        // The enabled flag on a user also reflects locked or banned users. The
+        // FailureHandler then determines if the DisabledUser Exception was due
+        // to ban, lockout, or true disable.
+        auth.userDetailsService( userDetailsService ).passwordEncoder( passwordEncoder() );
         auth.authenticationEventPublisher( defaultAuthenticationEventPublisher() );
 
     }
@@ -111,13 +138,25 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
     /**
      * Bean used to generate a PasswordEncoder to hash the user-provided
-     * password.
+     * password. Hashing runs on a bounded pool of its own; see
+     * `BoundedBCryptPasswordEncoder`.
      *
      * @return The password encoder.
      */
-    @Bean
+    @Bean ( destroyMethod = "shutdown" )
     public PasswordEncoder passwordEncoder () {
-        return new BCryptPasswordEncoder();
+        final int threads = bcryptThreads > 0 ? bcryptThreads : Runtime.getRuntime().availableProcessors();
+        final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder( bcryptStrength, threads,
+                bcryptQueueSize, bcryptTimeoutMs );
+
+        Gauge.builder( "itrust2.password.hashing.active", encoder, BoundedBCryptPasswordEncoder::getActive )
+                .description( "Passwords being hashed" ).register( registry );
+        Gauge.builder( "itrust2.password.hashing.queued", encoder, BoundedBCryptPasswordEncoder::getQueued )
+                .description( "Passwords waiting to be hashed" ).register( registry );
+        FunctionCounter
+                .builder( "itrust2.password.hashing.rejected", encoder, BoundedBCryptPasswordEncoder::getRejected )
+                .description( "Password hashes turned away because the pool was busy" ).register( registry );
+        return encoder;
     }
 
     /**
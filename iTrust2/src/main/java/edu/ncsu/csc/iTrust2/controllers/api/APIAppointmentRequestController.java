@@ -1,7 +1,7 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,16 +13,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.AppointmentRequestForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
+import edu.ncsu.csc.iTrust2.forms.display.AppointmentSummary;
 import edu.ncsu.csc.iTrust2.models.AppointmentRequest;
 import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.Status;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.AppointmentRequestService;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -37,78 +42,132 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIAppointmentRequestController extends APIController {
 
+    /** Fields appointment requests can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "date", "date", "type", "type", "status",
+            "status", "patient", "patient.username", "hcp", "hcp.username" );
+
     /**
      * AppointmentRequest service
      */
     @Autowired
-    private AppointmentRequestService service;
+    private AppointmentRequestService        service;
 
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil                loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** User service */
     @Autowired
-    private UserService<User>         userService;
+    private UserService<User>                userService;
 
     /**
-     * Retrieves a list of all AppointmentRequests in the database
+     * Retrieves a list of the AppointmentRequests in the database, optionally
+     * filtered, sorted and paged (see `PageForm`)
      *
+     * @param status
+     *            Only return requests with this status
+     * @param patient
+     *            Only return requests from this patient
+     * @param hcp
+     *            Only return requests for this HCP
+     * @param type
+     *            Only return requests of this type
+     * @param paging
+     *            Page and sort to return
      * @return list of appointment requests
      */
     @GetMapping ( BASE_PATH + "/appointmentrequests" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP')" )
-    public List<AppointmentRequest> getAppointmentRequests () {
-        final List<AppointmentRequest> requests = service.findAll();
-
-        requests.stream().map( AppointmentRequest::getPatient ).distinct().forEach( e -> loggerUtil
-                .log( TransactionType.APPOINTMENT_REQUEST_VIEWED, LoggerUtil.currentUser(), e.getUsername() ) );
+    public ResponseEntity getAppointmentRequests ( @RequestParam ( required = false ) final Status status,
+            @RequestParam ( required = false ) final String patient,
+            @RequestParam ( required = false ) final String hcp,
+            @RequestParam ( required = false ) final AppointmentType type, final PageForm paging ) {
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "status", status ), FilterUtil.equal( "patient.username", patient ),
+                        FilterUtil.equal( "hcp.username", hcp ), FilterUtil.equal( "type", type ) ),
+                paging, SORTABLE, this::logViewed );
+    }
 
-        return requests;
+    /**
+     * Retrieves summaries of the AppointmentRequests in the database, for
+     * listing them. Takes the same filters, sorts and pages as
+     * `getAppointmentRequests()`, but reads each request in one narrow query
+     * that names its patient and HCP rather than loading them.
+     *
+     * @param status
+     *            Only return requests with this status
+     * @param patient
+     *            Only return requests from this patient
+     * @param hcp
+     *            Only return requests for this HCP
+     * @param type
+     *            Only return requests of this type
+     * @param paging
+     *            Page and sort to return
+     * @return list of appointment request summaries
+     */
+    @GetMapping ( BASE_PATH + "/appointmentrequests/summary" )
+    @PreAuthorize ( "hasAnyRole('ROLE_HCP')" )
+    public ResponseEntity getAppointmentSummaries ( @RequestParam ( required = false ) final Status status,
+            @RequestParam ( required = false ) final String patient,
+            @RequestParam ( required = false ) final String hcp,
+            @RequestParam ( required = false ) final AppointmentType type, final PageForm paging ) {
+        return list( paging, SORTABLE, sort -> service.findSummaries( status, patient, hcp, type, sort ),
+                page -> service.findSummaries( status, patient, hcp, type, page ),
+                summaries -> summaries.stream().map( AppointmentSummary::getPatient ).distinct()
+                        .forEach( e -> loggerUtil.log( TransactionType.APPOINTMENT_REQUEST_VIEWED,
+                                LoggerUtil.currentUser(), e ) ) );
     }
 
     /**
      * Retrieves appointment requests with PENDING status for the logged in
-     * patient
+     * patient, optionally sorted and paged (see `PageForm`)
      *
+     * @param paging
+     *            Page and sort to return
      * @return list of appointment requests for the logged in patient
      */
     @GetMapping ( BASE_PATH + "/appointmentrequest" )
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
-    public List<AppointmentRequest> getAppointmentRequestsForPatient () {
+    public ResponseEntity getAppointmentRequestsForPatient ( final PageForm paging ) {
         final User patient = userService.findByName( LoggerUtil.currentUser() );
-        return service.findByPatient( patient ).stream().filter( e -> e.getStatus().equals( Status.PENDING ) )
-                .collect( Collectors.toList() );
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "patient", patient ), FilterUtil.equal( "status", Status.PENDING ) ),
+                paging, SORTABLE, null );
     }
 
     /**
      * Retrieves appointment requests with APPROVED status for the logged in
-     * patient
+     * patient, optionally sorted and paged (see `PageForm`)
      *
+     * @param paging
+     *            Page and sort to return
      * @return list of appointment requests for the logged in patient
      */
     @GetMapping ( BASE_PATH + "/appointmentrequest/approved" )
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
-    public List<AppointmentRequest> getApprovedAppointmentRequestsForPatient () {
+    public ResponseEntity getApprovedAppointmentRequestsForPatient ( final PageForm paging ) {
         final User patient = userService.findByName( LoggerUtil.currentUser() );
-        return service.findByPatient( patient ).stream().filter( e -> e.getStatus().equals( Status.APPROVED ) )
-                .collect( Collectors.toList() );
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "patient", patient ), FilterUtil.equal( "status", Status.APPROVED ) ),
+                paging, SORTABLE, null );
     }
 
     /**
-     * Retrieves the AppointmentRequests for the currently logged in hcp
+     * Retrieves the PENDING AppointmentRequests for the currently logged in
+     * hcp, optionally sorted and paged (see `PageForm`)
      *
+     * @param paging
+     *            Page and sort to return
      * @return list of appointment requests for the logged in hcp
      */
     @GetMapping ( BASE_PATH + "/appointmentrequestForHCP" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP')" )
-    public List<AppointmentRequest> getAppointmentRequestsForHCP () {
-
+    public ResponseEntity getAppointmentRequestsForHCP ( final PageForm paging ) {
         final User hcp = userService.findByName( LoggerUtil.currentUser() );
-
-        return service.findByHcp( hcp ).stream().filter( e -> e.getStatus().equals( Status.PENDING ) )
-                .collect( Collectors.toList() );
-
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "hcp", hcp ), FilterUtil.equal( "status", Status.PENDING ) ),
+                paging, SORTABLE, null );
     }
 
     /**
@@ -268,22 +327,32 @@ public class APIAppointmentRequestController extends APIController {
 
     /**
      * View Appointments will retrieve and display all appointments for the
-     * logged-in HCP that are in "approved" status
-     *
+     * logged-in HCP that are in "approved" status, optionally sorted and paged
+     * (see `PageForm`)
      *
+     * @param paging
+     *            Page and sort to return
      * @return The page to display for the user
      */
     @GetMapping ( BASE_PATH + "/viewAppointments" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP')" )
-    public List<AppointmentRequest> upcomingAppointments () {
+    public ResponseEntity upcomingAppointments ( final PageForm paging ) {
         final User hcp = userService.findByName( LoggerUtil.currentUser() );
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "hcp", hcp ), FilterUtil.equal( "status", Status.APPROVED ) ),
+                paging, SORTABLE, this::logViewed );
+    }
 
-        final List<AppointmentRequest> appointment = service.findByHcp( hcp ).stream()
-                .filter( e -> e.getStatus().equals( Status.APPROVED ) ).collect( Collectors.toList() );
-        /* Log the event */
-        appointment.stream().map( AppointmentRequest::getPatient ).distinct().forEach( e -> loggerUtil
+    /**
+     * Logs that the current user viewed the appointment requests of each
+     * patient in a list
+     *
+     * @param requests
+     *            The requests viewed
+     */
+    private void logViewed ( final List<AppointmentRequest> requests ) {
+        requests.stream().map( AppointmentRequest::getPatient ).distinct().forEach( e -> loggerUtil
                 .log( TransactionType.APPOINTMENT_REQUEST_VIEWED, LoggerUtil.currentUser(), e.getUsername() ) );
-        return appointment;
     }
 
 }
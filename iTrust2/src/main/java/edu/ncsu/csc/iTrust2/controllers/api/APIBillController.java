@@ -1,29 +1,34 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.forms.PaymentForm;
 import edu.ncsu.csc.iTrust2.models.Bill;
-import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.Payment;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.BillService;
-import edu.ncsu.csc.iTrust2.services.OfficeVisitService;
 import edu.ncsu.csc.iTrust2.services.PaymentService;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * Provides REST endpoints that deal with bills and payments. Exposes
@@ -36,25 +41,29 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "rawtypes", "unchecked" } )
 public class APIBillController extends APIController {
 
+    /** Fields bills can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "totalDue", "totalDue", "balance",
+            "balance", "delinquentOn", "delinquentOn", "date", "visit.date", "patient", "visit.patient.username" );
+
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil         loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** Bill service */
     @Autowired
-    private BillService        billService;
+    private BillService                      billService;
 
     /** Payment service */
     @Autowired
-    private PaymentService     paymentService;
+    private PaymentService                   paymentService;
 
-    /** OfficeVisit service */
+    /** User service */
     @Autowired
-    private OfficeVisitService officeVisitService;
+    private UserService                      userService;
 
-    /** User service */
+    /** Streams records to the client */
     @Autowired
-    private UserService        userService;
+    private NdjsonExporter                   exporter;
 
     /**
      * Gets the specified Bill.
@@ -79,16 +88,65 @@ public class APIBillController extends APIController {
     }
 
     /**
-     * Gets all bills.
+     * Gets the bills, optionally filtered, sorted and paged (see `PageForm`).
      *
-     * @return A list of all bills.
+     * @param paid
+     *            Only return bills that have (true) or haven't (false) been
+     *            paid
+     * @param patient
+     *            Only return bills for this patient's visits
+     * @param paging
+     *            Page and sort to return
+     * @return A list of bills.
      */
     @PreAuthorize ( "hasAnyRole('ROLE_BILLING')" )
     @GetMapping ( BASE_PATH + "/bills/" )
-    public List<Bill> getBills () {
+    public ResponseEntity getBills ( @RequestParam ( required = false ) final Boolean paid,
+            @RequestParam ( required = false ) final String patient, final PageForm paging ) {
         // Return all bills in system
         loggerUtil.log( TransactionType.BILL_VIEW, LoggerUtil.currentUser(), "User viewed a list of all bills" );
-        return billService.findAll();
+        return list( billService, FilterUtil.all( FilterUtil.equal( "isPaid", paid ),
+                FilterUtil.equal( "visit.patient.username", patient ) ), paging, SORTABLE, null );
+    }
+
+    /**
+     * Gets summaries of the bills, for listing them. Takes the same filters,
+     * sorts and pages as `getBills()`, but reads each bill with only its
+     * visit's date and patient in one narrow query.
+     *
+     * @param paid
+     *            Only return bills that have (true) or haven't (false) been
+     *            paid
+     * @param patient
+     *            Only return bills for this patient's visits
+     * @param paging
+     *            Page and sort to return
+     * @return A list of bill summaries.
+     */
+    @PreAuthorize ( "hasAnyRole('ROLE_BILLING')" )
+    @GetMapping ( BASE_PATH + "/bills/summary" )
+    public ResponseEntity getBillSummaries ( @RequestParam ( required = false ) final Boolean paid,
+            @RequestParam ( required = false ) final String patient, final PageForm paging ) {
+        loggerUtil.log( TransactionType.BILL_VIEW, LoggerUtil.currentUser(), "User viewed a list of all bills" );
+        return list( paging, SORTABLE, sort -> billService.findSummaries( paid, patient, sort ),
+                page -> billService.findSummaries( paid, patient, page ), null );
+    }
+
+    /**
+     * Exports every bill as NDJSON, one bill per line. Unlike
+     * `getBills()`, the bills are read from the database as they are
+     * written out, so this works however many there are.
+     *
+     * @param response
+     *            Response to write the bills to
+     * @throws IOException
+     *             if the response can't be written
+     */
+    @GetMapping ( BASE_PATH + "/bills/export" )
+    @PreAuthorize ( "hasAnyRole('ROLE_BILLING')" )
+    public void exportBills ( final HttpServletResponse response ) throws IOException {
+        loggerUtil.log( TransactionType.BILL_VIEW, LoggerUtil.currentUser(), "User exported all bills" );
+        exporter.export( response, billService );
     }
 
     /**
@@ -164,15 +222,22 @@ public class APIBillController extends APIController {
     }
 
     /**
-     * Gets a patient's bills.
+     * Gets a patient's bills, most recent visit first unless sorted otherwise.
+     * Bills can be filtered by status, sorted and paged (see `PageForm`).
      *
      * @param username
      *            The user to query.
+     * @param status
+     *            Optional status ("Paid", "Unpaid" or "Delinquent") to filter
+     *            by.
+     * @param paging
+     *            Page and sort to return
      * @return The bills of the specified patient.
      */
     @PreAuthorize ( "hasAnyRole('ROLE_BILLING')" )
     @GetMapping ( BASE_PATH + "/patients/{username}/bills" )
-    public ResponseEntity getPatientBills ( @PathVariable final String username ) {
+    public ResponseEntity getPatientBills ( @PathVariable final String username,
+            @RequestParam ( required = false ) final String status, final PageForm paging ) {
         final User user = userService.findByName( username );
         if ( user == null ) {
             loggerUtil.log( TransactionType.VIEW_PATIENT_BILLS, LoggerUtil.currentUser(),
@@ -181,59 +246,49 @@ public class APIBillController extends APIController {
                     HttpStatus.NOT_FOUND );
         }
 
-        final List<OfficeVisit> officeVisits = officeVisitService.findByPatient( user );
-        final List<Bill> bills = new LinkedList<Bill>();
-        for ( final OfficeVisit visit : officeVisits ) {
-            if ( visit.getBill() != null ) {
-                bills.add( visit.getBill() );
-            }
-        }
-        loggerUtil.log( TransactionType.VIEW_PATIENT_BILLS, LoggerUtil.currentUser(),
-                "Viewed bills of patient " + username );
-        return new ResponseEntity( bills, HttpStatus.OK );
+        return list( paging, SORTABLE, sort -> billService.findByPatient( user, status, sort ),
+                page -> billService.findByPatient( user, status, page ),
+                bills -> loggerUtil.log( TransactionType.VIEW_PATIENT_BILLS, LoggerUtil.currentUser(),
+                        "Viewed bills of patient " + username ) );
     }
 
     /**
-     * Gets the currently signed in patient's bills.
+     * Gets the currently signed in patient's bills, most recent visit first
+     * unless sorted otherwise. Bills can be filtered by status, sorted and
+     * paged (see `PageForm`).
      *
+     * @param status
+     *            Optional status ("Paid", "Unpaid" or "Delinquent") to filter
+     *            by.
+     * @param paging
+     *            Page and sort to return
      * @return The bills of the specified patient.
      */
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
     @GetMapping ( BASE_PATH + "/patient/bills" )
-    public List<Bill> getUserBills () {
+    public ResponseEntity getUserBills ( @RequestParam ( required = false ) final String status,
+            final PageForm paging ) {
         final User user = userService.findByName( LoggerUtil.currentUser() );
-        final List<OfficeVisit> officeVisits = officeVisitService.findByPatient( user );
-        final List<Bill> bills = new LinkedList<Bill>();
-        for ( final OfficeVisit visit : officeVisits ) {
-            if ( visit.getBill() != null ) {
-                bills.add( visit.getBill() );
-            }
-        }
-        loggerUtil.log( TransactionType.PATIENT_VIEW_BILLS, LoggerUtil.currentUser(), "Patient viewed bills" );
-        return bills;
+        return list( paging, SORTABLE, sort -> billService.findByPatient( user, status, sort ),
+                page -> billService.findByPatient( user, status, page ), bills -> loggerUtil
+                        .log( TransactionType.PATIENT_VIEW_BILLS, LoggerUtil.currentUser(), "Patient viewed bills" ) );
     }
 
     /**
      * Gets one of the currently signed in patient's bills.
      *
+     * @param id
+     *            The Bill to get.
      * @return The bill of the specified patient.
      */
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
     @GetMapping ( BASE_PATH + "/patient/bills/{id}" )
     public ResponseEntity getUserBill ( @PathVariable final Long id ) {
-        final User user = userService.findByName( LoggerUtil.currentUser() );
-        final List<OfficeVisit> officeVisits = officeVisitService.findByPatient( user );
-        final List<Bill> bills = new LinkedList<Bill>();
-        for ( final OfficeVisit visit : officeVisits ) {
-            if ( visit.getBill() != null ) {
-                bills.add( visit.getBill() );
-            }
-        }
-        Bill bill = null;
-        for ( int i = 0; i < bills.size(); i++ ) {
-            if ( bills.get( i ).getId().equals( id ) ) {
-                bill = bills.get( i );
-            }
+        final Bill bill = findUserBill( id );
+        if ( bill == null ) {
+            loggerUtil.log( TransactionType.PATIENT_VIEW_BILLS, LoggerUtil.currentUser(),
+                    "Failed to find bill with id " + id );
+            return new ResponseEntity( errorResponse( "No Bill found for id " + id ), HttpStatus.NOT_FOUND );
         }
         loggerUtil.log( TransactionType.PATIENT_VIEW_BILLS, LoggerUtil.currentUser(), "Patient viewed bill" );
         return new ResponseEntity( bill, HttpStatus.OK );
@@ -249,9 +304,8 @@ public class APIBillController extends APIController {
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
     @GetMapping ( BASE_PATH + "/patient/bills/{id}/status" )
     public ResponseEntity getUserBillStatus ( @PathVariable final Long id ) {
-        final Bill b = billService.findById( id );
-        final User user = userService.findByName( LoggerUtil.currentUser() );
-        if ( b == null || b.getVisit().getPatient() != user ) {
+        final Bill b = findUserBill( id );
+        if ( b == null ) {
             loggerUtil.log( TransactionType.BILL_VIEW_STATUS, LoggerUtil.currentUser(),
                     "Failed to find bill with id " + id );
             return new ResponseEntity( errorResponse( "No Bill found for id " + id ), HttpStatus.NOT_FOUND );
@@ -273,9 +327,8 @@ public class APIBillController extends APIController {
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
     @GetMapping ( BASE_PATH + "/patient/bills/{id}/balance" )
     public ResponseEntity getUserBillBalance ( @PathVariable final Long id ) {
-        final Bill b = billService.findById( id );
-        final User user = userService.findByName( LoggerUtil.currentUser() );
-        if ( b == null || b.getVisit().getPatient() != user ) {
+        final Bill b = findUserBill( id );
+        if ( b == null ) {
             loggerUtil.log( TransactionType.BILL_VIEW_BALANCE, LoggerUtil.currentUser(),
                     "Failed to find bill with id " + id );
             return new ResponseEntity( errorResponse( "No Bill found for id " + id ), HttpStatus.NOT_FOUND );
@@ -297,9 +350,8 @@ public class APIBillController extends APIController {
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
     @GetMapping ( BASE_PATH + "/patient/bills/{id}/payments" )
     public ResponseEntity getUserBillPayments ( @PathVariable final Long id ) {
-        final Bill b = billService.findById( id );
-        final User user = userService.findByName( LoggerUtil.currentUser() );
-        if ( b == null || b.getVisit().getPatient() != user ) {
+        final Bill b = findUserBill( id );
+        if ( b == null ) {
             loggerUtil.log( TransactionType.BILL_VIEW_PAYMENTS, LoggerUtil.currentUser(),
                     "Failed to find bill with id " + id );
             return new ResponseEntity( errorResponse( "No Bill found for id " + id ), HttpStatus.NOT_FOUND );
@@ -312,8 +364,11 @@ public class APIBillController extends APIController {
     }
 
     /**
-     * Adds a new payment to the specified bill.
+     * Adds a new payment to the specified bill. Responds with 409 Conflict if
+     * another payment was added to the bill at the same time.
      *
+     * @param id
+     *            The Bill to pay.
      * @param form
      *            The submission data form used to create the payment.
      * @return The response to the request.
@@ -323,28 +378,22 @@ public class APIBillController extends APIController {
     public ResponseEntity addPayment ( @PathVariable final Long id, @RequestBody final PaymentForm form ) {
         try {
             final Payment p = paymentService.build( form );
-            paymentService.save( p );
-            final Bill b = billService.findById( id );
+            final Bill b = billService.addPayment( id, p );
 
             if ( b == null ) {
                 loggerUtil.log( TransactionType.BILL_ADD_PAYMENT, LoggerUtil.currentUser(),
                         "Failed to find bill with id " + id );
                 return new ResponseEntity( errorResponse( "No Bill found for id " + id ), HttpStatus.NOT_FOUND );
             }
-            else {
-                try {
-                    b.addPayment( p );
-                    loggerUtil.log( TransactionType.BILL_ADD_PAYMENT, LoggerUtil.currentUser(),
-                            "Added payment to bill " + id );
-                    return new ResponseEntity( p, HttpStatus.OK );
-                }
-                catch ( final IllegalArgumentException e ) {
-                    loggerUtil.log( TransactionType.BILL_ADD_PAYMENT, LoggerUtil.currentUser(),
-                            "Failed to add payment" );
-                    return new ResponseEntity( errorResponse( "Could not create payment for bill: " + e.getMessage() ),
-                            HttpStatus.BAD_REQUEST );
-                }
-            }
+            loggerUtil.log( TransactionType.BILL_ADD_PAYMENT, LoggerUtil.currentUser(),
+                    "Added payment to bill " + id );
+            return new ResponseEntity( p, HttpStatus.OK );
+        }
+        catch ( final ObjectOptimisticLockingFailureException e ) {
+            loggerUtil.log( TransactionType.BILL_ADD_PAYMENT, LoggerUtil.currentUser(), "Failed to add payment" );
+            return new ResponseEntity(
+                    errorResponse( "Bill " + id + " was changed by someone else; reload it and try again" ),
+                    HttpStatus.CONFLICT );
         }
         catch ( final Exception e ) {
             loggerUtil.log( TransactionType.BILL_ADD_PAYMENT, LoggerUtil.currentUser(), "Failed to add payment" );
@@ -353,4 +402,16 @@ public class APIBillController extends APIController {
         }
     }
 
+    /**
+     * Finds one of the currently signed in patient's bills
+     *
+     * @param id
+     *            The Bill to get.
+     * @return The bill, or null if there is no such bill or it belongs to
+     *         someone else.
+     */
+    private Bill findUserBill ( final Long id ) {
+        return billService.findByIdAndPatient( id, userService.findByName( LoggerUtil.currentUser() ) );
+    }
+
 }
@@ -1,6 +1,6 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,12 +12,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.models.CPTCode;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.CPTCodeService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -30,13 +33,17 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "rawtypes", "unchecked" } )
 public class APICPTCodeController extends APIController {
 
+    /** Fields CPT codes can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "code", "code", "description",
+            "description", "cost", "cost" );
+
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil     loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** CPT Code service */
     @Autowired
-    private CPTCodeService cptService;
+    private CPTCodeService                   cptService;
 
     /**
      * Adds a new CPT code to the system.
@@ -96,30 +103,62 @@ public class APICPTCodeController extends APIController {
     }
 
     /**
-     * Gets all CPT codes.
+     * Gets the CPT codes that aren't archived, optionally searched, sorted and
+     * paged (see `PageForm`).
      *
-     * @return A list of all CPT codes.
+     * @param search
+     *            Only return codes whose description contains this
+     * @param paging
+     *            Page and sort to return
+     * @return A list of CPT codes.
      */
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_BILLING')" )
     @GetMapping ( BASE_PATH + "/cptcodes/" )
-    public List<CPTCode> getCodes () {
+    public ResponseEntity getCodes ( @RequestParam ( required = false ) final String search, final PageForm paging ) {
         // Return all CPT codes in system
         loggerUtil.log( TransactionType.CPT_VIEW, LoggerUtil.currentUser(), "User viewed a list of all CPT codes" );
-        return cptService.findByIsArchived( false );
+        return listCodes( false, search, paging );
     }
 
     /**
-     * Gets all archived CPT codes.
+     * Gets the archived CPT codes, optionally searched, sorted and paged (see
+     * `PageForm`).
      *
-     * @return A list of all archived CPT codes.
+     * @param search
+     *            Only return codes whose description contains this
+     * @param paging
+     *            Page and sort to return
+     * @return A list of archived CPT codes.
      */
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_BILLING')" )
     @GetMapping ( BASE_PATH + "/cptarchive/" )
-    public List<CPTCode> getArchivedCodes () {
+    public ResponseEntity getArchivedCodes ( @RequestParam ( required = false ) final String search,
+            final PageForm paging ) {
         // Return all archived CPT codes in system
         loggerUtil.log( TransactionType.CPT_VIEW_ARCHIVED, LoggerUtil.currentUser(),
                 "User viewed a list of all archived CPT codes" );
-        return cptService.findByIsArchived( true );
+        return listCodes( true, search, paging );
+    }
+
+    /**
+     * Lists the archived or current CPT codes. Without a search, sort or page
+     * they come from the codes held in memory, as before; otherwise the
+     * database is queried.
+     *
+     * @param archived
+     *            Whether to list archived codes
+     * @param search
+     *            Only return codes whose description contains this
+     * @param paging
+     *            Page and sort to return
+     * @return The response
+     */
+    private ResponseEntity listCodes ( final boolean archived, final String search, final PageForm paging ) {
+        if ( null == search && !paging.isPaged() && !paging.isSorted() ) {
+            return new ResponseEntity( cptService.findByIsArchived( archived ), HttpStatus.OK );
+        }
+        return list( cptService, FilterUtil.all( FilterUtil.equal( "isArchived", archived ),
+                FilterUtil.contains( search, "description" ) ), paging, SORTABLE, null );
     }
 
     /**
@@ -132,11 +171,13 @@ public class APICPTCodeController extends APIController {
     @PreAuthorize ( "hasAnyRole('ROLE_BILLING')" )
     @DeleteMapping ( BASE_PATH + "/cptcodes/{code}" )
     public ResponseEntity archiveCode ( @PathVariable final Long code ) {
-        final CPTCode c = cptService.findByCode( code );
-        if ( c == null ) {
+        final CPTCode current = cptService.findByCode( code );
+        if ( current == null ) {
             return new ResponseEntity( errorResponse( "No CPT code found matching " + code ), HttpStatus.NOT_FOUND );
         }
         try {
+            // Change a copy read from the database, not the shared cached one
+            final CPTCode c = cptService.findById( current.getId() );
             c.setIsArchived( true );
             cptService.save( c );
             loggerUtil.log( TransactionType.CPT_ARCHIVE, LoggerUtil.currentUser(), "Archived CPT code " + code );
@@ -163,22 +204,20 @@ public class APICPTCodeController extends APIController {
     public ResponseEntity editCode ( @PathVariable final Long code, @RequestBody final CPTCodeForm form ) {
         try {
             final CPTCode c = cptService.build( form );
-            final CPTCode saved = cptService.findByCode( code );
-            if ( saved == null ) {
+            final CPTCode current = cptService.findByCode( code );
+            if ( current == null ) {
                 loggerUtil.log( TransactionType.CPT_EDIT, LoggerUtil.currentUser(),
                         "No CPT code found matching " + c.getCode() );
                 return new ResponseEntity( errorResponse( "No CPT code found matching " + c.getCode() ),
                         HttpStatus.NOT_FOUND );
             }
-            if ( saved.getIsArchived() ) {
+            if ( current.getIsArchived() ) {
                 throw new IllegalArgumentException( "Archived codes cannot be edited." );
             }
-            // c.setId( saved.getId() );
-            c.setVersion( saved.getVersion() + 1 );
-            saved.setIsArchived( true );
-
-            cptService.save( c );
-            cptService.save( saved );
+            // Change a copy read from the database, not the shared cached one
+            final CPTCode saved = cptService.findById( current.getId() );
+            // Archives the old version and makes the new one current
+            cptService.replace( saved, c );
             loggerUtil.log( TransactionType.CPT_EDIT, LoggerUtil.currentUser(), "Edited CPT code " + c.getCode() );
             return new ResponseEntity( c, HttpStatus.OK );
         }
@@ -1,7 +1,24 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
 import com.google.gson.Gson;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
+import edu.ncsu.csc.iTrust2.models.DomainObject;
+import edu.ncsu.csc.iTrust2.services.SpecificationService;
+
 /**
  * Base class for all of the API controllers for manipulating DomainObjects. Add
  * in any fields or functionality that ought to be shared throughout.
@@ -28,13 +45,25 @@ import com.google.gson.Gson;
  */
 public abstract class APIController {
     /** Base path of API */
-    static final protected String BASE_PATH = "/api/v1/";
+    static final protected String BASE_PATH   = "/api/v1/";
 
     /**
      * Used to serialize data and messages to JSON for transmitting through the
      * REST API
      */
-    static final private Gson     GSON      = new Gson();
+    static final private Gson     GSON        = new Gson();
+
+    /** Header giving the number of results on every page of a list */
+    static final protected String TOTAL_COUNT = "X-Total-Count";
+
+    /** Header giving the number of pages in a list */
+    static final protected String TOTAL_PAGES = "X-Total-Pages";
+
+    /** Header giving the page of a list that was returned, from 1 */
+    static final protected String PAGE        = "X-Page";
+
+    /** Header giving the number of results per page */
+    static final protected String PAGE_SIZE   = "X-Page-Size";
 
     /**
      * Turns the provided object into JSON
@@ -99,6 +128,89 @@ public abstract class APIController {
         return responseMessage( "success", message );
     }
 
+    /**
+     * Answers a request for a list of records. The filter, sort and page are
+     * applied by the database; the records are returned as a JSON array, as
+     * every list endpoint always has, and when a page was asked for the
+     * `X-Total-Count`, `X-Total-Pages`, `X-Page` and `X-Page-Size` headers say
+     * where it sits in the whole list. With no filter, sort or page the
+     * Service's own `findAll()` is used, so catalogs held in memory are still
+     * served from there.
+     *
+     * @param service
+     *            Service to read the records from
+     * @param filter
+     *            Filter to apply (see `FilterUtil`), or null for every record
+     * @param paging
+     *            Page and sort asked for
+     * @param sortable
+     *            Fields the list can be sorted by, mapped to the property
+     *            each one sorts
+     * @param read
+     *            Called with the records before they are returned, such as to
+     *            log who was viewed; may be null
+     * @return The response; 400 if asked to sort by a field that can't be
+     *         sorted by
+     */
+    static protected <T extends DomainObject> ResponseEntity<Object> list ( final SpecificationService<T, ?> service,
+            final Specification<T> filter, final PageForm paging, final Map<String, String> sortable,
+            final Consumer<List<T>> read ) {
+        if ( null == filter && !paging.isPaged() && !paging.isSorted() ) {
+            final List<T> records = service.findAll();
+            if ( null != read ) {
+                read.accept( records );
+            }
+            return new ResponseEntity<Object>( records, HttpStatus.OK );
+        }
+        return list( paging, sortable, sort -> service.findAll( filter, sort ),
+                page -> service.findAll( filter, page ), read );
+    }
+
+    /**
+     * Answers a request for a list of rows that aren't whole records, such as
+     * the summaries in `forms.display`, as `list()` does for records
+     *
+     * @param paging
+     *            Page and sort asked for
+     * @param sortable
+     *            Fields the list can be sorted by, mapped to the property
+     *            each one sorts
+     * @param all
+     *            Reads every row, in the order given
+     * @param paged
+     *            Reads one page of rows
+     * @param read
+     *            Called with the rows before they are returned; may be null
+     * @return The response; 400 if asked to sort by a field that can't be
+     *         sorted by
+     */
+    static protected <R> ResponseEntity<Object> list ( final PageForm paging, final Map<String, String> sortable,
+            final Function<Sort, List<R>> all, final Function<Pageable, Page<R>> paged,
+            final Consumer<List<R>> read ) {
+        final List<R> rows;
+        final HttpHeaders headers = new HttpHeaders();
+        try {
+            if ( paging.isPaged() ) {
+                final Page<R> page = paged.apply( paging.toPageable( sortable ) );
+                rows = page.getContent();
+                headers.set( TOTAL_COUNT, String.valueOf( page.getTotalElements() ) );
+                headers.set( TOTAL_PAGES, String.valueOf( page.getTotalPages() ) );
+                headers.set( PAGE, String.valueOf( page.getNumber() + 1 ) );
+                headers.set( PAGE_SIZE, String.valueOf( page.getSize() ) );
+            }
+            else {
+                rows = all.apply( paging.toSort( sortable ) );
+            }
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<Object>( errorResponse( e.getMessage() ), HttpStatus.BAD_REQUEST );
+        }
+        if ( null != read ) {
+            read.accept( rows );
+        }
+        return new ResponseEntity<Object>( rows, headers, HttpStatus.OK );
+    }
+
     /**
      * Small class used for creating simple success/error messages to return via
      * the REST API. Contains a status of the action and an message.
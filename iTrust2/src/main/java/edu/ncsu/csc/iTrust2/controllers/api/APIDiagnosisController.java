@@ -1,16 +1,21 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import edu.ncsu.csc.iTrust2.forms.DiagnosisListForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.models.Diagnosis;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.User;
@@ -33,23 +38,27 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIDiagnosisController extends APIController {
 
+    /** Fields a patient's diagnoses can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "date", "visitDate", "hcp", "hcp", "code",
+            "code" );
+
     /**
      * LoggerUtil
      */
     @Autowired
-    private LoggerUtil         loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** Diagnosis Service */
     @Autowired
-    private DiagnosisService   diagnosisService;
+    private DiagnosisService                 diagnosisService;
 
     /** OfficeVisit service */
     @Autowired
-    private OfficeVisitService officeVisitService;
+    private OfficeVisitService               officeVisitService;
 
     /** User service */
     @Autowired
-    private UserService<User>  userService;
+    private UserService<User>                userService;
 
     /**
      * Returns the Diagnosis with the specified ID.
@@ -91,21 +100,44 @@ public class APIDiagnosisController extends APIController {
     }
 
     /**
-     * Returns a list of diagnoses for the logged in patient
+     * Returns a list of diagnoses for the logged in patient, most recent visit
+     * first unless sorted otherwise. Diagnoses can be limited to a range of
+     * dates or a single ICD-10 code, sorted and paged (see `PageForm`).
      *
+     * @param from
+     *            Optional first day (ISO date, such as 2048-04-16) to return
+     *            diagnoses from
+     * @param to
+     *            Optional last day (ISO date) to return diagnoses from
+     * @param code
+     *            Optional ICD-10 code to filter by
+     * @param paging
+     *            Page and sort to return
      * @return List of Diagnoses for the patient
      */
     @GetMapping ( BASE_PATH + "/diagnoses" )
-    public List<DiagnosisListForm> getDiagnosis () {
+    public ResponseEntity getDiagnosis ( @RequestParam ( required = false ) final String from,
+            @RequestParam ( required = false ) final String to, @RequestParam ( required = false ) final String code,
+            final PageForm paging ) {
         final User self = userService.findByName( LoggerUtil.currentUser() );
         if ( self == null ) {
-            return null;
+            return new ResponseEntity( errorResponse( "No user found" ), HttpStatus.NOT_FOUND );
+        }
+
+        final ZonedDateTime start;
+        final ZonedDateTime end;
+        try {
+            start = null == from ? null : LocalDate.parse( from ).atStartOfDay( ZoneId.systemDefault() );
+            end = null == to ? null : LocalDate.parse( to ).atStartOfDay( ZoneId.systemDefault() ).plusDays( 1 );
+        }
+        catch ( final DateTimeParseException e ) {
+            return new ResponseEntity( errorResponse( "Dates must be given as yyyy-MM-dd" ), HttpStatus.BAD_REQUEST );
         }
-        loggerUtil.log( TransactionType.DIAGNOSIS_PATIENT_VIEW_ALL, self.getUsername(),
-                self.getUsername() + " viewed their diagnoses" );
 
-        return diagnosisService.findByPatient( self ).stream().map( DiagnosisListForm::new )
-                .collect( Collectors.toList() );
+        return list( paging, SORTABLE, sort -> diagnosisService.listByPatient( self, start, end, code, sort ),
+                page -> diagnosisService.listByPatient( self, start, end, code, page ),
+                diagnoses -> loggerUtil.log( TransactionType.DIAGNOSIS_PATIENT_VIEW_ALL, self.getUsername(),
+                        self.getUsername() + " viewed their diagnoses" ) );
     }
 
 }
@@ -1,6 +1,6 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,12 +12,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.DrugForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.models.Drug;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.DrugService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -31,13 +34,16 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @RestController
 public class APIDrugController extends APIController {
 
+    /** Fields drugs can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "code", "code", "name", "name" );
+
     /** Drug service */
     @Autowired
-    private DrugService service;
+    private DrugService                      service;
 
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil  loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /**
      * Adds a new drug to the system. Requires admin permissions. Returns an
@@ -146,14 +152,20 @@ public class APIDrugController extends APIController {
     }
 
     /**
-     * Gets a list of all the drugs in the system.
+     * Gets a list of the drugs in the system, optionally searched, sorted and
+     * paged (see `PageForm`).
      *
+     * @param search
+     *            Only return drugs whose code, name or description contains
+     *            this
+     * @param paging
+     *            Page and sort to return
      * @return a list of drugs
      */
     @GetMapping ( BASE_PATH + "/drugs" )
-    public List<Drug> getDrugs () {
+    public ResponseEntity getDrugs ( @RequestParam ( required = false ) final String search, final PageForm paging ) {
         loggerUtil.log( TransactionType.DRUG_VIEW, LoggerUtil.currentUser(), "Fetched list of drugs" );
-        return service.findAll();
+        return list( service, FilterUtil.contains( search, "code", "name", "description" ), paging, SORTABLE, null );
     }
 
 }
@@ -1,13 +1,18 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.models.Email;
 import edu.ncsu.csc.iTrust2.services.EmailService;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * Controller to enable retrieving the fake emails sent in the iTrust2 system
@@ -22,6 +27,10 @@ public class APIEmailController extends APIController {
     @Autowired
     private EmailService service;
 
+    /** Streams records to the client */
+    @Autowired
+    private NdjsonExporter exporter;
+
     /**
      * Retrieves and returns all fake emails. Note that for real, this would be
      * a MASSIVE security vulnerability to not only make everything available,
@@ -34,4 +43,20 @@ public class APIEmailController extends APIController {
         return service.findAll();
     }
 
+    /**
+     * Exports every email as NDJSON, one email per line. Unlike
+     * `getEmails()`, the emails are read from the database as they are
+     * written out, so this works however many there are.
+     *
+     * @param response
+     *            Response to write the emails to
+     * @throws IOException
+     *             if the response can't be written
+     */
+    @GetMapping ( BASE_PATH + "emails/export" )
+    @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
+    public void exportEmails ( final HttpServletResponse response ) throws IOException {
+        exporter.export( response, service );
+    }
+
 }
@@ -1,6 +1,6 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,12 +12,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.HospitalForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.models.Hospital;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.HospitalService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -32,22 +35,31 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIHospitalController extends APIController {
 
+    /** Fields hospitals can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "name", "name", "state", "state", "zip", "zip" );
+
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil      loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** Hospital service */
     @Autowired
-    private HospitalService hospitalService;
+    private HospitalService                  hospitalService;
 
     /**
-     * Retrieves a list of all Hospitals in the database
+     * Retrieves a list of the Hospitals in the database, optionally searched,
+     * sorted and paged (see `PageForm`)
      *
+     * @param search
+     *            Only return hospitals whose name or address contains this
+     * @param paging
+     *            Page and sort to return
      * @return list of hospitals
      */
     @GetMapping ( BASE_PATH + "/hospitals" )
-    public List<Hospital> getHospitals () {
-        return hospitalService.findAll();
+    public ResponseEntity getHospitals ( @RequestParam ( required = false ) final String search,
+            final PageForm paging ) {
+        return list( hospitalService, FilterUtil.contains( search, "name", "address" ), paging, SORTABLE, null );
     }
 
     /**
@@ -110,7 +122,9 @@ public class APIHospitalController extends APIController {
     @PutMapping ( BASE_PATH + "/hospitals/{id}" )
     @PreAuthorize ( "hasRole('ROLE_ADMIN') " )
     public ResponseEntity updateHospital ( @PathVariable final String id, @RequestBody final HospitalForm hospitalF ) {
-        final Hospital dbHospital = hospitalService.findByName( id );
+        // Read from the database, rather than the shared cached copy, since
+        // we are about to change it
+        final Hospital dbHospital = hospitalService.findById( id );
         if ( null == dbHospital ) {
             return new ResponseEntity( errorResponse( "No hospital found for name " + id ), HttpStatus.NOT_FOUND );
         }
@@ -1,6 +1,6 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,12 +12,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.ICDCodeForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.models.ICDCode;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.ICDCodeService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -33,23 +36,32 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIICDCodeController extends APIController {
 
+    /** Fields codes can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "code", "code", "description",
+            "description" );
+
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil     loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** ICDCode service */
     @Autowired
-    private ICDCodeService service;
+    private ICDCodeService                   service;
 
     /**
-     * Returns a list of Codes in the system
+     * Returns a list of Codes in the system, optionally searched, sorted and
+     * paged (see `PageForm`)
      *
-     * @return All the codes in the system
+     * @param search
+     *            Only return codes whose code or description contains this
+     * @param paging
+     *            Page and sort to return
+     * @return The codes in the system
      */
     @GetMapping ( BASE_PATH + "/icdcodes" )
-    public List<ICDCode> getCodes () {
+    public ResponseEntity getCodes ( @RequestParam ( required = false ) final String search, final PageForm paging ) {
         loggerUtil.log( TransactionType.ICD_VIEW_ALL, LoggerUtil.currentUser(), "Fetched icd codes" );
-        return service.findAll();
+        return list( service, FilterUtil.contains( search, "code", "description" ), paging, SORTABLE, null );
     }
 
     /**
@@ -0,0 +1,83 @@
+package edu.ncsu.csc.iTrust2.controllers.api;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ncsu.csc.iTrust2.forms.display.ImportReport;
+import edu.ncsu.csc.iTrust2.services.ImportService;
+import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+
+/**
+ * Provides the REST endpoint for importing users, patient demographics and
+ * the code catalogs in bulk. The request body is the file itself, which is
+ * streamed through `ImportService` rather than read into memory.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@SuppressWarnings ( { "unchecked", "rawtypes" } )
+@RestController
+public class APIImportController extends APIController {
+
+    /** Import service */
+    @Autowired
+    private ImportService service;
+
+    /**
+     * Imports a file of records. Requires admin permissions.
+     *
+     * @param kind
+     *            What the file holds: users, patients, icdcodes, cptcodes or
+     *            drugs
+     * @param format
+     *            Optional format of the file, csv or ndjson. If it isn't
+     *            given, a text/csv body is read as CSV and anything else as
+     *            NDJSON.
+     * @param request
+     *            The request, whose body is the file
+     * @return Report of what was imported, and of every record that was
+     *         rejected and why
+     */
+    @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
+    @PostMapping ( BASE_PATH + "/import/{kind}" )
+    public ResponseEntity importRecords ( @PathVariable final String kind,
+            @RequestParam ( required = false ) final String format, final HttpServletRequest request ) {
+        final ImportService.Kind k;
+        final ImportService.Format f;
+        try {
+            k = ImportService.Kind.parse( kind );
+            if ( null != format ) {
+                f = ImportService.Format.parse( format );
+            }
+            else {
+                final String type = request.getContentType();
+                f = null != type && type.startsWith( "text/csv" ) ? ImportService.Format.CSV
+                        : ImportService.Format.NDJSON;
+            }
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity( errorResponse( e.getMessage() ), HttpStatus.BAD_REQUEST );
+        }
+
+        try {
+            final ImportReport report = service.importFile( k, f, request.getInputStream(), LoggerUtil.currentUser(),
+                    null );
+            return new ResponseEntity( report, HttpStatus.OK );
+        }
+        catch ( final IOException e ) {
+            return new ResponseEntity( errorResponse( "Could not read the file: " + e.getMessage() ),
+                    HttpStatus.BAD_REQUEST );
+        }
+    }
+
+}
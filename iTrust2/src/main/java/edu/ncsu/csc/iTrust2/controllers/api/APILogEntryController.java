@@ -6,8 +6,13 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,6 +27,7 @@ import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.models.security.LogEntry;
+import edu.ncsu.csc.iTrust2.services.UserRoleService;
 import edu.ncsu.csc.iTrust2.services.UserService;
 import edu.ncsu.csc.iTrust2.services.security.LogEntryService;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
@@ -39,6 +45,15 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APILogEntryController extends APIController {
 
+    /** Every type of log entry */
+    private static final Set<TransactionType> ALL_TYPES        = Collections
+            .unmodifiableSet( EnumSet.allOf( TransactionType.class ) );
+
+    /** The types of log entry a patient is allowed to see */
+    private static final Set<TransactionType> PATIENT_VIEWABLE = Collections
+            .unmodifiableSet( Arrays.stream( TransactionType.values() ).filter( TransactionType::isPatientViewable )
+                    .collect( Collectors.toCollection( () -> EnumSet.noneOf( TransactionType.class ) ) ) );
+
     /**
      * LogEntry service
      */
@@ -53,9 +68,16 @@ public class APILogEntryController extends APIController {
     @Autowired
     private LoggerUtil        loggerUtil;
 
+    /** Looks up roles of the other users on a page */
+    @Autowired
+    private UserRoleService   userRoleService;
+
     /**
      * Handles GET requests for the current user's log entries when searching by
-     * date and using a page system.
+     * date and using a page system. Only the requested page is read from the
+     * database. Pages can be requested by number, or (to avoid the database
+     * having to skip over every earlier entry) by passing in the `cursor` of
+     * the last row of the previous page.
      *
      * @param body
      *            the request body of the GET request
@@ -63,9 +85,14 @@ public class APILogEntryController extends APIController {
      */
     @PostMapping ( BASE_PATH + "/logentries/range" )
     public ResponseEntity getEntryByDateRange ( @RequestBody final LogEntryRequestBody body ) {
+        if ( body.getPageLength() <= 0 ) {
+            return new ResponseEntity( errorResponse( "Page length must be positive" ), HttpStatus.NOT_ACCEPTABLE );
+        }
+
         // If no dates are specified, get all entries, otherwise use the date
         // range
-        List<LogEntry> entries = null;
+        ZonedDateTime start = null;
+        ZonedDateTime end = null;
         try {
             if ( body.getStartDate().equals( "" ) || body.getEndDate().equals( "" ) ) {
                 throw new ParseException( "Date", 1 );
@@ -73,7 +100,6 @@ public class APILogEntryController extends APIController {
 
             // Parse in start/end dates as ZonedDateTimes
             // from ISO date/time or ISO date strings
-            ZonedDateTime start;
             try {
                 start = ZonedDateTime.parse( body.getStartDate() );
             }
@@ -81,7 +107,6 @@ public class APILogEntryController extends APIController {
                 start = LocalDate.parse( body.getStartDate() ).atStartOfDay( ZoneId.systemDefault() );
             }
 
-            ZonedDateTime end;
             try {
                 end = ZonedDateTime.parse( body.getEndDate() ).plusDays( 1 );
             }
@@ -92,48 +117,36 @@ public class APILogEntryController extends APIController {
             if ( start.isAfter( end ) ) {
                 return new ResponseEntity( errorResponse( "Start Date is after End Date" ), HttpStatus.NOT_ACCEPTABLE );
             }
-            entries = leservice.findByDateRange( LoggerUtil.currentUser(), start, end );
         }
         catch ( final ParseException ex ) {
-            entries = leservice.findAllForUser( LoggerUtil.currentUser() );
-        }
-
-        // If the entries array is null give an error response
-        if ( entries == null ) {
-            return new ResponseEntity( errorResponse( "Error retrieving Log Entries" ),
-                    HttpStatus.INTERNAL_SERVER_ERROR );
+            start = null;
+            end = null;
         }
 
         // Use only log entries that are viewable by the user
-        List<LogEntry> visible;
         final User user = userService.findByName( LoggerUtil.currentUser() );
-        if ( user == null || user.getRoles() == null || user.getRoles().contains( Role.ROLE_PATIENT ) ) {
-            visible = new ArrayList<LogEntry>();
+        final boolean isPatient = user == null || user.getRoles() == null
+                || user.getRoles().contains( Role.ROLE_PATIENT );
+        final Set<TransactionType> codes = isPatient ? PATIENT_VIEWABLE : ALL_TYPES;
 
-            for ( int i = 0; i < entries.size(); i++ ) {
-                final LogEntry le = entries.get( i );
-                if ( le.getLogCode().isPatientViewable() ) {
-                    visible.add( entries.get( i ) );
-                }
-            }
+        final List<LogEntry> page;
+        try {
+            page = leservice.findPageForUser( LoggerUtil.currentUser(), start, end, codes, body.getCursor(),
+                    body.getPage(), body.getPageLength() );
         }
-        else {
-            visible = entries;
+        catch ( final IllegalArgumentException ex ) {
+            return new ResponseEntity( errorResponse( "Invalid cursor" ), HttpStatus.BAD_REQUEST );
         }
 
-        final int numPages = 1 + visible.size() / body.getPageLength();
+        final long total = leservice.countForUser( LoggerUtil.currentUser(), start, end, codes );
+        final int numPages = (int) ( 1 + total / body.getPageLength() );
 
-        Collections.reverse( visible );
-
-        // Find only the entries that should show up on the page given the page
-        // and page length
-        final List<LogEntry> page = new ArrayList<LogEntry>();
-        for ( int i = 0; i < body.getPageLength(); i++ ) {
-            final int idx = ( body.getPage() - 1 ) * body.getPageLength() + i;
-            if ( idx >= 0 && visible.size() > idx ) {
-                page.add( visible.get( idx ) );
-            }
-        }
+        // Patients are shown the role of whoever else was involved in each
+        // entry; look them all up at once rather than one per row
+        final Map<String, Set<Role>> otherRoles = isPatient
+                ? userRoleService.findRolesByNames(
+                        page.stream().map( APILogEntryController::otherParty ).collect( Collectors.toSet() ) )
+                : Collections.emptyMap();
 
         // Turn these log entries into proper table rows for the application to
         // display
@@ -150,19 +163,14 @@ public class APILogEntryController extends APIController {
             row.setDateTime( le.getTime().toOffsetDateTime().toString() );
             row.setTransactionType( le.getLogCode().getDescription() );
             row.setNumPages( numPages );
+            row.setCursor( LogEntryService.cursorFor( le ) );
 
-            if ( user == null || user.getRoles() == null || user.getRoles().contains( Role.ROLE_PATIENT ) ) {
+            if ( isPatient ) {
                 row.setPatient( true );
 
-                if ( le.getPrimaryUser().equals( LoggerUtil.currentUser() ) ) {
-                    final User secondary = userService.findByName( le.getSecondaryUser() );
-                    if ( secondary != null ) {
-                        row.setRole( secondary.getRoles().toString() );
-                    }
-                }
-                else {
-                    final User primary = userService.findByName( le.getPrimaryUser() );
-                    row.setRole( primary.getRoles().toString() );
+                final Set<Role> roles = otherRoles.get( otherParty( le ) );
+                if ( roles != null ) {
+                    row.setRole( roles.toString() );
                 }
             }
 
@@ -170,10 +178,22 @@ public class APILogEntryController extends APIController {
         }
 
         // Create a log entry as long as the user is on the first page
-        if ( body.page == 1 ) {
+        if ( body.page == 1 && ( null == body.getCursor() || body.getCursor().isEmpty() ) ) {
             loggerUtil.log( TransactionType.VIEW_USER_LOG, LoggerUtil.currentUser() );
         }
         return new ResponseEntity( table, HttpStatus.OK );
     }
 
+    /**
+     * Finds the user on a log entry other than the current user
+     *
+     * @param le
+     *            Log entry to check
+     * @return The secondary user if the current user is the primary user, and
+     *         the primary user otherwise
+     */
+    private static String otherParty ( final LogEntry le ) {
+        return le.getPrimaryUser().equals( LoggerUtil.currentUser() ) ? le.getSecondaryUser() : le.getPrimaryUser();
+    }
+
 }
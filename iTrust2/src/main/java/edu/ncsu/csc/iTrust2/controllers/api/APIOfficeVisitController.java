@@ -1,8 +1,14 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,15 +17,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.OfficeVisitForm;
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.OfficeVisitService;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * API controller for interacting with the OfficeVisit model. Provides standard
@@ -32,56 +42,138 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIOfficeVisitController extends APIController {
 
+    /** Fields office visits can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "date", "date", "type", "type",
+            "patient", "patient.username", "hcp", "hcp.username" );
+
     /** OfficeVisit service */
     @Autowired
-    private OfficeVisitService officeVisitService;
+    private OfficeVisitService               officeVisitService;
 
     /** User service */
     @Autowired
-    private UserService<User>  userService;
+    private UserService<User>                userService;
 
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil         loggerUtil;
+    private LoggerUtil                       loggerUtil;
+
+    /** Streams records to the client */
+    @Autowired
+    private NdjsonExporter                   exporter;
 
     /**
-     * Retrieves a list of all OfficeVisits in the database
+     * Retrieves a list of the OfficeVisits in the database, optionally
+     * filtered, sorted and paged (see `PageForm`)
      *
+     * @param patient
+     *            Only return visits for this patient
+     * @param hcp
+     *            Only return visits with this HCP
+     * @param from
+     *            Only return visits on or after this day
+     * @param to
+     *            Only return visits on or before this day
+     * @param paging
+     *            Page and sort to return
      * @return list of office visits
      */
     @GetMapping ( BASE_PATH + "/officevisits" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_BILLING')" )
-    public List<OfficeVisit> getOfficeVisits () {
+    public ResponseEntity getOfficeVisits ( @RequestParam ( required = false ) final String patient,
+            @RequestParam ( required = false ) final String hcp,
+            @RequestParam ( required = false ) @DateTimeFormat ( iso = ISO.DATE ) final LocalDate from,
+            @RequestParam ( required = false ) @DateTimeFormat ( iso = ISO.DATE ) final LocalDate to,
+            final PageForm paging ) {
+        loggerUtil.log( TransactionType.VIEW_ALL_OFFICE_VISITS, LoggerUtil.currentUser() );
+        return list( officeVisitService,
+                FilterUtil.all( FilterUtil.equal( "patient.username", patient ),
+                        FilterUtil.equal( "hcp.username", hcp ), FilterUtil.onDays( "date", from, to ) ),
+                paging, SORTABLE, null );
+    }
+
+    /**
+     * Retrieves summaries of the OfficeVisits in the database, for listing
+     * them. Takes the same filters, sorts and pages as `getOfficeVisits()`,
+     * but reads each visit's summary in one narrow query instead of loading
+     * the whole visit.
+     *
+     * @param patient
+     *            Only return visits for this patient
+     * @param hcp
+     *            Only return visits with this HCP
+     * @param from
+     *            Only return visits on or after this day
+     * @param to
+     *            Only return visits on or before this day
+     * @param paging
+     *            Page and sort to return
+     * @return list of office visit summaries
+     */
+    @GetMapping ( BASE_PATH + "/officevisits/summary" )
+    @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_BILLING')" )
+    public ResponseEntity getOfficeVisitSummaries ( @RequestParam ( required = false ) final String patient,
+            @RequestParam ( required = false ) final String hcp,
+            @RequestParam ( required = false ) @DateTimeFormat ( iso = ISO.DATE ) final LocalDate from,
+            @RequestParam ( required = false ) @DateTimeFormat ( iso = ISO.DATE ) final LocalDate to,
+            final PageForm paging ) {
+        loggerUtil.log( TransactionType.VIEW_ALL_OFFICE_VISITS, LoggerUtil.currentUser() );
+        return list( paging, SORTABLE, sort -> officeVisitService.findSummaries( patient, hcp, from, to, sort ),
+                page -> officeVisitService.findSummaries( patient, hcp, from, to, page ), null );
+    }
+
+    /**
+     * Exports every office visit as NDJSON, one office visit per line. Unlike
+     * `getOfficeVisits()`, the office visits are read from the database as they are
+     * written out, so this works however many there are.
+     *
+     * @param response
+     *            Response to write the office visits to
+     * @throws IOException
+     *             if the response can't be written
+     */
+    @GetMapping ( BASE_PATH + "/officevisits/export" )
+    @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_BILLING')" )
+    public void exportOfficeVisits ( final HttpServletResponse response ) throws IOException {
         loggerUtil.log( TransactionType.VIEW_ALL_OFFICE_VISITS, LoggerUtil.currentUser() );
-        return officeVisitService.findAll();
+        exporter.export( response, officeVisitService );
     }
 
     /**
-     * Retrieves all of the office visits for the current HCP.
+     * Retrieves all of the office visits for the current HCP, optionally
+     * filtered, sorted and paged (see `PageForm`).
      *
+     * @param patient
+     *            Only return visits for this patient
+     * @param paging
+     *            Page and sort to return
      * @return all of the office visits for the current HCP.
      */
     @GetMapping ( BASE_PATH + "/officevisits/HCP" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP')" )
-    public List<OfficeVisit> getOfficeVisitsForHCP () {
+    public ResponseEntity getOfficeVisitsForHCP ( @RequestParam ( required = false ) final String patient,
+            final PageForm paging ) {
         final User self = userService.findByName( LoggerUtil.currentUser() );
         loggerUtil.log( TransactionType.VIEW_ALL_OFFICE_VISITS, self );
-        final List<OfficeVisit> visits = officeVisitService.findByHcp( self );
-        return visits;
+        return list( officeVisitService,
+                FilterUtil.all( FilterUtil.equal( "hcp", self ), FilterUtil.equal( "patient.username", patient ) ),
+                paging, SORTABLE, null );
     }
 
     /**
      * Retrieves a list of all OfficeVisits in the database for the current
-     * patient
+     * patient, optionally sorted and paged (see `PageForm`)
      *
+     * @param paging
+     *            Page and sort to return
      * @return list of office visits
      */
     @GetMapping ( BASE_PATH + "/officevisits/myofficevisits" )
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
-    public List<OfficeVisit> getMyOfficeVisits () {
+    public ResponseEntity getMyOfficeVisits ( final PageForm paging ) {
         final User self = userService.findByName( LoggerUtil.currentUser() );
         loggerUtil.log( TransactionType.VIEW_ALL_OFFICE_VISITS, self );
-        return officeVisitService.findByPatient( self );
+        return list( officeVisitService, FilterUtil.equal( "patient", self ), paging, SORTABLE, null );
     }
 
     /**
@@ -96,11 +188,12 @@ public class APIOfficeVisitController extends APIController {
     public ResponseEntity getOfficeVisit ( @PathVariable final Long id ) {
         final User self = userService.findByName( LoggerUtil.currentUser() );
         loggerUtil.log( TransactionType.GENERAL_CHECKUP_HCP_VIEW, self );
-        if ( !officeVisitService.existsById( id ) ) {
+        final OfficeVisit visit = officeVisitService.findById( id );
+        if ( null == visit ) {
             return new ResponseEntity( HttpStatus.NOT_FOUND );
         }
 
-        return new ResponseEntity( officeVisitService.findById( id ), HttpStatus.OK );
+        return new ResponseEntity( visit, HttpStatus.OK );
     }
 
     /**
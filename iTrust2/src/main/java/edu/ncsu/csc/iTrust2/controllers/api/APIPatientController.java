@@ -1,7 +1,10 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +28,7 @@ import edu.ncsu.csc.iTrust2.services.PatientService;
 import edu.ncsu.csc.iTrust2.services.UserService;
 import edu.ncsu.csc.iTrust2.services.VaccineTypeService;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * Controller responsible for providing various REST API endpoints for the
@@ -61,6 +65,10 @@ public class APIPatientController extends APIController {
     @Autowired
     private LoggerUtil         loggerUtil;
 
+    /** Streams records to the client */
+    @Autowired
+    private NdjsonExporter     exporter;
+
     /**
      * Retrieves and returns a list of all Patients stored in the system
      *
@@ -72,6 +80,22 @@ public class APIPatientController extends APIController {
         return patients;
     }
 
+    /**
+     * Exports every patient as NDJSON, one patient per line. Unlike
+     * `getPatients()`, the patients are read from the database as they are
+     * written out, so this works however many there are.
+     *
+     * @param response
+     *            Response to write the patients to
+     * @throws IOException
+     *             if the response can't be written
+     */
+    @GetMapping ( BASE_PATH + "/patients/export" )
+    @PreAuthorize ( "hasAnyRole('ROLE_ADMIN', 'ROLE_HCP')" )
+    public void exportPatients ( final HttpServletResponse response ) throws IOException {
+        exporter.export( response, patientService );
+    }
+
     /**
      * If you are logged in as a patient, then you can use this convenience
      * lookup to find your own information without remembering your id. This
@@ -1,5 +1,6 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,11 +15,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ncsu.csc.iTrust2.forms.PersonnelForm;
+import edu.ncsu.csc.iTrust2.forms.display.ProviderSummary;
 import edu.ncsu.csc.iTrust2.forms.display.ProviderWithStatistics;
+import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyStatistics;
 import edu.ncsu.csc.iTrust2.models.Personnel;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.PersonnelService;
+import edu.ncsu.csc.iTrust2.services.ProviderDirectory;
 import edu.ncsu.csc.iTrust2.services.SatisfactionSurveyStatisticsService;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
@@ -41,6 +45,10 @@ public class APIPersonnelController extends APIController {
     @Autowired
     private PersonnelService                    service;
 
+    /** Directory of providers by role */
+    @Autowired
+    private ProviderDirectory                   providerDirectory;
+
     /** SatisfactionSurveyStats service */
     @Autowired
     private SatisfactionSurveyStatisticsService satisfactionSurveyStatisticsService;
@@ -150,14 +158,8 @@ public class APIPersonnelController extends APIController {
     @GetMapping ( BASE_PATH + "/personnel/getbyroles/{role}" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_ADMIN', 'ROLE_PATIENT', 'ROLE_VACCINATOR')" )
     public ResponseEntity getPersonnelByRole ( @PathVariable ( "role" ) final String role ) {
-        final List<Personnel> allPersonnel = service.findAll();
-
         try {
-            final Role desired = Role.valueOf( role );
-
-            allPersonnel.removeIf( e -> !e.getRoles().contains( desired ) );
-
-            return new ResponseEntity( allPersonnel, HttpStatus.OK );
+            return new ResponseEntity( providerDirectory.findByRole( Role.valueOf( role ) ), HttpStatus.OK );
         }
         catch ( final IllegalArgumentException iae ) {
             return new ResponseEntity( errorResponse( "Invalid role" ), HttpStatus.BAD_REQUEST );
@@ -176,14 +178,16 @@ public class APIPersonnelController extends APIController {
     @GetMapping ( BASE_PATH + "/personnel/getbyroles/{role}/statistics" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_ADMIN', 'ROLE_PATIENT', 'ROLE_VACCINATOR')" )
     public ResponseEntity getPersonnelByRoleWithStatistics ( @PathVariable ( "role" ) final String role ) {
-        final List<Personnel> allPersonnel = service.findAll();
-
         try {
-            final List<ProviderWithStatistics> enriched = allPersonnel.stream()
-                    .filter( e -> e.getRoles().contains( Role.valueOf( role ) ) )
-                    .map( personnel -> new ProviderWithStatistics( personnel,
-                            satisfactionSurveyStatisticsService.findForHcp( personnel ) ) )
-                    .collect( Collectors.toList() );
+            final List<ProviderSummary> providers = providerDirectory.findByRole( Role.valueOf( role ) );
+            final List<SatisfactionSurveyStatistics> statistics = satisfactionSurveyStatisticsService
+                    .findForUsernames( providers.stream().map( ProviderSummary::getUsername )
+                            .collect( Collectors.toList() ) );
+
+            final List<ProviderWithStatistics> enriched = new ArrayList<>();
+            for ( int i = 0; i < providers.size(); i++ ) {
+                enriched.add( new ProviderWithStatistics( providers.get( i ), statistics.get( i ) ) );
+            }
 
             return new ResponseEntity( enriched, HttpStatus.OK );
         }
@@ -1,6 +1,9 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,15 +15,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.forms.PrescriptionForm;
 import edu.ncsu.csc.iTrust2.models.Prescription;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.PrescriptionService;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * Provides REST endpoints that deal with prescriptions. Exposes functionality
@@ -33,17 +40,25 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "rawtypes", "unchecked" } )
 public class APIPrescriptionController extends APIController {
 
+    /** Fields prescriptions can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "startDate", "startDate", "endDate",
+            "endDate", "drug", "drug.name", "patient", "patient.username" );
+
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil          loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** Prescription service */
     @Autowired
-    private PrescriptionService prescriptionService;
+    private PrescriptionService              prescriptionService;
 
     /** User service */
     @Autowired
-    private UserService         userService;
+    private UserService                      userService;
+
+    /** Streams records to the client */
+    @Autowired
+    private NdjsonExporter                   exporter;
 
     /**
      * Adds a new prescription to the system. Requires HCP permissions.
@@ -130,26 +145,61 @@ public class APIPrescriptionController extends APIController {
     }
 
     /**
-     * Returns a collection of all the prescriptions in the system.
+     * Returns a collection of the prescriptions in the system, optionally
+     * sorted and paged (see `PageForm`). HCPs get every prescription, or just
+     * those of one patient; patients get their own.
      *
-     * @return all saved prescriptions
+     * @param patient
+     *            Only return prescriptions for this patient (HCPs only)
+     * @param paging
+     *            Page and sort to return
+     * @return saved prescriptions
      */
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_VIROLOGIST', 'ROLE_PATIENT')" )
     @GetMapping ( BASE_PATH + "/prescriptions" )
-    public List<Prescription> getPrescriptions () {
+    public ResponseEntity getPrescriptions ( @RequestParam ( required = false ) final String patient,
+            final PageForm paging ) {
         final User self = userService.findByName( LoggerUtil.currentUser() );
         if ( self.isDoctor() ) {
             // Return all prescriptions in system
             loggerUtil.log( TransactionType.PRESCRIPTION_VIEW, LoggerUtil.currentUser(),
                     "HCP viewed a list of all prescriptions" );
-            return prescriptionService.findAll();
+            return list( prescriptionService, FilterUtil.equal( "patient.username", patient ), paging, SORTABLE,
+                    null );
         }
         else {
             // Issue #106
             // Return only prescriptions assigned to the patient
             loggerUtil.log( TransactionType.PATIENT_PRESCRIPTION_VIEW, LoggerUtil.currentUser(),
                     "Patient viewed a list of their prescriptions" );
-            return prescriptionService.findByPatient( self );
+            return list( prescriptionService, FilterUtil.equal( "patient", self ), paging, SORTABLE, null );
+        }
+    }
+
+    /**
+     * Exports prescriptions as NDJSON, one prescription per line. HCPs get
+     * every prescription in the system, read from the database as they are
+     * written out so that this works however many there are; patients get
+     * their own, as with `getPrescriptions()`.
+     *
+     * @param response
+     *            Response to write the prescriptions to
+     * @throws IOException
+     *             if the response can't be written
+     */
+    @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_VIROLOGIST', 'ROLE_PATIENT')" )
+    @GetMapping ( BASE_PATH + "/prescriptions/export" )
+    public void exportPrescriptions ( final HttpServletResponse response ) throws IOException {
+        final User self = userService.findByName( LoggerUtil.currentUser() );
+        if ( self.isDoctor() ) {
+            loggerUtil.log( TransactionType.PRESCRIPTION_VIEW, LoggerUtil.currentUser(),
+                    "HCP exported all prescriptions" );
+            exporter.export( response, prescriptionService );
+        }
+        else {
+            loggerUtil.log( TransactionType.PATIENT_PRESCRIPTION_VIEW, LoggerUtil.currentUser(),
+                    "Patient exported their prescriptions" );
+            exporter.export( response, prescriptionService.findByPatient( self ) );
         }
     }
 
@@ -1,8 +1,12 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -10,18 +14,21 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.forms.SatisfactionSurveyForm;
+import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyDistribution;
 import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyStatistics;
-import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
-import edu.ncsu.csc.iTrust2.services.OfficeVisitService;
+import edu.ncsu.csc.iTrust2.services.SatisfactionSurveyDistributionService;
 import edu.ncsu.csc.iTrust2.services.SatisfactionSurveyService;
 import edu.ncsu.csc.iTrust2.services.SatisfactionSurveyStatisticsService;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -33,48 +40,72 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APISatisfactionSurveyController extends APIController {
 
+    /** Fields satisfaction surveys can be sorted by */
+    private static final Map<String, String>      SORTABLE        = Map.of( "id", "id", "visitSatisfaction",
+            "visitSatisfaction", "treatmentSatisfaction", "treatmentSatisfaction", "patient", "patient.username", "hcp",
+            "hcp.username" );
+
+    /**
+     * Times a survey is submitted before giving up, if another survey keeps
+     * changing its daily summary at the same time
+     */
+    private static final int                      SUBMIT_ATTEMPTS = 3;
+
     /** SatisfactionSurvey service */
     @Autowired
-    private SatisfactionSurveyService           satisfactionSurveyService;
+    private SatisfactionSurveyService             satisfactionSurveyService;
 
-    /** OfficeVisit service */
+    /** SatisfactionSurveyStats service */
     @Autowired
-    private OfficeVisitService                  officeVisitService;
+    private SatisfactionSurveyStatisticsService   satisfactionSurveyStatisticsService;
 
-    /** SatisfactionSurveyStats service */
+    /** SatisfactionSurvey distribution service */
     @Autowired
-    private SatisfactionSurveyStatisticsService satisfactionSurveyStatisticsService;
+    private SatisfactionSurveyDistributionService satisfactionSurveyDistributionService;
 
     /** User Service */
     @Autowired
-    private UserService                         userService;
+    private UserService                           userService;
 
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil                          loggerUtil;
+    private LoggerUtil                            loggerUtil;
 
     /**
-     * Retrieves a list of all the satisfaction surveys
+     * Retrieves a list of the satisfaction surveys, optionally filtered,
+     * sorted and paged (see `PageForm`)
      *
-     * @return a list of all the satisfaction surveys
+     * @param hcp
+     *            Only return surveys about this hcp
+     * @param patient
+     *            Only return surveys from this patient
+     * @param paging
+     *            Page and sort to return
+     * @return a list of the satisfaction surveys
      */
     @GetMapping ( BASE_PATH + "/surveys/" )
     @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
-    public List<SatisfactionSurvey> getSatisfactionSurveys () {
-        return satisfactionSurveyService.findAll();
+    public ResponseEntity getSatisfactionSurveys ( @RequestParam ( required = false ) final String hcp,
+            @RequestParam ( required = false ) final String patient, final PageForm paging ) {
+        return list( satisfactionSurveyService, FilterUtil.all( FilterUtil.equal( "hcp.username", hcp ),
+                FilterUtil.equal( "patient.username", patient ) ), paging, SORTABLE, null );
     }
 
     /**
-     * Retrieves a list of all the satisfaction surveys for a specific HCP
+     * Retrieves a list of all the satisfaction surveys for a specific HCP,
+     * optionally sorted and paged (see `PageForm`)
      *
      * @param hcp
      *            the hcp whose surveys are to be returned
+     * @param paging
+     *            Page and sort to return
      * @return a list of all the satisfaction surveys
      */
     @GetMapping ( BASE_PATH + "/surveys/hcp/{hcp}" )
     @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
-    public List<SatisfactionSurvey> getSatisfactionSurveys ( @PathVariable ( "hcp" ) final String hcp ) {
-        return satisfactionSurveyService.findByHcp( hcp );
+    public ResponseEntity getSatisfactionSurveys ( @PathVariable ( "hcp" ) final String hcp,
+            final PageForm paging ) {
+        return list( satisfactionSurveyService, FilterUtil.equal( "hcp.username", hcp ), paging, SORTABLE, null );
     }
 
     /**
@@ -90,18 +121,25 @@ public class APISatisfactionSurveyController extends APIController {
     public ResponseEntity createSatisfactionSurvey ( @RequestBody final SatisfactionSurveyForm surveyForm ) {
         try {
 
-            final SatisfactionSurvey survey = satisfactionSurveyService.build( surveyForm );
+            SatisfactionSurvey survey = satisfactionSurveyService.build( surveyForm );
 
             if ( null != survey.getId() && satisfactionSurveyService.existsById( survey.getId() ) ) {
                 return new ResponseEntity(
                         errorResponse( "Satisfaction Survey with the id " + survey.getId() + " already exists" ),
                         HttpStatus.CONFLICT );
             }
-            satisfactionSurveyService.save( survey );
-
-            final OfficeVisit officeVisit = officeVisitService.findById( surveyForm.getOfficeVisitId() );
-            officeVisit.setSatisfactionSurvey( survey );
-            officeVisitService.save( officeVisit );
+            for ( int attempt = 1;; attempt++ ) {
+                try {
+                    satisfactionSurveyService.submit( survey, surveyForm.getOfficeVisitId() );
+                    break;
+                }
+                catch ( final ConcurrencyFailureException | DataIntegrityViolationException e ) {
+                    if ( attempt >= SUBMIT_ATTEMPTS ) {
+                        throw e;
+                    }
+                    survey = satisfactionSurveyService.build( surveyForm );
+                }
+            }
 
             loggerUtil.log( TransactionType.PATIENT_COMPLETED_SATISFACION_SURVEY, LoggerUtil.currentUser(),
                     survey.getHcp().getUsername() );
@@ -150,4 +188,55 @@ public class APISatisfactionSurveyController extends APIController {
         return new ResponseEntity( statistics, HttpStatus.OK );
     }
 
+    /**
+     * Returns how an HCP's surveys were distributed over the last few days:
+     * the median and 90th percentile wait times, and how many surveys gave
+     * each answer
+     *
+     * @param hcpName
+     *            the hcp username whose surveys are to be summarised
+     * @param days
+     *            number of days, up to and including today, to cover
+     * @return The distribution for the hcp
+     */
+    @GetMapping ( BASE_PATH + "/surveys/distribution/hcp/{hcp}" )
+    @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
+    public ResponseEntity getSatisfactionSurveyDistributionForHcp ( @PathVariable ( "hcp" ) final String hcpName,
+            @RequestParam ( defaultValue = "30" ) final int days ) {
+        if ( days < 1 ) {
+            return new ResponseEntity( errorResponse( "Days must be at least 1" ), HttpStatus.BAD_REQUEST );
+        }
+        final LocalDate today = LocalDate.now();
+        final SatisfactionSurveyDistribution distribution = satisfactionSurveyDistributionService
+                .findForHcp( hcpName, today.minusDays( days - 1 ), today );
+        loggerUtil.log( TransactionType.ADMIN_VIEW_STATS, LoggerUtil.currentUser(), hcpName,
+                "Check provider survey distribution" );
+        return new ResponseEntity( distribution, HttpStatus.OK );
+    }
+
+    /**
+     * Returns how the surveys for visits at a hospital were distributed over
+     * the last few days: the median and 90th percentile wait times, and how
+     * many surveys gave each answer
+     *
+     * @param hospital
+     *            name of the hospital whose surveys are to be summarised
+     * @param days
+     *            number of days, up to and including today, to cover
+     * @return The distribution for the hospital
+     */
+    @GetMapping ( BASE_PATH + "/surveys/distribution/hospital/{hospital}" )
+    @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
+    public ResponseEntity getSatisfactionSurveyDistributionForHospital (
+            @PathVariable ( "hospital" ) final String hospital, @RequestParam ( defaultValue = "30" ) final int days ) {
+        if ( days < 1 ) {
+            return new ResponseEntity( errorResponse( "Days must be at least 1" ), HttpStatus.BAD_REQUEST );
+        }
+        final LocalDate today = LocalDate.now();
+        final SatisfactionSurveyDistribution distribution = satisfactionSurveyDistributionService
+                .findForHospital( hospital, today.minusDays( days - 1 ), today );
+        loggerUtil.log( TransactionType.ADMIN_VIEW_STATS, LoggerUtil.currentUser() );
+        return new ResponseEntity( distribution, HttpStatus.OK );
+    }
+
 }
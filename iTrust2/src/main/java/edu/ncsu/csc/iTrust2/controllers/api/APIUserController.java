@@ -1,8 +1,12 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,8 +21,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.forms.UserForm;
 import edu.ncsu.csc.iTrust2.models.Patient;
 import edu.ncsu.csc.iTrust2.models.Personnel;
@@ -26,7 +32,9 @@ import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * Class that provides multiple API endpoints for interacting with the Users
@@ -40,59 +48,88 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "rawtypes", "unchecked" } )
 public class APIUserController extends APIController {
 
+    /** Fields users can be sorted by */
+    private static final Map<String, String> SORTABLE        = Map.of( "username", "username" );
+
     /** constant for admin role */
-    private static final String       ROLE_ADMIN      = "ROLE_ADMIN";
+    private static final String              ROLE_ADMIN      = "ROLE_ADMIN";
 
     /** constant for patient role */
-    private static final String       ROLE_PATIENT    = "ROLE_PATIENT";
+    private static final String              ROLE_PATIENT    = "ROLE_PATIENT";
 
     /** constant for hcp role */
-    private static final String       ROLE_HCP        = "ROLE_HCP";
+    private static final String              ROLE_HCP        = "ROLE_HCP";
 
     /** constant for ER role */
-    private static final String       ROLE_ER         = "ROLE_ER";
+    private static final String              ROLE_ER         = "ROLE_ER";
 
     /** constant for lab role */
-    private static final String       ROLE_LABTECH    = "ROLE_LABTECH";
+    private static final String              ROLE_LABTECH    = "ROLE_LABTECH";
 
     /** constant for virologist role */
-    private static final String       ROLE_VIROLOGIST = "ROLE_VIROLOGIST";
+    private static final String              ROLE_VIROLOGIST = "ROLE_VIROLOGIST";
 
     /** constant for lab role */
-    private static final String       ROLE_OD         = "ROLE_OD";
+    private static final String              ROLE_OD         = "ROLE_OD";
 
     /** constant for lab role */
-    private static final String       ROLE_OPH        = "ROLE_OPH";
+    private static final String              ROLE_OPH        = "ROLE_OPH";
 
     /** Constant for vaccinator role */
-    private static final String       ROLE_VACCINATOR = "ROLE_VACCINATOR";
+    private static final String              ROLE_VACCINATOR = "ROLE_VACCINATOR";
 
     /** Constant for billing role */
-    private static final String       ROLE_BILLING    = "ROLE_BILLING";
+    private static final String              ROLE_BILLING    = "ROLE_BILLING";
 
     /** All roles */
-    private static final List<String> ALL_ROLES       = List.of( ROLE_ADMIN, ROLE_PATIENT, ROLE_HCP, ROLE_ER,
+    private static final List<String>        ALL_ROLES       = List.of( ROLE_ADMIN, ROLE_PATIENT, ROLE_HCP, ROLE_ER,
             ROLE_LABTECH, ROLE_VIROLOGIST, ROLE_OD, ROLE_OPH, ROLE_VACCINATOR, ROLE_BILLING );
 
     /** LoggerUtil */
     @Autowired
-    private LoggerUtil                loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** User service */
     @Autowired
-    private UserService               userService;
+    private UserService                      userService;
+
+    /** Streams records to the client */
+    @Autowired
+    private NdjsonExporter                   exporter;
 
     /**
-     * Retrieves and returns a list of all Users in the system, regardless of
+     * Retrieves and returns a list of the Users in the system, regardless of
      * their classification (including all Patients, all Personnel, and all
-     * users who do not have a further status specified)
+     * users who do not have a further status specified), optionally filtered,
+     * sorted and paged (see `PageForm`)
      *
+     * @param role
+     *            Only return users with this role
+     * @param paging
+     *            Page and sort to return
      * @return list of users
      */
     @GetMapping ( BASE_PATH + "/users" )
-    public List<User> getUsers () {
+    public ResponseEntity getUsers ( @RequestParam ( required = false ) final Role role, final PageForm paging ) {
+        loggerUtil.log( TransactionType.VIEW_USERS, LoggerUtil.currentUser() );
+        return list( userService, FilterUtil.member( "roles", role ), paging, SORTABLE, null );
+    }
+
+    /**
+     * Exports every user as NDJSON, one user per line. Unlike
+     * `getUsers()`, the users are read from the database as they are
+     * written out, so this works however many there are.
+     *
+     * @param response
+     *            Response to write the users to
+     * @throws IOException
+     *             if the response can't be written
+     */
+    @GetMapping ( BASE_PATH + "/users/export" )
+    @PreAuthorize ( "hasRole('ROLE_ADMIN')" )
+    public void exportUsers ( final HttpServletResponse response ) throws IOException {
         loggerUtil.log( TransactionType.VIEW_USERS, LoggerUtil.currentUser() );
-        return userService.findAll();
+        exporter.export( response, userService );
     }
 
     /**
@@ -8,8 +8,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.display.VaccinationCertificateLine;
 import edu.ncsu.csc.iTrust2.models.Patient;
-import edu.ncsu.csc.iTrust2.models.VaccineVisit;
 import edu.ncsu.csc.iTrust2.services.PatientService;
 import edu.ncsu.csc.iTrust2.services.VaccineVisitService;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
@@ -33,7 +33,8 @@ public class APIVaccinationCertificateController extends APIController {
     private VaccineVisitService visitService;
 
     /**
-     * Gets the vaccination certificate for a patient
+     * Gets the vaccination certificate for a patient. The doses are read in
+     * one query that only fetches what the certificate shows.
      *
      * @return the certificate
      */
@@ -41,20 +42,16 @@ public class APIVaccinationCertificateController extends APIController {
     @PreAuthorize ( "hasAnyRole('ROLE_PATIENT')" )
     public Certificate getVaccinationCertificate () {
         final Patient self = (Patient) userService.findByName( LoggerUtil.currentUser() );
-        final List<VaccineVisit> visits = visitService.findByPatient( self );
+        final List<VaccinationCertificateLine> lines = visitService.findCertificateLines( self );
 
         final List<CertificateElement> celist = new ArrayList<CertificateElement>();
-        // CertificateElement ce = new CertificateElement( null, null, null,
-        // null, null );
-        for ( int i = 0; i < visits.size(); i++ ) {
-            final Patient patient = visits.get( i ).getPatient();
-            final String dateTime = visits.get( i ).getDate().toString();
+        for ( int i = 0; i < lines.size(); i++ ) {
+            final VaccinationCertificateLine line = lines.get( i );
+            // Offset rather than zone ID, so that browsers can parse it
+            final String dateTime = line.getDate().toOffsetDateTime().toString();
             final String numDoses = ( i + 1 ) + "";
-            final String vaccineType = visits.get( i ).getVaccineType().getName();
-            final String vaccinator = visits.get( i ).getVaccinator().getUsername();
-            final VaccineVisit visit = visits.get( i );
-            final CertificateElement ce = new CertificateElement( patient, dateTime, numDoses, vaccinator, vaccineType,
-                    visit );
+            final CertificateElement ce = new CertificateElement( dateTime, numDoses, line.getVaccinator(),
+                    line.getVaccineType(), line.getDose(), line.getDosesRequired() );
 
             celist.add( ce );
         }
@@ -63,7 +60,8 @@ public class APIVaccinationCertificateController extends APIController {
     }
 
     /**
-     * Helper class to hold parts of a certificate
+     * Helper class to hold parts of a certificate: one dose given to the
+     * patient. The patient is only given once, on the Certificate.
      *
      * @author accline2, mjcheim
      *
@@ -71,40 +69,38 @@ public class APIVaccinationCertificateController extends APIController {
     public class CertificateElement {
 
         /**
-         * patient
+         * date vaccine was given, as text
          */
-        private Patient      patient;
-
-        /**
-         * date vaccine was given
-         */
-        private String       dateTime;
+        private String  dateTime;
 
         /**
          * number of doses
          */
-        private String       numDoses;
+        private String  numDoses;
 
         /**
          * username of vaccinator
          */
-        private String       vaccinator;
+        private String  vaccinator;
 
         /**
          * type of vaccine given
          */
-        private String       vaccineType;
+        private String  vaccineType;
+
+        /**
+         * which dose of the vaccine this was
+         */
+        private Integer dose;
 
         /**
-         * The vaccine visit
+         * number of doses the vaccine needs
          */
-        private VaccineVisit visit;
+        private int     dosesRequired;
 
         /**
          * Constructor for CertificateElement
          *
-         * @param patient
-         *            patient to set
          * @param dateTime
          *            dateTime to set
          * @param numDoses
@@ -113,37 +109,20 @@ public class APIVaccinationCertificateController extends APIController {
          *            vaccinator to set
          * @param vaccineType
          *            vaccineType to set
-         * @param visit
-         *            the vaccination visit to set
+         * @param dose
+         *            which dose of the vaccine this was
+         * @param dosesRequired
+         *            number of doses the vaccine needs
          */
-        public CertificateElement ( final Patient patient, final String dateTime, final String numDoses,
-                final String vaccinator, final String vaccineType, final VaccineVisit visit ) {
+        public CertificateElement ( final String dateTime, final String numDoses, final String vaccinator,
+                final String vaccineType, final Integer dose, final int dosesRequired ) {
             super();
-            this.patient = patient;
             this.dateTime = dateTime;
             this.numDoses = numDoses;
             this.vaccinator = vaccinator;
             this.vaccineType = vaccineType;
-            this.visit = visit;
-        }
-
-        /**
-         * Gets the patient
-         *
-         * @return the patient
-         */
-        public Patient getPatient () {
-            return patient;
-        }
-
-        /**
-         * Sets the patient
-         *
-         * @param patient
-         *            the patient to set
-         */
-        public void setPatient ( final Patient patient ) {
-            this.patient = patient;
+            this.dose = dose;
+            this.dosesRequired = dosesRequired;
         }
 
         /**
@@ -223,22 +202,41 @@ public class APIVaccinationCertificateController extends APIController {
         }
 
         /**
-         * Gets the vaccination visit
+         * Gets which dose of the vaccine this was
+         *
+         * @return the dose
+         */
+        public Integer getDose () {
+            return dose;
+        }
+
+        /**
+         * Sets which dose of the vaccine this was
+         *
+         * @param dose
+         *            the dose to set
+         */
+        public void setDose ( final Integer dose ) {
+            this.dose = dose;
+        }
+
+        /**
+         * Gets the number of doses the vaccine needs
          *
-         * @return the visit
+         * @return the dosesRequired
          */
-        public VaccineVisit getVisit () {
-            return visit;
+        public int getDosesRequired () {
+            return dosesRequired;
         }
 
         /**
-         * Sets the vaccination visit
+         * Sets the number of doses the vaccine needs
          *
-         * @param visit
-         *            the visit to set
+         * @param dosesRequired
+         *            the dosesRequired to set
          */
-        public void setVisit ( final VaccineVisit visit ) {
-            this.visit = visit;
+        public void setDosesRequired ( final int dosesRequired ) {
+            this.dosesRequired = dosesRequired;
         }
 
     }
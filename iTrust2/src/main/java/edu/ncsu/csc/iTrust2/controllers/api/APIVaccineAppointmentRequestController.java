@@ -3,7 +3,7 @@ package edu.ncsu.csc.iTrust2.controllers.api;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,8 +15,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.forms.VaccineAppointmentRequestForm;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.VaccineAppointmentRequest;
@@ -25,6 +27,7 @@ import edu.ncsu.csc.iTrust2.models.enums.Status;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.UserService;
 import edu.ncsu.csc.iTrust2.services.VaccineAppointmentRequestService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -38,6 +41,10 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIVaccineAppointmentRequestController extends APIController {
 
+    /** Fields vaccine appointment requests can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "date", "date", "status", "status",
+            "patient", "patient.username", "hcp", "hcp.username" );
+
     /**
      * AppointmentRequest service
      */
@@ -82,19 +89,22 @@ public class APIVaccineAppointmentRequestController extends APIController {
     }
 
     /**
-     * Retrieves the VaccineAppointmentRequest specified by the current patient
-     * user.
+     * Retrieves the approved VaccineAppointmentRequests of the current patient
+     * user, optionally sorted and paged (see `PageForm`).
      *
+     * @param paging
+     *            Page and sort to return
      * @return the patient's vaccine appointment requests
      */
     @GetMapping ( BASE_PATH + "/vaccineappointments/currentuser" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_PATIENT', 'ROLE_VACCINATOR')" )
-    public List<VaccineAppointmentRequest> getVaccineAppointmentRequestForPatient () {
+    public ResponseEntity getVaccineAppointmentRequestForPatient ( final PageForm paging ) {
         final User patient = userService.findByName( LoggerUtil.currentUser() );
         loggerUtil.log( TransactionType.APPOINTMENT_REQUEST_VIEWED, LoggerUtil.currentUser(),
                 LoggerUtil.currentUser() );
-        return service.findByPatient( patient ).stream().filter( e -> e.getStatus().equals( Status.APPROVED ) )
-                .collect( Collectors.toList() );
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "patient", patient ), FilterUtil.equal( "status", Status.APPROVED ) ),
+                paging, SORTABLE, null );
     }
 
     /**
@@ -131,18 +141,30 @@ public class APIVaccineAppointmentRequestController extends APIController {
     }
 
     /**
-     * View all vaccine appointment requests.
+     * View the vaccine appointment requests, optionally filtered, sorted and
+     * paged (see `PageForm`).
      *
+     * @param status
+     *            Only return requests with this status
+     * @param patient
+     *            Only return requests from this patient
+     * @param hcp
+     *            Only return requests for this HCP or vaccinator
+     * @param paging
+     *            Page and sort to return
      * @return list of vaccine appointment requests
      */
     @GetMapping ( BASE_PATH + "/vaccineappointments" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_VACCINATOR')" )
-    public List<VaccineAppointmentRequest> viewAllAppointmentRequests () {
-        final List<VaccineAppointmentRequest> requests = service.findAll();
-
-        requests.stream().map( VaccineAppointmentRequest::getPatient ).distinct().forEach( e -> loggerUtil
-                .log( TransactionType.APPOINTMENT_REQUEST_VIEWED, LoggerUtil.currentUser(), e.getUsername() ) );
-        return requests;
+    public ResponseEntity viewAllAppointmentRequests ( @RequestParam ( required = false ) final Status status,
+            @RequestParam ( required = false ) final String patient,
+            @RequestParam ( required = false ) final String hcp, final PageForm paging ) {
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "status", status ), FilterUtil.equal( "patient.username", patient ),
+                        FilterUtil.equal( "hcp.username", hcp ) ),
+                paging, SORTABLE, requests -> requests.stream().map( VaccineAppointmentRequest::getPatient )
+                        .distinct().forEach( e -> loggerUtil.log( TransactionType.APPOINTMENT_REQUEST_VIEWED,
+                                LoggerUtil.currentUser(), e.getUsername() ) ) );
     }
 
     /**
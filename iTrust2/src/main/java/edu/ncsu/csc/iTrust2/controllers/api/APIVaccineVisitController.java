@@ -1,7 +1,6 @@
 package edu.ncsu.csc.iTrust2.controllers.api;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,8 +11,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ncsu.csc.iTrust2.forms.PageForm;
 import edu.ncsu.csc.iTrust2.forms.VaccineVisitForm;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.VaccineVisit;
@@ -21,6 +22,7 @@ import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.services.UserService;
 import edu.ncsu.csc.iTrust2.services.VaccineVisitService;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 /**
@@ -34,17 +36,21 @@ import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 @SuppressWarnings ( { "unchecked", "rawtypes" } )
 public class APIVaccineVisitController extends APIController {
 
+    /** Fields vaccine visits can be sorted by */
+    private static final Map<String, String> SORTABLE = Map.of( "id", "id", "date", "date", "patient",
+            "patient.username", "vaccinator", "vaccinator.username" );
+
     /** VaccineVisit service */
     @Autowired
-    private VaccineVisitService service;
+    private VaccineVisitService              service;
 
     /** Logger */
     @Autowired
-    private LoggerUtil          loggerUtil;
+    private LoggerUtil                       loggerUtil;
 
     /** User service */
     @Autowired
-    private UserService<User>   userService;
+    private UserService<User>                userService;
 
     /**
      * Parses a VVF and creates a VaccineVisit within the database.
@@ -104,18 +110,27 @@ public class APIVaccineVisitController extends APIController {
     }
 
     /**
-     * View all Vaccine Visits. Used only by personell (hcp, vaccinators).
+     * View the Vaccine Visits, optionally filtered, sorted and paged (see
+     * `PageForm`). Used only by personell (hcp, vaccinators).
      *
+     * @param patient
+     *            Only return visits for this patient
+     * @param vaccinator
+     *            Only return visits by this vaccinator
+     * @param paging
+     *            Page and sort to return
      * @return list of visits
      */
     @GetMapping ( BASE_PATH + "vaccinevisits/all" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_VACCINATOR')" )
-    public List<VaccineVisit> viewAllVaccineVisits () {
-        final List<VaccineVisit> requests = service.findAll();
-
-        requests.stream().map( VaccineVisit::getPatient ).distinct().forEach(
-                e -> loggerUtil.log( TransactionType.OFFICE_VISIT_VIEWED, LoggerUtil.currentUser(), e.getUsername() ) );
-        return requests;
+    public ResponseEntity viewAllVaccineVisits ( @RequestParam ( required = false ) final String patient,
+            @RequestParam ( required = false ) final String vaccinator, final PageForm paging ) {
+        return list( service,
+                FilterUtil.all( FilterUtil.equal( "patient.username", patient ),
+                        FilterUtil.equal( "vaccinator.username", vaccinator ) ),
+                paging, SORTABLE,
+                visits -> visits.stream().map( VaccineVisit::getPatient ).distinct().forEach( e -> loggerUtil
+                        .log( TransactionType.OFFICE_VISIT_VIEWED, LoggerUtil.currentUser(), e.getUsername() ) ) );
     }
 
     /**
@@ -145,18 +160,19 @@ public class APIVaccineVisitController extends APIController {
     }
 
     /**
-     * Retrieves the VaccineVisit specified by the current patient user.
+     * Retrieves the VaccineVisits of the current patient user, optionally
+     * sorted and paged (see `PageForm`).
      *
-     * @param id
-     *            id to search for
+     * @param paging
+     *            Page and sort to return
      * @return the patient's VaccineVisits
      */
     @GetMapping ( BASE_PATH + "/vaccinevisits" )
     @PreAuthorize ( "hasAnyRole('ROLE_HCP', 'ROLE_PATIENT', 'ROLE_VACCINATOR')" )
-    public List<VaccineVisit> getVaccineVisitsForPatient ( @PathVariable final Long id ) {
+    public ResponseEntity getVaccineVisitsForPatient ( final PageForm paging ) {
         final User patient = userService.findByName( LoggerUtil.currentUser() );
         loggerUtil.log( TransactionType.OFFICE_VISIT_VIEWED, LoggerUtil.currentUser(), LoggerUtil.currentUser() );
-        return service.findByPatient( patient ).stream().collect( Collectors.toList() );
+        return list( service, FilterUtil.equal( "patient", patient ), paging, SORTABLE, null );
     }
 
 }
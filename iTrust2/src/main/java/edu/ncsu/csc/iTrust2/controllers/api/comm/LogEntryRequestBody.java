@@ -20,6 +20,12 @@ public class LogEntryRequestBody {
     /** Number of items per page */
     public int    pageLength;
 
+    /**
+     * Cursor of the last entry on the previous page (optional). When present,
+     * it is used instead of `page` to find where the next page starts.
+     */
+    public String cursor;
+
     /**
      * Empty Constructor required for spring to use this as a RequestBody
      */
@@ -103,4 +109,23 @@ public class LogEntryRequestBody {
         this.pageLength = pageLength;
     }
 
+    /**
+     * Gets the cursor of the last entry already seen.
+     *
+     * @return cursor, or null to page by number
+     */
+    public String getCursor () {
+        return cursor;
+    }
+
+    /**
+     * Sets the cursor of the last entry already seen.
+     *
+     * @param cursor
+     *            cursor from the last row of the previous page
+     */
+    public void setCursor ( final String cursor ) {
+        this.cursor = cursor;
+    }
+
 }
@@ -22,6 +22,8 @@ public class LogEntryTableRow {
     private boolean isPatient = false;
     /** total number of pages in the table */
     private int     numPages  = 1;
+    /** position of this row, for requesting the page after it */
+    private String  cursor;
 
     /**
      * Empty constructor so that Spring is able to use this class for
@@ -165,4 +167,24 @@ public class LogEntryTableRow {
         this.transactionType = transactionType;
     }
 
+    /**
+     * Gets the cursor for this row, which can be sent back to retrieve the
+     * entries after it.
+     *
+     * @return cursor of this row
+     */
+    public String getCursor () {
+        return cursor;
+    }
+
+    /**
+     * Sets the cursor for this row.
+     *
+     * @param cursor
+     *            cursor of this row
+     */
+    public void setCursor ( final String cursor ) {
+        this.cursor = cursor;
+    }
+
 }
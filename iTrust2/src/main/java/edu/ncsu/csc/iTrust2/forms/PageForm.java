@@ -0,0 +1,190 @@
+package edu.ncsu.csc.iTrust2.forms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The paging and sorting parameters a list endpoint takes, bound from the
+ * query string:
+ *
+ * - `page`, the page to return, starting from 1;
+ *
+ * - `size`, the number of results per page (at most `MAX_SIZE`);
+ *
+ * - `sort`, a comma-separated list of fields to sort by, each optionally
+ * starting with `-` to sort it in descending order (such as
+ * `sort=-date,patient`).
+ *
+ * If neither `page` nor `size` is given, every result is returned. Each
+ * endpoint says which fields can be sorted by; any other is rejected.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class PageForm {
+
+    /** Results per page when a page is requested without a size */
+    public static final int DEFAULT_SIZE = 20;
+
+    /** Most results a page can have */
+    public static final int MAX_SIZE     = 1000;
+
+    /** Page to return, starting from 1 */
+    private Integer         page;
+
+    /** Results per page */
+    private Integer         size;
+
+    /** Fields to sort by, each optionally starting with `-` */
+    private List<String>    sort;
+
+    /**
+     * Empty constructor, for Spring to bind the parameters into
+     */
+    public PageForm () {
+    }
+
+    /**
+     * Creates a form
+     *
+     * @param page
+     *            Page to return, starting from 1, or null
+     * @param size
+     *            Results per page, or null
+     * @param sort
+     *            Fields to sort by, or null
+     */
+    public PageForm ( final Integer page, final Integer size, final List<String> sort ) {
+        setPage( page );
+        setSize( size );
+        setSort( sort );
+    }
+
+    /**
+     * Whether a single page was asked for, rather than every result
+     *
+     * @return True if a page or a page size was given
+     */
+    public boolean isPaged () {
+        return null != page || null != size;
+    }
+
+    /**
+     * Whether the results should be sorted
+     *
+     * @return True if a field to sort by was given
+     */
+    public boolean isSorted () {
+        return null != sort && sort.stream().anyMatch( s -> !s.trim().isEmpty() );
+    }
+
+    /**
+     * Turns the sort parameter into a Sort
+     *
+     * @param sortable
+     *            The fields that can be sorted by, mapped to the entity
+     *            property each one sorts
+     * @return The sort; unsorted if no field was given
+     * @throws IllegalArgumentException
+     *             if asked to sort by a field that can't be sorted by
+     */
+    public Sort toSort ( final Map<String, String> sortable ) {
+        if ( !isSorted() ) {
+            return Sort.unsorted();
+        }
+        final List<Sort.Order> orders = new ArrayList<Sort.Order>();
+        for ( final String s : sort ) {
+            final String field = s.trim();
+            if ( field.isEmpty() ) {
+                continue;
+            }
+            final boolean descending = field.startsWith( "-" );
+            final String name = descending ? field.substring( 1 ) : field;
+            final String property = sortable.get( name );
+            if ( null == property ) {
+                throw new IllegalArgumentException( "Cannot sort by " + name + "; use one of " + sortable.keySet() );
+            }
+            orders.add( descending ? Sort.Order.desc( property ) : Sort.Order.asc( property ) );
+        }
+        return Sort.by( orders );
+    }
+
+    /**
+     * Turns the parameters into a Pageable. Only used if `isPaged()`.
+     *
+     * @param sortable
+     *            The fields that can be sorted by, mapped to the entity
+     *            property each one sorts
+     * @return The page requested
+     * @throws IllegalArgumentException
+     *             if asked to sort by a field that can't be sorted by
+     */
+    public Pageable toPageable ( final Map<String, String> sortable ) {
+        return PageRequest.of( null == page ? 0 : Math.max( 0, page - 1 ),
+                null == size || size < 1 ? DEFAULT_SIZE : Math.min( size, MAX_SIZE ), toSort( sortable ) );
+    }
+
+    /**
+     * Page to return, starting from 1
+     *
+     * @return The page, or null
+     */
+    public Integer getPage () {
+        return page;
+    }
+
+    /**
+     * Sets the page to return
+     *
+     * @param page
+     *            The page, starting from 1
+     */
+    public void setPage ( final Integer page ) {
+        this.page = page;
+    }
+
+    /**
+     * Results per page
+     *
+     * @return The size, or null
+     */
+    public Integer getSize () {
+        return size;
+    }
+
+    /**
+     * Sets the results per page
+     *
+     * @param size
+     *            The size
+     */
+    public void setSize ( final Integer size ) {
+        this.size = size;
+    }
+
+    /**
+     * Fields to sort by
+     *
+     * @return The fields, or null
+     */
+    public List<String> getSort () {
+        return sort;
+    }
+
+    /**
+     * Sets the fields to sort by
+     *
+     * @param sort
+     *            The fields, each optionally starting with `-` to sort it in
+     *            descending order
+     */
+    public void setSort ( final List<String> sort ) {
+        this.sort = sort;
+    }
+
+}
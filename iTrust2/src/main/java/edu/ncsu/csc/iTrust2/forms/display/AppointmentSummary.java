@@ -0,0 +1,66 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.time.ZonedDateTime;
+
+import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
+import edu.ncsu.csc.iTrust2.models.enums.Status;
+
+/**
+ * One row of a list of appointment requests, read with a single narrow query
+ * that gives the patient and HCP by username rather than loading both users.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface AppointmentSummary {
+
+    /**
+     * ID of the request
+     *
+     * @return ID
+     */
+    Long getId ();
+
+    /**
+     * When the appointment is for
+     *
+     * @return Time of the appointment
+     */
+    ZonedDateTime getDate ();
+
+    /**
+     * Type of appointment asked for
+     *
+     * @return Type
+     */
+    AppointmentType getType ();
+
+    /**
+     * Whether the request is pending, approved or rejected
+     *
+     * @return Status
+     */
+    Status getStatus ();
+
+    /**
+     * Username of the patient who asked for the appointment
+     *
+     * @return Username
+     */
+    String getPatient ();
+
+    /**
+     * Username of the HCP the appointment is with
+     *
+     * @return Username, or null if none was chosen
+     */
+    String getHcp ();
+
+    /**
+     * Comments the patient left
+     *
+     * @return Comments
+     */
+    String getComments ();
+
+}
@@ -0,0 +1,96 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.time.ZonedDateTime;
+
+import edu.ncsu.csc.iTrust2.models.Bill;
+
+/**
+ * One row of a list of bills, read with a single narrow query that joins each
+ * bill to the visit it is for and that visit's patient, instead of loading
+ * every bill's visit with all of its records.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface BillSummary {
+
+    /**
+     * ID of the bill
+     *
+     * @return ID
+     */
+    Long getId ();
+
+    /**
+     * ID of the office visit billed for
+     *
+     * @return ID
+     */
+    Long getVisitId ();
+
+    /**
+     * When the office visit billed for took place
+     *
+     * @return Time of the visit
+     */
+    ZonedDateTime getVisitDate ();
+
+    /**
+     * Username of the patient billed
+     *
+     * @return Username
+     */
+    String getPatient ();
+
+    /**
+     * First name of the patient billed
+     *
+     * @return First name, or null if they haven't given one
+     */
+    String getPatientFirstName ();
+
+    /**
+     * Last name of the patient billed
+     *
+     * @return Last name, or null if they haven't given one
+     */
+    String getPatientLastName ();
+
+    /**
+     * Amount the bill was for
+     *
+     * @return Amount due
+     */
+    Long getTotalDue ();
+
+    /**
+     * Amount still owed
+     *
+     * @return Balance
+     */
+    Long getBalance ();
+
+    /**
+     * Whether the bill has been paid off
+     *
+     * @return True if it has
+     */
+    boolean isPaid ();
+
+    /**
+     * When the bill becomes delinquent if it is still unpaid
+     *
+     * @return Time, or null for bills saved before that was stored
+     */
+    ZonedDateTime getDelinquentOn ();
+
+    /**
+     * Status of the bill, worked out as `Bill.getStatus()` does
+     *
+     * @return "Paid", "Unpaid" or "Delinquent"
+     */
+    default String getStatus () {
+        return Bill.status( isPaid(), getDelinquentOn(), getVisitDate() );
+    }
+
+}
@@ -0,0 +1,51 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.time.ZonedDateTime;
+
+/**
+ * One row of a patient's list of diagnoses, read straight from the database
+ * without loading the diagnosis, its visit, or the visit's HCP. The HCP and
+ * ICD code are given by name; `DiagnosisService` turns rows into
+ * `DiagnosisListForm`s.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface DiagnosisListRow {
+
+    /**
+     * ID of the diagnosis
+     *
+     * @return ID
+     */
+    Long getId ();
+
+    /**
+     * When the visit the diagnosis was made at took place
+     *
+     * @return Time of the visit
+     */
+    ZonedDateTime getVisitDate ();
+
+    /**
+     * Username of the HCP who made the diagnosis
+     *
+     * @return Username
+     */
+    String getHcp ();
+
+    /**
+     * Note for the diagnosis
+     *
+     * @return Note
+     */
+    String getNote ();
+
+    /**
+     * ICD-10 code of the diagnosis
+     *
+     * @return Code
+     */
+    String getCode ();
+
+}
@@ -0,0 +1,255 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress, and in the end the outcome, of importing a file: how many records
+ * were read, imported and rejected, and why each rejected record was turned
+ * away. Only the first few rejections are kept, so that a badly broken file
+ * doesn't produce a report as large as itself.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class ImportReport {
+
+    /** What was imported */
+    private final String         kind;
+
+    /** Most rejections kept */
+    private final int            maxErrors;
+
+    /** Records read so far */
+    private int                  read;
+
+    /** Records imported so far */
+    private int                  imported;
+
+    /** Records rejected so far */
+    private int                  failed;
+
+    /** Chunks written so far */
+    private int                  chunks;
+
+    /** How long the import took (ms), once it has finished */
+    private long                 elapsedMs;
+
+    /** Whether the import has finished */
+    private boolean              done;
+
+    /** The first `maxErrors` rejections */
+    private final List<RowError> errors = new ArrayList<RowError>();
+
+    /**
+     * Creates an empty report
+     *
+     * @param kind
+     *            What is being imported
+     * @param maxErrors
+     *            Most rejections to keep
+     */
+    public ImportReport ( final String kind, final int maxErrors ) {
+        this.kind = kind;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Counts a record as read
+     */
+    public void read () {
+        read++;
+    }
+
+    /**
+     * Counts records as imported
+     *
+     * @param count
+     *            Number of records imported
+     */
+    public void imported ( final int count ) {
+        imported += count;
+    }
+
+    /**
+     * Counts a record as rejected
+     *
+     * @param record
+     *            Number of the record in the file
+     * @param key
+     *            Username or code of the record, if known
+     * @param message
+     *            Why it was rejected
+     */
+    public void failed ( final int record, final String key, final String message ) {
+        failed++;
+        if ( errors.size() < maxErrors ) {
+            errors.add( new RowError( record, key, message ) );
+        }
+    }
+
+    /**
+     * Counts a chunk as written
+     */
+    public void chunk () {
+        chunks++;
+    }
+
+    /**
+     * Marks the import as finished
+     *
+     * @param elapsedMs
+     *            How long it took (ms)
+     */
+    public void finish ( final long elapsedMs ) {
+        this.elapsedMs = elapsedMs;
+        this.done = true;
+    }
+
+    /**
+     * What is being imported
+     *
+     * @return The kind of record
+     */
+    public String getKind () {
+        return kind;
+    }
+
+    /**
+     * Records read so far
+     *
+     * @return Records read
+     */
+    public int getRead () {
+        return read;
+    }
+
+    /**
+     * Records imported so far
+     *
+     * @return Records imported
+     */
+    public int getImported () {
+        return imported;
+    }
+
+    /**
+     * Records rejected so far
+     *
+     * @return Records rejected
+     */
+    public int getFailed () {
+        return failed;
+    }
+
+    /**
+     * Chunks written so far
+     *
+     * @return Chunks written
+     */
+    public int getChunks () {
+        return chunks;
+    }
+
+    /**
+     * How long the import took
+     *
+     * @return Time (ms), or 0 if it hasn't finished
+     */
+    public long getElapsedMs () {
+        return elapsedMs;
+    }
+
+    /**
+     * Whether the import has finished
+     *
+     * @return True once every record has been handled
+     */
+    public boolean isDone () {
+        return done;
+    }
+
+    /**
+     * Whether more records were rejected than are listed in `getErrors()`
+     *
+     * @return True if some rejections were left out
+     */
+    public boolean isErrorsTruncated () {
+        return failed > errors.size();
+    }
+
+    /**
+     * Rejected records, in the order they were read
+     *
+     * @return The rejections. The list can't be changed.
+     */
+    public List<RowError> getErrors () {
+        return Collections.unmodifiableList( errors );
+    }
+
+    @Override
+    public String toString () {
+        return kind + ": " + read + " read, " + imported + " imported, " + failed + " rejected in " + chunks
+                + " chunks";
+    }
+
+    /**
+     * A record that was rejected
+     */
+    public static class RowError {
+
+        /** Number of the record in the file, from 1 */
+        private final int    record;
+
+        /** Username or code of the record, if it could be read */
+        private final String key;
+
+        /** Why it was rejected */
+        private final String message;
+
+        /**
+         * Creates a rejection
+         *
+         * @param record
+         *            Number of the record in the file
+         * @param key
+         *            Username or code of the record, if known
+         * @param message
+         *            Why it was rejected
+         */
+        public RowError ( final int record, final String key, final String message ) {
+            this.record = record;
+            this.key = key;
+            this.message = message;
+        }
+
+        /**
+         * Number of the record in the file, from 1 (not counting a header)
+         *
+         * @return Record number
+         */
+        public int getRecord () {
+            return record;
+        }
+
+        /**
+         * Username or code of the record
+         *
+         * @return The key, or null if the record couldn't be read
+         */
+        public String getKey () {
+            return key;
+        }
+
+        /**
+         * Why the record was rejected
+         *
+         * @return The reason
+         */
+        public String getMessage () {
+            return message;
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.time.ZonedDateTime;
+
+import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
+
+/**
+ * One row of a list of office visits, read with a single narrow query rather
+ * than loading each visit with its patient, HCP, hospital, metrics, diagnoses,
+ * prescriptions, codes and bill. Open a visit (`/officevisits/{id}`) to get
+ * the rest of it.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface OfficeVisitSummary {
+
+    /**
+     * ID of the visit
+     *
+     * @return ID
+     */
+    Long getId ();
+
+    /**
+     * When the visit took place
+     *
+     * @return Time of the visit
+     */
+    ZonedDateTime getDate ();
+
+    /**
+     * Type of the visit
+     *
+     * @return Type
+     */
+    AppointmentType getType ();
+
+    /**
+     * Username of the patient seen
+     *
+     * @return Username
+     */
+    String getPatient ();
+
+    /**
+     * First name of the patient seen
+     *
+     * @return First name, or null if they haven't given one
+     */
+    String getPatientFirstName ();
+
+    /**
+     * Last name of the patient seen
+     *
+     * @return Last name, or null if they haven't given one
+     */
+    String getPatientLastName ();
+
+    /**
+     * Username of the HCP who saw the patient
+     *
+     * @return Username
+     */
+    String getHcp ();
+
+    /**
+     * Name of the hospital the visit took place at
+     *
+     * @return Name
+     */
+    String getHospital ();
+
+    /**
+     * ID of the bill for the visit
+     *
+     * @return ID, or null if the visit hasn't been billed
+     */
+    Long getBillId ();
+
+}
@@ -0,0 +1,95 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.util.Comparator;
+
+import edu.ncsu.csc.iTrust2.models.Personnel;
+
+/**
+ * The few details about a provider that are needed to list them, such as when
+ * a patient picks an HCP for an appointment. Summaries are immutable, so the
+ * same one can be handed out to any number of requests.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class ProviderSummary {
+
+    /**
+     * Order providers are listed in: by last name, then first name, then
+     * username
+     */
+    public static final Comparator<ProviderSummary> ORDER = Comparator
+            .comparing( ProviderSummary::getLastName, Comparator.nullsLast( String.CASE_INSENSITIVE_ORDER ) )
+            .thenComparing( ProviderSummary::getFirstName, Comparator.nullsLast( String.CASE_INSENSITIVE_ORDER ) )
+            .thenComparing( ProviderSummary::getUsername );
+
+    /**
+     * The username of the provider
+     */
+    private final String                            username;
+
+    /**
+     * The first name of the provider
+     */
+    private final String                            firstName;
+
+    /**
+     * The last name of the provider
+     */
+    private final String                            lastName;
+
+    /**
+     * The id of the hospital the provider works at
+     */
+    private final String                            hospitalId;
+
+    /**
+     * Creates a summary of a provider
+     *
+     * @param personnel
+     *            Provider to summarise
+     */
+    public ProviderSummary ( final Personnel personnel ) {
+        this.username = personnel.getUsername();
+        this.firstName = personnel.getFirstName();
+        this.lastName = personnel.getLastName();
+        this.hospitalId = personnel.getHospitalId();
+    }
+
+    /**
+     * Get user name
+     *
+     * @return Username
+     */
+    public String getUsername () {
+        return username;
+    }
+
+    /**
+     * Get First Name
+     *
+     * @return First Name
+     */
+    public String getFirstName () {
+        return firstName;
+    }
+
+    /**
+     * Get Last Name
+     *
+     * @return Last Name
+     */
+    public String getLastName () {
+        return lastName;
+    }
+
+    /**
+     * Get Hospital Id
+     *
+     * @return Hospital ID
+     */
+    public String getHospitalId () {
+        return hospitalId;
+    }
+
+}
@@ -28,6 +28,23 @@ public class ProviderWithStatistics {
         this.statistics = statistics;
     }
 
+    /**
+     * Represents information about a HCP and satisfaction statistics from
+     * patients
+     *
+     * @param provider
+     *            Provider the statistics are for
+     * @param statistics
+     *            Detailed statistics
+     */
+    public ProviderWithStatistics ( final ProviderSummary provider, final SatisfactionSurveyStatistics statistics ) {
+        this.username = provider.getUsername();
+        this.firstName = provider.getFirstName();
+        this.lastName = provider.getLastName();
+        this.hospitalId = provider.getHospitalId();
+        this.statistics = statistics;
+    }
+
     /**
      * The username of the user
      */
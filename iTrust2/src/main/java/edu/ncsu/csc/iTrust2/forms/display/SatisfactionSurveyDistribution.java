@@ -0,0 +1,260 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import edu.ncsu.csc.iTrust2.models.SatisfactionSurveyDailySummary;
+import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
+import edu.ncsu.csc.iTrust2.utils.Histogram;
+
+/**
+ * How the satisfaction surveys for an HCP or hospital were spread out over a
+ * range of days: the median and 90th percentile wait times, and how many
+ * surveys gave each possible answer.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class SatisfactionSurveyDistribution {
+
+    /**
+     * Username of the HCP, if this is for an HCP
+     */
+    private final String     hcp;
+
+    /**
+     * Name of the hospital, if this is for a hospital
+     */
+    private final String     hospital;
+
+    /**
+     * First day covered (inclusive)
+     */
+    private final LocalDate  from;
+
+    /**
+     * Last day covered (inclusive)
+     */
+    private final LocalDate  to;
+
+    /**
+     * Number of surveys
+     */
+    private final long       numberOfSurveys;
+
+    /**
+     * Median waiting room time
+     */
+    private final WaitTime   medianWaitingRoomTime;
+
+    /**
+     * 90th percentile waiting room time
+     */
+    private final WaitTime   p90WaitingRoomTime;
+
+    /**
+     * Median examination response time
+     */
+    private final WaitTime   medianExaminationResponseTime;
+
+    /**
+     * 90th percentile examination response time
+     */
+    private final WaitTime   p90ExaminationResponseTime;
+
+    /**
+     * Number of surveys giving each waiting room time, from LESS_THAN_FIVE to
+     * OVER_TWENTY_FIVE
+     */
+    private final List<Long> waitingRoomTimes;
+
+    /**
+     * Number of surveys giving each examination response time, from
+     * LESS_THAN_FIVE to OVER_TWENTY_FIVE
+     */
+    private final List<Long> examinationResponseTimes;
+
+    /**
+     * Number of surveys giving each visit satisfaction score, from 0 to 5
+     */
+    private final List<Long> visitSatisfactions;
+
+    /**
+     * Number of surveys giving each treatment satisfaction score, from 0 to 5
+     */
+    private final List<Long> treatmentSatisfactions;
+
+    /**
+     * Adds up daily summaries into a distribution
+     *
+     * @param hcp
+     *            Username of the HCP, or null
+     * @param hospital
+     *            Name of the hospital, or null
+     * @param from
+     *            First day covered
+     * @param to
+     *            Last day covered
+     * @param summaries
+     *            Daily summaries to add up
+     */
+    public SatisfactionSurveyDistribution ( final String hcp, final String hospital, final LocalDate from,
+            final LocalDate to, final List<SatisfactionSurveyDailySummary> summaries ) {
+        final Histogram waiting = new Histogram( WaitTime.values().length );
+        final Histogram examination = new Histogram( WaitTime.values().length );
+        final Histogram visit = new Histogram( SatisfactionSurveyDailySummary.SCORES );
+        final Histogram treatment = new Histogram( SatisfactionSurveyDailySummary.SCORES );
+        for ( final SatisfactionSurveyDailySummary summary : summaries ) {
+            waiting.merge( summary.getWaitingRoomTimes() );
+            examination.merge( summary.getExaminationResponseTimes() );
+            visit.merge( summary.getVisitSatisfactions() );
+            treatment.merge( summary.getTreatmentSatisfactions() );
+        }
+
+        this.hcp = hcp;
+        this.hospital = hospital;
+        this.from = from;
+        this.to = to;
+        this.numberOfSurveys = waiting.total();
+        this.medianWaitingRoomTime = waitTime( waiting, 0.5 );
+        this.p90WaitingRoomTime = waitTime( waiting, 0.9 );
+        this.medianExaminationResponseTime = waitTime( examination, 0.5 );
+        this.p90ExaminationResponseTime = waitTime( examination, 0.9 );
+        this.waitingRoomTimes = waiting.toList();
+        this.examinationResponseTimes = examination.toList();
+        this.visitSatisfactions = visit.toList();
+        this.treatmentSatisfactions = treatment.toList();
+    }
+
+    /**
+     * Reads a wait time quantile from a histogram of wait time codes
+     *
+     * @param histogram
+     *            Histogram to read
+     * @param quantile
+     *            Quantile to find
+     * @return The wait time, or null if there are no surveys
+     */
+    private static WaitTime waitTime ( final Histogram histogram, final double quantile ) {
+        final int bucket = histogram.quantile( quantile );
+        return bucket < 0 ? null : WaitTime.getByCode( bucket + 1 );
+    }
+
+    /**
+     * Returns the username of the HCP
+     *
+     * @return the HCP, or null if this is for a hospital
+     */
+    public String getHcp () {
+        return hcp;
+    }
+
+    /**
+     * Returns the name of the hospital
+     *
+     * @return the hospital, or null if this is for an HCP
+     */
+    public String getHospital () {
+        return hospital;
+    }
+
+    /**
+     * Returns the first day covered
+     *
+     * @return the first day
+     */
+    public LocalDate getFrom () {
+        return from;
+    }
+
+    /**
+     * Returns the last day covered
+     *
+     * @return the last day
+     */
+    public LocalDate getTo () {
+        return to;
+    }
+
+    /**
+     * Returns the number of surveys
+     *
+     * @return the number of surveys
+     */
+    public long getNumberOfSurveys () {
+        return numberOfSurveys;
+    }
+
+    /**
+     * Returns the median waiting room time
+     *
+     * @return the median, or null if there are no surveys
+     */
+    public WaitTime getMedianWaitingRoomTime () {
+        return medianWaitingRoomTime;
+    }
+
+    /**
+     * Returns the 90th percentile waiting room time
+     *
+     * @return the 90th percentile, or null if there are no surveys
+     */
+    public WaitTime getP90WaitingRoomTime () {
+        return p90WaitingRoomTime;
+    }
+
+    /**
+     * Returns the median examination response time
+     *
+     * @return the median, or null if there are no surveys
+     */
+    public WaitTime getMedianExaminationResponseTime () {
+        return medianExaminationResponseTime;
+    }
+
+    /**
+     * Returns the 90th percentile examination response time
+     *
+     * @return the 90th percentile, or null if there are no surveys
+     */
+    public WaitTime getP90ExaminationResponseTime () {
+        return p90ExaminationResponseTime;
+    }
+
+    /**
+     * Returns the number of surveys giving each waiting room time
+     *
+     * @return the counts, from LESS_THAN_FIVE to OVER_TWENTY_FIVE
+     */
+    public List<Long> getWaitingRoomTimes () {
+        return waitingRoomTimes;
+    }
+
+    /**
+     * Returns the number of surveys giving each examination response time
+     *
+     * @return the counts, from LESS_THAN_FIVE to OVER_TWENTY_FIVE
+     */
+    public List<Long> getExaminationResponseTimes () {
+        return examinationResponseTimes;
+    }
+
+    /**
+     * Returns the number of surveys giving each visit satisfaction score
+     *
+     * @return the counts, from 0 to 5
+     */
+    public List<Long> getVisitSatisfactions () {
+        return visitSatisfactions;
+    }
+
+    /**
+     * Returns the number of surveys giving each treatment satisfaction score
+     *
+     * @return the counts, from 0 to 5
+     */
+    public List<Long> getTreatmentSatisfactions () {
+        return treatmentSatisfactions;
+    }
+
+}
@@ -0,0 +1,49 @@
+package edu.ncsu.csc.iTrust2.forms.display;
+
+import java.time.ZonedDateTime;
+
+/**
+ * One dose on a patient's vaccination certificate, read with a single query
+ * that joins each vaccine visit to its vaccine and vaccinator.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface VaccinationCertificateLine {
+
+    /**
+     * When the dose was given
+     *
+     * @return Time of the visit
+     */
+    ZonedDateTime getDate ();
+
+    /**
+     * Which dose of the vaccine this was
+     *
+     * @return Dose number, from 1
+     */
+    Integer getDose ();
+
+    /**
+     * Name of the vaccine given
+     *
+     * @return Name
+     */
+    String getVaccineType ();
+
+    /**
+     * Number of doses the vaccine needs
+     *
+     * @return Number of doses
+     */
+    int getDosesRequired ();
+
+    /**
+     * Username of the vaccinator who gave the dose
+     *
+     * @return Username
+     */
+    String getVaccinator ();
+
+}
@@ -8,12 +8,15 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+
 import com.google.gson.annotations.JsonAdapter;
 
 import edu.ncsu.csc.iTrust2.adapters.ZonedDateTimeAdapter;
@@ -26,10 +29,16 @@ import edu.ncsu.csc.iTrust2.models.enums.Status;
  * actually stored in the database and reflects the persistent information we
  * have on the appointment request.
  *
+ * Requests are almost always listed for one patient or HCP with a given status
+ * (such as an HCP's pending requests), so the table is indexed that way.
+ *
  * @author Kai Presler-Marshall
  */
 
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
+@Table ( indexes = { @Index ( name = "idx_appointmentrequest_patient_status", columnList = "patient_id, status" ),
+        @Index ( name = "idx_appointmentrequest_hcp_status", columnList = "hcp_id, status" ) } )
 public class AppointmentRequest extends DomainObject {
 
     /**
@@ -42,7 +51,7 @@ public class AppointmentRequest extends DomainObject {
      * ID of the AppointmentRequest
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long id;
 
     /**
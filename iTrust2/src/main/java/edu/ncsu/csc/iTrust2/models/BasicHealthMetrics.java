@@ -5,12 +5,13 @@ import java.util.regex.Pattern;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+
 import edu.ncsu.csc.iTrust2.models.enums.HouseholdSmokingStatus;
 import edu.ncsu.csc.iTrust2.models.enums.PatientSmokingStatus;
 
@@ -23,6 +24,7 @@ import edu.ncsu.csc.iTrust2.models.enums.PatientSmokingStatus;
  */
 
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
 public class BasicHealthMetrics extends DomainObject {
 
     /**
@@ -35,7 +37,7 @@ public class BasicHealthMetrics extends DomainObject {
      * ID of the AppointmentRequest
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long id;
 
     /**
@@ -1,53 +1,108 @@
 package edu.ncsu.csc.iTrust2.models;
 
-import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.Basic;
 import javax.persistence.CascadeType;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.BatchSize;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.gson.annotations.JsonAdapter;
+
+import edu.ncsu.csc.iTrust2.adapters.ZonedDateTimeAdapter;
+import edu.ncsu.csc.iTrust2.adapters.ZonedDateTimeAttributeConverter;
 
 /**
  * Class for Bills. A bill has a total that is stored as a long, a boolean for
  * if it is paid or not, an OfficeVisit that it is attached to, and a list of
  * payments.
  *
+ * The amount paid so far, the remaining balance, and the time at which the
+ * bill becomes delinquent are stored alongside the total and kept up to date
+ * as payments are added, so a bill's balance and status can be read without
+ * loading its payments. The bill is versioned, so two payments added to the
+ * same bill at once can't both be accepted on the strength of the same
+ * balance; the second one to be saved fails with an optimistic locking error.
+ *
+ * Lists of bills are read with the `Bill.billing` fetch plan, which joins each
+ * bill's visit, and the visit's patient, HCP and hospital, into the query for
+ * the bills.
+ *
  * @author Leah Whaley
  * @author Zach Harris
  *
  */
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
 @Table ( name = "Bill" )
+@NamedEntityGraph ( name = Bill.BILLING_GRAPH, attributeNodes = @NamedAttributeNode ( value = "visit",
+        subgraph = "visit" ), subgraphs = @NamedSubgraph ( name = "visit", attributeNodes = {
+                @NamedAttributeNode ( "patient" ), @NamedAttributeNode ( "hcp" ),
+                @NamedAttributeNode ( "hospital" ) } ) )
 public class Bill extends DomainObject {
 
+    /** Fetch plan for lists of bills */
+    public static final String BILLING_GRAPH          = "Bill.billing";
+
     /** The number of days that must pass before a bill becomes delinquent. */
-    private static final Long DAYS_UNTIL_DELINQUENCY = 60L;
+    private static final Long  DAYS_UNTIL_DELINQUENCY = 60L;
 
     /**
      * The id for this bill.
      */
     @Id
-    @GeneratedValue
-    private Long              id;
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
+    private Long               id;
 
     /**
      * The total amount due for this bill.
      */
-    private Long              totalDue;
+    private Long               totalDue;
 
     /**
      * A flag that says if the bill has been paid or not.
      */
-    private boolean           isPaid;
+    private boolean            isPaid;
+
+    /**
+     * The total of the payments made on this bill so far.
+     */
+    private Long               amountPaid;
+
+    /**
+     * The amount still owed on this bill.
+     */
+    private Long               balance;
+
+    /**
+     * The time at which this bill becomes delinquent if it is still unpaid.
+     */
+    @Basic
+    @Convert ( converter = ZonedDateTimeAttributeConverter.class )
+    @JsonAdapter ( ZonedDateTimeAdapter.class )
+    private ZonedDateTime      delinquentOn;
+
+    /**
+     * Version of this bill, incremented every time it is saved.
+     */
+    @Version
+    private long               version;
 
     /**
      * The OfficeVisit that this bill is paying for.
@@ -55,13 +110,15 @@ public class Bill extends DomainObject {
     @OneToOne
     @JoinColumn ( name = "visit_id" )
     @JsonBackReference
-    private OfficeVisit       visit;
+    private OfficeVisit        visit;
 
     /**
      * The list of payment that have been made on this bill.
      */
     @OneToMany ( cascade = CascadeType.ALL )
-    private List<Payment>     payments;
+    @BatchSize ( size = BATCH_SIZE )
+    @JsonIgnore
+    private List<Payment>      payments;
 
     /**
      * Empty constructor for Hibernate.
@@ -127,6 +184,7 @@ public class Bill extends DomainObject {
      */
     public void setTotalDue ( final Long total ) {
         this.totalDue = total;
+        updateBalance();
     }
 
     /**
@@ -165,6 +223,11 @@ public class Bill extends DomainObject {
      */
     public void setVisit ( final OfficeVisit visit ) {
         this.visit = visit;
+        if ( visit != null && visit.getDate() != null ) {
+            // Delinquent once more than DAYS_UNTIL_DELINQUENCY whole days
+            // have passed since the visit
+            this.delinquentOn = visit.getDate().plusDays( DAYS_UNTIL_DELINQUENCY + 1 );
+        }
     }
 
     /**
@@ -184,6 +247,55 @@ public class Bill extends DomainObject {
      */
     public void setPayments ( final List<Payment> payments ) {
         this.payments = payments;
+        Long paid = 0L;
+        if ( payments != null ) {
+            for ( final Payment p : payments ) {
+                paid += p.getAmount();
+            }
+        }
+        this.amountPaid = paid;
+        updateBalance();
+    }
+
+    /**
+     * Gets the total of the payments made on this bill so far
+     *
+     * @return the amount paid on this bill
+     */
+    public Long getAmountPaid () {
+        if ( amountPaid == null ) {
+            // Bills saved before the amount paid was stored
+            setPayments( payments );
+        }
+        return amountPaid;
+    }
+
+    /**
+     * Gets the time at which this bill becomes delinquent if it is still unpaid
+     *
+     * @return when this bill becomes delinquent
+     */
+    public ZonedDateTime getDelinquentOn () {
+        return delinquentOn;
+    }
+
+    /**
+     * Gets the version of this bill, used to detect concurrent changes
+     *
+     * @return the version of this bill
+     */
+    public long getVersion () {
+        return version;
+    }
+
+    /**
+     * Sets the version of this bill to the parameter
+     *
+     * @param version
+     *            the value to set the version to
+     */
+    public void setVersion ( final long version ) {
+        this.version = version;
     }
 
     /**
@@ -196,22 +308,19 @@ public class Bill extends DomainObject {
      */
     public void addPayment ( final Payment payment ) {
         if ( payment != null ) {
-            Long paid = (long) 0;
-            for ( int i = 0; i < payments.size(); i++ ) {
-                paid += payments.get( i ).getAmount();
-            }
-
-            final Long remainder = this.totalDue - paid;
+            final Long remainder = this.totalDue - getAmountPaid();
 
-            if ( payment.getAmount() < remainder ) {
-                this.payments.add( payment );
+            if ( payment.getAmount() > remainder ) {
+                throw new IllegalArgumentException( "Tried to overpay." );
             }
-            else if ( payment.getAmount().equals( remainder ) ) {
-                this.payments.add( payment );
-                this.isPaid = true;
+            if ( this.payments == null ) {
+                this.payments = new ArrayList<Payment>();
             }
-            else {
-                throw new IllegalArgumentException( "Tried to overpay." );
+            this.payments.add( payment );
+            this.amountPaid += payment.getAmount();
+            updateBalance();
+            if ( payment.getAmount().equals( remainder ) ) {
+                this.isPaid = true;
             }
 
         }
@@ -227,10 +336,34 @@ public class Bill extends DomainObject {
      * @return The status of this bill
      */
     public String getStatus () {
-        if ( this.isPaid ) {
+        return status( isPaid, delinquentOn, isPaid || null != delinquentOn ? null : getVisit().getDate() );
+    }
+
+    /**
+     * Works out the status of a bill, for when only some of its fields have
+     * been read (see `BillSummary`).
+     *
+     * @param paid
+     *            Whether the bill has been paid
+     * @param delinquentOn
+     *            When the bill becomes delinquent, or null for bills saved
+     *            before that was stored
+     * @param visitDate
+     *            When the visit billed for took place; only needed if
+     *            `delinquentOn` is null
+     * @return "Paid", "Unpaid" or "Delinquent"
+     */
+    public static String status ( final boolean paid, final ZonedDateTime delinquentOn,
+            final ZonedDateTime visitDate ) {
+        if ( paid ) {
             return "Paid";
         }
-        else if ( Duration.between( getVisit().getDate(), ZonedDateTime.now() ).toDays() > DAYS_UNTIL_DELINQUENCY ) {
+        ZonedDateTime deadline = delinquentOn;
+        if ( deadline == null ) {
+            // Bills saved before the deadline was stored
+            deadline = visitDate.plusDays( DAYS_UNTIL_DELINQUENCY + 1 );
+        }
+        if ( !ZonedDateTime.now().isBefore( deadline ) ) {
             return "Delinquent";
         }
         else {
@@ -244,14 +377,22 @@ public class Bill extends DomainObject {
      * @return The remaining amount due on this bill.
      */
     public Long getBalance () {
-        Long paid = 0L;
-        for ( final Payment p : payments ) {
-            paid += p.getAmount();
+        if ( balance == null || amountPaid == null ) {
+            // Bills saved before the balance was stored
+            getAmountPaid();
         }
-        Long due = totalDue - paid;
-        if ( due < 0L ) {
-            due = 0L;
+        return balance;
+    }
+
+    /**
+     * Recomputes the balance from the total due and the amount paid.
+     */
+    private void updateBalance () {
+        if ( totalDue == null ) {
+            balance = null;
+            return;
         }
-        return due;
+        final Long paid = amountPaid == null ? 0L : amountPaid;
+        balance = Math.max( 0L, totalDue - paid );
     }
 }
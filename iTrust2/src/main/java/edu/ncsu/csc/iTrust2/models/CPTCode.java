@@ -2,11 +2,16 @@ package edu.ncsu.csc.iTrust2.models;
 
 import java.util.Objects;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
 
 /**
@@ -15,16 +20,21 @@ import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
  * two values for the time range associated with it. If the code has no time
  * range associated with it, both of those values would be zero.
  *
+ * Editing a code keeps the old version (archived) and saves a new one with a
+ * higher version number. The latest version of each code is marked as its
+ * current version.
+ *
  * @author Leah Whaley
  *
  */
 @Entity
+@Cache ( usage = CacheConcurrencyStrategy.READ_WRITE, region = "cptCodes" )
 public class CPTCode extends DomainObject {
     /**
      * ID of this CPTCode
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long    id;
 
     /**
@@ -62,6 +72,15 @@ public class CPTCode extends DomainObject {
      */
     private int     timeRangeMax;
 
+    /**
+     * The code, if this is its current (latest) version, or null for older
+     * versions. The column is unique, so each code has at most one current
+     * version and finding it is a single indexed read.
+     */
+    @Column ( unique = true )
+    @JsonIgnore
+    private Long    currentCode;
+
     /**
      * Empty constructor for Hibernate
      */
@@ -166,6 +185,9 @@ public class CPTCode extends DomainObject {
      */
     public void setCode ( final long code ) {
         this.code = code;
+        if ( null != currentCode ) {
+            currentCode = code;
+        }
     }
 
     /**
@@ -291,6 +313,25 @@ public class CPTCode extends DomainObject {
         return timeRangeMax;
     }
 
+    /**
+     * Marks this as the current version of its code, or as an older version
+     *
+     * @param current
+     *            true if this is the current version
+     */
+    public void setCurrent ( final boolean current ) {
+        this.currentCode = current ? code : null;
+    }
+
+    /**
+     * Checks if this is the current version of its code
+     *
+     * @return true if this is the current version
+     */
+    public boolean isCurrent () {
+        return null != currentCode;
+    }
+
     /**
      * Generates the hashcode of the CPT code including all of the fields except
      * for the id field
@@ -2,7 +2,6 @@ package edu.ncsu.csc.iTrust2.models;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
@@ -40,7 +39,7 @@ public class Diagnosis extends DomainObject {
      * ID of this Diagnosis
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long        id;
 
     /** Associated ICDCode for this diagnosis */
@@ -12,6 +12,23 @@ import java.io.Serializable;
  */
 abstract public class DomainObject {
 
+    /**
+     * Name of the ID generator every entity uses; see `package-info.java`
+     */
+    public static final String ID_GENERATOR  = "pooled";
+
+    /**
+     * Number of IDs the generator reserves at once
+     */
+    public static final String ID_BLOCK_SIZE = "50";
+
+    /**
+     * Number of records (or collections) of one kind that Hibernate reads in
+     * one statement when they weren't read with the records that refer to
+     * them; see `@BatchSize`
+     */
+    public static final int    BATCH_SIZE    = 50;
+
     /**
      * Returns the ID of this DomainObject. Every object needs one of these, for
      * the database to track it
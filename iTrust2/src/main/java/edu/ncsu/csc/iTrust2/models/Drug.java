@@ -2,12 +2,13 @@ package edu.ncsu.csc.iTrust2.models;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Length;
 
 import edu.ncsu.csc.iTrust2.forms.DrugForm;
@@ -19,6 +20,7 @@ import edu.ncsu.csc.iTrust2.forms.DrugForm;
  * @author Kai Presler-Marshall
  */
 @Entity
+@Cache ( usage = CacheConcurrencyStrategy.READ_WRITE, region = "drugs" )
 public class Drug extends DomainObject {
 
     /** For Hibernate/Thymeleaf _must_ be an empty constructor */
@@ -42,7 +44,7 @@ public class Drug extends DomainObject {
      * ID of this drug
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long   id;
 
     /**
@@ -8,6 +8,9 @@ import javax.persistence.Enumerated;
 import javax.persistence.Id;
 import javax.validation.constraints.NotEmpty;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Length;
 
 import edu.ncsu.csc.iTrust2.forms.HospitalForm;
@@ -21,6 +24,8 @@ import edu.ncsu.csc.iTrust2.models.enums.State;
  */
 
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
+@Cache ( usage = CacheConcurrencyStrategy.READ_WRITE, region = "hospitals" )
 public class Hospital extends DomainObject implements Serializable {
     /**
      * Used for serializing the object.
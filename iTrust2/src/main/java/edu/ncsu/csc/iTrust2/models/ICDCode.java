@@ -4,9 +4,11 @@ import java.util.Objects;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import edu.ncsu.csc.iTrust2.forms.ICDCodeForm;
 
 /**
@@ -18,13 +20,14 @@ import edu.ncsu.csc.iTrust2.forms.ICDCodeForm;
  *
  */
 @Entity
+@Cache ( usage = CacheConcurrencyStrategy.READ_WRITE, region = "icdCodes" )
 public class ICDCode extends DomainObject {
 
     /**
      * ID of this ICDCode
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long    id;
 
     /**
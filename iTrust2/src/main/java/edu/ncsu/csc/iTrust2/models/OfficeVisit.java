@@ -10,16 +10,19 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.google.gson.annotations.JsonAdapter;
 
@@ -29,14 +32,40 @@ import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
 import edu.ncsu.csc.iTrust2.utils.ValidationUtil;
 
 /**
- * This is the validated database-persisted office visit representation
+ * This is the validated database-persisted office visit representation.
+ *
+ * Its associations are read with one of these fetch plans, named after the
+ * screens that use them; the repository picks the plan for each query:
+ *
+ * - `OfficeVisit.list` joins the records a list of visits shows (the patient,
+ * HCP, hospital, appointment and bill) into the query for the visits;
+ *
+ * - `OfficeVisit.detail` also joins the health and ophthalmology metrics and the
+ * satisfaction survey, for a single visit.
+ *
+ * The collections (diagnoses, prescriptions and CPT codes) are never joined,
+ * as that would repeat each visit once per element; they are read when first
+ * used, `BATCH_SIZE` visits at a time.
  *
  * @author Kai Presler-Marshall
  *
  */
 @Entity
+@NamedEntityGraph ( name = OfficeVisit.LIST_GRAPH, attributeNodes = { @NamedAttributeNode ( "patient" ),
+        @NamedAttributeNode ( "hcp" ), @NamedAttributeNode ( "hospital" ), @NamedAttributeNode ( "appointment" ),
+        @NamedAttributeNode ( "bill" ) } )
+@NamedEntityGraph ( name = OfficeVisit.DETAIL_GRAPH, attributeNodes = { @NamedAttributeNode ( "patient" ),
+        @NamedAttributeNode ( "hcp" ), @NamedAttributeNode ( "hospital" ), @NamedAttributeNode ( "appointment" ),
+        @NamedAttributeNode ( "bill" ), @NamedAttributeNode ( "basicHealthMetrics" ),
+        @NamedAttributeNode ( "ophthalmologyMetrics" ), @NamedAttributeNode ( "satisfactionSurvey" ) } )
 public class OfficeVisit extends DomainObject {
 
+    /** Fetch plan for lists of visits */
+    public static final String   LIST_GRAPH   = "OfficeVisit.list";
+
+    /** Fetch plan for a single visit */
+    public static final String   DETAIL_GRAPH = "OfficeVisit.detail";
+
     /**
      * The patient of this office visit
      */
@@ -81,7 +110,7 @@ public class OfficeVisit extends DomainObject {
      * The id of this office visit
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long                 id;
 
     /**
@@ -105,6 +134,7 @@ public class OfficeVisit extends DomainObject {
      * loop
      */
     @OneToMany ( cascade = CascadeType.ALL )
+    @BatchSize ( size = BATCH_SIZE )
     @JsonManagedReference
     private List<Diagnosis>      diagnoses;
 
@@ -124,6 +154,7 @@ public class OfficeVisit extends DomainObject {
      * Prescriptions associated with this OfficeVisit
      */
     @OneToMany ( cascade = CascadeType.ALL )
+    @BatchSize ( size = BATCH_SIZE )
     @JsonManagedReference
     private List<Prescription>   prescriptions;
 
@@ -133,6 +164,7 @@ public class OfficeVisit extends DomainObject {
     @ManyToMany
     @JoinTable ( name = "office_visit_cpt_codes", joinColumns = { @JoinColumn ( name = "office_visit_id" ) },
             inverseJoinColumns = { @JoinColumn ( name = "cptCode_id" ) } )
+    @BatchSize ( size = BATCH_SIZE )
     private List<CPTCode>        cptCodes;
 
     /**
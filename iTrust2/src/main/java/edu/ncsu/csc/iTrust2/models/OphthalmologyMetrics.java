@@ -5,11 +5,12 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 
+import org.hibernate.annotations.BatchSize;
+
 /**
  * Object persisted in the database that represents the Ophthalmology Metrics of
  * a patient's office visit.
@@ -18,13 +19,14 @@ import javax.validation.constraints.Min;
  */
 
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
 public class OphthalmologyMetrics extends DomainObject {
 
     /**
      * ID of the OphthalmologyMetrics
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long    id;
 
     /**
@@ -23,7 +23,7 @@ public class Payment extends DomainObject {
      * The id for this payment
      */
     @Id
-    @GeneratedValue
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long          id;
 
     /**
@@ -5,7 +5,6 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
@@ -13,6 +12,8 @@ import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.BatchSize;
+
 import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
 
 /**
@@ -23,13 +24,14 @@ import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
  *
  */
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
 public class SatisfactionSurvey extends DomainObject {
 
     /**
      * The id of this SatisfactionSurvey
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long     id;
 
     /**
@@ -0,0 +1,204 @@
+package edu.ncsu.csc.iTrust2.models;
+
+import java.time.LocalDate;
+
+import javax.persistence.Basic;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters.LocalDateConverter;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import edu.ncsu.csc.iTrust2.adapters.LocalDateAdapter;
+import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
+import edu.ncsu.csc.iTrust2.utils.Histogram;
+
+/**
+ * The distribution of the satisfaction surveys for one HCP, at one hospital,
+ * for visits on one day. Each answer on the survey is kept as a histogram of
+ * how many surveys gave each possible answer, so summaries for any number of
+ * days are found by adding up these rows instead of reading the surveys
+ * themselves.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Entity
+@Table ( uniqueConstraints = @UniqueConstraint ( columnNames = { "hcp", "hospital", "visitDay" } ) )
+public class SatisfactionSurveyDailySummary extends DomainObject {
+
+    /** Number of possible satisfaction scores (0 - 5) */
+    public static final int SCORES = 6;
+
+    /** ID of the summary */
+    @Id
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
+    private Long            id;
+
+    /** Username of the HCP the surveys were about */
+    private String          hcp;
+
+    /** Name of the hospital the visits were at, if known */
+    private String          hospital;
+
+    /** Day the visits were on */
+    @Basic
+    @Convert ( converter = LocalDateConverter.class )
+    @JsonAdapter ( LocalDateAdapter.class )
+    private LocalDate       visitDay;
+
+    /** Number of surveys giving each waiting room time, by code */
+    private String          waitingRoomTimes;
+
+    /** Number of surveys giving each examination response time, by code */
+    private String          examinationResponseTimes;
+
+    /** Number of surveys giving each visit satisfaction score */
+    private String          visitSatisfactions;
+
+    /** Number of surveys giving each treatment satisfaction score */
+    private String          treatmentSatisfactions;
+
+    /**
+     * Version of this summary, incremented every time it is saved, so two
+     * surveys can't both update it at once
+     */
+    @Version
+    private long            version;
+
+    /**
+     * Empty constructor for Hibernate
+     */
+    public SatisfactionSurveyDailySummary () {
+    }
+
+    /**
+     * Creates an empty summary
+     *
+     * @param hcp
+     *            Username of the HCP
+     * @param hospital
+     *            Name of the hospital, or null
+     * @param day
+     *            Day of the visits
+     */
+    public SatisfactionSurveyDailySummary ( final String hcp, final String hospital, final LocalDate day ) {
+        this.hcp = hcp;
+        this.hospital = hospital;
+        this.visitDay = day;
+        this.waitingRoomTimes = new Histogram( WaitTime.values().length ).toString();
+        this.examinationResponseTimes = new Histogram( WaitTime.values().length ).toString();
+        this.visitSatisfactions = new Histogram( SCORES ).toString();
+        this.treatmentSatisfactions = new Histogram( SCORES ).toString();
+    }
+
+    /**
+     * Adds the answers from a survey to the summary
+     *
+     * @param survey
+     *            Survey to add
+     */
+    public void add ( final SatisfactionSurvey survey ) {
+        waitingRoomTimes = plus( waitingRoomTimes, survey.getWaitingRoomTime().getCode() - 1 );
+        examinationResponseTimes = plus( examinationResponseTimes, survey.getExaminationResponseTime().getCode() - 1 );
+        visitSatisfactions = plus( visitSatisfactions, survey.getVisitSatisfaction() );
+        treatmentSatisfactions = plus( treatmentSatisfactions, survey.getTreatmentSatisfaction() );
+    }
+
+    /**
+     * Returns the ID of the summary
+     *
+     * @return the id
+     */
+    @Override
+    public Long getId () {
+        return id;
+    }
+
+    /**
+     * Returns the username of the HCP the surveys were about
+     *
+     * @return the HCP
+     */
+    public String getHcp () {
+        return hcp;
+    }
+
+    /**
+     * Returns the name of the hospital the visits were at
+     *
+     * @return the hospital, or null if it is not known
+     */
+    public String getHospital () {
+        return hospital;
+    }
+
+    /**
+     * Returns the day the visits were on
+     *
+     * @return the day
+     */
+    public LocalDate getVisitDay () {
+        return visitDay;
+    }
+
+    /**
+     * Returns how many surveys gave each waiting room time. Bucket i holds
+     * the WaitTime with code i + 1.
+     *
+     * @return the histogram
+     */
+    public Histogram getWaitingRoomTimes () {
+        return Histogram.parse( waitingRoomTimes );
+    }
+
+    /**
+     * Returns how many surveys gave each examination response time. Bucket i
+     * holds the WaitTime with code i + 1.
+     *
+     * @return the histogram
+     */
+    public Histogram getExaminationResponseTimes () {
+        return Histogram.parse( examinationResponseTimes );
+    }
+
+    /**
+     * Returns how many surveys gave each visit satisfaction score
+     *
+     * @return the histogram
+     */
+    public Histogram getVisitSatisfactions () {
+        return Histogram.parse( visitSatisfactions );
+    }
+
+    /**
+     * Returns how many surveys gave each treatment satisfaction score
+     *
+     * @return the histogram
+     */
+    public Histogram getTreatmentSatisfactions () {
+        return Histogram.parse( treatmentSatisfactions );
+    }
+
+    /**
+     * Adds one value to a stored histogram
+     *
+     * @param stored
+     *            Histogram as stored
+     * @param bucket
+     *            Bucket to add to
+     * @return The new histogram, as stored
+     */
+    private static String plus ( final String stored, final int bucket ) {
+        final Histogram histogram = Histogram.parse( stored );
+        histogram.add( bucket );
+        return histogram.toString();
+    }
+
+}
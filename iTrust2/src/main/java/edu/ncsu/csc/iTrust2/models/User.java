@@ -15,8 +15,10 @@ import javax.persistence.Id;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Length;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -39,6 +41,7 @@ import edu.ncsu.csc.iTrust2.models.enums.Role;
  *
  */
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
 @JsonIgnoreProperties ( value = { "password" } )
 public class User extends DomainObject {
 
@@ -66,7 +69,9 @@ public class User extends DomainObject {
     }
 
     /**
-     * Create a new user based off of the UserForm
+     * Create a new user based off of the UserForm. The form's password is
+     * hashed when the user is saved through `UserService` (or by calling
+     * `encodePassword()`), with the application's PasswordEncoder.
      *
      * @param form
      *            the filled-in user form with user information
@@ -76,8 +81,7 @@ public class User extends DomainObject {
         if ( !form.getPassword().equals( form.getPassword2() ) ) {
             throw new IllegalArgumentException( "Passwords do not match!" );
         }
-        final PasswordEncoder pe = new BCryptPasswordEncoder();
-        setPassword( pe.encode( form.getPassword() ) );
+        rawPassword = form.getPassword();
         setEnabled( null != form.getEnabled() ? 1 : 0 );
         setRoles( form.getRoles().stream().map( Role::valueOf ).collect( Collectors.toSet() ) );
 
@@ -88,26 +92,37 @@ public class User extends DomainObject {
      */
     @Id
     @Length ( max = 20 )
-    private String    username;
+    private String           username;
 
     /**
      * The password of the user
      */
-    private String    password;
+    private String           password;
+
+    /**
+     * Password from the form this user was created from, until it has been
+     * hashed. Never stored or sent anywhere.
+     */
+    private transient String rawPassword;
 
     /**
      * Whether or not the user is enabled
      */
     @Min ( 0 )
     @Max ( 1 )
-    private Integer   enabled;
+    private Integer          enabled;
 
     /**
-     * The role of the user
+     * The role of the user. Read with the user, as callers check roles on
+     * users held outside of a session (such as the provider directory), but
+     * for many users at a time, and kept in the second-level cache as they
+     * rarely change.
      */
     @ElementCollection ( targetClass = Role.class, fetch = FetchType.EAGER )
+    @BatchSize ( size = BATCH_SIZE )
+    @Cache ( usage = CacheConcurrencyStrategy.READ_WRITE, region = "userRoles" )
     @Enumerated ( EnumType.STRING )
-    private Set<Role> roles;
+    private Set<Role>        roles;
 
     /**
      * Get the username of this user
@@ -148,6 +163,20 @@ public class User extends DomainObject {
      */
     public void setPassword ( final String password ) {
         this.password = password;
+        this.rawPassword = null;
+    }
+
+    /**
+     * Hashes the password this user was created from a form with, if that
+     * hasn't been done yet and no password has been set since
+     *
+     * @param encoder
+     *            Encoder to hash the password with
+     */
+    public void encodePassword ( final PasswordEncoder encoder ) {
+        if ( null != rawPassword ) {
+            setPassword( encoder.encode( rawPassword ) );
+        }
     }
 
     /**
@@ -2,9 +2,11 @@ package edu.ncsu.csc.iTrust2.models;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Length;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -19,6 +21,8 @@ import edu.ncsu.csc.iTrust2.forms.VaccineTypeForm;
  *
  */
 @Entity
+@BatchSize ( size = DomainObject.BATCH_SIZE )
+@Cache ( usage = CacheConcurrencyStrategy.READ_WRITE, region = "vaccineTypes" )
 public class VaccineType extends DomainObject {
     /**
      * Empty constructor for hiberate
@@ -48,7 +52,7 @@ public class VaccineType extends DomainObject {
      * ID of this drug
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long    id;
     /**
      * Name of the vaccine
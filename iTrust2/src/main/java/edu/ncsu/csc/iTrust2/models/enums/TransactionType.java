@@ -410,7 +410,12 @@ public enum TransactionType {
     /**
      * An upcoming Vaccination Certificate was recieved.
      */
-    VACCINATION_CERTIFICATE_GET ( 1802, "Vaccination certificate was downloaded", true );
+    VACCINATION_CERTIFICATE_GET ( 1802, "Vaccination certificate was downloaded", true ),
+
+    /**
+     * A chunk of records was imported from a file
+     */
+    BULK_IMPORT ( 1901, "Records were imported in bulk", false );
 
     /**
      * Creates a TransactionType for logging events
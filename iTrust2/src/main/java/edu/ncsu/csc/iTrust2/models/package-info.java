@@ -0,0 +1,20 @@
+/**
+ * Persistent entities. Every entity with a generated ID uses the
+ * `DomainObject.ID_GENERATOR` generator defined here, which hands out IDs from
+ * blocks reserved in memory (`pooled-lo`): the shared `hibernate_sequence`
+ * table is only read and bumped once per `ID_BLOCK_SIZE` inserts, and the
+ * inserts themselves can be sent to the database in JDBC batches. The table is
+ * the one Hibernate already used for `GenerationType.AUTO`, and its `next_val`
+ * keeps the same meaning, so existing databases carry on from where they were.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@GenericGenerator ( name = DomainObject.ID_GENERATOR, strategy = "enhanced-sequence", parameters = {
+        @Parameter ( name = "sequence_name", value = "hibernate_sequence" ),
+        @Parameter ( name = "optimizer", value = "pooled-lo" ),
+        @Parameter ( name = "increment_size", value = DomainObject.ID_BLOCK_SIZE ) } )
+package edu.ncsu.csc.iTrust2.models;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
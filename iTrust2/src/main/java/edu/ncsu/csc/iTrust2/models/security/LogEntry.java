@@ -6,8 +6,9 @@ import javax.persistence.Basic;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
 import com.google.gson.annotations.JsonAdapter;
@@ -23,10 +24,15 @@ import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
  * happened), a username, and a time when the event occurred. Has support for an
  * optional secondary user and message for further elaboration
  *
+ * Entries are almost always looked up by user and time, so each user column is
+ * indexed together with the time.
+ *
  * @author Kai Presler-Marshall
  *
  */
 @Entity
+@Table ( indexes = { @Index ( name = "idx_logentry_primary_time", columnList = "primaryUser, time" ),
+        @Index ( name = "idx_logentry_secondary_time", columnList = "secondaryUser, time" ) } )
 public class LogEntry extends DomainObject {
 
     /**
@@ -66,7 +72,7 @@ public class LogEntry extends DomainObject {
      * ID of the LogEntry
      */
     @Id
-    @GeneratedValue ( strategy = GenerationType.AUTO )
+    @GeneratedValue ( generator = DomainObject.ID_GENERATOR )
     private Long            id;
 
     /**
@@ -2,10 +2,17 @@ package edu.ncsu.csc.iTrust2.repositories;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc.iTrust2.forms.display.AppointmentSummary;
 import edu.ncsu.csc.iTrust2.models.AppointmentRequest;
 import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
+import edu.ncsu.csc.iTrust2.models.enums.Status;
 
 /**
  * Repository for interacting with AppointmentRequest model. Method
@@ -14,7 +21,19 @@ import edu.ncsu.csc.iTrust2.models.User;
  * @author Kai Presler-Marshall
  *
  */
-public interface AppointmentRequestRepository extends JpaRepository<AppointmentRequest, Long> {
+public interface AppointmentRequestRepository extends SpecificationRepository<AppointmentRequest, Long> {
+
+    /** Columns of an `AppointmentSummary` */
+    String SUMMARY_SELECT = "SELECT r.id AS id, r.date AS date, r.type AS type, r.status AS status, "
+            + "p.username AS patient, h.username AS hcp, r.comments AS comments ";
+
+    /**
+     * Requests listed as `AppointmentSummary`s; a filter that is null is left
+     * out
+     */
+    String SUMMARY_FROM   = "FROM AppointmentRequest r JOIN r.patient p LEFT JOIN r.hcp h "
+            + "WHERE ( :status IS NULL OR r.status = :status ) AND ( :patient IS NULL OR p.username = :patient ) "
+            + "AND ( :hcp IS NULL OR h.username = :hcp ) AND ( :type IS NULL OR r.type = :type )";
 
     /**
      * Find all AppointmentRequests for the provided Patient
@@ -45,4 +64,45 @@ public interface AppointmentRequestRepository extends JpaRepository<AppointmentR
      */
     public List<AppointmentRequest> findByHcpAndPatient ( User hcp, User patient );
 
+    /**
+     * Lists summaries of appointment requests in a single query
+     *
+     * @param status
+     *            Only requests with this status, or null
+     * @param patient
+     *            Username of the patient to list requests from, or null
+     * @param hcp
+     *            Username of the HCP to list requests for, or null
+     * @param type
+     *            Only requests of this type, or null
+     * @param sort
+     *            Order to list them in
+     * @return Matching requests
+     */
+    @Query ( SUMMARY_SELECT + SUMMARY_FROM )
+    public List<AppointmentSummary> findSummaries ( @Param ( "status" ) Status status,
+            @Param ( "patient" ) String patient, @Param ( "hcp" ) String hcp, @Param ( "type" ) AppointmentType type,
+            Sort sort );
+
+    /**
+     * Lists a page of summaries of appointment requests, in one query for the
+     * page and one to count the matching requests
+     *
+     * @param status
+     *            Only requests with this status, or null
+     * @param patient
+     *            Username of the patient to list requests from, or null
+     * @param hcp
+     *            Username of the HCP to list requests for, or null
+     * @param type
+     *            Only requests of this type, or null
+     * @param page
+     *            Page to retrieve, and the order to list them in
+     * @return The page
+     */
+    @Query ( value = SUMMARY_SELECT + SUMMARY_FROM, countQuery = "SELECT COUNT(r) " + SUMMARY_FROM )
+    public Page<AppointmentSummary> findSummaries ( @Param ( "status" ) Status status,
+            @Param ( "patient" ) String patient, @Param ( "hcp" ) String hcp, @Param ( "type" ) AppointmentType type,
+            Pageable page );
+
 }
@@ -2,13 +2,124 @@ package edu.ncsu.csc.iTrust2.repositories;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc.iTrust2.forms.display.BillSummary;
 import edu.ncsu.csc.iTrust2.models.Bill;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
+import edu.ncsu.csc.iTrust2.models.User;
+
+/**
+ * Repository for interacting with Bill model. Method implementations generated
+ * by Spring
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface BillRepository extends SpecificationRepository<Bill, Long> {
+
+    /** Columns of a `BillSummary` */
+    String SUMMARY_SELECT = "SELECT b.id AS id, v.id AS visitId, v.date AS visitDate, p.username AS patient, "
+            + "pt.firstName AS patientFirstName, pt.lastName AS patientLastName, b.totalDue AS totalDue, "
+            + "b.balance AS balance, b.isPaid AS paid, b.delinquentOn AS delinquentOn ";
+
+    /**
+     * Bills listed as `BillSummary`s, joined to their visits and patients; a
+     * filter that is null is left out
+     */
+    String SUMMARY_FROM   = "FROM Bill b JOIN b.visit v JOIN v.patient p "
+            + "LEFT JOIN Patient pt ON pt.username = p.username WHERE ( :paid IS NULL OR b.isPaid = :paid ) "
+            + "AND ( :patient IS NULL OR p.username = :patient )";
+
+    /**
+     * Finds every bill, with the visit and people it is for
+     *
+     * @return All bills
+     */
+    @Override
+    @EntityGraph ( value = Bill.BILLING_GRAPH, type = EntityGraphType.LOAD )
+    public List<Bill> findAll ();
+
+    /**
+     * Finds the bills that match a filter, with the visit and people each one
+     * is for
+     *
+     * @param filter
+     *            The filter
+     * @param sort
+     *            Order to list them in
+     * @return Matching bills
+     */
+    @Override
+    @EntityGraph ( value = Bill.BILLING_GRAPH, type = EntityGraphType.LOAD )
+    public List<Bill> findAll ( Specification<Bill> filter, Sort sort );
+
+    /**
+     * Finds a page of the bills that match a filter, with the visit and
+     * people each one is for
+     *
+     * @param filter
+     *            The filter
+     * @param page
+     *            Page to retrieve, and the order to list them in
+     * @return The page
+     */
+    @Override
+    @EntityGraph ( value = Bill.BILLING_GRAPH, type = EntityGraphType.LOAD )
+    public Page<Bill> findAll ( Specification<Bill> filter, Pageable page );
 
-public interface BillRepository extends JpaRepository<Bill, Long> {
     public Bill findByVisit ( OfficeVisit o );
 
     public List<Bill> findByIsPaid ( boolean isPaid );
+
+    /**
+     * Finds a bill, but only if it belongs to the given patient
+     *
+     * @param id
+     *            ID of the bill
+     * @param patient
+     *            Patient the bill must belong to
+     * @return The bill, or null if there is no such bill or it belongs to
+     *         someone else
+     */
+    @Query ( "SELECT b FROM Bill b WHERE b.id = :id AND b.visit.patient = :patient" )
+    public Bill findByIdAndPatient ( @Param ( "id" ) Long id, @Param ( "patient" ) User patient );
+
+    /**
+     * Lists summaries of bills in a single query
+     *
+     * @param paid
+     *            Whether to list paid or unpaid bills, or null for both
+     * @param patient
+     *            Username of the patient to list bills for, or null
+     * @param sort
+     *            Order to list them in
+     * @return Matching bills
+     */
+    @Query ( SUMMARY_SELECT + SUMMARY_FROM )
+    public List<BillSummary> findSummaries ( @Param ( "paid" ) Boolean paid, @Param ( "patient" ) String patient,
+            Sort sort );
+
+    /**
+     * Lists a page of summaries of bills, in one query for the page and one to
+     * count the matching bills
+     *
+     * @param paid
+     *            Whether to list paid or unpaid bills, or null for both
+     * @param patient
+     *            Username of the patient to list bills for, or null
+     * @param page
+     *            Page to retrieve, and the order to list them in
+     * @return The page
+     */
+    @Query ( value = SUMMARY_SELECT + SUMMARY_FROM, countQuery = "SELECT COUNT(b) " + SUMMARY_FROM )
+    public Page<BillSummary> findSummaries ( @Param ( "paid" ) Boolean paid, @Param ( "patient" ) String patient,
+            Pageable page );
 }
@@ -1,8 +1,9 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import edu.ncsu.csc.iTrust2.models.CPTCode;
 
@@ -12,15 +13,43 @@ import edu.ncsu.csc.iTrust2.models.CPTCode;
  * @author Nikolaus Johnson
  *
  */
-public interface CPTCodeRepository extends JpaRepository<CPTCode, Long> {
+public interface CPTCodeRepository extends SpecificationRepository<CPTCode, Long> {
     /**
-     * This method returns a CPT code based on the number the CPT code is given
+     * This method returns every version of a CPT code, newest first
      *
      * @param code
      *            Code to look for
-     * @return the CPT code with that number
+     * @return the versions of the CPT code with that number
      */
-    public List<CPTCode> findByCode ( long code );
+    public List<CPTCode> findByCodeOrderByVersionDesc ( long code );
+
+    /**
+     * This method returns the current version of a CPT code
+     *
+     * @param code
+     *            Code to look for
+     * @return the current version, or null if there is none
+     */
+    public CPTCode findByCurrentCode ( Long code );
+
+    /**
+     * This method returns the current versions of several CPT codes at once
+     *
+     * @param codes
+     *            Codes to look for
+     * @return the current versions of the codes that exist
+     */
+    public List<CPTCode> findByCurrentCodeIn ( Collection<Long> codes );
+
+    /**
+     * This method returns every version of the CPT codes that have no current
+     * version marked, such as codes saved before the marker existed
+     *
+     * @return the versions of those codes
+     */
+    @Query ( "SELECT c FROM CPTCode c WHERE c.code NOT IN "
+            + "(SELECT d.currentCode FROM CPTCode d WHERE d.currentCode IS NOT NULL)" )
+    public List<CPTCode> findWithoutCurrentVersion ();
 
     /**
      * This method returns a list of CPT codes based on the archive status of a
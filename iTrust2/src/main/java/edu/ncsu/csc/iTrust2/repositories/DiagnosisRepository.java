@@ -1,11 +1,19 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc.iTrust2.forms.display.DiagnosisListRow;
 import edu.ncsu.csc.iTrust2.models.Diagnosis;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
+import edu.ncsu.csc.iTrust2.models.User;
 
 /**
  * Repository for interacting with Diagnosis model. Method implementations
@@ -16,6 +24,17 @@ import edu.ncsu.csc.iTrust2.models.OfficeVisit;
  */
 public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
 
+    /** Columns of a `DiagnosisListRow` */
+    String ROWS_SELECT = "SELECT d.id AS id, v.date AS visitDate, h.username AS hcp, d.note AS note, c.code AS code ";
+
+    /**
+     * A patient's diagnoses, joined to their visits, HCPs and codes; a filter
+     * that is null is left out
+     */
+    String ROWS_FROM   = "FROM Diagnosis d JOIN d.visit v JOIN v.hcp h JOIN d.code c WHERE v.patient = :patient "
+            + "AND ( :from IS NULL OR v.date >= :from ) AND ( :to IS NULL OR v.date < :to ) "
+            + "AND ( :code IS NULL OR c.code = :code )";
+
     /**
      * Find Diagnoses for a given OfficeVisit
      * 
@@ -25,4 +44,57 @@ public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
      */
     public List<Diagnosis> findByVisit ( OfficeVisit visit );
 
+    /**
+     * Find every Diagnosis made at a patient's visits
+     *
+     * @param patient
+     *            Patient to search by
+     * @return Matching Diagnoses, most recent visit first
+     */
+    @Query ( "SELECT d FROM Diagnosis d JOIN FETCH d.visit v WHERE v.patient = :patient "
+            + "ORDER BY v.date DESC, d.id DESC" )
+    public List<Diagnosis> findByPatient ( @Param ( "patient" ) User patient );
+
+    /**
+     * Lists a patient's diagnoses in a single query, joining each diagnosis to
+     * its visit, HCP and code
+     *
+     * @param patient
+     *            Patient to search by
+     * @param from
+     *            Only diagnoses from visits at or after this time, or null
+     * @param to
+     *            Only diagnoses from visits before this time, or null
+     * @param code
+     *            Only diagnoses with this ICD-10 code, or null
+     * @param sort
+     *            Order to list them in, by the columns of `DiagnosisListRow`
+     * @return Matching rows
+     */
+    @Query ( ROWS_SELECT + ROWS_FROM )
+    public List<DiagnosisListRow> findRowsByPatient ( @Param ( "patient" ) User patient,
+            @Param ( "from" ) ZonedDateTime from, @Param ( "to" ) ZonedDateTime to, @Param ( "code" ) String code,
+            Sort sort );
+
+    /**
+     * Lists a page of a patient's diagnoses, in one query for the page and one
+     * to count the matching diagnoses
+     *
+     * @param patient
+     *            Patient to search by
+     * @param from
+     *            Only diagnoses from visits at or after this time, or null
+     * @param to
+     *            Only diagnoses from visits before this time, or null
+     * @param code
+     *            Only diagnoses with this ICD-10 code, or null
+     * @param page
+     *            Page to retrieve, and the order to list them in
+     * @return The page
+     */
+    @Query ( value = ROWS_SELECT + ROWS_FROM, countQuery = "SELECT COUNT(d) " + ROWS_FROM )
+    public Page<DiagnosisListRow> findRowsByPatient ( @Param ( "patient" ) User patient,
+            @Param ( "from" ) ZonedDateTime from, @Param ( "to" ) ZonedDateTime to, @Param ( "code" ) String code,
+            Pageable page );
+
 }
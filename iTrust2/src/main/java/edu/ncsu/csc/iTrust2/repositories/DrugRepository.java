@@ -1,7 +1,5 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-
 import edu.ncsu.csc.iTrust2.models.Drug;
 
 /**
@@ -11,7 +9,7 @@ import edu.ncsu.csc.iTrust2.models.Drug;
  * @author Kai Presler-Marshall
  *
  */
-public interface DrugRepository extends JpaRepository<Drug, Long> {
+public interface DrugRepository extends SpecificationRepository<Drug, Long> {
 
     /**
      * Check if a drug exists with the given code
@@ -1,7 +1,5 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-
 import edu.ncsu.csc.iTrust2.models.Hospital;
 
 /**
@@ -11,7 +9,7 @@ import edu.ncsu.csc.iTrust2.models.Hospital;
  * @author Kai Presler-Marshall
  *
  */
-public interface HospitalRepository extends JpaRepository<Hospital, String> {
+public interface HospitalRepository extends SpecificationRepository<Hospital, String> {
 
     /**
      * Find a hospital with the provided name
@@ -2,8 +2,6 @@ package edu.ncsu.csc.iTrust2.repositories;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-
 import edu.ncsu.csc.iTrust2.models.ICDCode;
 
 /**
@@ -13,7 +11,7 @@ import edu.ncsu.csc.iTrust2.models.ICDCode;
  * @author Kai Presler-Marshall
  *
  */
-public interface ICDCodeRepository extends JpaRepository<ICDCode, Long> {
+public interface ICDCodeRepository extends SpecificationRepository<ICDCode, Long> {
 
     /**
      * Finds an ICDCode by the provided code
@@ -1,9 +1,19 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc.iTrust2.forms.display.OfficeVisitSummary;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.User;
 
@@ -14,7 +24,69 @@ import edu.ncsu.csc.iTrust2.models.User;
  * @author Kai Presler-Marshall
  *
  */
-public interface OfficeVisitRepository extends JpaRepository<OfficeVisit, Long> {
+public interface OfficeVisitRepository extends SpecificationRepository<OfficeVisit, Long> {
+
+    /** Columns of an `OfficeVisitSummary` */
+    String SUMMARY_SELECT = "SELECT v.id AS id, v.date AS date, v.type AS type, p.username AS patient, "
+            + "pt.firstName AS patientFirstName, pt.lastName AS patientLastName, h.username AS hcp, "
+            + "hs.name AS hospital, b.id AS billId ";
+
+    /**
+     * Visits listed as `OfficeVisitSummary`s, joined to the few other records
+     * a summary needs; a filter that is null is left out
+     */
+    String SUMMARY_FROM   = "FROM OfficeVisit v JOIN v.patient p LEFT JOIN Patient pt ON pt.username = p.username "
+            + "JOIN v.hcp h JOIN v.hospital hs LEFT JOIN v.bill b WHERE ( :patient IS NULL OR p.username = :patient ) "
+            + "AND ( :hcp IS NULL OR h.username = :hcp ) AND ( :from IS NULL OR v.date >= :from ) "
+            + "AND ( :to IS NULL OR v.date < :to )";
+
+    /**
+     * Finds an office visit, with everything its page shows
+     *
+     * @param id
+     *            ID of the visit
+     * @return The visit, if there is one
+     */
+    @Override
+    @EntityGraph ( value = OfficeVisit.DETAIL_GRAPH, type = EntityGraphType.LOAD )
+    public Optional<OfficeVisit> findById ( Long id );
+
+    /**
+     * Finds every office visit, with the records a list of them shows
+     *
+     * @return All visits
+     */
+    @Override
+    @EntityGraph ( value = OfficeVisit.LIST_GRAPH, type = EntityGraphType.LOAD )
+    public List<OfficeVisit> findAll ();
+
+    /**
+     * Finds the office visits that match a filter, with the records a list of
+     * them shows
+     *
+     * @param filter
+     *            The filter
+     * @param sort
+     *            Order to list them in
+     * @return Matching visits
+     */
+    @Override
+    @EntityGraph ( value = OfficeVisit.LIST_GRAPH, type = EntityGraphType.LOAD )
+    public List<OfficeVisit> findAll ( Specification<OfficeVisit> filter, Sort sort );
+
+    /**
+     * Finds a page of the office visits that match a filter, with the records
+     * a list of them shows
+     *
+     * @param filter
+     *            The filter
+     * @param page
+     *            Page to retrieve, and the order to list them in
+     * @return The page
+     */
+    @Override
+    @EntityGraph ( value = OfficeVisit.LIST_GRAPH, type = EntityGraphType.LOAD )
+    public Page<OfficeVisit> findAll ( Specification<OfficeVisit> filter, Pageable page );
 
     /**
      * Find office visits for a given patient
@@ -23,6 +95,7 @@ public interface OfficeVisitRepository extends JpaRepository<OfficeVisit, Long>
      *            HCP to search by
      * @return Matching visits
      */
+    @EntityGraph ( value = OfficeVisit.LIST_GRAPH, type = EntityGraphType.LOAD )
     public List<OfficeVisit> findByHcp ( User hcp );
 
     /**
@@ -32,6 +105,7 @@ public interface OfficeVisitRepository extends JpaRepository<OfficeVisit, Long>
      *            Patient to search by
      * @return Matching visits
      */
+    @EntityGraph ( value = OfficeVisit.LIST_GRAPH, type = EntityGraphType.LOAD )
     public List<OfficeVisit> findByPatient ( User patient );
 
     /**
@@ -43,6 +117,46 @@ public interface OfficeVisitRepository extends JpaRepository<OfficeVisit, Long>
      *            Patient to search by
      * @return Matching visits
      */
+    @EntityGraph ( value = OfficeVisit.LIST_GRAPH, type = EntityGraphType.LOAD )
     public List<OfficeVisit> findByHcpAndPatient ( User hcp, User patient );
 
+    /**
+     * Lists summaries of office visits in a single query
+     *
+     * @param patient
+     *            Username of the patient to list visits for, or null
+     * @param hcp
+     *            Username of the HCP to list visits for, or null
+     * @param from
+     *            Only visits at or after this time, or null
+     * @param to
+     *            Only visits before this time, or null
+     * @param sort
+     *            Order to list them in
+     * @return Matching visits
+     */
+    @Query ( SUMMARY_SELECT + SUMMARY_FROM )
+    public List<OfficeVisitSummary> findSummaries ( @Param ( "patient" ) String patient, @Param ( "hcp" ) String hcp,
+            @Param ( "from" ) ZonedDateTime from, @Param ( "to" ) ZonedDateTime to, Sort sort );
+
+    /**
+     * Lists a page of summaries of office visits, in one query for the page
+     * and one to count the matching visits
+     *
+     * @param patient
+     *            Username of the patient to list visits for, or null
+     * @param hcp
+     *            Username of the HCP to list visits for, or null
+     * @param from
+     *            Only visits at or after this time, or null
+     * @param to
+     *            Only visits before this time, or null
+     * @param page
+     *            Page to retrieve, and the order to list them in
+     * @return The page
+     */
+    @Query ( value = SUMMARY_SELECT + SUMMARY_FROM, countQuery = "SELECT COUNT(v) " + SUMMARY_FROM )
+    public Page<OfficeVisitSummary> findSummaries ( @Param ( "patient" ) String patient, @Param ( "hcp" ) String hcp,
+            @Param ( "from" ) ZonedDateTime from, @Param ( "to" ) ZonedDateTime to, Pageable page );
+
 }
@@ -1,7 +1,13 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import edu.ncsu.csc.iTrust2.models.Personnel;
 import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
 
 /**
  * Repository for interacting with Personnel model. Method implementations
@@ -13,4 +19,14 @@ import edu.ncsu.csc.iTrust2.models.User;
  */
 public interface PersonnelRepository <T extends User> extends UserRepository<Personnel> {
 
+    /**
+     * Finds all personnel with a given role, along with all of their roles
+     *
+     * @param role
+     *            Role to search by
+     * @return Matching personnel
+     */
+    @Query ( "SELECT DISTINCT p FROM Personnel p JOIN p.roles r LEFT JOIN FETCH p.roles WHERE r = :role" )
+    public List<Personnel> findByRole ( @Param ( "role" ) Role role );
+
 }
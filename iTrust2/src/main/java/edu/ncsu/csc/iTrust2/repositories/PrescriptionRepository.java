@@ -2,8 +2,6 @@ package edu.ncsu.csc.iTrust2.repositories;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-
 import edu.ncsu.csc.iTrust2.models.Prescription;
 import edu.ncsu.csc.iTrust2.models.User;
 
@@ -14,7 +12,7 @@ import edu.ncsu.csc.iTrust2.models.User;
  * @author Kai Presler-Marshall
  *
  */
-public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
+public interface PrescriptionRepository extends SpecificationRepository<Prescription, Long> {
 
     /**
      * Find all Prescriptions for a given Patient
@@ -0,0 +1,61 @@
+package edu.ncsu.csc.iTrust2.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import edu.ncsu.csc.iTrust2.models.SatisfactionSurveyDailySummary;
+
+/**
+ * Repository for interacting with SatisfactionSurveyDailySummary model. Method
+ * implementations generated by Spring
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public interface SatisfactionSurveyDailySummaryRepository extends JpaRepository<SatisfactionSurveyDailySummary, Long> {
+
+    /**
+     * Finds the summary for an HCP, hospital and day
+     *
+     * @param hcp
+     *            HCP username to search by
+     * @param hospital
+     *            Hospital name to search by
+     * @param visitDay
+     *            Day to search by
+     * @return The summary, or null if there is none yet
+     */
+    public SatisfactionSurveyDailySummary findByHcpAndHospitalAndVisitDay ( String hcp, String hospital,
+            LocalDate visitDay );
+
+    /**
+     * Finds the summaries for an HCP over a range of days
+     *
+     * @param hcp
+     *            HCP username to search by
+     * @param from
+     *            First day (inclusive)
+     * @param to
+     *            Last day (inclusive)
+     * @return Matching summaries
+     */
+    public List<SatisfactionSurveyDailySummary> findByHcpAndVisitDayBetween ( String hcp, LocalDate from,
+            LocalDate to );
+
+    /**
+     * Finds the summaries for a hospital over a range of days
+     *
+     * @param hospital
+     *            Hospital name to search by
+     * @param from
+     *            First day (inclusive)
+     * @param to
+     *            Last day (inclusive)
+     * @return Matching summaries
+     */
+    public List<SatisfactionSurveyDailySummary> findByHospitalAndVisitDayBetween ( String hospital, LocalDate from,
+            LocalDate to );
+
+}
@@ -1,8 +1,10 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
 
@@ -13,7 +15,7 @@ import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
  * @author Unascribed
  *
  */
-public interface SatisfactionSurveyRepository extends JpaRepository<SatisfactionSurvey, Long> {
+public interface SatisfactionSurveyRepository extends SpecificationRepository<SatisfactionSurvey, Long> {
 
     /**
      * Find all SatisfactionSurveys for the given HCP
@@ -44,4 +46,50 @@ public interface SatisfactionSurveyRepository extends JpaRepository<Satisfaction
      */
     public List<SatisfactionSurvey> findByHcpUsernameAndPatientUsername ( String hcp, String patient );
 
+    /**
+     * Summarises the SatisfactionSurveys for the given HCPs in one grouped
+     * query. Each row is [hcp username, waiting room time, examination
+     * response time, number of surveys, sum of visit satisfaction, sum of
+     * treatment satisfaction] for one HCP and combination of wait times.
+     *
+     * @param hcps
+     *            HCP usernames to summarise
+     * @return One row per HCP and combination of wait times
+     */
+    @Query ( "SELECT s.hcp.username, s.waitingRoomTime, s.examinationResponseTime, COUNT(s), "
+            + "SUM(s.visitSatisfaction), SUM(s.treatmentSatisfaction) FROM SatisfactionSurvey s "
+            + "WHERE s.hcp.username IN :hcps "
+            + "GROUP BY s.hcp.username, s.waitingRoomTime, s.examinationResponseTime" )
+    public List<Object[]> summarizeByHcpUsernameIn ( @Param ( "hcps" ) Collection<String> hcps );
+
+    /**
+     * Finds just the scores and comments of the SatisfactionSurveys for the
+     * given HCPs. Each row is [hcp username, visit satisfaction, treatment
+     * satisfaction, comments].
+     *
+     * @param hcps
+     *            HCP usernames to search by
+     * @return One row per survey, in the order they were submitted
+     */
+    @Query ( "SELECT s.hcp.username, s.visitSatisfaction, s.treatmentSatisfaction, s.comments "
+            + "FROM SatisfactionSurvey s WHERE s.hcp.username IN :hcps ORDER BY s.id" )
+    public List<Object[]> findNotesByHcpUsernameIn ( @Param ( "hcps" ) Collection<String> hcps );
+
+    /**
+     * Finds every SatisfactionSurvey along with where and when the visit it
+     * is about took place. Each row is [survey, hospital name, visit date].
+     *
+     * @return One row per survey that is attached to a visit
+     */
+    @Query ( "SELECT s, h.name, ov.date FROM OfficeVisit ov JOIN ov.satisfactionSurvey s LEFT JOIN ov.hospital h" )
+    public List<Object[]> findAllWithVisit ();
+
+    /**
+     * Counts the SatisfactionSurveys that are attached to a visit
+     *
+     * @return Number of surveys
+     */
+    @Query ( "SELECT COUNT(s) FROM OfficeVisit ov JOIN ov.satisfactionSurvey s" )
+    public long countWithVisit ();
+
 }
@@ -0,0 +1,23 @@
+package edu.ncsu.csc.iTrust2.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * A repository that can also filter, sort and page records by a Specification
+ * (see `FilterUtil`). Extend this rather than `JpaRepository` for any record
+ * that is served by a `SpecificationService`, such as one that has a list
+ * endpoint.
+ *
+ * @author Kai Presler-Marshall
+ * @param <T>
+ *            Type of record
+ * @param <K>
+ *            Type of the Key
+ *
+ */
+@NoRepositoryBean
+public interface SpecificationRepository <T, K> extends JpaRepository<T, K>, JpaSpecificationExecutor<T> {
+
+}
@@ -1,6 +1,10 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import edu.ncsu.csc.iTrust2.models.User;
 
@@ -13,7 +17,7 @@ import edu.ncsu.csc.iTrust2.models.User;
  *            Type of User
  *
  */
-public interface UserRepository <T extends User> extends JpaRepository<T, String> {
+public interface UserRepository <T extends User> extends SpecificationRepository<T, String> {
 
     /**
      * Checks if a User with the given username exists
@@ -33,4 +37,35 @@ public interface UserRepository <T extends User> extends JpaRepository<T, String
      */
     public User findByUsername ( String username );
 
+    /**
+     * Finds several users, along with their roles, in one query
+     *
+     * @param usernames
+     *            Usernames to look up
+     * @return The users found
+     */
+    @Query ( "SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.username IN :usernames" )
+    public List<User> findByUsernameIn ( @Param ( "usernames" ) Collection<String> usernames );
+
+    /**
+     * Finds the roles of several users at once
+     *
+     * @param usernames
+     *            Usernames to look up
+     * @return Pairs of (username, Role), one for each role of each user found
+     */
+    @Query ( "SELECT u.username, r FROM User u JOIN u.roles r WHERE u.username IN :usernames" )
+    public List<Object[]> findRolesByUsernameIn ( @Param ( "usernames" ) Collection<String> usernames );
+
+    /**
+     * Finds everything needed to authenticate a user in one query
+     *
+     * @param username
+     *            Username to look up
+     * @return Rows of (username, password, enabled, Role), one for each role of
+     *         the user; empty if the user does not exist
+     */
+    @Query ( "SELECT u.username, u.password, u.enabled, r FROM User u LEFT JOIN u.roles r WHERE u.username = :username" )
+    public List<Object[]> findCredentialsByUsername ( @Param ( "username" ) String username );
+
 }
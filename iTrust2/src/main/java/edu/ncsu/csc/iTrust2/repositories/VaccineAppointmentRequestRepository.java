@@ -2,8 +2,6 @@ package edu.ncsu.csc.iTrust2.repositories;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.VaccineAppointmentRequest;
 
@@ -14,7 +12,7 @@ import edu.ncsu.csc.iTrust2.models.VaccineAppointmentRequest;
  * @author accline2, mjcheim
  *
  */
-public interface VaccineAppointmentRequestRepository extends JpaRepository<VaccineAppointmentRequest, Long> {
+public interface VaccineAppointmentRequestRepository extends SpecificationRepository<VaccineAppointmentRequest, Long> {
 
     /**
      * Find all AppointmentRequests for the provided Patient
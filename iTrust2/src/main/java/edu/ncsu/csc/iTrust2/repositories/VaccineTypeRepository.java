@@ -1,7 +1,5 @@
 package edu.ncsu.csc.iTrust2.repositories;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-
 import edu.ncsu.csc.iTrust2.models.VaccineType;
 
 /**
@@ -11,7 +9,7 @@ import edu.ncsu.csc.iTrust2.models.VaccineType;
  * @author mjcheim, accline2
  *
  */
-public interface VaccineTypeRepository extends JpaRepository<VaccineType, Long> {
+public interface VaccineTypeRepository extends SpecificationRepository<VaccineType, Long> {
     /**
      * Check if a vaccine exists with the given code
      *
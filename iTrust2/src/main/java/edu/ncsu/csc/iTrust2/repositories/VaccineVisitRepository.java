@@ -2,8 +2,10 @@ package edu.ncsu.csc.iTrust2.repositories;
 
 import java.util.List;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc.iTrust2.forms.display.VaccinationCertificateLine;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.VaccineVisit;
 
@@ -14,7 +16,7 @@ import edu.ncsu.csc.iTrust2.models.VaccineVisit;
  * @author accline2
  * @author mjcheim
  */
-public interface VaccineVisitRepository extends JpaRepository<VaccineVisit, Long> {
+public interface VaccineVisitRepository extends SpecificationRepository<VaccineVisit, Long> {
 
     /**
      * Find all VaccineVisits for provided patient
@@ -41,4 +43,16 @@ public interface VaccineVisitRepository extends JpaRepository<VaccineVisit, Long
      */
     List<VaccineVisit> findByVaccinatorAndPatient ( User hcp, User patient );
 
+    /**
+     * Lists the doses on a patient's vaccination certificate in a single
+     * query, joining each visit to its vaccine and vaccinator
+     * 
+     * @param patient patient to list doses for
+     * @return the doses, in the order they were given
+     */
+    @Query ( "SELECT v.date AS date, v.dose AS dose, t.name AS vaccineType, t.numDoses AS dosesRequired, "
+            + "u.username AS vaccinator FROM VaccineVisit v JOIN v.vaccineType t JOIN v.vaccinator u "
+            + "WHERE v.patient = :patient ORDER BY v.date, v.id" )
+    List<VaccinationCertificateLine> findCertificateLines ( @Param ( "patient" ) User patient );
+
 }
@@ -1,11 +1,15 @@
 package edu.ncsu.csc.iTrust2.repositories.security;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.models.security.LogEntry;
 
 /**
@@ -39,4 +43,93 @@ public interface LogEntryRepository extends JpaRepository<LogEntry, Long> {
     @Query ( "SELECT le FROM LogEntry le WHERE le.primaryUser = ?1 OR le.secondaryUser = ?1" )
     public List<LogEntry> findByPrimaryUserOrSecondaryUser ( String user );
 
+    /**
+     * Retrieves the log entries for a user (as either the primary or secondary
+     * user) between (inclusive) two dates, oldest first.
+     *
+     * @param user
+     *            User to search on
+     * @param fromDate
+     *            Starting date
+     * @param toDate
+     *            Ending date
+     * @return List of matching records
+     */
+    @Query ( "SELECT le FROM LogEntry le WHERE ( le.primaryUser = :user OR le.secondaryUser = :user ) "
+            + "AND le.time BETWEEN :fromDate AND :toDate ORDER BY le.time, le.id" )
+    public List<LogEntry> findByUserAndTimeBetween ( @Param ( "user" ) String user,
+            @Param ( "fromDate" ) ZonedDateTime fromDate, @Param ( "toDate" ) ZonedDateTime toDate );
+
+    /**
+     * Retrieves one page of log entries for a user, newest first. The page is
+     * selected with the offset and size of the Pageable.
+     *
+     * @param user
+     *            User to search on
+     * @param fromDate
+     *            Starting date (inclusive)
+     * @param toDate
+     *            Ending date (inclusive)
+     * @param codes
+     *            Types of entries to include
+     * @param page
+     *            Page to retrieve
+     * @return The entries on the page
+     */
+    @Query ( "SELECT le FROM LogEntry le WHERE ( le.primaryUser = :user OR le.secondaryUser = :user ) "
+            + "AND le.time BETWEEN :fromDate AND :toDate AND le.logCode IN :codes ORDER BY le.time DESC, le.id DESC" )
+    public List<LogEntry> findPageForUser ( @Param ( "user" ) String user,
+            @Param ( "fromDate" ) ZonedDateTime fromDate, @Param ( "toDate" ) ZonedDateTime toDate,
+            @Param ( "codes" ) Collection<TransactionType> codes, Pageable page );
+
+    /**
+     * Retrieves the log entries for a user that come after (are older than) a
+     * given entry, newest first. This seeks straight to the position of the
+     * previous page's last entry, so it costs the same no matter how deep into
+     * the log the page is. Only the size of the Pageable is used.
+     *
+     * @param user
+     *            User to search on
+     * @param fromDate
+     *            Starting date (inclusive)
+     * @param toDate
+     *            Ending date (inclusive)
+     * @param codes
+     *            Types of entries to include
+     * @param afterTime
+     *            Time of the last entry already seen
+     * @param afterId
+     *            ID of the last entry already seen
+     * @param page
+     *            Page size
+     * @return The entries on the page
+     */
+    @Query ( "SELECT le FROM LogEntry le WHERE ( le.primaryUser = :user OR le.secondaryUser = :user ) "
+            + "AND le.time BETWEEN :fromDate AND :toDate AND le.logCode IN :codes "
+            + "AND ( le.time < :afterTime OR ( le.time = :afterTime AND le.id < :afterId ) ) "
+            + "ORDER BY le.time DESC, le.id DESC" )
+    public List<LogEntry> findPageForUserAfter ( @Param ( "user" ) String user,
+            @Param ( "fromDate" ) ZonedDateTime fromDate, @Param ( "toDate" ) ZonedDateTime toDate,
+            @Param ( "codes" ) Collection<TransactionType> codes, @Param ( "afterTime" ) ZonedDateTime afterTime,
+            @Param ( "afterId" ) Long afterId, Pageable page );
+
+    /**
+     * Counts the log entries for a user between (inclusive) two dates, without
+     * loading them.
+     *
+     * @param user
+     *            User to search on
+     * @param fromDate
+     *            Starting date
+     * @param toDate
+     *            Ending date
+     * @param codes
+     *            Types of entries to include
+     * @return Number of matching records
+     */
+    @Query ( "SELECT COUNT(le) FROM LogEntry le WHERE ( le.primaryUser = :user OR le.secondaryUser = :user ) "
+            + "AND le.time BETWEEN :fromDate AND :toDate AND le.logCode IN :codes" )
+    public long countForUser ( @Param ( "user" ) String user, @Param ( "fromDate" ) ZonedDateTime fromDate,
+            @Param ( "toDate" ) ZonedDateTime toDate, @Param ( "codes" ) Collection<TransactionType> codes );
+
 }
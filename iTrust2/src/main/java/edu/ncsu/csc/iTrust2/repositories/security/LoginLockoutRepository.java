@@ -1,5 +1,6 @@
 package edu.ncsu.csc.iTrust2.repositories.security;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -52,4 +53,13 @@ public interface LoginLockoutRepository extends JpaRepository<LoginLockout, Long
      */
     public long deleteByUser ( User user );
 
+    /**
+     * Retrieves every LoginLockout created after the given time.
+     *
+     * @param time
+     *            The time to search from.
+     * @return The list of matching LoginLockouts.
+     */
+    public List<LoginLockout> findByTimeAfter ( ZonedDateTime time );
+
 }
@@ -6,15 +6,19 @@ import java.util.List;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.AppointmentRequestForm;
+import edu.ncsu.csc.iTrust2.forms.display.AppointmentSummary;
 import edu.ncsu.csc.iTrust2.models.AppointmentRequest;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
 import edu.ncsu.csc.iTrust2.models.enums.Status;
 import edu.ncsu.csc.iTrust2.repositories.AppointmentRequestRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 
 /**
  * Service class for interacting with AppointmentRequest model, performing CRUD
@@ -25,7 +29,7 @@ import edu.ncsu.csc.iTrust2.repositories.AppointmentRequestRepository;
  */
 @Component
 @Transactional
-public class AppointmentRequestService extends Service<AppointmentRequest, Long> {
+public class AppointmentRequestService extends SpecificationService<AppointmentRequest, Long> {
 
     /** Repository for CRUD tasks */
     @Autowired
@@ -36,10 +40,51 @@ public class AppointmentRequestService extends Service<AppointmentRequest, Long>
     private UserService<User>            userService;
 
     @Override
-    protected JpaRepository<AppointmentRequest, Long> getRepository () {
+    protected SpecificationRepository<AppointmentRequest, Long> getRepository () {
         return repository;
     }
 
+    /**
+     * Lists summaries of appointment requests, read in one narrow query that
+     * names the patient and HCP instead of loading them
+     *
+     * @param status
+     *            Only requests with this status, or null
+     * @param patient
+     *            Username of the patient to list requests from, or null
+     * @param hcp
+     *            Username of the HCP to list requests for, or null
+     * @param type
+     *            Only requests of this type, or null
+     * @param sort
+     *            Order to list them in
+     * @return Matching requests
+     */
+    public List<AppointmentSummary> findSummaries ( final Status status, final String patient, final String hcp,
+            final AppointmentType type, final Sort sort ) {
+        return repository.findSummaries( status, patient, hcp, type, sort );
+    }
+
+    /**
+     * Lists a page of summaries of appointment requests
+     *
+     * @param status
+     *            Only requests with this status, or null
+     * @param patient
+     *            Username of the patient to list requests from, or null
+     * @param hcp
+     *            Username of the HCP to list requests for, or null
+     * @param type
+     *            Only requests of this type, or null
+     * @param page
+     *            Page to return, and the order to list them in
+     * @return The page
+     */
+    public Page<AppointmentSummary> findSummaries ( final Status status, final String patient, final String hcp,
+            final AppointmentType type, final Pageable page ) {
+        return repository.findSummaries( status, patient, hcp, type, page );
+    }
+
     /**
      * Find all appointment requests for a given Patient
      *
@@ -43,9 +43,25 @@ public class BasicHealthMetricsService extends Service<BasicHealthMetrics, Long>
      * @return Built BasicHealthMetrics object
      */
     public BasicHealthMetrics build ( final OfficeVisitForm ovf ) {
+        return build( ovf, userService.findByName( ovf.getPatient() ), userService.findByName( ovf.getHcp() ) );
+    }
+
+    /**
+     * Builds a BasicHealthMetrics object from an OfficeVisitForm whose patient
+     * and HCP have already been looked up
+     *
+     * @param ovf
+     *            Form to build from
+     * @param patient
+     *            The patient named on the form
+     * @param hcp
+     *            The HCP named on the form
+     * @return Built BasicHealthMetrics
+     */
+    public BasicHealthMetrics build ( final OfficeVisitForm ovf, final User patient, final User hcp ) {
         final BasicHealthMetrics bhm = new BasicHealthMetrics();
-        bhm.setPatient( userService.findByName( ovf.getPatient() ) );
-        bhm.setHcp( userService.findByName( ovf.getHcp() ) );
+        bhm.setPatient( patient );
+        bhm.setHcp( hcp );
 
         bhm.setDiastolic( ovf.getDiastolic() );
         bhm.setHdl( ovf.getHdl() );
@@ -1,28 +1,75 @@
 package edu.ncsu.csc.iTrust2.services;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import edu.ncsu.csc.iTrust2.forms.BillForm;
+import edu.ncsu.csc.iTrust2.forms.display.BillSummary;
 import edu.ncsu.csc.iTrust2.models.Bill;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
+import edu.ncsu.csc.iTrust2.models.Payment;
+import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.repositories.BillRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 
 @Component
 @Transactional
-public class BillService extends Service<Bill, Long> {
+public class BillService extends SpecificationService<Bill, Long> {
+    /**
+     * Order a patient's bills are listed in unless asked otherwise: most
+     * recent visit first
+     */
+    private static final Sort PATIENT_ORDER = Sort.by( Sort.Order.desc( "visit.date" ), Sort.Order.desc( "id" ) );
+
     @Autowired
-    private BillRepository repository;
+    private BillRepository    repository;
 
     @Override
-    protected JpaRepository<Bill, Long> getRepository () {
+    protected SpecificationRepository<Bill, Long> getRepository () {
         return repository;
     }
 
+    /**
+     * Lists summaries of bills, read in one narrow query with their visits'
+     * dates and patients
+     *
+     * @param paid
+     *            Whether to list paid or unpaid bills, or null for both
+     * @param patient
+     *            Username of the patient to list bills for, or null
+     * @param sort
+     *            Order to list them in
+     * @return Matching bills
+     */
+    public List<BillSummary> findSummaries ( final Boolean paid, final String patient, final Sort sort ) {
+        return repository.findSummaries( paid, patient, sort );
+    }
+
+    /**
+     * Lists a page of summaries of bills
+     *
+     * @param paid
+     *            Whether to list paid or unpaid bills, or null for both
+     * @param patient
+     *            Username of the patient to list bills for, or null
+     * @param page
+     *            Page to return, and the order to list them in
+     * @return The page
+     */
+    public Page<BillSummary> findSummaries ( final Boolean paid, final String patient, final Pageable page ) {
+        return repository.findSummaries( paid, patient, page );
+    }
+
     /**
      * This method asks the repository to return a bill associated with an
      * office visit
@@ -47,6 +94,124 @@ public class BillService extends Service<Bill, Long> {
         return repository.findByIsPaid( isPaid );
     }
 
+    /**
+     * Finds one of a patient's bills by its ID
+     *
+     * @param id
+     *            ID of the bill
+     * @param patient
+     *            Patient the bill must belong to
+     * @return the bill, or null if there is no such bill or it belongs to
+     *         another patient
+     */
+    public Bill findByIdAndPatient ( final Long id, final User patient ) {
+        if ( id == null || patient == null ) {
+            return null;
+        }
+        return repository.findByIdAndPatient( id, patient );
+    }
+
+    /**
+     * Finds a patient's bills, optionally only those with a given status
+     *
+     * @param patient
+     *            Patient to find bills for
+     * @param status
+     *            "Paid", "Unpaid" or "Delinquent" (ignoring case) to only
+     *            return bills with that status, or null for all bills
+     * @param sort
+     *            Order to list them in; most recent visit first if unsorted
+     * @return the bills
+     * @throws IllegalArgumentException
+     *             if the status is not one of the above
+     */
+    public List<Bill> findByPatient ( final User patient, final String status, final Sort sort ) {
+        return repository.findAll( patientFilter( patient, status ), sort.isSorted() ? sort : PATIENT_ORDER );
+    }
+
+    /**
+     * Finds a page of a patient's bills, optionally only those with a given
+     * status
+     *
+     * @param patient
+     *            Patient to find bills for
+     * @param status
+     *            "Paid", "Unpaid" or "Delinquent" (ignoring case) to only
+     *            return bills with that status, or null for all bills
+     * @param page
+     *            Page to return, and the order to list them in; most recent
+     *            visit first if unsorted
+     * @return the page
+     * @throws IllegalArgumentException
+     *             if the status is not one of the above
+     */
+    public Page<Bill> findByPatient ( final User patient, final String status, final Pageable page ) {
+        return repository.findAll( patientFilter( patient, status ), page.getSort().isSorted() ? page
+                : PageRequest.of( page.getPageNumber(), page.getPageSize(), PATIENT_ORDER ) );
+    }
+
+    /**
+     * Builds the filter for a patient's bills with a given status
+     *
+     * @param patient
+     *            Patient to find bills for
+     * @param status
+     *            "Paid", "Unpaid" or "Delinquent" (ignoring case), or null
+     * @return The filter
+     * @throws IllegalArgumentException
+     *             if the status is not one of the above
+     */
+    private static Specification<Bill> patientFilter ( final User patient, final String status ) {
+        final ZonedDateTime now = ZonedDateTime.now();
+        final Specification<Bill> byStatus;
+        if ( status == null ) {
+            byStatus = null;
+        }
+        else if ( "Paid".equalsIgnoreCase( status ) ) {
+            byStatus = FilterUtil.equal( "isPaid", true );
+        }
+        else if ( "Unpaid".equalsIgnoreCase( status ) ) {
+            final Specification<Bill> notDue = ( root, query, cb ) -> cb
+                    .greaterThan( root.<ZonedDateTime> get( "delinquentOn" ), now );
+            byStatus = FilterUtil.all( FilterUtil.equal( "isPaid", false ), notDue );
+        }
+        else if ( "Delinquent".equalsIgnoreCase( status ) ) {
+            final Specification<Bill> due = ( root, query, cb ) -> cb
+                    .lessThanOrEqualTo( root.<ZonedDateTime> get( "delinquentOn" ), now );
+            byStatus = FilterUtil.all( FilterUtil.equal( "isPaid", false ), due );
+        }
+        else {
+            throw new IllegalArgumentException( "Unknown bill status " + status );
+        }
+        return FilterUtil.all( FilterUtil.equal( "visit.patient", patient ), byStatus );
+    }
+
+    /**
+     * Adds a payment to a bill and saves both straight away. The bill's
+     * version is checked as it is saved, so if another payment was added to
+     * the same bill since it was read, this fails rather than accepting a
+     * payment that may overpay the bill.
+     *
+     * @param id
+     *            ID of the bill to pay
+     * @param payment
+     *            Payment to add
+     * @return the updated bill, or null if there is no bill with that ID
+     * @throws IllegalArgumentException
+     *             if the payment is invalid or would overpay the bill
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException
+     *             if the bill was changed by someone else while the payment
+     *             was being added
+     */
+    public Bill addPayment ( final Long id, final Payment payment ) {
+        final Bill bill = findById( id );
+        if ( bill == null ) {
+            return null;
+        }
+        bill.addPayment( payment );
+        return repository.saveAndFlush( bill );
+    }
+
     /**
      * Builds a bill from a form
      *
@@ -63,6 +228,7 @@ public class BillService extends Service<Bill, Long> {
         bill.setPayments( form.getPayments() );
         if ( existing != null ) {
             bill.setId( existing.getId() );
+            bill.setVersion( existing.getVersion() );
         }
         return bill;
     }
@@ -1,59 +1,208 @@
 package edu.ncsu.csc.iTrust2.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
 import edu.ncsu.csc.iTrust2.models.CPTCode;
 import edu.ncsu.csc.iTrust2.repositories.CPTCodeRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
 
+/**
+ * Service class for interacting with the CPTCode model. Reads are served from
+ * an in-memory snapshot of the codes (see `ReferenceDataService`), which
+ * indexes the current version of each code and keeps the active and archived
+ * codes apart.
+ *
+ * Saving a code keeps its current-version marker up to date: the newest
+ * version saved becomes current and the version it replaces stops being
+ * current, in the same transaction. The marker is a unique column, so two
+ * edits racing to replace the same version can't both succeed. Codes saved
+ * before the marker existed have none, so their latest versions are marked
+ * when the application starts.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
 @Component
 @Transactional
-public class CPTCodeService extends Service<CPTCode, Long> {
+public class CPTCodeService extends ReferenceDataService<CPTCode, Long> {
+
+    /** Logger, for reporting codes given a current version at startup */
+    private static final Logger LOG      = LoggerFactory.getLogger( CPTCodeService.class );
+
+    /** Partition holding the active codes */
+    private static final String ACTIVE   = "active";
+
+    /** Partition holding the archived codes */
+    private static final String ARCHIVED = "archived";
+
+    /** Repository for CRUD operations */
     @Autowired
-    private CPTCodeRepository repository;
+    private CPTCodeRepository   repository;
 
     @Override
-    protected JpaRepository<CPTCode, Long> getRepository () {
+    protected SpecificationRepository<CPTCode, Long> getRepository () {
         return repository;
     }
 
+    @Override
+    protected ReferenceDataCache<CPTCode> createCache () {
+        return new ReferenceDataCache<CPTCode>( repository::findAll,
+                c -> c.isCurrent() ? String.valueOf( c.getCode() ) : null,
+                ( a, b ) -> a.getVersion() < b.getVersion() ? b : a, c -> c.getIsArchived() ? ARCHIVED : ACTIVE );
+    }
+
+    @Override
+    protected String getCatalogName () {
+        return "cpt";
+    }
+
     /**
-     * This method asks the repository to return a CPT code based on the number
-     * the CPT code is given
+     * Saves a CPT code, making it the current version of its code unless a
+     * newer version is already current
+     *
+     * @param code
+     *            The code to save
+     */
+    @Override
+    public void save ( final CPTCode code ) {
+        final CPTCode current = repository.findByCurrentCode( code.getCode() );
+        final boolean replaces = null != current && !current.getId().equals( code.getId() );
+        if ( replaces && current.getVersion() > code.getVersion() ) {
+            code.setCurrent( false );
+        }
+        else {
+            if ( replaces ) {
+                // Flushed first, so the new version can take over the marker
+                current.setCurrent( false );
+                repository.saveAndFlush( current );
+            }
+            code.setCurrent( true );
+        }
+        super.save( code );
+    }
+
+    @Override
+    public void saveAll ( final List<CPTCode> codes ) {
+        codes.forEach( this::save );
+    }
+
+    /**
+     * Inserts codes that don't exist yet in any version, each as the current
+     * version of its code
+     *
+     * @param codes
+     *            New codes to insert; no two may share a code
+     */
+    @Override
+    public void insertAll ( final List<CPTCode> codes ) {
+        codes.forEach( c -> c.setCurrent( true ) );
+        super.insertAll( codes );
+    }
+
+    /**
+     * Marks the latest version of every code that has no current version, as
+     * is the case for codes saved before the marker was added. Runs when the
+     * application starts, before it takes requests or imports anything, and
+     * does nothing once every code has a current version.
+     */
+    @EventListener ( ApplicationStartedEvent.class )
+    public void markCurrentVersions () {
+        final Map<Long, CPTCode> latest = new HashMap<Long, CPTCode>();
+        for ( final CPTCode code : repository.findWithoutCurrentVersion() ) {
+            latest.merge( code.getCode(), code, ( a, b ) -> a.getVersion() < b.getVersion() ? b : a );
+        }
+        if ( latest.isEmpty() ) {
+            return;
+        }
+        latest.values().forEach( c -> c.setCurrent( true ) );
+        super.saveAll( new ArrayList<CPTCode>( latest.values() ) );
+        LOG.info( "Marked the current version of {} CPT codes", latest.size() );
+    }
+
+    /**
+     * Replaces a code with a new version of it: the old version is archived
+     * and the new one becomes current.
+     *
+     * @param previous
+     *            The version being replaced
+     * @param next
+     *            The new version
+     */
+    public void replace ( final CPTCode previous, final CPTCode next ) {
+        next.setVersion( previous.getVersion() + 1 );
+        previous.setIsArchived( true );
+        previous.setCurrent( false );
+        repository.saveAndFlush( previous );
+        save( next );
+    }
+
+    /**
+     * This method returns the current version of a CPT code based on the
+     * number the CPT code is given
      *
      * @param code
      *            Code to look for
      * @return the CPT code with that number
      */
     public CPTCode findByCode ( final long code ) {
-        final List<CPTCode> list = repository.findByCode( code );
-        CPTCode active = null;
-        if ( list.size() > 0 ) {
-            active = list.get( 0 );
-            for ( int i = 1; i < list.size(); i++ ) {
-                if ( active.getVersion() < list.get( i ).getVersion() ) {
-                    active = list.get( i );
-                }
+        return snapshot().get( String.valueOf( code ) );
+    }
+
+    /**
+     * Finds the current versions of several CPT codes at once
+     *
+     * @param codes
+     *            Codes to look for
+     * @return Map of code to its current version. Codes that don't exist are
+     *         left out.
+     */
+    public Map<Long, CPTCode> findCurrentByCodes ( final Collection<Long> codes ) {
+        final ReferenceDataCache.Snapshot<CPTCode> snapshot = snapshot();
+        final Map<Long, CPTCode> found = new HashMap<Long, CPTCode>();
+        for ( final Long code : codes ) {
+            final CPTCode current = null == code ? null : snapshot.get( String.valueOf( code ) );
+            if ( null != current ) {
+                found.put( code, current );
             }
         }
-        return active;
+        return found;
+    }
+
+    /**
+     * Finds every version of a CPT code, including archived ones
+     *
+     * @param code
+     *            Code to look for
+     * @return The versions, newest first
+     */
+    public List<CPTCode> findHistory ( final long code ) {
+        return repository.findByCodeOrderByVersionDesc( code );
     }
 
     /**
-     * This method asks the repository to return all the active or inactive CPT
-     * codes in the program
+     * This method returns all the active or inactive CPT codes in the program
      *
      * @param isArchived
      *            Archive status to look for
-     * @return all of the CPT codes in the program with a certain archive status
+     * @return all of the CPT codes in the program with a certain archive
+     *         status, in a new list the caller is free to change
      */
     public List<CPTCode> findByIsArchived ( final boolean isArchived ) {
-        return repository.findByIsArchived( isArchived );
+        return new ArrayList<CPTCode>( snapshot().getPartition( isArchived ? ARCHIVED : ACTIVE ) );
     }
 
     /**
@@ -1,15 +1,24 @@
 package edu.ncsu.csc.iTrust2.services;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.DiagnosisForm;
+import edu.ncsu.csc.iTrust2.forms.DiagnosisListForm;
+import edu.ncsu.csc.iTrust2.forms.display.DiagnosisListRow;
 import edu.ncsu.csc.iTrust2.models.Diagnosis;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.User;
@@ -26,6 +35,12 @@ import edu.ncsu.csc.iTrust2.repositories.DiagnosisRepository;
 @Transactional
 public class DiagnosisService extends Service<Diagnosis, Long> {
 
+    /**
+     * Order a patient's diagnoses are listed in unless asked otherwise: most
+     * recent visit first
+     */
+    private static final Sort   PATIENT_ORDER = Sort.by( Sort.Order.desc( "visitDate" ), Sort.Order.desc( "id" ) );
+
     /** Repository for CRUD tasks */
     @Autowired
     private DiagnosisRepository repository;
@@ -38,6 +53,10 @@ public class DiagnosisService extends Service<Diagnosis, Long> {
     @Autowired
     private ICDCodeService      icdCodeService;
 
+    /** User service for lookups */
+    @Autowired
+    private UserService<User>   userService;
+
     @Override
     protected JpaRepository<Diagnosis, Long> getRepository () {
         return repository;
@@ -51,8 +70,22 @@ public class DiagnosisService extends Service<Diagnosis, Long> {
      * @return Generated Diagnosis
      */
     public Diagnosis build ( final DiagnosisForm form ) {
+        return build( form, service.findById( form.getVisit() ) );
+    }
+
+    /**
+     * Builds and validates a Diagnosis for a visit that has already been
+     * looked up (or is being built)
+     *
+     * @param form
+     *            Form for building persistence object
+     * @param visit
+     *            Visit the diagnosis belongs to
+     * @return Generated Diagnosis
+     */
+    public Diagnosis build ( final DiagnosisForm form, final OfficeVisit visit ) {
         final Diagnosis diag = new Diagnosis();
-        diag.setVisit( service.findById( form.getVisit() ) );
+        diag.setVisit( visit );
         diag.setNote( form.getNote() );
         diag.setCode( icdCodeService.findByCode( form.getCode() ) );
         diag.setId( form.getId() );
@@ -62,15 +95,78 @@ public class DiagnosisService extends Service<Diagnosis, Long> {
 
     /**
      * Finds all Diagnoses for a specified patient
-     * 
+     *
      * @param patient
      *            Patient to search for
-     * @return Diagnoses matched
+     * @return Diagnoses matched, most recent visit first
      */
     public List<Diagnosis> findByPatient ( final User patient ) {
-        return service.findByPatient( patient ).stream().map( e -> findByVisit( e ) ).flatMap( e -> e.stream() )
-                .collect( Collectors.toList() );
+        return repository.findByPatient( patient );
+    }
 
+    /**
+     * Lists a patient's diagnoses. The diagnoses are read in one query
+     * whatever the number of visits; their codes come from the ICD code
+     * catalog and their HCPs from one more lookup.
+     *
+     * @param patient
+     *            Patient to search for
+     * @param from
+     *            Only diagnoses from visits at or after this time, or null
+     * @param to
+     *            Only diagnoses from visits before this time, or null
+     * @param code
+     *            Only diagnoses with this ICD-10 code, or null
+     * @param sort
+     *            Order to list them in, by the columns of `DiagnosisListRow`;
+     *            most recent visit first if unsorted
+     * @return The diagnoses
+     */
+    public List<DiagnosisListForm> listByPatient ( final User patient, final ZonedDateTime from,
+            final ZonedDateTime to, final String code, final Sort sort ) {
+        return toForms(
+                repository.findRowsByPatient( patient, from, to, code, sort.isSorted() ? sort : PATIENT_ORDER ) );
+    }
+
+    /**
+     * Lists a page of a patient's diagnoses, as `listByPatient()` does
+     *
+     * @param patient
+     *            Patient to search for
+     * @param from
+     *            Only diagnoses from visits at or after this time, or null
+     * @param to
+     *            Only diagnoses from visits before this time, or null
+     * @param code
+     *            Only diagnoses with this ICD-10 code, or null
+     * @param page
+     *            Page to return, and the order to list them in; most recent
+     *            visit first if unsorted
+     * @return The page
+     */
+    public Page<DiagnosisListForm> listByPatient ( final User patient, final ZonedDateTime from,
+            final ZonedDateTime to, final String code, final Pageable page ) {
+        final Page<DiagnosisListRow> rows = repository.findRowsByPatient( patient, from, to, code,
+                page.getSort().isSorted() ? page
+                        : PageRequest.of( page.getPageNumber(), page.getPageSize(), PATIENT_ORDER ) );
+        return new PageImpl<DiagnosisListForm>( toForms( rows.getContent() ), rows.getPageable(),
+                rows.getTotalElements() );
+    }
+
+    /**
+     * Turns rows into diagnoses to return, looking up their HCPs together
+     *
+     * @param rows
+     *            The rows
+     * @return The diagnoses
+     */
+    private List<DiagnosisListForm> toForms ( final List<DiagnosisListRow> rows ) {
+        final Map<String, User> hcps = userService
+                .findByNames( rows.stream().map( DiagnosisListRow::getHcp ).collect( Collectors.toSet() ) );
+        return rows.stream()
+                .map( r -> new DiagnosisListForm( r.getId(), r.getVisitDate(), hcps.get( r.getHcp() ), r.getNote(),
+                        icdCodeService.findByCode( r.getCode() ) ) )
+                .collect( Collectors.toList() );
     }
 
     /**
@@ -3,11 +3,12 @@ package edu.ncsu.csc.iTrust2.services;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.models.Drug;
 import edu.ncsu.csc.iTrust2.repositories.DrugRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
 
 /**
  * Service class for interacting with Drug model, performing CRUD tasks with
@@ -18,17 +19,27 @@ import edu.ncsu.csc.iTrust2.repositories.DrugRepository;
  */
 @Component
 @Transactional
-public class DrugService extends Service<Drug, Long> {
+public class DrugService extends ReferenceDataService<Drug, Long> {
 
     /** Repository for CRUD tasks */
     @Autowired
     private DrugRepository repository;
 
     @Override
-    protected JpaRepository<Drug, Long> getRepository () {
+    protected SpecificationRepository<Drug, Long> getRepository () {
         return repository;
     }
 
+    @Override
+    protected ReferenceDataCache<Drug> createCache () {
+        return new ReferenceDataCache<Drug>( repository::findAll, Drug::getCode, ( a, b ) -> a );
+    }
+
+    @Override
+    protected String getCatalogName () {
+        return "drug";
+    }
+
     /**
      * Checks if a Drug with the provided code exists
      * 
@@ -37,7 +48,7 @@ public class DrugService extends Service<Drug, Long> {
      * @return If drug with this code exists
      */
     public boolean existsByCode ( final String code ) {
-        return repository.existsByCode( code );
+        return null != snapshot().get( code );
     }
 
     /**
@@ -48,6 +59,6 @@ public class DrugService extends Service<Drug, Long> {
      * @return Drug, if found
      */
     public Drug findByCode ( final String code ) {
-        return repository.findByCode( code );
+        return snapshot().get( code );
     }
 }
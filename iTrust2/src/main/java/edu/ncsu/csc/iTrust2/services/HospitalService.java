@@ -3,11 +3,12 @@ package edu.ncsu.csc.iTrust2.services;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.models.Hospital;
 import edu.ncsu.csc.iTrust2.repositories.HospitalRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
 
 /**
  * Service class for interacting with Hospital. model, performing CRUD tasks
@@ -18,17 +19,27 @@ import edu.ncsu.csc.iTrust2.repositories.HospitalRepository;
  */
 @Component
 @Transactional
-public class HospitalService extends Service<Hospital, String> {
+public class HospitalService extends ReferenceDataService<Hospital, String> {
 
     /** Repository for CRUD tasks */
     @Autowired
     private HospitalRepository repository;
 
     @Override
-    protected JpaRepository<Hospital, String> getRepository () {
+    protected SpecificationRepository<Hospital, String> getRepository () {
         return repository;
     }
 
+    @Override
+    protected ReferenceDataCache<Hospital> createCache () {
+        return new ReferenceDataCache<Hospital>( repository::findAll, Hospital::getName, ( a, b ) -> a );
+    }
+
+    @Override
+    protected String getCatalogName () {
+        return "hospital";
+    }
+
     /**
      * Finds a Hospital with the provided name
      * 
@@ -37,7 +48,7 @@ public class HospitalService extends Service<Hospital, String> {
      * @return Hospital, if found
      */
     public Hospital findByName ( final String name ) {
-        return repository.findByName( name );
+        return snapshot().get( name );
     }
 
 }
@@ -1,44 +1,71 @@
 package edu.ncsu.csc.iTrust2.services;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.models.ICDCode;
-import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.repositories.ICDCodeRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
+import edu.ncsu.csc.iTrust2.utils.FilterUtil;
 import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
 
 /**
  * Service class for interacting with ICDCode model, performing CRUD tasks with
- * database.
+ * database. Reads are served from an in-memory snapshot of the codes (see
+ * `ReferenceDataService`), which keeps the ophthalmology and general codes
+ * apart so that each role's view is ready-made. Filtered, sorted and paged reads
+ * go to the database, limited to the same codes.
  *
  * @author Kai Presler-Marshall
  *
  */
 @Component
 @Transactional
-public class ICDCodeService extends Service<ICDCode, Long> {
+public class ICDCodeService extends ReferenceDataService<ICDCode, Long> {
+
+    /** Partition holding the ophthalmology codes */
+    private static final String OPHTHALMOLOGY = "ophthalmology";
+
+    /** Partition holding every other code */
+    private static final String GENERAL       = "general";
 
     /** Repository for CRUD operations */
     @Autowired
-    private ICDCodeRepository repository;
+    private ICDCodeRepository   repository;
 
-    /** Service for looking up Personnel */
+    /** Service for looking up the roles of the current user */
     @Autowired
-    private PersonnelService  service;
+    private UserRoleService     userRoleService;
 
     @Override
-    protected JpaRepository<ICDCode, Long> getRepository () {
+    protected SpecificationRepository<ICDCode, Long> getRepository () {
         return repository;
     }
 
+    @Override
+    protected ReferenceDataCache<ICDCode> createCache () {
+        return new ReferenceDataCache<ICDCode>( repository::findAll, ICDCode::getCode, ( a, b ) -> a,
+                c -> Boolean.TRUE.equals( c.getIsOphthalmology() ) ? OPHTHALMOLOGY : GENERAL );
+    }
+
+    @Override
+    protected String getCatalogName () {
+        return "icd";
+    }
+
     /**
      * Finds an ICDCode object for the given Code
      * 
@@ -47,24 +74,85 @@ public class ICDCodeService extends Service<ICDCode, Long> {
      * @return ICDCode found, if any
      */
     public ICDCode findByCode ( final String code ) {
-        return repository.findByCode( code );
+        return snapshot().get( code );
     }
 
+    /**
+     * Finds the codes the current user may see: every code for admins and
+     * ophthalmologists who are also HCPs, only the ophthalmology codes for
+     * other ophthalmologists, and only the general codes for everyone else.
+     *
+     * @return Matching codes, in a new list the caller is free to change
+     */
     @Override
     public List<ICDCode> findAll () {
-        final User user = service.findByName( LoggerUtil.currentUser() );
-        final Collection<Role> roles = user.getRoles();
+        final String partition = visiblePartition();
+        final ReferenceDataCache.Snapshot<ICDCode> codes = snapshot();
+        return new ArrayList<ICDCode>( null == partition ? codes.getAll() : codes.getPartition( partition ) );
+    }
+
+    /**
+     * Finds the codes the current user may see (as `findAll()`) that match a
+     * filter
+     *
+     * @param filter
+     *            The filter (see `FilterUtil`), or null for every visible code
+     * @param sort
+     *            The order to return them in
+     * @return The matching codes
+     */
+    @Override
+    public List<ICDCode> findAll ( final Specification<ICDCode> filter, final Sort sort ) {
+        return super.findAll( FilterUtil.all( visibleFilter(), filter ), sort );
+    }
+
+    /**
+     * Finds one page of the codes the current user may see (as `findAll()`)
+     * that match a filter
+     *
+     * @param filter
+     *            The filter (see `FilterUtil`), or null for every visible code
+     * @param page
+     *            The page to return, and the order to sort by
+     * @return The page
+     */
+    @Override
+    public Page<ICDCode> findAll ( final Specification<ICDCode> filter, final Pageable page ) {
+        return super.findAll( FilterUtil.all( visibleFilter(), filter ), page );
+    }
+
+    /**
+     * The partition of codes the current user may see
+     *
+     * @return The partition, or null if they may see every code
+     */
+    private String visiblePartition () {
+        final String username = LoggerUtil.currentUser();
+        final Set<Role> roles = userRoleService.findRolesByNames( Collections.singleton( username ) )
+                .getOrDefault( username, Collections.emptySet() );
 
         if ( roles.contains( Role.ROLE_ADMIN )
                 || ( roles.contains( Role.ROLE_OPH ) && roles.contains( Role.ROLE_HCP ) ) ) {
-            return repository.findAll();
+            return null;
         }
+        return roles.contains( Role.ROLE_OPH ) ? OPHTHALMOLOGY : GENERAL;
+    }
 
-        if ( roles.contains( Role.ROLE_OPH ) ) {
-            return repository.findByIsOphthalmologyIsTrue();
+    /**
+     * Filter keeping only the codes the current user may see
+     *
+     * @return The filter, or null if they may see every code
+     */
+    private Specification<ICDCode> visibleFilter () {
+        final String partition = visiblePartition();
+        if ( null == partition ) {
+            return null;
         }
-
-        return repository.findByIsOphthalmologyIsFalseOrIsOphthalmologyIsNull();
+        if ( OPHTHALMOLOGY.equals( partition ) ) {
+            return FilterUtil.equal( "isOphthalmology", true );
+        }
+        return ( root, query, cb ) -> cb.or( cb.isFalse( root.get( "isOphthalmology" ) ),
+                cb.isNull( root.get( "isOphthalmology" ) ) );
     }
 
 }
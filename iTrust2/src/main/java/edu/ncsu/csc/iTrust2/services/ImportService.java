@@ -0,0 +1,653 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
+import edu.ncsu.csc.iTrust2.forms.DrugForm;
+import edu.ncsu.csc.iTrust2.forms.ICDCodeForm;
+import edu.ncsu.csc.iTrust2.forms.PatientForm;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.forms.display.ImportReport;
+import edu.ncsu.csc.iTrust2.models.CPTCode;
+import edu.ncsu.csc.iTrust2.models.Drug;
+import edu.ncsu.csc.iTrust2.models.ICDCode;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
+import edu.ncsu.csc.iTrust2.utils.ImportReader;
+import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
+import edu.ncsu.csc.iTrust2.utils.ValidationUtil;
+
+/**
+ * Imports users, patient demographics and the ICD-10, CPT and drug catalogs
+ * from CSV or NDJSON files, such as when a new clinic is brought onto the
+ * system. Each record is read into the same form the REST API takes for it
+ * (`UserForm`, `PatientForm`, `ICDCodeForm`, `CPTCodeForm`, `DrugForm`) and
+ * checked the same way.
+ *
+ * The file is streamed a chunk of records at a time, so it can be of any size.
+ * For each chunk:
+ *
+ * - the records are built on a pool of worker threads, which is where the
+ * passwords of new users are hashed;
+ *
+ * - records that already exist (or, for demographics, patients that don't) are
+ * found with one lookup for the whole chunk;
+ *
+ * - the rest are written in a single transaction, as JDBC batches, and one
+ * audit log entry is made for the chunk.
+ *
+ * A record that can't be imported is left out and reported, with the reason,
+ * in the `ImportReport`; the rest of the file is still imported. If a chunk
+ * fails to save, every record in it is reported and the import carries on with
+ * the next chunk.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class ImportService {
+
+    /** Logger, for progress */
+    private static final Logger              LOG = LoggerFactory.getLogger( ImportService.class );
+
+    /** Records written per transaction */
+    @Value ( "${itrust2.import.chunkSize:500}" )
+    private int                              chunkSize;
+
+    /** Threads that build records; 0 for one per CPU */
+    @Value ( "${itrust2.import.threads:0}" )
+    private int                              threads;
+
+    /** Most rejected records listed in a report */
+    @Value ( "${itrust2.import.maxErrors:1000}" )
+    private int                              maxErrors;
+
+    /** Turns records into forms */
+    @Autowired
+    private ObjectMapper                     mapper;
+
+    /** For importing users */
+    @Autowired
+    private UserService<User>                userService;
+
+    /** For importing patient demographics */
+    @Autowired
+    private PatientService<Patient>          patientService;
+
+    /** For importing ICD-10 codes */
+    @Autowired
+    private ICDCodeService                   icdCodeService;
+
+    /** For importing CPT codes */
+    @Autowired
+    private CPTCodeService                   cptCodeService;
+
+    /** For importing drugs */
+    @Autowired
+    private DrugService                      drugService;
+
+    /** For the audit log entry made for each chunk */
+    @Autowired
+    private LoggerUtil                       loggerUtil;
+
+    /** Builds records (hashing passwords) */
+    private ExecutorService                  workers;
+
+    /** How each kind of record is imported */
+    private final Map<Kind, Importer<?, ?>> importers = new EnumMap<Kind, Importer<?, ?>>( Kind.class );
+
+    /**
+     * Starts the worker threads and sets up each kind of import
+     */
+    @PostConstruct
+    public void init () {
+        final int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool( count, r -> {
+            final Thread t = new Thread( r, "import-worker" );
+            t.setDaemon( true );
+            return t;
+        } );
+
+        importers.put( Kind.USERS, new Importer<UserForm, User>( UserForm.class ) {
+            @Override
+            String key ( final UserForm form ) {
+                return form.getUsername();
+            }
+
+            @Override
+            User build ( final UserForm form ) {
+                ValidationUtil.validate( form );
+                final Set<Role> roles = form.getRoles().stream().map( Role::valueOf ).collect( Collectors.toSet() );
+                final User user = roles.contains( Role.ROLE_PATIENT ) ? new Patient( form ) : new Personnel( form );
+                userService.encodePassword( user );
+                return user;
+            }
+
+            @Override
+            Map<String, String> check ( final Collection<String> keys ) {
+                return userService.findByNames( keys ).keySet().stream()
+                        .collect( Collectors.toMap( k -> k, k -> "User already exists" ) );
+            }
+
+            @Override
+            void write ( final List<User> records ) {
+                userService.insertAll( records );
+            }
+        } );
+
+        importers.put( Kind.PATIENTS, new Importer<PatientForm, PatientForm>( PatientForm.class ) {
+            @Override
+            String key ( final PatientForm form ) {
+                return form.getUsername();
+            }
+
+            @Override
+            PatientForm build ( final PatientForm form ) {
+                // As with the REST API, the form is checked by applying it to
+                // a patient. This fails here, rather than part-way through
+                // the chunk, if it has a bad date or state or a field that
+                // is too long.
+                ValidationUtil.validate( new Patient().update( form ) );
+                return form;
+            }
+
+            @Override
+            Map<String, String> check ( final Collection<String> keys ) {
+                final Map<String, User> found = userService.findByNames( keys );
+                final Map<String, String> rejected = new HashMap<String, String>();
+                for ( final String key : keys ) {
+                    if ( ! ( found.get( key ) instanceof Patient ) ) {
+                        rejected.put( key, "No patient found for username " + key );
+                    }
+                }
+                return rejected;
+            }
+
+            @Override
+            void write ( final List<PatientForm> records ) {
+                patientService.updateAll( records );
+            }
+        } );
+
+        importers.put( Kind.ICD_CODES, new Importer<ICDCodeForm, ICDCode>( ICDCodeForm.class ) {
+            @Override
+            String key ( final ICDCodeForm form ) {
+                return form.getCode();
+            }
+
+            @Override
+            ICDCode build ( final ICDCodeForm form ) {
+                form.setId( null );
+                final ICDCode code = new ICDCode( form );
+                ValidationUtil.validate( code );
+                return code;
+            }
+
+            @Override
+            Map<String, String> check ( final Collection<String> keys ) {
+                return keys.stream().filter( k -> null != icdCodeService.findByCode( k ) )
+                        .collect( Collectors.toMap( k -> k, k -> "Code already exists" ) );
+            }
+
+            @Override
+            void write ( final List<ICDCode> records ) {
+                icdCodeService.insertAll( records );
+            }
+        } );
+
+        importers.put( Kind.CPT_CODES, new Importer<CPTCodeForm, CPTCode>( CPTCodeForm.class ) {
+            @Override
+            String key ( final CPTCodeForm form ) {
+                return String.valueOf( form.getCode() );
+            }
+
+            @Override
+            CPTCode build ( final CPTCodeForm form ) {
+                final CPTCode code = new CPTCode( form );
+                ValidationUtil.validate( code );
+                return code;
+            }
+
+            @Override
+            Map<String, String> check ( final Collection<String> keys ) {
+                return cptCodeService
+                        .findCurrentByCodes( keys.stream().map( Long::valueOf ).collect( Collectors.toList() ) )
+                        .keySet().stream()
+                        .collect( Collectors.toMap( String::valueOf, k -> "Code already exists" ) );
+            }
+
+            @Override
+            void write ( final List<CPTCode> records ) {
+                cptCodeService.insertAll( records );
+            }
+        } );
+
+        importers.put( Kind.DRUGS, new Importer<DrugForm, Drug>( DrugForm.class ) {
+            @Override
+            String key ( final DrugForm form ) {
+                return form.getCode();
+            }
+
+            @Override
+            Drug build ( final DrugForm form ) {
+                form.setId( null );
+                final Drug drug = new Drug( form );
+                ValidationUtil.validate( drug );
+                return drug;
+            }
+
+            @Override
+            Map<String, String> check ( final Collection<String> keys ) {
+                return keys.stream().filter( drugService::existsByCode )
+                        .collect( Collectors.toMap( k -> k, k -> "Drug already exists" ) );
+            }
+
+            @Override
+            void write ( final List<Drug> records ) {
+                drugService.insertAll( records );
+            }
+        } );
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    @PreDestroy
+    public void stop () {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Imports a file
+     *
+     * @param kind
+     *            What the file holds
+     * @param format
+     *            Format of the file
+     * @param in
+     *            The file, in UTF-8. It is read to the end but not closed.
+     * @param user
+     *            Who is importing it, for the audit log
+     * @param progress
+     *            Told about progress after each chunk, or null
+     * @return What was imported, and what was rejected and why
+     * @throws IOException
+     *             if the file can't be read. Chunks before the failure stay
+     *             imported.
+     */
+    public ImportReport importFile ( final Kind kind, final Format format, final InputStream in, final String user,
+            final Consumer<ImportReport> progress ) throws IOException {
+        final InputStreamReader text = new InputStreamReader( in, StandardCharsets.UTF_8 );
+        final ImportReader reader = Format.CSV == format ? ImportReader.csv( text, mapper )
+                : ImportReader.ndjson( text, mapper );
+        return run( importers.get( kind ), kind, reader, user, progress );
+    }
+
+    /**
+     * Imports every record from a reader, a chunk at a time
+     *
+     * @param importer
+     *            How the records are imported
+     * @param kind
+     *            What the records are
+     * @param reader
+     *            Where the records are read from
+     * @param user
+     *            Who is importing them
+     * @param progress
+     *            Told about progress after each chunk, or null
+     * @return The report
+     * @throws IOException
+     *             if the file can't be read
+     */
+    private <F, T> ImportReport run ( final Importer<F, T> importer, final Kind kind, final ImportReader reader,
+            final String user, final Consumer<ImportReport> progress ) throws IOException {
+        final long start = System.currentTimeMillis();
+        final ImportReport report = new ImportReport( kind.getName(), maxErrors );
+        final Set<String> seen = new HashSet<String>();
+        // A CSV cell holds a single value, so a one-element list (such as a
+        // user's roles) is given as just that element
+        final ObjectReader forms = mapper.readerFor( importer.formClass )
+                .with( DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY );
+
+        boolean more = true;
+        while ( more ) {
+            final List<Row<F, T>> chunk = new ArrayList<Row<F, T>>( chunkSize );
+            while ( chunk.size() < chunkSize ) {
+                final JsonNode node;
+                try {
+                    node = reader.next();
+                }
+                catch ( final IllegalArgumentException e ) {
+                    report.read();
+                    report.failed( reader.getRecord(), null, e.getMessage() );
+                    continue;
+                }
+                if ( null == node ) {
+                    more = false;
+                    break;
+                }
+                report.read();
+                try {
+                    chunk.add( new Row<F, T>( reader.getRecord(), forms.readValue( node ) ) );
+                }
+                catch ( final JsonProcessingException e ) {
+                    report.failed( reader.getRecord(), null, e.getOriginalMessage() );
+                }
+            }
+            if ( !chunk.isEmpty() ) {
+                writeChunk( importer, chunk, seen, report, user );
+            }
+            LOG.info( "Import progress: {}", report );
+            if ( null != progress ) {
+                progress.accept( report );
+            }
+        }
+
+        report.finish( System.currentTimeMillis() - start );
+        LOG.info( "Import finished in {} ms: {}", report.getElapsedMs(), report );
+        return report;
+    }
+
+    /**
+     * Builds, checks and writes one chunk of records
+     *
+     * @param importer
+     *            How the records are imported
+     * @param chunk
+     *            The records
+     * @param seen
+     *            Keys of every record imported so far, to catch duplicates
+     *            within the file
+     * @param report
+     *            Report to add the outcome to
+     * @param user
+     *            Who is importing them
+     * @throws IOException
+     *             if the import was interrupted
+     */
+    private <F, T> void writeChunk ( final Importer<F, T> importer, final List<Row<F, T>> chunk,
+            final Set<String> seen, final ImportReport report, final String user ) throws IOException {
+        final List<Future<T>> built = new ArrayList<Future<T>>( chunk.size() );
+        for ( final Row<F, T> row : chunk ) {
+            built.add( workers.submit( () -> importer.build( row.form ) ) );
+        }
+
+        final Map<String, Row<F, T>> valid = new HashMap<String, Row<F, T>>();
+        for ( int i = 0; i < chunk.size(); i++ ) {
+            final Row<F, T> row = chunk.get( i );
+            final String key = importer.key( row.form );
+            try {
+                row.record = built.get( i ).get();
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Import was interrupted" );
+            }
+            catch ( final ExecutionException e ) {
+                report.failed( row.number, key, e.getCause().getMessage() );
+                continue;
+            }
+            if ( null == key || !seen.add( key ) ) {
+                report.failed( row.number, key, null == key ? "Missing username or code" : "Duplicate record" );
+                continue;
+            }
+            valid.put( key, row );
+        }
+
+        final Map<String, String> rejected = valid.isEmpty() ? Map.of() : importer.check( valid.keySet() );
+        final List<T> records = new ArrayList<T>( valid.size() );
+        int first = Integer.MAX_VALUE;
+        int last = 0;
+        for ( final Row<F, T> row : chunk ) {
+            final String key = importer.key( row.form );
+            if ( null == row.record || valid.get( key ) != row ) {
+                continue;
+            }
+            if ( rejected.containsKey( key ) ) {
+                report.failed( row.number, key, rejected.get( key ) );
+                continue;
+            }
+            records.add( row.record );
+            first = Math.min( first, row.number );
+            last = Math.max( last, row.number );
+        }
+        if ( records.isEmpty() ) {
+            return;
+        }
+
+        try {
+            importer.write( records );
+        }
+        catch ( final RuntimeException e ) {
+            LOG.warn( "Unable to import records " + first + "-" + last, e );
+            for ( final Row<F, T> row : chunk ) {
+                final String key = importer.key( row.form );
+                if ( valid.get( key ) == row && !rejected.containsKey( key ) ) {
+                    report.failed( row.number, key, "Could not save: " + e.getMessage() );
+                }
+            }
+            return;
+        }
+        report.imported( records.size() );
+        report.chunk();
+        loggerUtil.log( TransactionType.BULK_IMPORT, user,
+                "Imported " + records.size() + " " + report.getKind() + " (records " + first + "-" + last + ")" );
+    }
+
+    /**
+     * Kinds of record that can be imported
+     */
+    public enum Kind {
+        /** Users, from `UserForm`s */
+        USERS ( "users" ),
+        /** Demographics of existing patients, from `PatientForm`s */
+        PATIENTS ( "patients" ),
+        /** ICD-10 codes, from `ICDCodeForm`s */
+        ICD_CODES ( "icdcodes" ),
+        /** CPT codes, from `CPTCodeForm`s */
+        CPT_CODES ( "cptcodes" ),
+        /** Drugs, from `DrugForm`s */
+        DRUGS ( "drugs" );
+
+        /** Name used in URLs and on the command line */
+        private final String name;
+
+        /**
+         * Creates a kind
+         *
+         * @param name
+         *            Name used in URLs and on the command line
+         */
+        private Kind ( final String name ) {
+            this.name = name;
+        }
+
+        /**
+         * Name used in URLs and on the command line
+         *
+         * @return The name
+         */
+        public String getName () {
+            return name;
+        }
+
+        /**
+         * Finds a kind by name
+         *
+         * @param name
+         *            Name to look up, ignoring case
+         * @return The kind
+         * @throws IllegalArgumentException
+         *             if there is no kind with that name
+         */
+        public static Kind parse ( final String name ) {
+            for ( final Kind kind : values() ) {
+                if ( kind.name.equalsIgnoreCase( name ) ) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException( "Unknown kind of import " + name );
+        }
+    }
+
+    /**
+     * Formats a file can be imported from
+     */
+    public enum Format {
+        /** Comma-separated values, with a header row */
+        CSV,
+        /** One JSON object per line */
+        NDJSON;
+
+        /**
+         * Finds a format by name
+         *
+         * @param name
+         *            Name to look up, ignoring case
+         * @return The format
+         * @throws IllegalArgumentException
+         *             if there is no format with that name
+         */
+        public static Format parse ( final String name ) {
+            for ( final Format format : values() ) {
+                if ( format.name().equalsIgnoreCase( name ) ) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException( "Unknown import format " + name );
+        }
+    }
+
+    /**
+     * How one kind of record is imported
+     *
+     * @param <F>
+     *            Form each record is read into
+     * @param <T>
+     *            What is written for each record
+     */
+    private static abstract class Importer <F, T> {
+
+        /** Form each record is read into */
+        private final Class<F> formClass;
+
+        /**
+         * Creates an importer
+         *
+         * @param formClass
+         *            Form each record is read into
+         */
+        Importer ( final Class<F> formClass ) {
+            this.formClass = formClass;
+        }
+
+        /**
+         * Username or code that identifies a record
+         *
+         * @param form
+         *            The record
+         * @return The key
+         */
+        abstract String key ( F form );
+
+        /**
+         * Checks a record and builds what will be written for it. Runs on a
+         * worker thread.
+         *
+         * @param form
+         *            The record
+         * @return What to write
+         * @throws IllegalArgumentException
+         *             if the record is invalid
+         */
+        abstract T build ( F form );
+
+        /**
+         * Checks a chunk of records against what is already stored
+         *
+         * @param keys
+         *            Keys of the records
+         * @return Reason each rejected record can't be imported, by key
+         */
+        abstract Map<String, String> check ( Collection<String> keys );
+
+        /**
+         * Writes a chunk of records in one transaction
+         *
+         * @param records
+         *            What to write
+         */
+        abstract void write ( List<T> records );
+    }
+
+    /**
+     * A record read from the file
+     *
+     * @param <F>
+     *            Form the record was read into
+     * @param <T>
+     *            What is written for the record
+     */
+    private static class Row <F, T> {
+
+        /** Number of the record in the file */
+        private final int number;
+
+        /** The record */
+        private final F   form;
+
+        /** What is written for the record, once it has been built */
+        private T         record;
+
+        /**
+         * Creates a row
+         *
+         * @param number
+         *            Number of the record in the file
+         * @param form
+         *            The record
+         */
+        Row ( final int number, final F form ) {
+            this.number = number;
+            this.form = form;
+        }
+    }
+
+}
@@ -1,27 +1,35 @@
 package edu.ncsu.csc.iTrust2.services;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
 import edu.ncsu.csc.iTrust2.forms.OfficeVisitForm;
 import edu.ncsu.csc.iTrust2.forms.PrescriptionForm;
+import edu.ncsu.csc.iTrust2.forms.display.OfficeVisitSummary;
 import edu.ncsu.csc.iTrust2.models.AppointmentRequest;
 import edu.ncsu.csc.iTrust2.models.Bill;
-import edu.ncsu.csc.iTrust2.models.Diagnosis;
+import edu.ncsu.csc.iTrust2.models.CPTCode;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.Patient;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
 import edu.ncsu.csc.iTrust2.repositories.OfficeVisitRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 
 /**
  * Service class for interacting with OfficeVisit model, performing CRUD tasks
@@ -32,7 +40,7 @@ import edu.ncsu.csc.iTrust2.repositories.OfficeVisitRepository;
  */
 @Component
 @Transactional
-public class OfficeVisitService extends Service<OfficeVisit, Long> {
+public class OfficeVisitService extends SpecificationService<OfficeVisit, Long> {
 
     /**
      * Repository for CRUD operations
@@ -89,10 +97,64 @@ public class OfficeVisitService extends Service<OfficeVisit, Long> {
     private CPTCodeService              cptCodeService;
 
     @Override
-    protected JpaRepository<OfficeVisit, Long> getRepository () {
+    protected SpecificationRepository<OfficeVisit, Long> getRepository () {
         return repository;
     }
 
+    /**
+     * Lists summaries of office visits, read in one narrow query rather than
+     * loading each visit and everything it holds
+     *
+     * @param patient
+     *            Username of the patient to list visits for, or null
+     * @param hcp
+     *            Username of the HCP to list visits for, or null
+     * @param from
+     *            Only visits on or after this day, or null
+     * @param to
+     *            Only visits on or before this day, or null
+     * @param sort
+     *            Order to list them in
+     * @return Matching visits
+     */
+    public List<OfficeVisitSummary> findSummaries ( final String patient, final String hcp, final LocalDate from,
+            final LocalDate to, final Sort sort ) {
+        return repository.findSummaries( patient, hcp, startOf( from ), startOf( null == to ? null : to.plusDays( 1 ) ),
+                sort );
+    }
+
+    /**
+     * Lists a page of summaries of office visits
+     *
+     * @param patient
+     *            Username of the patient to list visits for, or null
+     * @param hcp
+     *            Username of the HCP to list visits for, or null
+     * @param from
+     *            Only visits on or after this day, or null
+     * @param to
+     *            Only visits on or before this day, or null
+     * @param page
+     *            Page to return, and the order to list them in
+     * @return The page
+     */
+    public Page<OfficeVisitSummary> findSummaries ( final String patient, final String hcp, final LocalDate from,
+            final LocalDate to, final Pageable page ) {
+        return repository.findSummaries( patient, hcp, startOf( from ), startOf( null == to ? null : to.plusDays( 1 ) ),
+                page );
+    }
+
+    /**
+     * The time a day starts at, in the server's time zone
+     *
+     * @param day
+     *            The day, or null
+     * @return When it starts, or null
+     */
+    private static ZonedDateTime startOf ( final LocalDate day ) {
+        return null == day ? null : day.atStartOfDay( ZoneId.systemDefault() );
+    }
+
     /**
      * Finds all OfficeVisits created by the specified HCP
      *
@@ -129,7 +191,12 @@ public class OfficeVisitService extends Service<OfficeVisit, Long> {
     }
 
     /**
-     * Builds an OfficeVisit based on the deserialised OfficeVisitForm
+     * Builds an OfficeVisit based on the deserialised OfficeVisitForm. Every
+     * user named on the form (the patient, the HCP, and the patient on each
+     * prescription) is looked up together in one query, and the hospital, ICD
+     * codes, drugs and CPT codes come from the in-memory reference catalogs,
+     * so building a visit costs the same few queries however many diagnoses,
+     * prescriptions and CPT codes it has.
      *
      * @param ovf
      *            Form to build from
@@ -138,8 +205,16 @@ public class OfficeVisitService extends Service<OfficeVisit, Long> {
     public OfficeVisit build ( final OfficeVisitForm ovf ) {
         final OfficeVisit ov = new OfficeVisit();
 
-        ov.setPatient( userService.findByName( ovf.getPatient() ) );
-        ov.setHcp( userService.findByName( ovf.getHcp() ) );
+        final Set<String> usernames = new HashSet<String>();
+        usernames.add( ovf.getPatient() );
+        usernames.add( ovf.getHcp() );
+        if ( ovf.getPrescriptions() != null ) {
+            ovf.getPrescriptions().forEach( p -> usernames.add( p.getPatient() ) );
+        }
+        final Map<String, User> users = userService.findByNames( usernames );
+
+        ov.setPatient( users.get( ovf.getPatient() ) );
+        ov.setHcp( users.get( ovf.getHcp() ) );
         ov.setNotes( ovf.getNotes() );
 
         if ( ovf.getId() != null ) {
@@ -181,15 +256,12 @@ public class OfficeVisitService extends Service<OfficeVisit, Long> {
 
         }
         ov.setHospital( hospitalService.findByName( ovf.getHospital() ) );
-        ov.setBasicHealthMetrics( bhmService.build( ovf ) );
+        ov.setBasicHealthMetrics( bhmService.build( ovf, ov.getPatient(), ov.getHcp() ) );
         ov.setOphthalmologyMetrics( omService.build( ovf ) );
         // associate all diagnoses with this visit
         if ( ovf.getDiagnoses() != null ) {
-            ov.setDiagnoses(
-                    ovf.getDiagnoses().stream().map( diagnosisService::build ).collect( Collectors.toList() ) );
-            for ( final Diagnosis d : ov.getDiagnoses() ) {
-                d.setVisit( ov );
-            }
+            ov.setDiagnoses( ovf.getDiagnoses().stream().map( d -> diagnosisService.build( d, ov ) )
+                    .collect( Collectors.toList() ) );
         }
 
         ov.validateDiagnoses();
@@ -197,16 +269,22 @@ public class OfficeVisitService extends Service<OfficeVisit, Long> {
 
         final List<PrescriptionForm> ps = ovf.getPrescriptions();
         if ( ps != null ) {
-            ov.setPrescriptions( ps.stream().map( prescriptionService::build ).collect( Collectors.toList() ) );
+            ov.setPrescriptions( ps.stream().map( p -> prescriptionService.build( p, users.get( p.getPatient() ) ) )
+                    .collect( Collectors.toList() ) );
         }
 
         final List<CPTCodeForm> cpt = ovf.getCptCodes();
 
         if ( cpt != null ) {
             ov.setCptCodes( cpt.stream().map( cptCodeService::build ).collect( Collectors.toList() ) );
-            for ( int i = 0; i < ov.getCptCodes().size(); i++ ) {
-                ov.getCptCodes().get( i )
-                        .setId( cptCodeService.findByCode( ov.getCptCodes().get( i ).getCode() ).getId() );
+            final Map<Long, CPTCode> current = cptCodeService.findCurrentByCodes(
+                    ov.getCptCodes().stream().map( CPTCode::getCode ).collect( Collectors.toSet() ) );
+            for ( final CPTCode code : ov.getCptCodes() ) {
+                final CPTCode found = current.get( code.getCode() );
+                if ( null == found ) {
+                    throw new IllegalArgumentException( "No CPT code " + code.getCode() );
+                }
+                code.setId( found.getId() );
             }
 
         }
@@ -1,14 +1,20 @@
 package edu.ncsu.csc.iTrust2.services;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
+import edu.ncsu.csc.iTrust2.forms.PatientForm;
 import edu.ncsu.csc.iTrust2.models.Patient;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.repositories.PatientRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 
 /**
  * Service class for interacting with Patient model, performing CRUD tasks with
@@ -30,8 +36,32 @@ public class PatientService <T extends User> extends UserService<Patient> {
     private PatientRepository<Patient> repository;
 
     @Override
-    protected JpaRepository<Patient, String> getRepository () {
+    protected SpecificationRepository<Patient, String> getRepository () {
         return repository;
     }
 
+    /**
+     * Updates the demographics of several patients in one transaction. The
+     * patients are looked up together and changed in place, so they are
+     * written when the transaction commits.
+     *
+     * @param forms
+     *            Demographics to save, one form per patient
+     * @throws IllegalArgumentException
+     *             if a form is for a user who isn't a patient
+     */
+    public void updateAll ( final List<PatientForm> forms ) {
+        final Map<String, User> patients = findByNames(
+                forms.stream().map( PatientForm::getUsername ).collect( Collectors.toList() ) );
+        final List<Patient> updated = new ArrayList<Patient>( forms.size() );
+        for ( final PatientForm form : forms ) {
+            final User user = patients.get( form.getUsername() );
+            if ( ! ( user instanceof Patient ) ) {
+                throw new IllegalArgumentException( "No patient found for username " + form.getUsername() );
+            }
+            updated.add( ( (Patient) user ).update( form ) );
+        }
+        saveAll( updated );
+    }
+
 }
@@ -1,13 +1,16 @@
 package edu.ncsu.csc.iTrust2.services;
 
+import java.util.List;
+
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.repositories.PersonnelRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 
 /**
  * Service class for interacting with Personnel model, performing CRUD tasks
@@ -27,8 +30,19 @@ public class PersonnelService extends UserService<Personnel> {
     private PersonnelRepository<Personnel> repository;
 
     @Override
-    protected JpaRepository<Personnel, String> getRepository () {
+    protected SpecificationRepository<Personnel, String> getRepository () {
         return repository;
     }
 
+    /**
+     * Finds all personnel with a given role
+     *
+     * @param role
+     *            Role to search by
+     * @return Matching personnel
+     */
+    public List<Personnel> findByRole ( final Role role ) {
+        return repository.findByRole( role );
+    }
+
 }
@@ -6,13 +6,13 @@ import java.util.List;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.PrescriptionForm;
 import edu.ncsu.csc.iTrust2.models.Prescription;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.repositories.PrescriptionRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 
 /**
  * Service class for interacting with Prescription model, performing CRUD tasks
@@ -23,7 +23,7 @@ import edu.ncsu.csc.iTrust2.repositories.PrescriptionRepository;
  */
 @Component
 @Transactional
-public class PrescriptionService extends Service<Prescription, Long> {
+public class PrescriptionService extends SpecificationService<Prescription, Long> {
 
     /** Repository for CRUD operations */
     @Autowired
@@ -38,7 +38,7 @@ public class PrescriptionService extends Service<Prescription, Long> {
     private UserService<User>      userService;
 
     @Override
-    protected JpaRepository<Prescription, Long> getRepository () {
+    protected SpecificationRepository<Prescription, Long> getRepository () {
         return repository;
     }
 
@@ -50,12 +50,26 @@ public class PrescriptionService extends Service<Prescription, Long> {
      * @return Build Prescription
      */
     public Prescription build ( final PrescriptionForm form ) {
+        return build( form, userService.findByName( form.getPatient() ) );
+    }
+
+    /**
+     * Builds a Prescription from the deserialised PrescriptionForm, for a
+     * patient that has already been looked up
+     *
+     * @param form
+     *            Form to build a Prescription from
+     * @param patient
+     *            The patient named on the form
+     * @return Build Prescription
+     */
+    public Prescription build ( final PrescriptionForm form, final User patient ) {
         final Prescription pr = new Prescription();
 
         pr.setDrug( drugService.findByCode( form.getDrug() ) );
         pr.setDosage( form.getDosage() );
         pr.setRenewals( form.getRenewals() );
-        pr.setPatient( userService.findByName( form.getPatient() ) );
+        pr.setPatient( patient );
 
         if ( form.getId() != null ) {
             pr.setId( form.getId() );
@@ -0,0 +1,140 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ncsu.csc.iTrust2.forms.display.ProviderSummary;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.repositories.PersonnelRepository;
+
+/**
+ * In-memory directory of providers by role. The list for a role is read from
+ * the database the first time it is asked for, and after that is kept up to
+ * date as users are saved and deleted (`UserService` tells the directory about
+ * every write), so listing the HCPs or lab techs doesn't touch the database.
+ *
+ * Each list is an immutable, sorted list of `ProviderSummary`s. A write
+ * replaces the affected lists rather than changing them, so readers never see
+ * a list part-way through an update. A write made inside a transaction is
+ * applied again once the transaction commits, and if it rolls back the whole
+ * directory is thrown away and reloaded as needed.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class ProviderDirectory {
+
+    /** For loading the providers with a role */
+    @Autowired
+    private PersonnelRepository<Personnel>         repository;
+
+    /** Providers with each role that has been loaded */
+    private final Map<Role, List<ProviderSummary>> byRole = new ConcurrentHashMap<>();
+
+    /**
+     * Lists the providers with a role
+     *
+     * @param role
+     *            Role to list
+     * @return Matching providers, sorted by name. The list can't be changed.
+     */
+    public List<ProviderSummary> findByRole ( final Role role ) {
+        return byRole.computeIfAbsent( role, r -> Collections.unmodifiableList( repository.findByRole( r ).stream()
+                .map( ProviderSummary::new ).sorted( ProviderSummary.ORDER ).collect( Collectors.toList() ) ) );
+    }
+
+    /**
+     * Updates the directory after a user has been saved
+     *
+     * @param user
+     *            User that was saved
+     */
+    public void update ( final User user ) {
+        apply( user.getUsername(), user instanceof Personnel ? (Personnel) user : null );
+        afterTransaction( () -> apply( user.getUsername(), user instanceof Personnel ? (Personnel) user : null ) );
+    }
+
+    /**
+     * Updates the directory after a user has been deleted
+     *
+     * @param username
+     *            User that was deleted
+     */
+    public void remove ( final String username ) {
+        apply( username, null );
+        afterTransaction( () -> apply( username, null ) );
+    }
+
+    /**
+     * Forgets every provider, so that each role is reloaded the next time it
+     * is asked for
+     */
+    public void clear () {
+        byRole.clear();
+    }
+
+    /**
+     * Replaces a user's entry in each loaded list
+     *
+     * @param username
+     *            User that was written
+     * @param personnel
+     *            The user as it now is, or null if they were deleted or are
+     *            not personnel
+     */
+    private void apply ( final String username, final Personnel personnel ) {
+        for ( final Role role : byRole.keySet() ) {
+            byRole.computeIfPresent( role, ( r, current ) -> {
+                final List<ProviderSummary> next = new ArrayList<>( current.size() + 1 );
+                for ( final ProviderSummary p : current ) {
+                    if ( !p.getUsername().equals( username ) ) {
+                        next.add( p );
+                    }
+                }
+                if ( null != personnel && null != personnel.getRoles() && personnel.getRoles().contains( r ) ) {
+                    final ProviderSummary summary = new ProviderSummary( personnel );
+                    final int at = Collections.binarySearch( next, summary, ProviderSummary.ORDER );
+                    next.add( at < 0 ? -at - 1 : at, summary );
+                }
+                return Collections.unmodifiableList( next );
+            } );
+        }
+    }
+
+    /**
+     * Runs an update again once the current transaction commits, or clears
+     * the directory if it rolls back. Does nothing outside a transaction.
+     *
+     * @param update
+     *            Update to run again
+     */
+    private void afterTransaction ( final Runnable update ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+            @Override
+            public void afterCompletion ( final int status ) {
+                if ( STATUS_COMMITTED == status ) {
+                    update.run();
+                }
+                else {
+                    clear();
+                }
+            }
+        } );
+    }
+
+}
@@ -0,0 +1,159 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ncsu.csc.iTrust2.models.DomainObject;
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A Service for a catalog of reference data, such as the ICD codes or the
+ * hospitals, that is read on almost every request but only changed by an
+ * admin every so often. Reads are served from a `ReferenceDataCache` snapshot
+ * of the whole catalog instead of the database. Every write made through the
+ * service throws the snapshot away (and again once the transaction finishes,
+ * in case another request loaded the catalog before the write committed), so
+ * the next read loads a new one.
+ *
+ * Entries handed out by a snapshot are shared by every request and must not
+ * be changed. To edit an entry, read it with `findById()`, which returns a
+ * copy of its own (from Hibernate's second-level cache, if the entry is in it;
+ * see `ehcache.xml`).
+ *
+ * Hits, misses, and the version of each catalog are published as
+ * `itrust2.cache.reference.*` metrics, tagged with the catalog name.
+ *
+ * @author Kai Presler-Marshall
+ * @param <T>
+ *            Type of Domain Object to serve
+ * @param <K>
+ *            Type of the Key
+ */
+abstract public class ReferenceDataService <T extends DomainObject, K> extends SpecificationService<T, K> {
+
+    /** Registry to publish cache metrics to */
+    @Autowired
+    private MeterRegistry         registry;
+
+    /** Snapshot of the catalog */
+    private ReferenceDataCache<T> cache;
+
+    /**
+     * Creates the cache for this catalog. Called once, at startup.
+     *
+     * @return The cache
+     */
+    abstract protected ReferenceDataCache<T> createCache ();
+
+    /**
+     * Name of the catalog, used to tag its metrics
+     *
+     * @return The name
+     */
+    abstract protected String getCatalogName ();
+
+    /**
+     * Creates the cache and registers its metrics
+     */
+    @PostConstruct
+    public void initCache () {
+        cache = createCache();
+        final String name = getCatalogName();
+        FunctionCounter.builder( "itrust2.cache.reference.hits", cache, ReferenceDataCache::getHits )
+                .description( "Reference data reads served from memory" ).tag( "catalog", name ).register( registry );
+        FunctionCounter.builder( "itrust2.cache.reference.misses", cache, ReferenceDataCache::getMisses )
+                .description( "Reference data reads that loaded the catalog" ).tag( "catalog", name )
+                .register( registry );
+        Gauge.builder( "itrust2.cache.reference.version", cache, ReferenceDataCache::getVersion )
+                .description( "Version of the catalog, raised on every write" ).tag( "catalog", name )
+                .register( registry );
+    }
+
+    /**
+     * Returns the current snapshot of the catalog
+     *
+     * @return The snapshot
+     */
+    protected ReferenceDataCache.Snapshot<T> snapshot () {
+        return cache.get();
+    }
+
+    /**
+     * Returns the version of the catalog, which goes up every time it is
+     * written (and again when the write's transaction finishes)
+     *
+     * @return The version
+     */
+    public long getCatalogVersion () {
+        return cache.getVersion();
+    }
+
+    /**
+     * Returns every entry in the catalog, from memory
+     *
+     * @return The entries, in a new list the caller is free to change
+     */
+    @Override
+    public List<T> findAll () {
+        return new ArrayList<T>( snapshot().getAll() );
+    }
+
+    @Override
+    public void save ( final T obj ) {
+        super.save( obj );
+        invalidate();
+    }
+
+    @Override
+    public void saveAll ( final List<T> objects ) {
+        super.saveAll( objects );
+        invalidate();
+    }
+
+    @Override
+    @Transactional
+    public void insertAll ( final List<T> objects ) {
+        super.insertAll( objects );
+        invalidate();
+    }
+
+    @Override
+    public void delete ( final T obj ) {
+        super.delete( obj );
+        invalidate();
+    }
+
+    @Override
+    public void deleteAll () {
+        super.deleteAll();
+        invalidate();
+    }
+
+    /**
+     * Throws away the snapshot now, and again once the current transaction
+     * (if any) has finished
+     */
+    protected void invalidate () {
+        cache.invalidate();
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCompletion ( final int status ) {
+                    cache.invalidate();
+                }
+            } );
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.transaction.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyDistribution;
+import edu.ncsu.csc.iTrust2.models.Hospital;
+import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
+import edu.ncsu.csc.iTrust2.models.SatisfactionSurveyDailySummary;
+import edu.ncsu.csc.iTrust2.repositories.SatisfactionSurveyDailySummaryRepository;
+import edu.ncsu.csc.iTrust2.repositories.SatisfactionSurveyRepository;
+
+/**
+ * Keeps a SatisfactionSurveyDailySummary for each HCP, hospital and day, and
+ * answers questions about how survey answers are distributed by adding those
+ * up. Each new survey is added to its summary as it is submitted, so reports
+ * over months or years read one small row per day rather than every survey.
+ *
+ * A survey's summary is updated in the same transaction that saves the survey,
+ * so the two are committed (or lost) together. Summaries are versioned: if two
+ * surveys for the same HCP and day are submitted at once, one of them fails on
+ * the version (or unique key) check, and is submitted again in a new
+ * transaction.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+@Transactional
+public class SatisfactionSurveyDistributionService {
+
+    /** Logger, for reporting summaries that were rebuilt */
+    private static final Logger                      LOG = LoggerFactory
+            .getLogger( SatisfactionSurveyDistributionService.class );
+
+    /** Daily summaries */
+    @Autowired
+    private SatisfactionSurveyDailySummaryRepository repository;
+
+    /** Surveys, for rebuilding the summaries */
+    @Autowired
+    private SatisfactionSurveyRepository             surveyRepository;
+
+    /**
+     * Rebuilds the summaries if they don't account for every survey, as when
+     * the application first starts with existing surveys. Runs when the
+     * application starts, before it takes requests.
+     */
+    @EventListener ( ApplicationStartedEvent.class )
+    public void reconcile () {
+        final long surveys = surveyRepository.countWithVisit();
+        final long summarised = repository.findAll().stream().mapToLong( s -> s.getVisitSatisfactions().total() )
+                .sum();
+        if ( surveys != summarised ) {
+            rebuild();
+            LOG.info( "Rebuilt satisfaction survey summaries: {} surveys were summarised, {} exist", summarised,
+                    surveys );
+        }
+    }
+
+    /**
+     * Adds a newly submitted survey to its daily summary. Call this in the
+     * transaction that saves the survey. The summary is written straight away,
+     * so if another survey changed it first this fails here rather than when
+     * the transaction commits.
+     *
+     * @param survey
+     *            Survey that was submitted
+     * @param hospital
+     *            Hospital the visit was at, or null
+     * @param date
+     *            When the visit took place
+     * @throws org.springframework.dao.ConcurrencyFailureException
+     *             if another survey updated the summary at the same time
+     * @throws org.springframework.dao.DataIntegrityViolationException
+     *             if another survey created the summary at the same time
+     */
+    public void record ( final SatisfactionSurvey survey, final Hospital hospital, final ZonedDateTime date ) {
+        final String hcp = survey.getHcp().getUsername();
+        final String hospitalName = null == hospital ? null : hospital.getName();
+        final LocalDate day = dayOf( date );
+        SatisfactionSurveyDailySummary summary = repository.findByHcpAndHospitalAndVisitDay( hcp, hospitalName,
+                day );
+        if ( null == summary ) {
+            summary = new SatisfactionSurveyDailySummary( hcp, hospitalName, day );
+        }
+        summary.add( survey );
+        repository.saveAndFlush( summary );
+    }
+
+    /**
+     * Throws away every summary and builds them again from the surveys
+     */
+    public void rebuild () {
+        repository.deleteAllInBatch();
+        final Map<String, SatisfactionSurveyDailySummary> summaries = new HashMap<>();
+        for ( final Object[] row : surveyRepository.findAllWithVisit() ) {
+            final SatisfactionSurvey survey = (SatisfactionSurvey) row[0];
+            final String hcp = survey.getHcp().getUsername();
+            final String hospital = (String) row[1];
+            final LocalDate day = dayOf( (ZonedDateTime) row[2] );
+            summaries.computeIfAbsent( hcp + "\n" + hospital + "\n" + day,
+                    k -> new SatisfactionSurveyDailySummary( hcp, hospital, day ) ).add( survey );
+        }
+        repository.saveAll( summaries.values() );
+    }
+
+    /**
+     * Finds how an HCP's surveys were distributed over a range of days
+     *
+     * @param hcp
+     *            Username of the HCP
+     * @param from
+     *            First day (inclusive)
+     * @param to
+     *            Last day (inclusive)
+     * @return The distribution
+     */
+    public SatisfactionSurveyDistribution findForHcp ( final String hcp, final LocalDate from, final LocalDate to ) {
+        return new SatisfactionSurveyDistribution( hcp, null, from, to,
+                repository.findByHcpAndVisitDayBetween( hcp, from, to ) );
+    }
+
+    /**
+     * Finds how the surveys for visits at a hospital were distributed over a
+     * range of days
+     *
+     * @param hospital
+     *            Name of the hospital
+     * @param from
+     *            First day (inclusive)
+     * @param to
+     *            Last day (inclusive)
+     * @return The distribution
+     */
+    public SatisfactionSurveyDistribution findForHospital ( final String hospital, final LocalDate from,
+            final LocalDate to ) {
+        return new SatisfactionSurveyDistribution( null, hospital, from, to,
+                repository.findByHospitalAndVisitDayBetween( hospital, from, to ) );
+    }
+
+    /**
+     * Finds the local day a visit took place on
+     *
+     * @param date
+     *            When the visit took place
+     * @return The day
+     */
+    private static LocalDate dayOf ( final ZonedDateTime date ) {
+        return date.withZoneSameInstant( ZoneId.systemDefault() ).toLocalDate();
+    }
+
+}
@@ -5,7 +5,6 @@ import java.util.List;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.SatisfactionSurveyForm;
@@ -13,6 +12,7 @@ import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
 import edu.ncsu.csc.iTrust2.repositories.OfficeVisitRepository;
 import edu.ncsu.csc.iTrust2.repositories.SatisfactionSurveyRepository;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 
 /**
  * Service class for interacting with SatisfactionSurvey model, performing CRUD
@@ -24,18 +24,22 @@ import edu.ncsu.csc.iTrust2.repositories.SatisfactionSurveyRepository;
  */
 @Component
 @Transactional
-public class SatisfactionSurveyService extends Service<SatisfactionSurvey, Long> {
+public class SatisfactionSurveyService extends SpecificationService<SatisfactionSurvey, Long> {
 
     /** Repository for CRUD operations */
     @Autowired
-    private SatisfactionSurveyRepository repository;
+    private SatisfactionSurveyRepository          repository;
 
     /** OfficeVisit repository */
     @Autowired
-    private OfficeVisitRepository        officeVisitRepository;
+    private OfficeVisitRepository                 officeVisitRepository;
+
+    /** Daily summaries of the surveys */
+    @Autowired
+    private SatisfactionSurveyDistributionService distributionService;
 
     @Override
-    protected JpaRepository<SatisfactionSurvey, Long> getRepository () {
+    protected SpecificationRepository<SatisfactionSurvey, Long> getRepository () {
         return repository;
     }
 
@@ -95,4 +99,29 @@ public class SatisfactionSurveyService extends Service<SatisfactionSurvey, Long>
         return survey;
     }
 
+    /**
+     * Saves a survey, attaches it to the office visit it is about, and adds it
+     * to its daily summary (see `SatisfactionSurveyDistributionService`). All
+     * three changes are made in one transaction, so they are committed
+     * together; the visit is changed in place, so it isn't read a second time
+     * to be merged.
+     *
+     * @param survey
+     *            Survey to save
+     * @param officeVisitId
+     *            ID of the visit the survey is about
+     * @return The visit, with the survey attached
+     * @throws org.springframework.dao.ConcurrencyFailureException
+     *             if another survey updated the same summary at the same time
+     * @throws org.springframework.dao.DataIntegrityViolationException
+     *             if another survey created the same summary at the same time
+     */
+    public OfficeVisit submit ( final SatisfactionSurvey survey, final Long officeVisitId ) {
+        final OfficeVisit officeVisit = officeVisitRepository.findById( officeVisitId ).orElseThrow();
+        save( survey );
+        officeVisit.setSatisfactionSurvey( survey );
+        distributionService.record( survey, officeVisit.getHospital(), officeVisit.getDate() );
+        return officeVisit;
+    }
+
 }
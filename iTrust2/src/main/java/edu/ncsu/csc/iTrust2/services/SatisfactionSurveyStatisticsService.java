@@ -1,7 +1,10 @@
 package edu.ncsu.csc.iTrust2.services;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.transaction.Transactional;
 
@@ -10,11 +13,10 @@ import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyNote;
 import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyStatistics;
-import edu.ncsu.csc.iTrust2.models.Personnel;
-import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
+import edu.ncsu.csc.iTrust2.repositories.SatisfactionSurveyRepository;
 
 /**
  * Service class for interacting with SatisfactionSurveyStatistics model,
@@ -29,13 +31,13 @@ import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
 @Transactional
 public class SatisfactionSurveyStatisticsService {
 
-    /** SatisfactionSurvey service */
+    /** SatisfactionSurvey repository */
     @Autowired
-    private SatisfactionSurveyService surveyService;
+    private SatisfactionSurveyRepository surveyRepository;
 
     /** Personnel service */
     @Autowired
-    private PersonnelService          personnelService;
+    private PersonnelService             personnelService;
 
     /**
      * Finds all SatisfactionSurveyStatistics for all HCPs
@@ -43,18 +45,7 @@ public class SatisfactionSurveyStatisticsService {
      * @return Matching Statistics
      */
     public List<SatisfactionSurveyStatistics> findAll () {
-        final List<SatisfactionSurveyStatistics> allStatistics = new ArrayList<>();
-
-        final List<Personnel> personnel = personnelService.findAll();
-
-        for ( final Personnel p : personnel ) {
-            if ( !p.getRoles().contains( Role.ROLE_HCP ) ) {
-                continue;
-            }
-            allStatistics.add( findForHcp( p ) );
-        }
-
-        return allStatistics;
+        return findForHcps( personnelService.findByRole( Role.ROLE_HCP ) );
     }
 
     /**
@@ -65,37 +56,147 @@ public class SatisfactionSurveyStatisticsService {
      * @return Statistics for that HCP
      */
     public SatisfactionSurveyStatistics findForHcp ( final User hcp ) {
-        final SatisfactionSurveyStatistics statistics = new SatisfactionSurveyStatistics();
-        statistics.setHcp( hcp );
+        return findForHcps( List.of( hcp ) ).get( 0 );
+    }
 
-        final List<SatisfactionSurvey> surveys = surveyService.findByHcp( hcp.getUsername() );
-        statistics.setNumberOfSurveys( surveys.size() );
-        statistics.setAverageVisitSatisfaction(
-                (int) surveys.stream().mapToInt( SatisfactionSurvey::getVisitSatisfaction ).average().orElse( 0 ) );
-        statistics.setAverageTreatmentSatisfaction(
-                (int) surveys.stream().mapToInt( SatisfactionSurvey::getTreatmentSatisfaction ).average().orElse( 0 ) );
+    /**
+     * Finds SatisfactionSurveyStatistics for several HCPs at once. The
+     * averages and counts for every HCP come from a single grouped query, and
+     * the notes from a second query that reads just the scores and comments,
+     * so the cost doesn't grow with the number of HCPs asked for.
+     *
+     * @param hcps
+     *            HCPs to search for
+     * @return Statistics for each HCP, in the same order
+     */
+    public List<SatisfactionSurveyStatistics> findForHcps ( final Collection<? extends User> hcps ) {
+        final Map<String, Totals> totals = new LinkedHashMap<>();
+        for ( final User hcp : hcps ) {
+            totals.put( hcp.getUsername(), new Totals( hcp ) );
+        }
+        return summarize( totals );
+    }
 
-        final int averageWaitingRoomTime = (int) surveys.stream().map( SatisfactionSurvey::getWaitingRoomTime )
-                .mapToInt( WaitTime::getCode ).average().orElse( 0 );
-        statistics.setAverageWaitingRoomTime( WaitTime.getByCode( averageWaitingRoomTime ) );
+    /**
+     * Finds SatisfactionSurveyStatistics for several HCPs at once, given just
+     * their usernames. The HCPs themselves are not loaded, so the statistics
+     * returned have no HCP set; they are in the same order as the usernames.
+     *
+     * @param usernames
+     *            Usernames of the HCPs to search for
+     * @return Statistics for each HCP, in the same order
+     */
+    public List<SatisfactionSurveyStatistics> findForUsernames ( final Collection<String> usernames ) {
+        final Map<String, Totals> totals = new LinkedHashMap<>();
+        for ( final String username : usernames ) {
+            totals.put( username, new Totals( null ) );
+        }
+        return summarize( totals );
+    }
 
-        final int averageExaminationResponseTime = (int) surveys.stream()
-                .map( SatisfactionSurvey::getExaminationResponseTime ).mapToInt( WaitTime::getCode ).average()
-                .orElse( 0 );
-        statistics.setAverageExaminationResponseTime( WaitTime.getByCode( averageExaminationResponseTime ) );
+    /**
+     * Fills in totals for HCPs from the grouped queries
+     *
+     * @param totals
+     *            Empty totals for each HCP, by username
+     * @return Statistics for each HCP, in the same order
+     */
+    private List<SatisfactionSurveyStatistics> summarize ( final Map<String, Totals> totals ) {
+        if ( totals.isEmpty() ) {
+            return new ArrayList<>();
+        }
 
-        final List<SatisfactionSurveyNote> notes = new ArrayList<>();
+        for ( final Object[] row : surveyRepository.summarizeByHcpUsernameIn( totals.keySet() ) ) {
+            final Totals t = totals.get( row[0] );
+            final long count = (Long) row[3];
+            t.surveys += count;
+            t.waitingRoomTime += count * ( (WaitTime) row[1] ).getCode();
+            t.examinationResponseTime += count * ( (WaitTime) row[2] ).getCode();
+            t.visitSatisfaction += (Long) row[4];
+            t.treatmentSatisfaction += (Long) row[5];
+        }
 
-        for ( final SatisfactionSurvey satisfactionSurvey : surveys ) {
+        for ( final Object[] row : surveyRepository.findNotesByHcpUsernameIn( totals.keySet() ) ) {
             final SatisfactionSurveyNote note = new SatisfactionSurveyNote();
-            note.setComments( satisfactionSurvey.getComments() );
-            note.setAverageSatisfaction(
-                    ( satisfactionSurvey.getVisitSatisfaction() + satisfactionSurvey.getTreatmentSatisfaction() ) / 2 );
-            notes.add( note );
+            note.setComments( (String) row[3] );
+            note.setAverageSatisfaction( ( (Integer) row[1] + (Integer) row[2] ) / 2 );
+            totals.get( row[0] ).notes.add( note );
         }
 
-        statistics.setNotes( notes );
-        return statistics;
+        final List<SatisfactionSurveyStatistics> allStatistics = new ArrayList<>();
+        for ( final Totals t : totals.values() ) {
+            allStatistics.add( t.toStatistics() );
+        }
+        return allStatistics;
+    }
+
+    /**
+     * Running totals for one HCP's surveys
+     *
+     * @author Kai Presler-Marshall
+     *
+     */
+    private static class Totals {
+
+        /** HCP the totals are for, if known */
+        private final User                         hcp;
+
+        /** Notes from the HCP's surveys */
+        private final List<SatisfactionSurveyNote> notes = new ArrayList<>();
+
+        /** Number of surveys */
+        private long                               surveys;
+
+        /** Sum of the visit satisfaction scores */
+        private long                               visitSatisfaction;
+
+        /** Sum of the treatment satisfaction scores */
+        private long                               treatmentSatisfaction;
+
+        /** Sum of the waiting room time codes */
+        private long                               waitingRoomTime;
+
+        /** Sum of the examination response time codes */
+        private long                               examinationResponseTime;
+
+        /**
+         * Creates empty totals for an HCP
+         *
+         * @param hcp
+         *            HCP the totals are for, or null
+         */
+        Totals ( final User hcp ) {
+            this.hcp = hcp;
+        }
+
+        /**
+         * Turns the totals into statistics. Averages are truncated to
+         * integers.
+         *
+         * @return Statistics for the HCP
+         */
+        SatisfactionSurveyStatistics toStatistics () {
+            final SatisfactionSurveyStatistics statistics = new SatisfactionSurveyStatistics();
+            statistics.setHcp( hcp );
+            statistics.setNumberOfSurveys( (int) surveys );
+            statistics.setAverageVisitSatisfaction( average( visitSatisfaction ) );
+            statistics.setAverageTreatmentSatisfaction( average( treatmentSatisfaction ) );
+            statistics.setAverageWaitingRoomTime( WaitTime.getByCode( average( waitingRoomTime ) ) );
+            statistics.setAverageExaminationResponseTime( WaitTime.getByCode( average( examinationResponseTime ) ) );
+            statistics.setNotes( notes );
+            return statistics;
+        }
+
+        /**
+         * Averages a sum over the number of surveys
+         *
+         * @param sum
+         *            Sum to average
+         * @return The average, truncated, or 0 if there are no surveys
+         */
+        private int average ( final long sum ) {
+            return 0 == surveys ? 0 : (int) ( sum / surveys );
+        }
     }
 
 }
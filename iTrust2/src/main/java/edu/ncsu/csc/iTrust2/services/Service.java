@@ -2,9 +2,24 @@ package edu.ncsu.csc.iTrust2.services;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.transaction.Transactional;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
 import org.springframework.data.domain.Example;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import edu.ncsu.csc.iTrust2.models.DomainObject;
 
@@ -21,6 +36,20 @@ import edu.ncsu.csc.iTrust2.models.DomainObject;
  * IngredientRepository) with the `@Autowired` annotation on it. You'll also
  * need to implement `getRepository()` to return this field.
  *
+ * Writes are deferred: `save()` and `saveAll()` hand the objects to Hibernate,
+ * which sends them to the database when the transaction commits (or before a
+ * query that needs them). This lets several changes to the same record made in
+ * one transaction go out as a single UPDATE, and lets inserts be batched. Use
+ * `saveAndFlush()` when the SQL has to run straight away, such as when a
+ * version or constraint check must fail before the next step is taken.
+ *
+ * Records that are filtered, sorted and paged by the database, as list
+ * endpoints do, are served by a `SpecificationService` instead.
+ *
+ * To go through every record of a large table, use `scrollAll()` rather than
+ * `findAll()`: it reads the table through a cursor instead of loading it into
+ * a list.
+ *
  * @author Kai Presler-Marshall
  * @author Bruno Volpato
  * @param <T>
@@ -30,6 +59,17 @@ import edu.ncsu.csc.iTrust2.models.DomainObject;
  */
 abstract public class Service <T extends DomainObject, K> {
 
+    /**
+     * Used to insert records without first checking if they exist, and to
+     * scroll through tables
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** Rows fetched from the database at a time by `scrollAll()` */
+    @Value ( "${itrust2.export.fetchSize:500}" )
+    private int           fetchSize;
+
     /**
      * Returns the Repository that Spring uses for interacting with the
      * database. This is the only method that _must_ be overridden in child
@@ -42,13 +82,28 @@ abstract public class Service <T extends DomainObject, K> {
     /**
      * Saves the provided object into the database. If the object already
      * exists, `save()` will perform an in-place update, overwriting the
-     * existing record.
+     * existing record. The SQL is sent when the transaction commits, so called
+     * on its own this still writes the object before returning; called inside
+     * a larger transaction, it is written along with everything else.
      *
      * @param obj
      *            The object to save into the database.
      */
     public void save ( final T obj ) {
-        getRepository().saveAndFlush( obj );
+        getRepository().save( obj );
+    }
+
+    /**
+     * Saves the provided object and sends the SQL to the database straight
+     * away, so that constraint and version checks fail here rather than when
+     * the transaction commits.
+     *
+     * @param obj
+     *            The object to save into the database.
+     */
+    public void saveAndFlush ( final T obj ) {
+        save( obj );
+        getRepository().flush();
     }
 
     /**
@@ -65,14 +120,82 @@ abstract public class Service <T extends DomainObject, K> {
     /**
      * Saves a collection of elements to the database. If an error occurs saving
      * any of them, no objects will be saved. This makes it handy for ensuring
-     * database consistency where all records should exist together.
+     * database consistency where all records should exist together. The rows
+     * are sent in batches when the transaction commits.
      *
      * @param objects
      *            A List of objects to save to the database.
      */
     public void saveAll ( final List<T> objects ) {
         getRepository().saveAll( objects );
-        getRepository().flush();
+    }
+
+    /**
+     * Inserts a collection of new elements into the database. Unlike
+     * `saveAll()`, this doesn't check whether each object is already stored,
+     * which for records with an assigned ID (such as Users) saves a query per
+     * object and lets the inserts go out in batches. Only use it for objects
+     * that are known not to exist yet; inserting one that does fails the
+     * transaction.
+     *
+     * @param objects
+     *            A List of new objects to insert.
+     */
+    @Transactional
+    public void insertAll ( final List<T> objects ) {
+        objects.forEach( entityManager::persist );
+    }
+
+    /**
+     * Hands every record of a given type to `action`, one at a time, without
+     * loading them all into memory. The records are read through a
+     * forward-only cursor, `fetchSize` rows at a time, and are detached from
+     * the session (along with anything loaded for them) after each batch, so
+     * memory use stays the same however big the table is. The records are
+     * read-only: changes made to them are not saved.
+     *
+     * `action` runs inside the transaction, so lazy associations can still be
+     * read while it runs, but not after.
+     *
+     * @param action
+     *            Called with each record
+     * @return The number of records
+     */
+    @Transactional
+    public long scrollAll ( final Consumer<T> action ) {
+        final Class<T> type = entityClass();
+        final CriteriaQuery<T> criteria = entityManager.getCriteriaBuilder().createQuery( type );
+        criteria.select( criteria.from( type ) );
+
+        final Session session = entityManager.unwrap( Session.class );
+        final Query<T> query = session.createQuery( criteria );
+        query.setFetchSize( fetchSize );
+        query.setReadOnly( true );
+        query.setCacheMode( CacheMode.IGNORE );
+
+        long count = 0;
+        try ( ScrollableResults results = query.scroll( ScrollMode.FORWARD_ONLY ) ) {
+            while ( results.next() ) {
+                @SuppressWarnings ( "unchecked" )
+                final T obj = (T) results.get( 0 );
+                action.accept( obj );
+                if ( 0 == ++count % fetchSize ) {
+                    session.clear();
+                }
+            }
+        }
+        session.clear();
+        return count;
+    }
+
+    /**
+     * The type of record this Service serves
+     *
+     * @return The entity class
+     */
+    @SuppressWarnings ( "unchecked" )
+    private Class<T> entityClass () {
+        return (Class<T>) ResolvableType.forClass( getClass() ).as( Service.class ).resolveGeneric( 0 );
     }
 
     /**
@@ -150,4 +273,26 @@ abstract public class Service <T extends DomainObject, K> {
         return null;
     }
 
+    /**
+     * Runs an action once the current transaction has committed, or straight
+     * away if there is no transaction. Used to update in-memory copies of the
+     * database, so a write that is rolled back (or fails at commit, as
+     * deferred writes can) never reaches them.
+     *
+     * @param action
+     *            Action to run
+     */
+    protected void afterCommit ( final Runnable action ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+            @Override
+            public void afterCommit () {
+                action.run();
+            }
+        } );
+    }
+
 }
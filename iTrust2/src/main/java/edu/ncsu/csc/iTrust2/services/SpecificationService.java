@@ -0,0 +1,58 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import edu.ncsu.csc.iTrust2.models.DomainObject;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
+
+/**
+ * A Service whose records can also be filtered, sorted and paged by the
+ * database, rather than in Java afterwards. List endpoints read records with
+ * the `findAll()` overloads here that take a Specification (see `FilterUtil`),
+ * so only a Service whose repository extends `SpecificationRepository` can
+ * back one.
+ *
+ * @author Kai Presler-Marshall
+ * @param <T>
+ *            Type of Domain Object to serve
+ * @param <K>
+ *            Type of the Key
+ */
+abstract public class SpecificationService <T extends DomainObject, K> extends Service<T, K> {
+
+    @Override
+    abstract protected SpecificationRepository<T, K> getRepository ();
+
+    /**
+     * Returns every record that matches a filter, in the order given
+     *
+     * @param filter
+     *            The filter (see `FilterUtil`), or null for every record
+     * @param sort
+     *            The order to return them in
+     * @return The matching records
+     */
+    public List<T> findAll ( final Specification<T> filter, final Sort sort ) {
+        return getRepository().findAll( filter, sort );
+    }
+
+    /**
+     * Returns one page of the records that match a filter. The filter, sort
+     * and page are all applied by the database.
+     *
+     * @param filter
+     *            The filter (see `FilterUtil`), or null for every record
+     * @param page
+     *            The page to return, and the order to sort by
+     * @return The page, which also knows how many records match in all
+     */
+    public Page<T> findAll ( final Specification<T> filter, final Pageable page ) {
+        return getRepository().findAll( filter, page );
+    }
+
+}
@@ -0,0 +1,118 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.repositories.UserRepository;
+import edu.ncsu.csc.iTrust2.utils.ExpiringCache;
+
+/**
+ * Looks up the Roles of users by username. Lookups for many users at once are
+ * made with a single query, and results are kept in a small cache shared by
+ * every request so that the roles of frequently-seen users (such as the HCPs
+ * that show up in a patient's log) are rarely queried at all. `UserService`
+ * invalidates entries whenever a user is saved or deleted.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+@Transactional
+public class UserRoleService {
+
+    /** Repository for looking up roles */
+    @Autowired
+    private UserRepository<User>             repository;
+
+    /** Maximum number of users whose roles are cached */
+    @Value ( "${itrust2.cache.userRoles.maxSize:10000}" )
+    private int                              maxSize;
+
+    /** How long (seconds) cached roles are trusted */
+    @Value ( "${itrust2.cache.userRoles.ttlSeconds:300}" )
+    private long                             ttlSeconds;
+
+    /** Username to roles */
+    private ExpiringCache<String, Set<Role>> cache;
+
+    /**
+     * Creates the cache once the configuration has been injected
+     */
+    @PostConstruct
+    public void init () {
+        cache = new ExpiringCache<String, Set<Role>>( maxSize, ttlSeconds * 1000 );
+    }
+
+    /**
+     * Finds the roles of each of the given users. Users that are not cached are
+     * looked up together in one query.
+     *
+     * @param usernames
+     *            Users to look up. Null entries are ignored.
+     * @return Map of username to roles. Users that do not exist are left out.
+     */
+    public Map<String, Set<Role>> findRolesByNames ( final Collection<String> usernames ) {
+        final Map<String, Set<Role>> found = new HashMap<String, Set<Role>>();
+        final Set<String> missing = new HashSet<String>();
+        for ( final String username : usernames ) {
+            if ( null == username || found.containsKey( username ) ) {
+                continue;
+            }
+            final Set<Role> roles = cache.get( username );
+            if ( null != roles ) {
+                found.put( username, roles );
+            }
+            else {
+                missing.add( username );
+            }
+        }
+
+        if ( !missing.isEmpty() ) {
+            final Map<String, Set<Role>> loaded = new HashMap<String, Set<Role>>();
+            for ( final Object[] row : repository.findRolesByUsernameIn( missing ) ) {
+                final String username = (String) row[0];
+                final Role role = (Role) row[1];
+                loaded.computeIfAbsent( username, u -> EnumSet.noneOf( Role.class ) ).add( role );
+            }
+            loaded.forEach( ( username, roles ) -> {
+                final Set<Role> immutable = Collections.unmodifiableSet( roles );
+                cache.put( username, immutable );
+                found.put( username, immutable );
+            } );
+        }
+
+        return found;
+    }
+
+    /**
+     * Forgets the cached roles of a user. Called whenever the user is written.
+     *
+     * @param username
+     *            User whose roles may have changed
+     */
+    public void invalidate ( final String username ) {
+        cache.invalidate( username );
+    }
+
+    /**
+     * Forgets every cached role
+     */
+    public void invalidateAll () {
+        cache.clear();
+    }
+
+}
@@ -1,19 +1,34 @@
 package edu.ncsu.csc.iTrust2.services;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 import edu.ncsu.csc.iTrust2.repositories.UserRepository;
+import edu.ncsu.csc.iTrust2.services.security.CachedUserDetailsService;
 
 /**
  * Service class for interacting with User model, performing CRUD tasks with
  * database and building a persistence object from a Form.
  *
+ * Users created from a `UserForm` have their password hashed when they are
+ * saved, with the application's PasswordEncoder (see
+ * `BoundedBCryptPasswordEncoder`), so new accounts get the configured work
+ * factor.
+ *
  * @author Kai Presler-Marshall
  * @param <T>
  *            Type of user
@@ -21,16 +36,32 @@ import edu.ncsu.csc.iTrust2.repositories.UserRepository;
 @Component
 @Transactional
 @Primary
-public class UserService <T extends User> extends Service<T, String> {
+public class UserService <T extends User> extends SpecificationService<T, String> {
 
     /** Repository for CRUD tasks */
     @Autowired
-    private UserRepository<User> repository;
+    private UserRepository<User>     repository;
+
+    /** Cache of user roles, which must be told when a user changes */
+    @Autowired
+    private UserRoleService          userRoleService;
+
+    /** Cache of login details, which must be told when a user changes */
+    @Autowired
+    private CachedUserDetailsService userDetailsService;
+
+    /** Directory of providers, which must be told when a user changes */
+    @Autowired
+    private ProviderDirectory        providerDirectory;
+
+    /** Hashes the passwords of new users */
+    @Autowired
+    private PasswordEncoder          passwordEncoder;
 
     @Override
     @SuppressWarnings ( "unchecked" )
-    protected JpaRepository<T, String> getRepository () {
-        return (JpaRepository<T, String>) repository;
+    protected SpecificationRepository<T, String> getRepository () {
+        return (SpecificationRepository<T, String>) repository;
     }
 
     /**
@@ -44,6 +75,22 @@ public class UserService <T extends User> extends Service<T, String> {
         return repository.findByUsername( username );
     }
 
+    /**
+     * Finds several users at once, with a single query
+     *
+     * @param usernames
+     *            Usernames to search. Null entries are ignored.
+     * @return Map of username to user. Users that don't exist are left out.
+     */
+    public Map<String, User> findByNames ( final Collection<String> usernames ) {
+        final Set<String> wanted = usernames.stream().filter( Objects::nonNull ).collect( Collectors.toSet() );
+        if ( wanted.isEmpty() ) {
+            return new HashMap<String, User>();
+        }
+        return repository.findByUsernameIn( wanted ).stream()
+                .collect( Collectors.toMap( User::getUsername, u -> u, ( a, b ) -> a ) );
+    }
+
     /**
      * Checks if a User with the provided Username exists
      *
@@ -55,4 +102,82 @@ public class UserService <T extends User> extends Service<T, String> {
         return repository.existsByUsername( name );
     }
 
+    /**
+     * Hashes the password a user was created from a form with, if it hasn't
+     * been already. Saving the user does this too; call it first to do the
+     * hashing on another thread, such as when importing many users.
+     *
+     * @param user
+     *            The user
+     */
+    public void encodePassword ( final User user ) {
+        user.encodePassword( passwordEncoder );
+    }
+
+    @Override
+    public void save ( final T obj ) {
+        encodePassword( obj );
+        super.save( obj );
+        invalidate( obj.getUsername() );
+        providerDirectory.update( obj );
+    }
+
+    @Override
+    public void saveAll ( final List<T> objects ) {
+        objects.forEach( this::encodePassword );
+        super.saveAll( objects );
+        objects.forEach( u -> {
+            invalidate( u.getUsername() );
+            providerDirectory.update( u );
+        } );
+    }
+
+    @Override
+    public void insertAll ( final List<T> objects ) {
+        objects.forEach( this::encodePassword );
+        super.insertAll( objects );
+        objects.forEach( u -> {
+            invalidate( u.getUsername() );
+            providerDirectory.update( u );
+        } );
+    }
+
+    @Override
+    public void delete ( final T obj ) {
+        super.delete( obj );
+        invalidate( obj.getUsername() );
+        providerDirectory.remove( obj.getUsername() );
+    }
+
+    @Override
+    public void deleteAll () {
+        super.deleteAll();
+        final Runnable invalidate = () -> {
+            userRoleService.invalidateAll();
+            userDetailsService.invalidateAll();
+        };
+        invalidate.run();
+        afterCommit( invalidate );
+        providerDirectory.clear();
+    }
+
+    /**
+     * Drops a user from every cache that holds a copy of them, now and again
+     * once the transaction commits. A request that reads the user in between
+     * still sees the old copy in the database; without the second eviction it
+     * would cache that copy (and, say, a role that was just taken away) until
+     * it expired.
+     *
+     * @param username
+     *            User that has been written
+     */
+    private void invalidate ( final String username ) {
+        final Runnable invalidate = () -> {
+            userRoleService.invalidate( username );
+            userDetailsService.invalidate( username );
+        };
+        invalidate.run();
+        afterCommit( invalidate );
+    }
+
 }
@@ -6,7 +6,6 @@ import java.util.List;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.VaccineAppointmentRequestForm;
@@ -15,6 +14,7 @@ import edu.ncsu.csc.iTrust2.models.VaccineAppointmentRequest;
 import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
 import edu.ncsu.csc.iTrust2.models.enums.Status;
 import edu.ncsu.csc.iTrust2.models.enums.VaccinationStatus;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 import edu.ncsu.csc.iTrust2.repositories.VaccineAppointmentRequestRepository;
 
 /**
@@ -27,7 +27,7 @@ import edu.ncsu.csc.iTrust2.repositories.VaccineAppointmentRequestRepository;
  */
 @Component
 @Transactional
-public class VaccineAppointmentRequestService extends Service<VaccineAppointmentRequest, Long> {
+public class VaccineAppointmentRequestService extends SpecificationService<VaccineAppointmentRequest, Long> {
 
     /** Repository for CRUD tasks */
     @Autowired
@@ -42,7 +42,7 @@ public class VaccineAppointmentRequestService extends Service<VaccineAppointment
     private VaccineTypeService                  vaccineService;
 
     @Override
-    protected JpaRepository<VaccineAppointmentRequest, Long> getRepository () {
+    protected SpecificationRepository<VaccineAppointmentRequest, Long> getRepository () {
         return repository;
     }
 
@@ -3,11 +3,12 @@ package edu.ncsu.csc.iTrust2.services;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.models.VaccineType;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 import edu.ncsu.csc.iTrust2.repositories.VaccineTypeRepository;
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
 
 /**
  * Service class for interacting with VaccineType model, performing CRUD tasks
@@ -19,16 +20,26 @@ import edu.ncsu.csc.iTrust2.repositories.VaccineTypeRepository;
  */
 @Component
 @Transactional
-public class VaccineTypeService extends Service<VaccineType, Long> {
+public class VaccineTypeService extends ReferenceDataService<VaccineType, Long> {
     /** Repository for CRUD tasks */
     @Autowired
     private VaccineTypeRepository repository;
 
     @Override
-    protected JpaRepository<VaccineType, Long> getRepository () {
+    protected SpecificationRepository<VaccineType, Long> getRepository () {
         return repository;
     }
 
+    @Override
+    protected ReferenceDataCache<VaccineType> createCache () {
+        return new ReferenceDataCache<VaccineType>( repository::findAll, VaccineType::getName, ( a, b ) -> a );
+    }
+
+    @Override
+    protected String getCatalogName () {
+        return "vaccineType";
+    }
+
     /**
      * Checks if a Vaccine with the provided code exists
      *
@@ -37,7 +48,7 @@ public class VaccineTypeService extends Service<VaccineType, Long> {
      * @return If vaccine with this code exists
      */
     public boolean existsByName ( final String name ) {
-        return repository.existsByName( name );
+        return null != snapshot().get( name );
     }
 
     /**
@@ -48,6 +59,6 @@ public class VaccineTypeService extends Service<VaccineType, Long> {
      * @return Vaccine, if found
      */
     public VaccineType findByName ( final String name ) {
-        return repository.findByName( name );
+        return snapshot().get( name );
     }
 }
@@ -6,14 +6,15 @@ import java.util.List;
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
 import edu.ncsu.csc.iTrust2.forms.VaccineVisitForm;
+import edu.ncsu.csc.iTrust2.forms.display.VaccinationCertificateLine;
 import edu.ncsu.csc.iTrust2.models.Patient;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.VaccineAppointmentRequest;
 import edu.ncsu.csc.iTrust2.models.VaccineVisit;
+import edu.ncsu.csc.iTrust2.repositories.SpecificationRepository;
 import edu.ncsu.csc.iTrust2.repositories.VaccineVisitRepository;
 
 /**
@@ -25,7 +26,7 @@ import edu.ncsu.csc.iTrust2.repositories.VaccineVisitRepository;
  */
 @Component
 @Transactional
-public class VaccineVisitService extends Service<VaccineVisit, Long> {
+public class VaccineVisitService extends SpecificationService<VaccineVisit, Long> {
 
     /** Repository for CRUD tasks */
     @Autowired
@@ -46,10 +47,22 @@ public class VaccineVisitService extends Service<VaccineVisit, Long> {
     private VaccineTypeService               vaccineService;
 
     @Override
-    protected JpaRepository<VaccineVisit, Long> getRepository () {
+    protected SpecificationRepository<VaccineVisit, Long> getRepository () {
         return repository;
     }
 
+    /**
+     * Lists the doses on a patient's vaccination certificate, in one query
+     * that reads only what the certificate shows
+     *
+     * @param patient
+     *            Patient to list doses for
+     * @return The doses, in the order they were given
+     */
+    public List<VaccinationCertificateLine> findCertificateLines ( final User patient ) {
+        return repository.findCertificateLines( patient );
+    }
+
     /**
      * Find all appointment requests for a given Patient
      *
@@ -0,0 +1,150 @@
+package edu.ncsu.csc.iTrust2.services.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.repositories.UserRepository;
+import edu.ncsu.csc.iTrust2.utils.ExpiringCache;
+
+/**
+ * Loads users for Spring Security to authenticate against. A user and their
+ * roles are read with a single query and then cached, so repeated logins by
+ * the same user don't go to the database at all. `UserService` invalidates
+ * the cached copy whenever a user is saved or deleted.
+ *
+ * Spring Security erases the password from the UserDetails it is given once
+ * authentication succeeds, so each call returns a fresh copy of the cached
+ * details rather than the cached object itself.
+ *
+ * Spring Security also calls `updatePassword` after a successful login if the
+ * stored hash was made with an out-of-date BCrypt work factor, so that
+ * passwords are rehashed with the current one.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class CachedUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    /** Repository for loading users */
+    @Autowired
+    private UserRepository<edu.ncsu.csc.iTrust2.models.User> repository;
+
+    /** Maximum number of users cached */
+    @Value ( "${itrust2.cache.userDetails.maxSize:10000}" )
+    private int                                               maxSize;
+
+    /** How long (seconds) a cached user is trusted */
+    @Value ( "${itrust2.cache.userDetails.ttlSeconds:300}" )
+    private long                                              ttlSeconds;
+
+    /** Username to details */
+    private ExpiringCache<String, UserDetails>                cache;
+
+    /**
+     * Creates the cache once the configuration has been injected
+     */
+    @PostConstruct
+    public void init () {
+        cache = new ExpiringCache<String, UserDetails>( maxSize, ttlSeconds * 1000 );
+    }
+
+    @Override
+    public UserDetails loadUserByUsername ( final String username ) throws UsernameNotFoundException {
+        UserDetails details = cache.get( username );
+        if ( null == details ) {
+            details = load( username );
+            cache.put( username, details );
+        }
+        return User.withUserDetails( details ).build();
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword ( final UserDetails user, final String newPassword ) {
+        final edu.ncsu.csc.iTrust2.models.User stored = repository.findByUsername( user.getUsername() );
+        if ( null != stored ) {
+            stored.setPassword( newPassword );
+            repository.save( stored );
+        }
+        invalidate( user.getUsername() );
+        // Again once the new hash is committed, in case a login loaded the old
+        // one in the meantime
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCommit () {
+                    invalidate( user.getUsername() );
+                }
+            } );
+        }
+        return User.withUserDetails( user ).password( newPassword ).build();
+    }
+
+    /**
+     * Forgets the cached copy of a user. Called whenever the user is written.
+     *
+     * @param username
+     *            User that may have changed
+     */
+    public void invalidate ( final String username ) {
+        cache.invalidate( username );
+    }
+
+    /**
+     * Forgets every cached user
+     */
+    public void invalidateAll () {
+        cache.clear();
+    }
+
+    /**
+     * Reads a user and their roles from the database
+     *
+     * @param username
+     *            User to read
+     * @return The user's details
+     * @throws UsernameNotFoundException
+     *             If there is no such user
+     */
+    private UserDetails load ( final String username ) {
+        final List<Object[]> rows = repository.findCredentialsByUsername( username );
+        if ( rows.isEmpty() ) {
+            throw new UsernameNotFoundException( "No user named " + username );
+        }
+
+        final List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+        for ( final Object[] row : rows ) {
+            if ( null != row[3] ) {
+                authorities.add( new SimpleGrantedAuthority( ( (Role) row[3] ).name() ) );
+            }
+        }
+        // Matches Spring's JDBC user store, which won't log in a user without
+        // any roles
+        if ( authorities.isEmpty() ) {
+            throw new UsernameNotFoundException( "User " + username + " has no roles" );
+        }
+        final Object[] first = rows.get( 0 );
+        final Integer enabled = (Integer) first[2];
+        return User.withUsername( (String) first[0] ).password( (String) first[1] ).authorities( authorities )
+                .disabled( null == enabled || 1 != enabled ).build();
+    }
+
+}
@@ -1,15 +1,21 @@
 package edu.ncsu.csc.iTrust2.services.security;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Component;
 
+import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.models.security.LogEntry;
 import edu.ncsu.csc.iTrust2.repositories.security.LogEntryRepository;
 import edu.ncsu.csc.iTrust2.services.Service;
@@ -60,13 +66,123 @@ public class LogEntryService extends Service<LogEntry, Long> {
      */
     public List<LogEntry> findByDateRange ( final String user, final ZonedDateTime startDate,
             final ZonedDateTime endDate ) {
+        return repository.findByUserAndTimeBetween( user, startDate, endDate );
+    }
 
-        final List<LogEntry> withinRange = repository.findByTimeBetween( startDate, endDate );
+    /**
+     * Finds one page of LogEntries for a user, newest first. If a cursor (from
+     * `cursorFor`) is provided, the page starts immediately after the entry it
+     * identifies, and `page` is ignored; otherwise the page is found by its
+     * number. Either way, only the entries on the page are loaded.
+     *
+     * @param user
+     *            User to find entries for
+     * @param startDate
+     *            Start date (inclusive), or null for no lower bound
+     * @param endDate
+     *            End date (inclusive), or null for no upper bound
+     * @param codes
+     *            Types of entries to include
+     * @param cursor
+     *            Cursor of the last entry already seen, or null
+     * @param page
+     *            Page number (starting at 1), used if there is no cursor
+     * @param pageLength
+     *            Number of entries per page
+     * @return The entries on the page
+     */
+    public List<LogEntry> findPageForUser ( final String user, final ZonedDateTime startDate,
+            final ZonedDateTime endDate, final Collection<TransactionType> codes, final String cursor,
+            final int page, final int pageLength ) {
+        final ZonedDateTime from = lowerBound( startDate );
+        final ZonedDateTime to = upperBound( endDate );
 
-        return withinRange.stream()
-                .filter( e -> e.getPrimaryUser().equals( user ) || e.getSecondaryUser().equals( user ) )
-                .collect( Collectors.toList() );
+        if ( null != cursor && !cursor.isEmpty() ) {
+            final String[] parts = decodeCursor( cursor );
+            final ZonedDateTime afterTime = Instant
+                    .ofEpochSecond( Long.parseLong( parts[0] ), Long.parseLong( parts[1] ) )
+                    .atZone( ZoneId.systemDefault() );
+            return repository.findPageForUserAfter( user, from, to, codes, afterTime, Long.parseLong( parts[2] ),
+                    PageRequest.of( 0, pageLength ) );
+        }
+        return repository.findPageForUser( user, from, to, codes,
+                PageRequest.of( Math.max( 0, page - 1 ), pageLength ) );
+    }
 
+    /**
+     * Counts the LogEntries for a user within a date range, without loading
+     * them.
+     *
+     * @param user
+     *            User to count entries for
+     * @param startDate
+     *            Start date (inclusive), or null for no lower bound
+     * @param endDate
+     *            End date (inclusive), or null for no upper bound
+     * @param codes
+     *            Types of entries to include
+     * @return Number of matching entries
+     */
+    public long countForUser ( final String user, final ZonedDateTime startDate, final ZonedDateTime endDate,
+            final Collection<TransactionType> codes ) {
+        return repository.countForUser( user, lowerBound( startDate ), upperBound( endDate ), codes );
+    }
+
+    /**
+     * Creates an opaque cursor identifying the position of a LogEntry, which
+     * can be passed back to `findPageForUser` to get the entries after it.
+     *
+     * @param entry
+     *            Entry to create a cursor for
+     * @return The cursor
+     */
+    public static String cursorFor ( final LogEntry entry ) {
+        final Instant time = entry.getTime().toInstant();
+        final String raw = time.getEpochSecond() + ":" + time.getNano() + ":" + entry.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( raw.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Splits a cursor back into its seconds, nanoseconds and ID
+     *
+     * @param cursor
+     *            Cursor to decode
+     * @return The parts of the cursor
+     */
+    private static String[] decodeCursor ( final String cursor ) {
+        try {
+            final String[] parts = new String( Base64.getUrlDecoder().decode( cursor ), StandardCharsets.UTF_8 )
+                    .split( ":" );
+            if ( parts.length != 3 ) {
+                throw new IllegalArgumentException( "Invalid log entry cursor" );
+            }
+            return parts;
+        }
+        catch ( final IllegalArgumentException e ) {
+            throw new IllegalArgumentException( "Invalid log entry cursor", e );
+        }
+    }
+
+    /**
+     * Replaces a missing start date with the start of time
+     *
+     * @param startDate
+     *            Start date, possibly null
+     * @return Start date to search from
+     */
+    private static ZonedDateTime lowerBound ( final ZonedDateTime startDate ) {
+        return null != startDate ? startDate : Instant.EPOCH.atZone( ZoneId.systemDefault() );
+    }
+
+    /**
+     * Replaces a missing end date with one safely past any existing entry
+     *
+     * @param endDate
+     *            End date, possibly null
+     * @return End date to search to
+     */
+    private static ZonedDateTime upperBound ( final ZonedDateTime endDate ) {
+        return null != endDate ? endDate : ZonedDateTime.now().plusDays( 1 );
     }
 
 }
@@ -1,5 +1,7 @@
 package edu.ncsu.csc.iTrust2.services.security;
 
+import java.util.List;
+
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +14,9 @@ import edu.ncsu.csc.iTrust2.repositories.security.LoginBanRepository;
 import edu.ncsu.csc.iTrust2.services.Service;
 
 /**
- * Service for interacting with LoginBans
+ * Service for interacting with LoginBans. Every change is written through to
+ * the `LoginRestrictionCache`, which answers the `is*Banned` checks without
+ * going to the database, once its transaction has committed.
  *
  * @author Kai Presler-Marshall
  *
@@ -25,13 +29,59 @@ public class LoginBanService extends Service<LoginBan, Long> {
      * Repository for CRUD actions
      */
     @Autowired
-    private LoginBanRepository repository;
+    private LoginBanRepository    repository;
+
+    /**
+     * In-memory copy of the active bans
+     */
+    @Autowired
+    private LoginRestrictionCache cache;
 
     @Override
     protected JpaRepository<LoginBan, Long> getRepository () {
         return repository;
     }
 
+    @Override
+    public void save ( final LoginBan obj ) {
+        super.save( obj );
+        afterCommit( () -> cache.addBan( obj ) );
+    }
+
+    @Override
+    public void saveAll ( final List<LoginBan> objects ) {
+        super.saveAll( objects );
+        afterCommit( () -> objects.forEach( cache::addBan ) );
+    }
+
+    @Override
+    public void insertAll ( final List<LoginBan> objects ) {
+        super.insertAll( objects );
+        afterCommit( () -> objects.forEach( cache::addBan ) );
+    }
+
+    @Override
+    public void delete ( final LoginBan obj ) {
+        super.delete( obj );
+        // Another ban may still exist for the same IP or user
+        final boolean clearIP = null != obj.getIp() && !repository.existsByIp( obj.getIp() );
+        final boolean clearUser = null != obj.getUser() && !repository.existsByUser( obj.getUser() );
+        afterCommit( () -> {
+            if ( clearIP ) {
+                cache.clearIPBans( obj.getIp() );
+            }
+            if ( clearUser ) {
+                cache.clearUserBans( obj.getUser() );
+            }
+        } );
+    }
+
+    @Override
+    public void deleteAll () {
+        super.deleteAll();
+        afterCommit( cache::clearBans );
+    }
+
     /**
      * Checks if an IP address is banned
      * 
@@ -40,7 +90,7 @@ public class LoginBanService extends Service<LoginBan, Long> {
      * @return Ban status
      */
     public boolean isIPBanned ( final String ipAddress ) {
-        return repository.existsByIp( ipAddress );
+        return cache.isIPBanned( ipAddress );
     }
 
     /**
@@ -51,7 +101,7 @@ public class LoginBanService extends Service<LoginBan, Long> {
      * @return Ban status
      */
     public boolean isUserBanned ( final User user ) {
-        return repository.existsByUser( user );
+        return null != user && cache.isUserBanned( user.getUsername() );
     }
 
     /**
@@ -62,7 +112,9 @@ public class LoginBanService extends Service<LoginBan, Long> {
      * @return Number of bans deleted
      */
     public long clearIP ( final String ipAddress ) {
-        return repository.deleteByIp( ipAddress );
+        final long deleted = repository.deleteByIp( ipAddress );
+        afterCommit( () -> cache.clearIPBans( ipAddress ) );
+        return deleted;
     }
 
     /**
@@ -73,6 +125,8 @@ public class LoginBanService extends Service<LoginBan, Long> {
      * @return Number of bans deleted
      */
     public long clearUser ( final User user ) {
-        return repository.deleteByUser( user );
+        final long deleted = repository.deleteByUser( user );
+        afterCommit( () -> cache.clearUserBans( user ) );
+        return deleted;
     }
 }
@@ -1,6 +1,7 @@
 package edu.ncsu.csc.iTrust2.services.security;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
@@ -15,7 +16,9 @@ import edu.ncsu.csc.iTrust2.repositories.security.LoginLockoutRepository;
 import edu.ncsu.csc.iTrust2.services.Service;
 
 /**
- * Service for interacting with the LoginLockout model
+ * Service for interacting with the LoginLockout model. Every change is written
+ * through to the `LoginRestrictionCache`, which answers the `is*Locked` checks
+ * without going to the database, once its transaction has committed.
  *
  * @author Kai Presler-Marshall
  *
@@ -30,11 +33,59 @@ public class LoginLockoutService extends Service<LoginLockout, Long> {
     @Autowired
     private LoginLockoutRepository repository;
 
+    /**
+     * In-memory copy of the active lockouts
+     */
+    @Autowired
+    private LoginRestrictionCache  cache;
+
     @Override
     protected JpaRepository<LoginLockout, Long> getRepository () {
         return repository;
     }
 
+    @Override
+    public void save ( final LoginLockout obj ) {
+        super.save( obj );
+        afterCommit( () -> cache.addLockout( obj ) );
+    }
+
+    @Override
+    public void saveAll ( final List<LoginLockout> objects ) {
+        super.saveAll( objects );
+        afterCommit( () -> objects.forEach( cache::addLockout ) );
+    }
+
+    @Override
+    public void insertAll ( final List<LoginLockout> objects ) {
+        super.insertAll( objects );
+        afterCommit( () -> objects.forEach( cache::addLockout ) );
+    }
+
+    @Override
+    public void delete ( final LoginLockout obj ) {
+        super.delete( obj );
+        // Rebuild the entries for this IP or user from whatever lockouts remain
+        final List<LoginLockout> ipLockouts = null == obj.getIp() ? null : repository.findByIp( obj.getIp() );
+        final List<LoginLockout> userLockouts = null == obj.getUser() ? null : repository.findByUser( obj.getUser() );
+        afterCommit( () -> {
+            if ( null != ipLockouts ) {
+                cache.clearIPLockouts( obj.getIp() );
+                ipLockouts.forEach( cache::addLockout );
+            }
+            if ( null != userLockouts ) {
+                cache.clearUserLockouts( obj.getUser() );
+                userLockouts.forEach( cache::addLockout );
+            }
+        } );
+    }
+
+    @Override
+    public void deleteAll () {
+        super.deleteAll();
+        afterCommit( cache::clearLockouts );
+    }
+
     /**
      * Checks if an IP address is locked out
      *
@@ -43,11 +94,7 @@ public class LoginLockoutService extends Service<LoginLockout, Long> {
      * @return Lockout status
      */
     public boolean isIPLocked ( final String ipAddress ) {
-        final long now = ZonedDateTime.now().toEpochSecond();
-
-        return repository.findByIp( ipAddress ).stream().filter( e -> ( now - e.getTime().toEpochSecond() ) < 60 * 60 )
-                .collect( Collectors.toList() ).size() > 0; // locked if within
-                                                            // 60 minutes
+        return cache.isIPLocked( ipAddress );
     }
 
     /**
@@ -58,7 +105,9 @@ public class LoginLockoutService extends Service<LoginLockout, Long> {
      * @return Number of records deleted
      */
     public long clearIP ( final String ipAddress ) {
-        return repository.deleteByIp( ipAddress );
+        final long deleted = repository.deleteByIp( ipAddress );
+        afterCommit( () -> cache.clearIPLockouts( ipAddress ) );
+        return deleted;
 
     }
 
@@ -97,7 +146,9 @@ public class LoginLockoutService extends Service<LoginLockout, Long> {
      * @return number of entries deleted
      */
     public long clearUser ( final User user ) {
-        return repository.deleteByUser( user );
+        final long deleted = repository.deleteByUser( user );
+        afterCommit( () -> cache.clearUserLockouts( user ) );
+        return deleted;
     }
 
     /**
@@ -109,10 +160,7 @@ public class LoginLockoutService extends Service<LoginLockout, Long> {
      * @return Lockout status
      */
     public boolean isUserLocked ( final User user ) {
-        final long now = ZonedDateTime.now().toEpochSecond();
-        return repository.findByUser( user ).stream().filter( e -> ( now - e.getTime().toEpochSecond() ) < 60 * 60 )
-                .collect( Collectors.toList() ).size() > 0; // locked if within
-                                                            // 60 minutes
+        return null != user && cache.isUserLocked( user.getUsername() );
     }
 
 }
@@ -0,0 +1,245 @@
+package edu.ncsu.csc.iTrust2.services.security;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.security.LoginBan;
+import edu.ncsu.csc.iTrust2.models.security.LoginLockout;
+import edu.ncsu.csc.iTrust2.repositories.security.LoginBanRepository;
+import edu.ncsu.csc.iTrust2.repositories.security.LoginLockoutRepository;
+
+/**
+ * In-memory copy of the active LoginBans and LoginLockouts, so that checking
+ * whether an IP or user is blocked (which `IPFilter` does on every request)
+ * does not need to touch the database. Bans last until they are cleared;
+ * lockouts expire on their own an hour after they were created and are dropped
+ * lazily the first time they are seen to have expired.
+ *
+ * The cache is loaded from the database at startup and kept up to date by
+ * `LoginBanService` and `LoginLockoutService`, which write every change through
+ * to it. Bans or lockouts written to the database by anything other than those
+ * services (or by another application instance) are not seen until `reload()`
+ * is called.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class LoginRestrictionCache {
+
+    /** How long a lockout lasts, in ms */
+    public static final long                      LOCKOUT_DURATION_MS = TimeUnit.MINUTES.toMillis( 60 );
+
+    /** Repository for loading bans at startup */
+    @Autowired
+    private LoginBanRepository                    banRepository;
+
+    /** Repository for loading lockouts at startup */
+    @Autowired
+    private LoginLockoutRepository                lockoutRepository;
+
+    /** Banned IP addresses */
+    private final Set<String>                     bannedIps           = ConcurrentHashMap.newKeySet();
+
+    /** Banned usernames */
+    private final Set<String>                     bannedUsers         = ConcurrentHashMap.newKeySet();
+
+    /** Locked IP addresses, with when (epoch ms) each lockout ends */
+    private final ConcurrentHashMap<String, Long> lockedIps           = new ConcurrentHashMap<String, Long>();
+
+    /** Locked usernames, with when (epoch ms) each lockout ends */
+    private final ConcurrentHashMap<String, Long> lockedUsers         = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Replaces the contents of the cache with the bans and unexpired lockouts
+     * currently in the database
+     */
+    @PostConstruct
+    public void reload () {
+        clearBans();
+        clearLockouts();
+        banRepository.findAll().forEach( this::addBan );
+        lockoutRepository.findByTimeAfter( ZonedDateTime.now().minus( LOCKOUT_DURATION_MS, ChronoUnit.MILLIS ) )
+                .forEach( this::addLockout );
+    }
+
+    /**
+     * Checks if an IP address is banned
+     *
+     * @param ip
+     *            IP address to check
+     * @return Ban status
+     */
+    public boolean isIPBanned ( final String ip ) {
+        return null != ip && bannedIps.contains( ip );
+    }
+
+    /**
+     * Checks if a user is banned
+     *
+     * @param username
+     *            Name of the user to check
+     * @return Ban status
+     */
+    public boolean isUserBanned ( final String username ) {
+        return null != username && bannedUsers.contains( username );
+    }
+
+    /**
+     * Checks if an IP address is currently locked out
+     *
+     * @param ip
+     *            IP address to check
+     * @return Lockout status
+     */
+    public boolean isIPLocked ( final String ip ) {
+        return isLocked( lockedIps, ip );
+    }
+
+    /**
+     * Checks if a user is currently locked out
+     *
+     * @param username
+     *            Name of the user to check
+     * @return Lockout status
+     */
+    public boolean isUserLocked ( final String username ) {
+        return isLocked( lockedUsers, username );
+    }
+
+    /**
+     * Records a ban that has been saved to the database
+     *
+     * @param ban
+     *            The ban
+     */
+    public void addBan ( final LoginBan ban ) {
+        if ( null != ban.getIp() ) {
+            bannedIps.add( ban.getIp() );
+        }
+        if ( null != ban.getUser() ) {
+            bannedUsers.add( ban.getUser().getUsername() );
+        }
+    }
+
+    /**
+     * Records a lockout that has been saved to the database. A lockout that
+     * has already expired is ignored.
+     *
+     * @param lockout
+     *            The lockout
+     */
+    public void addLockout ( final LoginLockout lockout ) {
+        if ( null == lockout.getTime() ) {
+            return;
+        }
+        final long until = lockout.getTime().toInstant().toEpochMilli() + LOCKOUT_DURATION_MS;
+        if ( until <= System.currentTimeMillis() ) {
+            return;
+        }
+        if ( null != lockout.getIp() ) {
+            lockedIps.merge( lockout.getIp(), until, Math::max );
+        }
+        if ( null != lockout.getUser() ) {
+            lockedUsers.merge( lockout.getUser().getUsername(), until, Math::max );
+        }
+    }
+
+    /**
+     * Forgets all bans for an IP address
+     *
+     * @param ip
+     *            IP address to clear
+     */
+    public void clearIPBans ( final String ip ) {
+        if ( null != ip ) {
+            bannedIps.remove( ip );
+        }
+    }
+
+    /**
+     * Forgets all bans for a user
+     *
+     * @param user
+     *            User to clear
+     */
+    public void clearUserBans ( final User user ) {
+        if ( null != user ) {
+            bannedUsers.remove( user.getUsername() );
+        }
+    }
+
+    /**
+     * Forgets all lockouts for an IP address
+     *
+     * @param ip
+     *            IP address to clear
+     */
+    public void clearIPLockouts ( final String ip ) {
+        if ( null != ip ) {
+            lockedIps.remove( ip );
+        }
+    }
+
+    /**
+     * Forgets all lockouts for a user
+     *
+     * @param user
+     *            User to clear
+     */
+    public void clearUserLockouts ( final User user ) {
+        if ( null != user ) {
+            lockedUsers.remove( user.getUsername() );
+        }
+    }
+
+    /**
+     * Forgets every ban
+     */
+    public void clearBans () {
+        bannedIps.clear();
+        bannedUsers.clear();
+    }
+
+    /**
+     * Forgets every lockout
+     */
+    public void clearLockouts () {
+        lockedIps.clear();
+        lockedUsers.clear();
+    }
+
+    /**
+     * Checks for an unexpired lockout, removing it if it has expired
+     *
+     * @param locks
+     *            Lockouts to check
+     * @param key
+     *            IP address or username
+     * @return Whether the key is locked out
+     */
+    private static boolean isLocked ( final ConcurrentHashMap<String, Long> locks, final String key ) {
+        if ( null == key ) {
+            return false;
+        }
+        final Long until = locks.get( key );
+        if ( null == until ) {
+            return false;
+        }
+        if ( until > System.currentTimeMillis() ) {
+            return true;
+        }
+        locks.remove( key, until );
+        return false;
+    }
+
+}
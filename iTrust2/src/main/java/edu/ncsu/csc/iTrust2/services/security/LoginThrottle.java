@@ -0,0 +1,365 @@
+package edu.ncsu.csc.iTrust2.services.security;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.security.LoginBan;
+import edu.ncsu.csc.iTrust2.models.security.LoginLockout;
+import edu.ncsu.csc.iTrust2.repositories.security.LoginLockoutRepository;
+import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.SlidingWindowCounter;
+
+/**
+ * Counts failed logins per IP address and per user, and decides when an IP or
+ * user should be locked out or banned. Failures are counted in memory over a
+ * sliding window rather than stored as LoginAttempt rows. Only the resulting
+ * lockouts and bans are saved, on a background thread; they are applied to the
+ * `LoginRestrictionCache` immediately, so the lockout or ban takes effect
+ * before it reaches the database.
+ *
+ * The rules are:
+ * <ul>
+ * <li>More than 5 failures from an IP within an hour locks the IP out</li>
+ * <li>More than 2 failures for a user within an hour locks the user out</li>
+ * <li>An IP or user that has already been locked out twice within a day is
+ * banned instead</li>
+ * </ul>
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class LoginThrottle {
+
+    /**
+     * What, if anything, a failed login led to
+     *
+     * @author Kai Presler-Marshall
+     *
+     */
+    public enum Outcome {
+        /** Nothing beyond counting the failure */
+        NONE,
+        /** The IP has been locked out */
+        IP_LOCKED,
+        /** The IP has been banned */
+        IP_BANNED,
+        /** The user has been locked out */
+        USER_LOCKED,
+        /** The user has been banned */
+        USER_BANNED
+    }
+
+    /** Failures allowed from an IP before it is locked out */
+    public static final int                                       MAX_IP_FAILURES   = 5;
+
+    /** Failures allowed for a user before they are locked out */
+    public static final int                                       MAX_USER_FAILURES = 2;
+
+    /** Lockouts allowed within a day before an IP or user is banned */
+    public static final int                                       MAX_LOCKOUTS      = 2;
+
+    /** Logger, for reporting lockouts or bans that could not be saved */
+    private static final Logger                                   LOG               = LoggerFactory
+            .getLogger( LoginThrottle.class );
+
+    /** Width of a failure-counting bucket: six of them make an hour */
+    private static final long                                     FAILURE_BUCKET_MS = TimeUnit.MINUTES.toMillis( 10 );
+
+    /** Number of failure-counting buckets */
+    private static final int                                      FAILURE_BUCKETS   = 6;
+
+    /** Width of a lockout-counting bucket: 24 of them make a day */
+    private static final long                                     LOCKOUT_BUCKET_MS = TimeUnit.HOURS.toMillis( 1 );
+
+    /** Number of lockout-counting buckets */
+    private static final int                                      LOCKOUT_BUCKETS   = 24;
+
+    /** Number of failures recorded between sweeps for idle counters */
+    private static final int                                      SWEEP_INTERVAL    = 1024;
+
+    /** Active bans and lockouts, updated as soon as one is decided on */
+    @Autowired
+    private LoginRestrictionCache                                 restrictions;
+
+    /** For saving bans */
+    @Autowired
+    private LoginBanService                                       loginBanService;
+
+    /** For saving lockouts */
+    @Autowired
+    private LoginLockoutService                                   loginLockoutService;
+
+    /** For loading recent lockouts at startup */
+    @Autowired
+    private LoginLockoutRepository                                lockoutRepository;
+
+    /** For finding the user a lockout or ban applies to */
+    @Autowired
+    private UserService<User>                                     userService;
+
+    /** Recent failures per IP */
+    private final ConcurrentHashMap<String, SlidingWindowCounter> ipFailures        = new ConcurrentHashMap<>();
+
+    /** Recent failures per username */
+    private final ConcurrentHashMap<String, SlidingWindowCounter> userFailures      = new ConcurrentHashMap<>();
+
+    /** Recent lockouts per IP */
+    private final ConcurrentHashMap<String, SlidingWindowCounter> ipLockouts        = new ConcurrentHashMap<>();
+
+    /** Recent lockouts per username */
+    private final ConcurrentHashMap<String, SlidingWindowCounter> userLockouts      = new ConcurrentHashMap<>();
+
+    /** Failures recorded since the last sweep */
+    private final AtomicInteger                                   sinceSweep        = new AtomicInteger();
+
+    /** Saves lockouts and bans off the request thread, in order */
+    private final ExecutorService                                 writer            = Executors
+            .newSingleThreadExecutor( r -> {
+                final Thread t = new Thread( r, "login-restriction-writer" );
+                t.setDaemon( true );
+                return t;
+            } );
+
+    /**
+     * Loads the lockouts from the past day, so that the ban rules survive a
+     * restart
+     */
+    @PostConstruct
+    public void loadRecentLockouts () {
+        for ( final LoginLockout lockout : lockoutRepository.findByTimeAfter( ZonedDateTime.now().minusDays( 1 ) ) ) {
+            final long time = lockout.getTime().toInstant().toEpochMilli();
+            if ( null != lockout.getIp() ) {
+                lockoutCounter( ipLockouts, lockout.getIp() ).increment( time );
+            }
+            if ( null != lockout.getUser() ) {
+                lockoutCounter( userLockouts, lockout.getUser().getUsername() ).increment( time );
+            }
+        }
+    }
+
+    /**
+     * Saves anything still waiting to be written
+     */
+    @PreDestroy
+    public void stop () {
+        writer.shutdown();
+        try {
+            writer.awaitTermination( 10, TimeUnit.SECONDS );
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records a failed login from an IP address, locking out or banning the IP
+     * if it has failed too often
+     *
+     * @param ip
+     *            Address the login came from
+     * @return IP_LOCKED or IP_BANNED if this failure locked out or banned the
+     *         IP, NONE otherwise
+     */
+    public Outcome recordIPFailure ( final String ip ) {
+        final long now = System.currentTimeMillis();
+        final SlidingWindowCounter failures = failureCounter( ipFailures, ip );
+        if ( !crossedLimit( failures, now, MAX_IP_FAILURES ) ) {
+            return Outcome.NONE;
+        }
+
+        final SlidingWindowCounter lockouts = lockoutCounter( ipLockouts, ip );
+        if ( lockouts.get( now ) >= MAX_LOCKOUTS ) {
+            lockouts.reset();
+            final LoginBan ban = new LoginBan();
+            ban.setIp( ip );
+            ban.setTime( ZonedDateTime.now() );
+            restrictions.addBan( ban );
+            persist( () -> {
+                loginBanService.save( ban );
+                loginLockoutService.clearIP( ip );
+            } );
+            return Outcome.IP_BANNED;
+        }
+
+        lockouts.increment( now );
+        final LoginLockout lockout = new LoginLockout();
+        lockout.setIp( ip );
+        lockout.setTime( ZonedDateTime.now() );
+        restrictions.addLockout( lockout );
+        persist( () -> loginLockoutService.save( lockout ) );
+        return Outcome.IP_LOCKED;
+    }
+
+    /**
+     * Records a failed login for a username, locking out or banning the user
+     * if they have failed too often. Failures for usernames that don't exist
+     * are counted, but never lead to a lockout.
+     *
+     * @param username
+     *            Username the login was for
+     * @return USER_LOCKED or USER_BANNED if this failure locked out or banned
+     *         the user, NONE otherwise
+     */
+    public Outcome recordUserFailure ( final String username ) {
+        final long now = System.currentTimeMillis();
+        final SlidingWindowCounter failures = failureCounter( userFailures, username );
+        if ( !crossedLimit( failures, now, MAX_USER_FAILURES ) ) {
+            return Outcome.NONE;
+        }
+
+        // Only look the user up once they have actually hit the limit
+        final User user = userService.findByName( username );
+        if ( null == user ) {
+            return Outcome.NONE;
+        }
+
+        final SlidingWindowCounter lockouts = lockoutCounter( userLockouts, username );
+        if ( lockouts.get( now ) >= MAX_LOCKOUTS ) {
+            lockouts.reset();
+            final LoginBan ban = new LoginBan();
+            ban.setUser( user );
+            ban.setTime( ZonedDateTime.now() );
+            restrictions.addBan( ban );
+            persist( () -> {
+                loginBanService.save( ban );
+                loginLockoutService.clearUser( user );
+            } );
+            return Outcome.USER_BANNED;
+        }
+
+        lockouts.increment( now );
+        final LoginLockout lockout = new LoginLockout();
+        lockout.setUser( user );
+        lockout.setTime( ZonedDateTime.now() );
+        restrictions.addLockout( lockout );
+        persist( () -> loginLockoutService.save( lockout ) );
+        return Outcome.USER_LOCKED;
+    }
+
+    /**
+     * Records a successful login, forgetting earlier failures from the IP and
+     * for the user
+     *
+     * @param ip
+     *            Address the login came from
+     * @param username
+     *            User that logged in
+     */
+    public void recordSuccess ( final String ip, final String username ) {
+        if ( null != ip ) {
+            ipFailures.remove( ip );
+        }
+        if ( null != username ) {
+            userFailures.remove( username );
+        }
+    }
+
+    /**
+     * Waits until every lockout and ban decided on so far has been saved
+     */
+    public void flush () {
+        try {
+            writer.submit( () -> {
+            } ).get();
+        }
+        catch ( final Exception e ) {
+            LOG.error( "Unable to wait for login restrictions to be saved", e );
+        }
+    }
+
+    /**
+     * Counts a failure and checks whether it takes the count over the limit.
+     * The counter is reset when it does, and only one of any number of
+     * concurrent failures is told that it crossed the limit, so the same IP or
+     * user is never locked out twice at once.
+     *
+     * @param failures
+     *            Counter to add to
+     * @param now
+     *            Current time (epoch ms)
+     * @param limit
+     *            Number of failures allowed
+     * @return Whether this failure crossed the limit
+     */
+    private static boolean crossedLimit ( final SlidingWindowCounter failures, final long now, final int limit ) {
+        if ( failures.increment( now ) <= limit ) {
+            return false;
+        }
+        synchronized ( failures ) {
+            if ( failures.get( now ) <= limit ) {
+                return false;
+            }
+            failures.reset();
+            return true;
+        }
+    }
+
+    /**
+     * Queues a lockout or ban to be saved
+     *
+     * @param task
+     *            Saves the lockout or ban
+     */
+    private void persist ( final Runnable task ) {
+        writer.execute( () -> {
+            try {
+                task.run();
+            }
+            catch ( final RuntimeException e ) {
+                LOG.error( "Unable to save login restriction", e );
+            }
+        } );
+    }
+
+    /**
+     * Finds (or creates) the failure counter for an IP or username,
+     * occasionally sweeping out counters that have gone idle
+     *
+     * @param counters
+     *            Counters to look in
+     * @param key
+     *            IP or username
+     * @return The counter
+     */
+    private SlidingWindowCounter failureCounter ( final ConcurrentHashMap<String, SlidingWindowCounter> counters,
+            final String key ) {
+        if ( sinceSweep.incrementAndGet() >= SWEEP_INTERVAL ) {
+            sinceSweep.set( 0 );
+            final long now = System.currentTimeMillis();
+            ipFailures.values().removeIf( c -> 0 == c.get( now ) );
+            userFailures.values().removeIf( c -> 0 == c.get( now ) );
+            ipLockouts.values().removeIf( c -> 0 == c.get( now ) );
+            userLockouts.values().removeIf( c -> 0 == c.get( now ) );
+        }
+        return counters.computeIfAbsent( key, k -> new SlidingWindowCounter( FAILURE_BUCKETS, FAILURE_BUCKET_MS ) );
+    }
+
+    /**
+     * Finds (or creates) the lockout counter for an IP or username
+     *
+     * @param counters
+     *            Counters to look in
+     * @param key
+     *            IP or username
+     * @return The counter
+     */
+    private static SlidingWindowCounter lockoutCounter ( final ConcurrentHashMap<String, SlidingWindowCounter> counters,
+            final String key ) {
+        return counters.computeIfAbsent( key, k -> new SlidingWindowCounter( LOCKOUT_BUCKETS, LOCKOUT_BUCKET_MS ) );
+    }
+
+}
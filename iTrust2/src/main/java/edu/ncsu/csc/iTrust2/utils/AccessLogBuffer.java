@@ -0,0 +1,353 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Fixed-size, lock-free ring buffer of HTTP access records. Each record takes
+ * up a fixed-width slot in a single preallocated buffer (method, URI template,
+ * status, latency, user and IP), so recording a request never blocks and
+ * allocates only the UTF-8 encoding of its strings. Any number of request
+ * threads may record concurrently; a single consumer drains records with
+ * `poll`. If the consumer falls behind and the buffer fills up, new records
+ * are dropped (and counted) rather than making requests wait.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class AccessLogBuffer {
+
+    /** Maximum number of bytes of the URI kept per record */
+    static final int                 URI_MAX        = 111;
+
+    /** Maximum number of bytes of the username kept per record */
+    static final int                 USER_MAX       = 31;
+
+    /** Maximum number of bytes of the IP address kept per record */
+    static final int                 IP_MAX         = 47;
+
+    /** Offset of the timestamp (epoch ms, long) within a slot */
+    private static final int         TIME_OFFSET    = 0;
+
+    /** Offset of the latency (microseconds, int) within a slot */
+    private static final int         LATENCY_OFFSET = 8;
+
+    /** Offset of the response status (short) within a slot */
+    private static final int         STATUS_OFFSET  = 12;
+
+    /** Offset of the HTTP method (byte) within a slot */
+    private static final int         METHOD_OFFSET  = 14;
+
+    /** Offset of the URI (length byte, then bytes) within a slot */
+    private static final int         URI_OFFSET     = 15;
+
+    /** Offset of the username (length byte, then bytes) within a slot */
+    private static final int         USER_OFFSET    = URI_OFFSET + 1 + URI_MAX;
+
+    /** Offset of the IP address (length byte, then bytes) within a slot */
+    private static final int         IP_OFFSET      = USER_OFFSET + 1 + USER_MAX;
+
+    /** Width of a single record */
+    static final int                 SLOT_SIZE      = IP_OFFSET + 1 + IP_MAX;
+
+    /** Value used for methods HttpMethod doesn't know about */
+    private static final byte        UNKNOWN_METHOD = -1;
+
+    /** All HTTP methods, indexed by the code stored in a record */
+    private static final HttpMethod[] METHODS       = HttpMethod.values();
+
+    /** Backing storage for every slot */
+    private final ByteBuffer         data;
+
+    /**
+     * Per-slot publication marker. A slot holding sequence `s` is readable once
+     * its marker is `s + 1`.
+     */
+    private final AtomicLongArray    published;
+
+    /** Number of slots */
+    private final int                capacity;
+
+    /** Next sequence to be claimed by a producer */
+    private final AtomicLong         tail           = new AtomicLong();
+
+    /** Next sequence to be read by the consumer */
+    private final AtomicLong         head           = new AtomicLong();
+
+    /** Records dropped because the buffer was full */
+    private final AtomicLong         dropped        = new AtomicLong();
+
+    /**
+     * Creates a buffer able to hold the given number of records
+     *
+     * @param capacity
+     *            Number of records the buffer can hold before dropping
+     */
+    public AccessLogBuffer ( final int capacity ) {
+        if ( capacity < 1 ) {
+            throw new IllegalArgumentException( "Access log buffer needs room for at least one record" );
+        }
+        this.capacity = capacity;
+        this.data = ByteBuffer.allocate( capacity * SLOT_SIZE );
+        this.published = new AtomicLongArray( capacity );
+    }
+
+    /**
+     * Records a single request. Safe to call from any number of threads.
+     *
+     * @param time
+     *            When the request was received (epoch ms)
+     * @param method
+     *            HTTP method of the request
+     * @param uri
+     *            URI template (or raw URI) of the request
+     * @param status
+     *            Response status code
+     * @param latencyMicros
+     *            Time taken to handle the request, in microseconds
+     * @param user
+     *            Authenticated user, if any
+     * @param ip
+     *            Remote address of the client
+     * @return True if the request was recorded, false if it was dropped
+     */
+    public boolean offer ( final long time, final String method, final String uri, final int status,
+            final long latencyMicros, final String user, final String ip ) {
+        long seq;
+        do {
+            seq = tail.get();
+            if ( seq - head.get() >= capacity ) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        while ( !tail.compareAndSet( seq, seq + 1 ) );
+
+        final int base = slot( seq ) * SLOT_SIZE;
+        data.putLong( base + TIME_OFFSET, time );
+        data.putInt( base + LATENCY_OFFSET, (int) Math.min( Integer.MAX_VALUE, Math.max( 0, latencyMicros ) ) );
+        data.putShort( base + STATUS_OFFSET, (short) status );
+        data.put( base + METHOD_OFFSET, methodCode( method ) );
+        putString( base + URI_OFFSET, uri, URI_MAX );
+        putString( base + USER_OFFSET, user, USER_MAX );
+        putString( base + IP_OFFSET, ip, IP_MAX );
+
+        published.lazySet( slot( seq ), seq + 1 );
+        return true;
+    }
+
+    /**
+     * Reads the oldest record into `into`. Must only be called from a single
+     * consumer thread.
+     *
+     * @param into
+     *            Record to fill in
+     * @return True if a record was read, false if none was ready
+     */
+    public boolean poll ( final AccessRecord into ) {
+        final long seq = head.get();
+        if ( published.get( slot( seq ) ) != seq + 1 ) {
+            return false;
+        }
+
+        final int base = slot( seq ) * SLOT_SIZE;
+        into.time = data.getLong( base + TIME_OFFSET );
+        into.latencyMicros = data.getInt( base + LATENCY_OFFSET );
+        into.status = data.getShort( base + STATUS_OFFSET ) & 0xFFFF;
+        final byte method = data.get( base + METHOD_OFFSET );
+        into.method = method == UNKNOWN_METHOD ? "OTHER" : METHODS[method].name();
+        into.uri = getString( base + URI_OFFSET );
+        into.user = getString( base + USER_OFFSET );
+        into.ip = getString( base + IP_OFFSET );
+
+        head.set( seq + 1 );
+        return true;
+    }
+
+    /**
+     * Number of records waiting to be read
+     *
+     * @return Records in the buffer
+     */
+    public int size () {
+        return (int) Math.max( 0, tail.get() - head.get() );
+    }
+
+    /**
+     * Number of records that have been dropped because the buffer was full
+     *
+     * @return Dropped records
+     */
+    public long getDropped () {
+        return dropped.get();
+    }
+
+    /**
+     * Maps a sequence number onto a slot
+     *
+     * @param seq
+     *            Sequence number
+     * @return Slot index
+     */
+    private int slot ( final long seq ) {
+        return (int) ( seq % capacity );
+    }
+
+    /**
+     * Writes a length-prefixed string, truncated to fit its field without
+     * splitting a multi-byte character
+     *
+     * @param offset
+     *            Where the field starts
+     * @param value
+     *            String to write (null is written as empty)
+     * @param max
+     *            Maximum number of bytes the field holds
+     */
+    private void putString ( final int offset, final String value, final int max ) {
+        if ( null == value ) {
+            data.put( offset, (byte) 0 );
+            return;
+        }
+        final byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        int len = Math.min( bytes.length, max );
+        // Back up to the start of a character if the cut lands inside one
+        while ( len > 0 && len < bytes.length && ( bytes[len] & 0xC0 ) == 0x80 ) {
+            len--;
+        }
+        data.put( offset, (byte) len );
+        for ( int i = 0; i < len; i++ ) {
+            data.put( offset + 1 + i, bytes[i] );
+        }
+    }
+
+    /**
+     * Reads a length-prefixed string
+     *
+     * @param offset
+     *            Where the field starts
+     * @return The string, or null if it was empty
+     */
+    private String getString ( final int offset ) {
+        final int len = data.get( offset ) & 0xFF;
+        if ( 0 == len ) {
+            return null;
+        }
+        final byte[] bytes = new byte[len];
+        for ( int i = 0; i < len; i++ ) {
+            bytes[i] = data.get( offset + 1 + i );
+        }
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Converts an HTTP method name to the code stored in a record
+     *
+     * @param method
+     *            Method name
+     * @return Code for the method
+     */
+    private static byte methodCode ( final String method ) {
+        final HttpMethod resolved = HttpMethod.resolve( method );
+        return null == resolved ? UNKNOWN_METHOD : (byte) resolved.ordinal();
+    }
+
+    /**
+     * A single decoded access record. Reused by the consumer to avoid
+     * allocating one per request.
+     *
+     * @author Kai Presler-Marshall
+     *
+     */
+    public static class AccessRecord {
+
+        /** When the request was received (epoch ms) */
+        long   time;
+
+        /** HTTP method */
+        String method;
+
+        /** URI template of the request */
+        String uri;
+
+        /** Response status */
+        int    status;
+
+        /** Time taken to handle the request, in microseconds */
+        int    latencyMicros;
+
+        /** Authenticated user, if any */
+        String user;
+
+        /** Remote address of the client */
+        String ip;
+
+        /**
+         * When the request was received
+         *
+         * @return Epoch milliseconds
+         */
+        public long getTime () {
+            return time;
+        }
+
+        /**
+         * HTTP method of the request
+         *
+         * @return The method
+         */
+        public String getMethod () {
+            return method;
+        }
+
+        /**
+         * URI template of the request
+         *
+         * @return The URI
+         */
+        public String getUri () {
+            return uri;
+        }
+
+        /**
+         * Response status code
+         *
+         * @return The status
+         */
+        public int getStatus () {
+            return status;
+        }
+
+        /**
+         * Time taken to handle the request
+         *
+         * @return Latency in microseconds
+         */
+        public int getLatencyMicros () {
+            return latencyMicros;
+        }
+
+        /**
+         * User that made the request
+         *
+         * @return The username, or null if not logged in
+         */
+        public String getUser () {
+            return user;
+        }
+
+        /**
+         * Remote address of the client
+         *
+         * @return The IP address
+         */
+        public String getIp () {
+            return ip;
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
+import edu.ncsu.csc.iTrust2.models.security.LogEntry;
+import edu.ncsu.csc.iTrust2.services.security.LogEntryService;
+import edu.ncsu.csc.iTrust2.utils.AccessLogBuffer.AccessRecord;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Access-log pipeline for HTTP requests. The `AuditLogInterceptor` records each
+ * request into an `AccessLogBuffer`; a single background thread drains the
+ * buffer and writes the records either to the database (as batches of
+ * `HTTP_REQUEST` LogEntries) or to a size-rolled local file, depending on
+ * `itrust2.accesslog.sink`.
+ *
+ * Successful requests are sampled at `itrust2.accesslog.sampleRate`; requests
+ * that fail (status 400 and up) are always recorded. Which paths are recorded
+ * at all is configured on the interceptor registration (see
+ * `WebMvcInterceptorConfiguration`).
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class AccessLogWriter {
+
+    /** Logger, for reporting problems writing the access log */
+    private static final Logger LOG = LoggerFactory.getLogger( AccessLogWriter.class );
+
+    /**
+     * Where drained records are written
+     *
+     * @author Kai Presler-Marshall
+     *
+     */
+    public enum Sink {
+        /** Save records as HTTP_REQUEST LogEntries */
+        DATABASE,
+        /** Append records to a rolling local file */
+        FILE,
+        /** Discard records */
+        NONE
+    }
+
+    /** LogEntry service, for saving records to the database */
+    @Autowired
+    private LogEntryService  service;
+
+    /** Registry to publish pipeline metrics to */
+    @Autowired
+    private MeterRegistry    registry;
+
+    /** Where records go */
+    @Value ( "${itrust2.accesslog.sink:DATABASE}" )
+    private Sink             sink;
+
+    /** Fraction (0 - 1) of successful requests that are recorded */
+    @Value ( "${itrust2.accesslog.sampleRate:1.0}" )
+    private double           sampleRate;
+
+    /** Number of records the ring buffer holds */
+    @Value ( "${itrust2.accesslog.bufferSize:8192}" )
+    private int              bufferSize;
+
+    /** Maximum number of records written in a single batch */
+    @Value ( "${itrust2.accesslog.batchSize:500}" )
+    private int              batchSize;
+
+    /** How long (ms) the drain thread sleeps when the buffer is empty */
+    @Value ( "${itrust2.accesslog.drainIntervalMs:250}" )
+    private long             drainIntervalMs;
+
+    /** File records are appended to when using the FILE sink */
+    @Value ( "${itrust2.accesslog.file:${java.io.tmpdir}/iTrust2-access.log}" )
+    private String           file;
+
+    /** Size (bytes) at which the access log file is rolled */
+    @Value ( "${itrust2.accesslog.maxFileSize:10485760}" )
+    private long             maxFileSize;
+
+    /** Number of rolled files kept */
+    @Value ( "${itrust2.accesslog.maxFiles:5}" )
+    private int              maxFiles;
+
+    /** Records waiting to be drained */
+    private AccessLogBuffer  buffer;
+
+    /** Background thread draining the buffer */
+    private Thread           drainer;
+
+    /** Set while the drain thread should keep running */
+    private volatile boolean running;
+
+    /**
+     * Creates the buffer, registers metrics and starts the drain thread
+     */
+    @PostConstruct
+    public void start () {
+        buffer = new AccessLogBuffer( bufferSize );
+
+        Gauge.builder( "itrust2.accesslog.buffer.depth", buffer, AccessLogBuffer::size )
+                .description( "Access records waiting to be written" ).register( registry );
+        FunctionCounter.builder( "itrust2.accesslog.dropped", buffer, AccessLogBuffer::getDropped )
+                .description( "Access records dropped because the buffer was full" ).register( registry );
+
+        if ( Sink.NONE == sink ) {
+            return;
+        }
+        running = true;
+        drainer = new Thread( this::drainLoop, "access-log-writer" );
+        drainer.setDaemon( true );
+        drainer.start();
+    }
+
+    /**
+     * Records a completed request, subject to sampling. Never blocks.
+     *
+     * @param method
+     *            HTTP method
+     * @param uri
+     *            URI template (or raw URI) of the request
+     * @param status
+     *            Response status
+     * @param latencyMicros
+     *            Time taken to handle the request, in microseconds
+     * @param user
+     *            Authenticated user, if any
+     * @param ip
+     *            Remote address of the client
+     */
+    public void record ( final String method, final String uri, final int status, final long latencyMicros,
+            final String user, final String ip ) {
+        if ( !running ) {
+            return;
+        }
+        if ( status < 400 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate ) {
+            return;
+        }
+        buffer.offer( System.currentTimeMillis(), method, uri, status, latencyMicros, user, ip );
+    }
+
+    /**
+     * Writes everything currently in the buffer on the calling thread. The
+     * buffer has a single consumer, so this is only called from the drain
+     * thread, or from `stop()` once that thread has finished.
+     */
+    private void drain () {
+        final AccessRecord record = new AccessRecord();
+        final List<LogEntry> entries = new ArrayList<LogEntry>();
+        final StringBuilder lines = new StringBuilder();
+        int count = 0;
+        while ( buffer.poll( record ) ) {
+            if ( Sink.DATABASE == sink ) {
+                entries.add( toLogEntry( record ) );
+            }
+            else {
+                appendLine( lines, record );
+            }
+            if ( ++count >= batchSize ) {
+                write( entries, lines );
+                count = 0;
+            }
+        }
+        if ( count > 0 ) {
+            write( entries, lines );
+        }
+    }
+
+    /**
+     * Stops the drain thread and writes anything left in the buffer. If the
+     * drain thread doesn't finish in time, whatever it hasn't written is left
+     * behind, as the buffer only supports a single consumer.
+     */
+    @PreDestroy
+    public void stop () {
+        if ( !running ) {
+            return;
+        }
+        running = false;
+        try {
+            drainer.join( 10000 );
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        if ( drainer.isAlive() ) {
+            LOG.warn( "Access log writer did not stop in time; {} records were not written", buffer.size() );
+            return;
+        }
+        drain();
+    }
+
+    /**
+     * Main loop of the drain thread
+     */
+    private void drainLoop () {
+        while ( running ) {
+            try {
+                if ( 0 == buffer.size() ) {
+                    Thread.sleep( drainIntervalMs );
+                    continue;
+                }
+                drain();
+            }
+            catch ( final InterruptedException e ) {
+                return;
+            }
+            catch ( final RuntimeException e ) {
+                LOG.error( "Unexpected error in access log writer", e );
+            }
+        }
+    }
+
+    /**
+     * Writes a batch to the configured sink, then clears it
+     *
+     * @param entries
+     *            LogEntries to save (DATABASE sink)
+     * @param lines
+     *            Lines to append (FILE sink)
+     */
+    private void write ( final List<LogEntry> entries, final StringBuilder lines ) {
+        try {
+            if ( Sink.DATABASE == sink ) {
+                service.saveAll( entries );
+            }
+            else {
+                appendToFile( lines );
+            }
+        }
+        catch ( final IOException | RuntimeException e ) {
+            LOG.error( "Unable to write access log batch", e );
+        }
+        finally {
+            entries.clear();
+            lines.setLength( 0 );
+        }
+    }
+
+    /**
+     * Converts a record to an HTTP_REQUEST LogEntry
+     *
+     * @param record
+     *            Record to convert
+     * @return The LogEntry
+     */
+    private static LogEntry toLogEntry ( final AccessRecord record ) {
+        final LogEntry le = new LogEntry( TransactionType.HTTP_REQUEST, record.getUser() + ":" + record.getIp(), null,
+                "Request " + record.getMethod() + " " + record.getUri() + ", response code: " + record.getStatus()
+                        + ", " + record.getLatencyMicros() / 1000 + " ms" );
+        le.setTime( ZonedDateTime.ofInstant( Instant.ofEpochMilli( record.getTime() ), ZoneId.systemDefault() ) );
+        return le;
+    }
+
+    /**
+     * Formats a record as a single tab-separated line
+     *
+     * @param lines
+     *            Where to append the line
+     * @param record
+     *            Record to format
+     */
+    private static void appendLine ( final StringBuilder lines, final AccessRecord record ) {
+        lines.append( Instant.ofEpochMilli( record.getTime() ) ).append( '\t' ).append( record.getMethod() )
+                .append( '\t' ).append( record.getUri() ).append( '\t' ).append( record.getStatus() ).append( '\t' )
+                .append( record.getLatencyMicros() ).append( '\t' ).append( record.getUser() ).append( '\t' )
+                .append( record.getIp() ).append( '\n' );
+    }
+
+    /**
+     * Appends lines to the access log file, rolling it first if it has grown
+     * too large
+     *
+     * @param lines
+     *            Lines to append
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    private void appendToFile ( final CharSequence lines ) throws IOException {
+        final Path path = Paths.get( file );
+        if ( Files.exists( path ) && Files.size( path ) >= maxFileSize ) {
+            roll( path );
+        }
+        try ( BufferedWriter out = Files.newBufferedWriter( path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND ) ) {
+            out.append( lines );
+        }
+    }
+
+    /**
+     * Rolls the access log: `file.N-1` becomes `file.N` (the oldest is
+     * dropped), and the current file becomes `file.1`.
+     *
+     * @param path
+     *            Current access log file
+     * @throws IOException
+     *             If the files cannot be moved
+     */
+    private void roll ( final Path path ) throws IOException {
+        Files.deleteIfExists( Paths.get( file + "." + maxFiles ) );
+        for ( int i = maxFiles - 1; i >= 1; i-- ) {
+            final Path from = Paths.get( file + "." + i );
+            if ( Files.exists( from ) ) {
+                Files.move( from, Paths.get( file + "." + ( i + 1 ) ), StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        if ( maxFiles >= 1 ) {
+            Files.move( path, Paths.get( file + ".1" ), StandardCopyOption.REPLACE_EXISTING );
+        }
+        else {
+            Files.delete( path );
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A small, thread-safe, in-memory cache. Holds at most `maxSize` entries,
+ * evicting the least-recently-used one when full, and treats any entry older
+ * than the time-to-live as missing. Meant for caching small lookups that are
+ * read far more often than they change; callers are responsible for
+ * invalidating entries when the underlying data is written.
+ *
+ * @author Kai Presler-Marshall
+ *
+ * @param <K>
+ *            Type of the key
+ * @param <V>
+ *            Type of the cached value
+ */
+public class ExpiringCache <K, V> {
+
+    /** Entries, in least-recently-used order */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /** How long an entry stays valid, in ms */
+    private final long                       ttlMillis;
+
+    /** Source of the current time, in ms */
+    private final LongSupplier               clock;
+
+    /** Number of lookups that found a valid entry */
+    private final AtomicLong                 hits   = new AtomicLong();
+
+    /** Number of lookups that did not */
+    private final AtomicLong                 misses = new AtomicLong();
+
+    /**
+     * Creates a cache
+     *
+     * @param maxSize
+     *            Maximum number of entries held
+     * @param ttlMillis
+     *            How long (ms) an entry stays valid after it is stored
+     */
+    public ExpiringCache ( final int maxSize, final long ttlMillis ) {
+        this( maxSize, ttlMillis, System::currentTimeMillis );
+    }
+
+    /**
+     * Creates a cache with an explicit clock. Used by tests.
+     *
+     * @param maxSize
+     *            Maximum number of entries held
+     * @param ttlMillis
+     *            How long (ms) an entry stays valid after it is stored
+     * @param clock
+     *            Source of the current time, in ms
+     */
+    public ExpiringCache ( final int maxSize, final long ttlMillis, final LongSupplier clock ) {
+        if ( maxSize < 1 ) {
+            throw new IllegalArgumentException( "Cache must be able to hold at least one entry" );
+        }
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>( 16, 0.75f, true ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry ( final Map.Entry<K, Entry<V>> eldest ) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a cached value
+     *
+     * @param key
+     *            Key to look up
+     * @return The value, or null if it is not cached or has expired
+     */
+    public V get ( final K key ) {
+        final long now = clock.getAsLong();
+        synchronized ( entries ) {
+            final Entry<V> entry = entries.get( key );
+            if ( null != entry && entry.expires > now ) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if ( null != entry ) {
+                entries.remove( key );
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores a value, replacing any existing one
+     *
+     * @param key
+     *            Key to store under
+     * @param value
+     *            Value to store
+     */
+    public void put ( final K key, final V value ) {
+        final Entry<V> entry = new Entry<V>( value, clock.getAsLong() + ttlMillis );
+        synchronized ( entries ) {
+            entries.put( key, entry );
+        }
+    }
+
+    /**
+     * Removes a single entry
+     *
+     * @param key
+     *            Key to remove
+     */
+    public void invalidate ( final K key ) {
+        synchronized ( entries ) {
+            entries.remove( key );
+        }
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear () {
+        synchronized ( entries ) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Number of entries currently held (including any that have expired but
+     * not yet been removed)
+     *
+     * @return Number of entries
+     */
+    public int size () {
+        synchronized ( entries ) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Number of lookups that found a valid entry
+     *
+     * @return Cache hits
+     */
+    public long getHits () {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups that did not find a valid entry
+     *
+     * @return Cache misses
+     */
+    public long getMisses () {
+        return misses.get();
+    }
+
+    /**
+     * A cached value and when it expires
+     *
+     * @param <V>
+     *            Type of the value
+     */
+    private static class Entry <V> {
+
+        /** The cached value */
+        final V    value;
+
+        /** When (epoch ms) the value expires */
+        final long expires;
+
+        /**
+         * Creates an entry
+         *
+         * @param value
+         *            The cached value
+         * @param expires
+         *            When (epoch ms) the value expires
+         */
+        Entry ( final V value, final long expires ) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Builds the filters that list endpoints pass to `Service.findAll()`, so that
+ * results are filtered by the database (and its indexes) rather than in Java
+ * afterwards. Each filter takes the value to filter by and is left out (null)
+ * if that value is null, so an endpoint can build its filter straight from
+ * optional request parameters:
+ *
+ * `FilterUtil.all( FilterUtil.equal( "status", status ),
+ * FilterUtil.equal( "patient.username", patient ) )`
+ *
+ * Properties of associated records are named with dots, as in
+ * `patient.username`.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class FilterUtil {
+
+    private FilterUtil () {
+    }
+
+    /**
+     * Combines filters, keeping records that match all of them
+     *
+     * @param filters
+     *            The filters; null ones are left out
+     * @return The combined filter, or null if every filter was null
+     */
+    @SafeVarargs
+    public static <T> Specification<T> all ( final Specification<T>... filters ) {
+        return Arrays.stream( filters ).filter( Objects::nonNull ).reduce( Specification::and ).orElse( null );
+    }
+
+    /**
+     * Keeps records where a property has a value
+     *
+     * @param property
+     *            The property
+     * @param value
+     *            The value, or null to not filter
+     * @return The filter, or null
+     */
+    public static <T> Specification<T> equal ( final String property, final Object value ) {
+        if ( null == value ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.equal( path( root, property ), value );
+    }
+
+    /**
+     * Keeps records where a collection property (such as a user's roles)
+     * contains a value
+     *
+     * @param property
+     *            The collection property
+     * @param value
+     *            The value, or null to not filter
+     * @return The filter, or null
+     */
+    public static <T> Specification<T> member ( final String property, final Object value ) {
+        if ( null == value ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.equal( root.join( property ), value );
+    }
+
+    /**
+     * Keeps records with a date and time property on or between two days
+     *
+     * @param property
+     *            The property, a ZonedDateTime
+     * @param from
+     *            First day to keep, or null for no lower bound
+     * @param to
+     *            Last day to keep, or null for no upper bound
+     * @return The filter, or null if neither day was given
+     */
+    public static <T> Specification<T> onDays ( final String property, final LocalDate from, final LocalDate to ) {
+        if ( null == from && null == to ) {
+            return null;
+        }
+        return ( root, query, cb ) -> {
+            final Path<ZonedDateTime> date = path( root, property );
+            final Predicate after = null == from ? cb.conjunction()
+                    : cb.greaterThanOrEqualTo( date, from.atStartOfDay( ZoneId.systemDefault() ) );
+            final Predicate before = null == to ? cb.conjunction()
+                    : cb.lessThan( date, to.plusDays( 1 ).atStartOfDay( ZoneId.systemDefault() ) );
+            return cb.and( after, before );
+        };
+    }
+
+    /**
+     * Keeps records where any of a few text properties contains some text,
+     * ignoring case
+     *
+     * @param text
+     *            The text, or null (or blank) to not filter
+     * @param properties
+     *            The properties to search
+     * @return The filter, or null
+     */
+    public static <T> Specification<T> contains ( final String text, final String... properties ) {
+        if ( null == text || text.trim().isEmpty() ) {
+            return null;
+        }
+        final String pattern = "%" + text.trim().toLowerCase().replace( "\\", "\\\\" ).replace( "%", "\\%" )
+                .replace( "_", "\\_" ) + "%";
+        return ( root, query, cb ) -> cb.or( Arrays.stream( properties )
+                .map( p -> cb.like( cb.lower( path( root, p ) ), pattern, '\\' ) ).toArray( Predicate[]::new ) );
+    }
+
+    /**
+     * Finds a property, following dots through associated records
+     *
+     * @param root
+     *            The record being filtered
+     * @param property
+     *            The property
+     * @return The path to it
+     */
+    private static <X> Path<X> path ( final Root<?> root, final String property ) {
+        Path<?> path = root;
+        for ( final String part : property.split( "\\." ) ) {
+            path = path.get( part );
+        }
+        @SuppressWarnings ( "unchecked" )
+        final Path<X> result = (Path<X>) path;
+        return result;
+    }
+
+}
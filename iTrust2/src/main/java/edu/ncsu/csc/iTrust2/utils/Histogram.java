@@ -0,0 +1,169 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts of values that fall into a small, fixed number of buckets. Because
+ * every value a histogram can hold is its own bucket, quantiles read from it
+ * are exact, and two histograms are merged just by adding their counts. This
+ * makes it a lossless (and tiny) stand-in for a quantile sketch when the
+ * values are already discrete, such as survey scores and wait time codes.
+ *
+ * A histogram is stored as its counts separated by commas, e.g. `0,3,1,0`.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class Histogram {
+
+    /** Number of values in each bucket */
+    private final long[] counts;
+
+    /**
+     * Creates an empty histogram
+     *
+     * @param buckets
+     *            Number of buckets
+     */
+    public Histogram ( final int buckets ) {
+        if ( buckets < 1 ) {
+            throw new IllegalArgumentException( "A histogram needs at least one bucket" );
+        }
+        this.counts = new long[buckets];
+    }
+
+    /**
+     * Parses a histogram written by `toString`
+     *
+     * @param text
+     *            Counts separated by commas
+     * @return The histogram
+     * @throws IllegalArgumentException
+     *             If the text is not a list of non-negative counts
+     */
+    public static Histogram parse ( final String text ) {
+        final String[] parts = text.split( "," );
+        final Histogram histogram = new Histogram( parts.length );
+        for ( int i = 0; i < parts.length; i++ ) {
+            final long count = Long.parseLong( parts[i].trim() );
+            if ( count < 0 ) {
+                throw new IllegalArgumentException( "Counts can't be negative" );
+            }
+            histogram.counts[i] = count;
+        }
+        return histogram;
+    }
+
+    /**
+     * Records a value
+     *
+     * @param bucket
+     *            Bucket the value falls into
+     */
+    public void add ( final int bucket ) {
+        counts[bucket]++;
+    }
+
+    /**
+     * Adds every value in another histogram to this one
+     *
+     * @param other
+     *            Histogram to merge in; must have the same number of buckets
+     */
+    public void merge ( final Histogram other ) {
+        if ( other.counts.length != counts.length ) {
+            throw new IllegalArgumentException( "Histograms have different numbers of buckets" );
+        }
+        for ( int i = 0; i < counts.length; i++ ) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * Number of values in a bucket
+     *
+     * @param bucket
+     *            Bucket to read
+     * @return Values counted in it
+     */
+    public long get ( final int bucket ) {
+        return counts[bucket];
+    }
+
+    /**
+     * Number of values in every bucket
+     *
+     * @return Total count
+     */
+    public long total () {
+        long total = 0;
+        for ( final long c : counts ) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * Finds the bucket holding a quantile, using the nearest-rank method
+     *
+     * @param quantile
+     *            Quantile to find, between 0 and 1 (0.5 for the median)
+     * @return The bucket, or -1 if the histogram is empty
+     */
+    public int quantile ( final double quantile ) {
+        if ( quantile < 0 || quantile > 1 ) {
+            throw new IllegalArgumentException( "Quantile must be between 0 and 1" );
+        }
+        final long total = total();
+        if ( 0 == total ) {
+            return -1;
+        }
+        final long rank = Math.max( 1, (long) Math.ceil( quantile * total ) );
+        long seen = 0;
+        for ( int i = 0; i < counts.length; i++ ) {
+            seen += counts[i];
+            if ( seen >= rank ) {
+                return i;
+            }
+        }
+        return counts.length - 1;
+    }
+
+    /**
+     * The counts, one per bucket
+     *
+     * @return Counts in bucket order
+     */
+    public List<Long> toList () {
+        final List<Long> list = new ArrayList<Long>( counts.length );
+        for ( final long c : counts ) {
+            list.add( c );
+        }
+        return list;
+    }
+
+    @Override
+    public String toString () {
+        final StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < counts.length; i++ ) {
+            if ( i > 0 ) {
+                sb.append( ',' );
+            }
+            sb.append( counts[i] );
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals ( final Object obj ) {
+        return obj instanceof Histogram && Arrays.equals( counts, ( (Histogram) obj ).counts );
+    }
+
+    @Override
+    public int hashCode () {
+        return Arrays.hashCode( counts );
+    }
+
+}
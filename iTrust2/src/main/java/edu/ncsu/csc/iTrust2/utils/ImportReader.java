@@ -0,0 +1,269 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Reads the records of an import file one at a time, so that a file of any
+ * size can be imported without holding it in memory. Two formats are read:
+ *
+ * - CSV, with a header row naming the field in each column. Empty cells are
+ * left out of the record. Fields may be quoted ("a, b"), with quotes inside
+ * them doubled ("say ""hi""").
+ *
+ * - NDJSON, one JSON object per line. Blank lines are skipped.
+ *
+ * Either way each record is returned as a JSON object, ready to be turned into
+ * a form. A record that can't be read is reported with an
+ * IllegalArgumentException; the reader can carry on with the next one.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public abstract class ImportReader implements Closeable {
+
+    /** Where the records are read from */
+    protected final BufferedReader in;
+
+    /** Makes the JSON objects */
+    protected final ObjectMapper   mapper;
+
+    /** Number of records read so far */
+    private int                    record;
+
+    /**
+     * Creates a reader
+     *
+     * @param in
+     *            Where the records are read from
+     * @param mapper
+     *            Makes the JSON objects
+     */
+    protected ImportReader ( final Reader in, final ObjectMapper mapper ) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader( in );
+        this.mapper = mapper;
+    }
+
+    /**
+     * Creates a reader for a CSV file
+     *
+     * @param in
+     *            The file
+     * @param mapper
+     *            Makes the JSON objects
+     * @return The reader
+     */
+    public static ImportReader csv ( final Reader in, final ObjectMapper mapper ) {
+        return new CsvReader( in, mapper );
+    }
+
+    /**
+     * Creates a reader for an NDJSON file
+     *
+     * @param in
+     *            The file
+     * @param mapper
+     *            Makes the JSON objects
+     * @return The reader
+     */
+    public static ImportReader ndjson ( final Reader in, final ObjectMapper mapper ) {
+        return new NdjsonReader( in, mapper );
+    }
+
+    /**
+     * Reads the next record
+     *
+     * @return The record, or null at the end of the file
+     * @throws IOException
+     *             if the file can't be read
+     * @throws IllegalArgumentException
+     *             if this record is malformed. Later records can still be
+     *             read.
+     */
+    abstract public JsonNode next () throws IOException;
+
+    /**
+     * Number of the record last returned by (or that failed in) `next()`,
+     * starting from 1 and not counting a header row
+     *
+     * @return The record number
+     */
+    public int getRecord () {
+        return record;
+    }
+
+    /**
+     * Counts a record as read
+     */
+    protected void counted () {
+        record++;
+    }
+
+    @Override
+    public void close () throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads CSV files
+     */
+    private static class CsvReader extends ImportReader {
+
+        /** Field names, from the header row */
+        private List<String> header;
+
+        /**
+         * Creates a reader
+         *
+         * @param in
+         *            The file
+         * @param mapper
+         *            Makes the JSON objects
+         */
+        CsvReader ( final Reader in, final ObjectMapper mapper ) {
+            super( in, mapper );
+        }
+
+        @Override
+        public JsonNode next () throws IOException {
+            if ( null == header ) {
+                header = readFields();
+                if ( null == header ) {
+                    return null;
+                }
+            }
+            List<String> fields;
+            do {
+                fields = readFields();
+                if ( null == fields ) {
+                    return null;
+                }
+            }
+            while ( 1 == fields.size() && fields.get( 0 ).isEmpty() );
+
+            counted();
+            if ( fields.size() != header.size() ) {
+                throw new IllegalArgumentException(
+                        "Expected " + header.size() + " fields but found " + fields.size() );
+            }
+            final ObjectNode node = mapper.createObjectNode();
+            for ( int i = 0; i < fields.size(); i++ ) {
+                if ( !fields.get( i ).isEmpty() ) {
+                    node.put( header.get( i ).trim(), fields.get( i ) );
+                }
+            }
+            return node;
+        }
+
+        /**
+         * Reads the fields of one row
+         *
+         * @return The fields, or null at the end of the file
+         * @throws IOException
+         *             if the file can't be read
+         */
+        private List<String> readFields () throws IOException {
+            final List<String> fields = new ArrayList<String>();
+            final StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ( -1 != ( c = in.read() ) ) {
+                any = true;
+                if ( quoted ) {
+                    if ( '"' != c ) {
+                        field.append( (char) c );
+                        continue;
+                    }
+                    in.mark( 1 );
+                    final int next = in.read();
+                    if ( '"' == next ) {
+                        field.append( '"' );
+                    }
+                    else {
+                        quoted = false;
+                        if ( -1 != next ) {
+                            in.reset();
+                        }
+                    }
+                }
+                else if ( '"' == c && 0 == field.length() ) {
+                    quoted = true;
+                }
+                else if ( ',' == c ) {
+                    fields.add( field.toString() );
+                    field.setLength( 0 );
+                }
+                else if ( '\n' == c ) {
+                    fields.add( field.toString() );
+                    return fields;
+                }
+                else if ( '\r' != c ) {
+                    field.append( (char) c );
+                }
+            }
+            if ( !any ) {
+                return null;
+            }
+            if ( quoted ) {
+                counted();
+                throw new IllegalArgumentException( "Quoted field is never closed" );
+            }
+            fields.add( field.toString() );
+            return fields;
+        }
+    }
+
+    /**
+     * Reads NDJSON files
+     */
+    private static class NdjsonReader extends ImportReader {
+
+        /**
+         * Creates a reader
+         *
+         * @param in
+         *            The file
+         * @param mapper
+         *            Makes the JSON objects
+         */
+        NdjsonReader ( final Reader in, final ObjectMapper mapper ) {
+            super( in, mapper );
+        }
+
+        @Override
+        public JsonNode next () throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if ( null == line ) {
+                    return null;
+                }
+            }
+            while ( line.trim().isEmpty() );
+
+            counted();
+            final JsonNode node;
+            try {
+                node = mapper.readTree( line );
+            }
+            catch ( final JsonProcessingException e ) {
+                throw new IllegalArgumentException( "Malformed JSON: " + e.getOriginalMessage() );
+            }
+            if ( !node.isObject() ) {
+                throw new IllegalArgumentException( "Expected a JSON object" );
+            }
+            return node;
+        }
+    }
+
+}
@@ -0,0 +1,537 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
+import edu.ncsu.csc.iTrust2.models.security.LogEntry;
+import edu.ncsu.csc.iTrust2.services.security.LogEntryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Writes LogEntries to the database on behalf of `LoggerUtil`. Rather than
+ * inserting (and flushing) each entry on the request thread, entries are placed
+ * on a bounded queue and one or more background threads insert them in
+ * batches. If the queue is full, entries are handed to a second, bounded queue
+ * instead, from which a dedicated thread appends them to a local spill file
+ * that is replayed into the database once the queue has drained. Request
+ * threads never wait on the database or the disk; if both queues are full,
+ * the entry is dropped and counted. Anything still queued when the application
+ * shuts down is written before the writer stops.
+ *
+ * Individual TransactionTypes can be forced onto the synchronous path with the
+ * `itrust2.audit.syncTypes` property, and the background writer can be turned
+ * off entirely with `itrust2.audit.async: false`.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class LogEntryWriter {
+
+    /** Logger, for reporting problems writing the audit log */
+    private static final Logger     LOG             = LoggerFactory.getLogger( LogEntryWriter.class );
+
+    /** Used to write entries to the spill file */
+    private static final Gson       GSON            = new GsonBuilder()
+            .setExclusionStrategies( new IdExclusionStrategy() ).create();
+
+    /** LogEntry service, for saving entries to the database */
+    @Autowired
+    private LogEntryService         service;
+
+    /** Registry to publish writer metrics to */
+    @Autowired
+    private MeterRegistry           registry;
+
+    /** Whether entries should be written by the background threads */
+    @Value ( "${itrust2.audit.async:true}" )
+    private boolean                 async;
+
+    /** Maximum number of entries waiting to be written */
+    @Value ( "${itrust2.audit.queueCapacity:10000}" )
+    private int                     queueCapacity;
+
+    /** Maximum number of entries inserted in a single batch */
+    @Value ( "${itrust2.audit.batchSize:500}" )
+    private int                     batchSize;
+
+    /** Number of background threads writing to the database */
+    @Value ( "${itrust2.audit.writerThreads:1}" )
+    private int                     writerThreads;
+
+    /** How long (ms) a writer waits for new entries before checking in */
+    @Value ( "${itrust2.audit.flushIntervalMs:250}" )
+    private long                    flushIntervalMs;
+
+    /** How long (ms) to wait for the writers to finish on shutdown */
+    @Value ( "${itrust2.audit.shutdownTimeoutMs:10000}" )
+    private long                    shutdownTimeoutMs;
+
+    /** Maximum number of entries waiting to be written to the spill file */
+    @Value ( "${itrust2.audit.spillQueueCapacity:10000}" )
+    private int                     spillQueueCapacity;
+
+    /** File used to hold entries that did not fit on the queue */
+    @Value ( "${itrust2.audit.spillFile:${java.io.tmpdir}/iTrust2-audit-spill.ndjson}" )
+    private String                  spillFile;
+
+    /** TransactionTypes (comma-separated) that are always written inline */
+    @Value ( "${itrust2.audit.syncTypes:}" )
+    private String                  syncTypeNames;
+
+    /** Entries waiting to be written */
+    private BlockingQueue<LogEntry> queue;
+
+    /** Entries that did not fit on the queue, waiting to be spilled */
+    private BlockingQueue<LogEntry> overflow;
+
+    /** TransactionTypes that bypass the queue */
+    private Set<TransactionType>    syncTypes;
+
+    /** Background threads that drain the queue */
+    private ExecutorService         workers;
+
+    /** Background thread that drains the overflow queue to the spill file */
+    private ExecutorService         spiller;
+
+    /** Guards the spill file, which is shared by the spill and writer threads */
+    private final Object            spillLock       = new Object();
+
+    /** Number of entries currently sitting in the spill file */
+    private final AtomicInteger     spilledPending  = new AtomicInteger();
+
+    /** Entries accepted onto the queue that have not been written yet */
+    private final AtomicLong        outstanding     = new AtomicLong();
+
+    /** Set while one of the writers is replaying the spill file */
+    private final AtomicBoolean     replaying       = new AtomicBoolean();
+
+    /** Set while the background writers should keep running */
+    private volatile boolean        running;
+
+    /** Number of entries written per batch */
+    private DistributionSummary     batchSizes;
+
+    /** Time taken to write each batch */
+    private Timer                   flushLatency;
+
+    /** Entries that had to be written to the spill file */
+    private Counter                 spilled;
+
+    /** Entries dropped because both queues were full */
+    private Counter                 dropped;
+
+    /** Dropped entries already reported in the log; only used by the spiller */
+    private long                    droppedReported;
+
+    /**
+     * Sets up the queue and metrics and starts the background writers. Any
+     * entries left in the spill file by a previous run are replayed once the
+     * writers start.
+     */
+    @PostConstruct
+    public void start () {
+        syncTypes = parseTypes( syncTypeNames );
+        queue = new ArrayBlockingQueue<LogEntry>( Math.max( 1, queueCapacity ) );
+        overflow = new ArrayBlockingQueue<LogEntry>( Math.max( 1, spillQueueCapacity ) );
+
+        Gauge.builder( "itrust2.audit.queue.depth", queue, BlockingQueue::size )
+                .description( "Log entries waiting to be written" ).register( registry );
+        Gauge.builder( "itrust2.audit.spill.pending", spilledPending, AtomicInteger::get )
+                .description( "Log entries waiting in the spill file" ).register( registry );
+        batchSizes = DistributionSummary.builder( "itrust2.audit.batch.size" )
+                .description( "Log entries written per batch" ).register( registry );
+        flushLatency = Timer.builder( "itrust2.audit.flush.latency" )
+                .description( "Time taken to write a batch of log entries" ).register( registry );
+        spilled = Counter.builder( "itrust2.audit.spilled" )
+                .description( "Log entries written to the spill file" )
+                .register( registry );
+        dropped = Counter.builder( "itrust2.audit.dropped" )
+                .description( "Log entries dropped because the queue and spill queue were full" )
+                .register( registry );
+
+        if ( Files.exists( spillPath() ) || Files.exists( replayPath() ) ) {
+            // Count is unknown until replayed; just make sure it gets picked up
+            spilledPending.set( 1 );
+        }
+
+        if ( !async ) {
+            return;
+        }
+
+        running = true;
+        final int threads = Math.max( 1, writerThreads );
+        final AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool( threads, r -> {
+            final Thread t = new Thread( r, "audit-log-writer-" + threadNumber.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        } );
+        for ( int i = 0; i < threads; i++ ) {
+            workers.execute( this::drainLoop );
+        }
+        spiller = Executors.newSingleThreadExecutor( r -> {
+            final Thread t = new Thread( r, "audit-log-spiller" );
+            t.setDaemon( true );
+            return t;
+        } );
+        spiller.execute( this::spillLoop );
+    }
+
+    /**
+     * Records a LogEntry. Entries are handed off to the background writers
+     * unless the writer is running synchronously or the TransactionType has
+     * been configured to be written inline. If the queue is full, the entry is
+     * handed to the spill thread instead, and if that is behind too the entry
+     * is dropped, so the caller never waits.
+     *
+     * @param entry
+     *            The LogEntry to record
+     */
+    public void write ( final LogEntry entry ) {
+        if ( !running || syncTypes.contains( entry.getLogCode() ) ) {
+            service.save( entry );
+            return;
+        }
+        outstanding.incrementAndGet();
+        if ( !queue.offer( entry ) ) {
+            outstanding.decrementAndGet();
+            if ( !overflow.offer( entry ) ) {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Writes everything currently on the queue on the calling thread (and
+     * spills anything waiting to be spilled), then waits (up to the shutdown
+     * timeout) for any batches the background writers are part-way through.
+     * Mostly useful for tests, which need to see entries that have been
+     * logged.
+     */
+    public void flush () {
+        final List<LogEntry> batch = new ArrayList<LogEntry>();
+        while ( queue.drainTo( batch, Math.max( 1, batchSize ) ) > 0 ) {
+            writeBatch( batch );
+            batch.clear();
+        }
+        while ( overflow.drainTo( batch, Math.max( 1, batchSize ) ) > 0 ) {
+            spill( batch );
+            batch.clear();
+        }
+        final long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        while ( outstanding.get() > 0 && System.currentTimeMillis() < deadline ) {
+            try {
+                Thread.sleep( 5 );
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the background writers and writes anything still waiting on the
+     * queue.
+     */
+    @PreDestroy
+    public void stop () {
+        running = false;
+        if ( null != workers ) {
+            workers.shutdown();
+            spiller.shutdown();
+            try {
+                if ( !workers.awaitTermination( shutdownTimeoutMs, TimeUnit.MILLISECONDS )
+                        || !spiller.awaitTermination( shutdownTimeoutMs, TimeUnit.MILLISECONDS ) ) {
+                    LOG.warn( "Audit log writers did not stop in time; draining remaining entries" );
+                }
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Main loop for each background writer. Waits for entries, then writes
+     * whatever is available (up to the batch size) in one go. When idle, any
+     * spilled entries are replayed.
+     */
+    private void drainLoop () {
+        final List<LogEntry> batch = new ArrayList<LogEntry>( Math.max( 1, batchSize ) );
+        while ( running || !queue.isEmpty() ) {
+            try {
+                final LogEntry first = queue.poll( flushIntervalMs, TimeUnit.MILLISECONDS );
+                if ( null == first ) {
+                    if ( running && spilledPending.get() > 0 && replaying.compareAndSet( false, true ) ) {
+                        try {
+                            replaySpill();
+                        }
+                        finally {
+                            replaying.set( false );
+                        }
+                    }
+                    continue;
+                }
+                batch.add( first );
+                queue.drainTo( batch, Math.max( 1, batchSize ) - 1 );
+                writeBatch( batch );
+                batch.clear();
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch ( final RuntimeException e ) {
+                // Never let the writer die; the failed batch was spilled
+                LOG.error( "Unexpected error in audit log writer", e );
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Main loop for the spill thread. Appends entries that did not fit on the
+     * queue to the spill file, a batch at a time, and reports any entries that
+     * had to be dropped since it last checked.
+     */
+    private void spillLoop () {
+        final List<LogEntry> batch = new ArrayList<LogEntry>( Math.max( 1, batchSize ) );
+        while ( running || !overflow.isEmpty() ) {
+            try {
+                final LogEntry first = overflow.poll( flushIntervalMs, TimeUnit.MILLISECONDS );
+                if ( null != first ) {
+                    batch.add( first );
+                    overflow.drainTo( batch, Math.max( 1, batchSize ) - 1 );
+                    spill( batch );
+                    batch.clear();
+                }
+                final long total = (long) dropped.count();
+                if ( total > droppedReported ) {
+                    LOG.warn( "Dropped " + ( total - droppedReported )
+                            + " log entries because the audit log queues were full" );
+                    droppedReported = total;
+                }
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch ( final RuntimeException e ) {
+                LOG.error( "Unexpected error in audit log spiller", e );
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch of entries in a single transaction. If the database
+     * write fails, the entries are spilled so they can be retried later.
+     *
+     * @param batch
+     *            Entries to write
+     */
+    private void writeBatch ( final List<LogEntry> batch ) {
+        if ( batch.isEmpty() ) {
+            return;
+        }
+        final Timer.Sample sample = Timer.start( registry );
+        try {
+            service.saveAll( batch );
+            batchSizes.record( batch.size() );
+        }
+        catch ( final RuntimeException e ) {
+            LOG.error( "Unable to write " + batch.size() + " log entries; spilling to " + spillFile, e );
+            spill( batch );
+        }
+        finally {
+            sample.stop( flushLatency );
+            outstanding.addAndGet( -batch.size() );
+        }
+    }
+
+    /**
+     * Appends entries to the spill file, one JSON document per line.
+     *
+     * @param entries
+     *            Entries to spill
+     */
+    private void spill ( final List<LogEntry> entries ) {
+        synchronized ( spillLock ) {
+            try ( BufferedWriter out = Files.newBufferedWriter( spillPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND ) ) {
+                for ( final LogEntry entry : entries ) {
+                    out.write( GSON.toJson( entry ) );
+                    out.newLine();
+                }
+                spilled.increment( entries.size() );
+                spilledPending.addAndGet( entries.size() );
+            }
+            catch ( final IOException e ) {
+                LOG.error( "Unable to spill " + entries.size() + " log entries to " + spillFile + "; they are lost",
+                        e );
+            }
+        }
+    }
+
+    /**
+     * Moves the spill file aside and writes its contents to the database in
+     * batches. If a previous replay did not finish, its file is retried first.
+     * A replay that fails part-way is left on disk to be retried, so some
+     * entries may be written twice if the database fails mid-replay.
+     */
+    private void replaySpill () {
+        final Path replay = replayPath();
+        synchronized ( spillLock ) {
+            try {
+                if ( !Files.exists( replay ) ) {
+                    if ( !Files.exists( spillPath() ) ) {
+                        spilledPending.set( 0 );
+                        return;
+                    }
+                    Files.move( spillPath(), replay, StandardCopyOption.ATOMIC_MOVE );
+                }
+                spilledPending.set( 0 );
+            }
+            catch ( final IOException e ) {
+                LOG.error( "Unable to prepare spilled log entries for replay", e );
+                return;
+            }
+        }
+
+        final List<LogEntry> batch = new ArrayList<LogEntry>( Math.max( 1, batchSize ) );
+        try ( BufferedReader in = Files.newBufferedReader( replay, StandardCharsets.UTF_8 ) ) {
+            String line;
+            while ( null != ( line = in.readLine() ) ) {
+                if ( line.isEmpty() ) {
+                    continue;
+                }
+                try {
+                    batch.add( GSON.fromJson( line, LogEntry.class ) );
+                }
+                catch ( final JsonParseException e ) {
+                    LOG.warn( "Skipping unreadable spilled log entry: " + line );
+                }
+                if ( batch.size() >= batchSize ) {
+                    service.saveAll( batch );
+                    batchSizes.record( batch.size() );
+                    batch.clear();
+                }
+            }
+            if ( !batch.isEmpty() ) {
+                service.saveAll( batch );
+                batchSizes.record( batch.size() );
+            }
+        }
+        catch ( final IOException | RuntimeException e ) {
+            LOG.error( "Unable to replay spilled log entries; will retry", e );
+            spilledPending.compareAndSet( 0, 1 );
+            return;
+        }
+
+        try {
+            Files.deleteIfExists( replay );
+        }
+        catch ( final IOException e ) {
+            LOG.error( "Unable to remove replayed spill file " + replay, e );
+        }
+    }
+
+    /**
+     * Path of the spill file new entries are appended to
+     *
+     * @return Spill file path
+     */
+    private Path spillPath () {
+        return Paths.get( spillFile );
+    }
+
+    /**
+     * Path the spill file is moved to while it is being replayed
+     *
+     * @return Replay file path
+     */
+    private Path replayPath () {
+        return Paths.get( spillFile + ".replay" );
+    }
+
+    /**
+     * Parses a comma-separated list of TransactionType names
+     *
+     * @param names
+     *            Names to parse
+     * @return The matching TransactionTypes
+     */
+    private static Set<TransactionType> parseTypes ( final String names ) {
+        final Set<TransactionType> types = EnumSet.noneOf( TransactionType.class );
+        if ( null == names ) {
+            return types;
+        }
+        Arrays.stream( names.split( "," ) ).map( String::trim ).filter( s -> !s.isEmpty() )
+                .forEach( s -> types.add( TransactionType.valueOf( s ) ) );
+        return types;
+    }
+
+    /**
+     * Leaves the ID out of spilled entries; it is assigned when the entry is
+     * eventually saved.
+     *
+     * @author Kai Presler-Marshall
+     *
+     */
+    private static class IdExclusionStrategy implements ExclusionStrategy {
+
+        @Override
+        public boolean shouldSkipField ( final FieldAttributes field ) {
+            return "id".equals( field.getName() );
+        }
+
+        @Override
+        public boolean shouldSkipClass ( final Class< ? > cls ) {
+            return false;
+        }
+    }
+
+}
@@ -29,10 +29,17 @@ public class LoggerUtil {
     @Autowired
     private LogEntryService service;
 
+    /**
+     * Writer that saves new LogEntries, usually in the background
+     */
+    @Autowired
+    private LogEntryWriter  writer;
+
     /**
      * Most complete logger utility. Usually won't need all of this information,
      * but if you do, it has it all. The time of the event is added
-     * automatically and is assumed to be the current time.
+     * automatically and is assumed to be the current time. The entry is handed
+     * off to the `LogEntryWriter`, which normally saves it in the background.
      *
      * @param code
      *            The TransactionType of the event that occurred
@@ -46,7 +53,7 @@ public class LoggerUtil {
     public void log ( final TransactionType code, final String primaryUser, final String secondaryUser,
             final String message ) {
         final LogEntry le = new LogEntry( code, primaryUser, secondaryUser, message );
-        service.save( le );
+        writer.write( le );
     }
 
     /**
@@ -0,0 +1,135 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ncsu.csc.iTrust2.models.DomainObject;
+import edu.ncsu.csc.iTrust2.services.Service;
+
+/**
+ * Writes records to an HTTP response as NDJSON (one JSON object per line) as
+ * they are read, rather than building the whole list and then serializing it
+ * as one array. Used by the `/export` endpoints, so that a table of any size
+ * can be downloaded without holding it in memory. Each record is written with
+ * the same ObjectMapper as the rest of the API, so a line looks just like an
+ * element of the matching list endpoint's array.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class NdjsonExporter {
+
+    /** Content type of the response */
+    public static final String NDJSON = "application/x-ndjson";
+
+    /** Writes the records */
+    private final ObjectWriter writer;
+
+    /**
+     * Creates the exporter
+     *
+     * @param mapper
+     *            Mapper the API serializes with
+     */
+    @Autowired
+    public NdjsonExporter ( final ObjectMapper mapper ) {
+        // The servlet stream buffers the output; flushing after every record
+        // would send each one in its own chunk
+        this.writer = mapper.writer().without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+    }
+
+    /**
+     * Writes every record a Service serves, reading them through a cursor
+     *
+     * @param response
+     *            Response to write to
+     * @param service
+     *            Service to read from
+     * @return The number of records written
+     * @throws IOException
+     *             if the response can't be written, such as when the client
+     *             goes away
+     */
+    public <T extends DomainObject> long export ( final HttpServletResponse response, final Service<T, ?> service )
+            throws IOException {
+        try ( JsonGenerator out = open( response ) ) {
+            return service.scrollAll( obj -> write( out, obj ) );
+        }
+        catch ( final UncheckedIOException e ) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes records that have already been read, such as a short list
+     * filtered for the current user
+     *
+     * @param response
+     *            Response to write to
+     * @param records
+     *            Records to write
+     * @return The number of records written
+     * @throws IOException
+     *             if the response can't be written
+     */
+    public long export ( final HttpServletResponse response, final Collection<?> records ) throws IOException {
+        try ( JsonGenerator out = open( response ) ) {
+            records.forEach( obj -> write( out, obj ) );
+            return records.size();
+        }
+        catch ( final UncheckedIOException e ) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Starts the response
+     *
+     * @param response
+     *            Response to write to
+     * @return Generator that writes to the response
+     * @throws IOException
+     *             if the response can't be written
+     */
+    private JsonGenerator open ( final HttpServletResponse response ) throws IOException {
+        response.setContentType( NDJSON );
+        response.setCharacterEncoding( "UTF-8" );
+        final OutputStream stream = response.getOutputStream();
+        final JsonGenerator out = writer.getFactory().createGenerator( stream );
+        // Records are separated by the newline written after each one
+        out.setRootValueSeparator( null );
+        return out;
+    }
+
+    /**
+     * Writes one record and the newline after it
+     *
+     * @param out
+     *            Where to write it
+     * @param obj
+     *            The record
+     */
+    private void write ( final JsonGenerator out, final Object obj ) {
+        try {
+            writer.writeValue( out, obj );
+            out.writeRaw( '\n' );
+        }
+        catch ( final IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+}
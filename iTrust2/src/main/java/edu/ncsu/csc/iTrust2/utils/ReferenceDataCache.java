@@ -0,0 +1,257 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a whole catalog of reference data (such as the ICD codes or the
+ * hospitals) in memory as an immutable snapshot. The snapshot is loaded the
+ * first time it is asked for and then shared by every reader until the catalog
+ * is written, at which point `invalidate()` throws it away and the next reader
+ * loads a new one. Readers never lock and never see a catalog part-way through
+ * an update: they either get the old snapshot or the new one.
+ *
+ * Each snapshot has a version number, which goes up by one every time the
+ * catalog is invalidated. A snapshot that finishes loading after the catalog
+ * was invalidated is thrown away rather than installed, so a slow load can't
+ * put stale data back in the cache.
+ *
+ * Besides the whole catalog, a snapshot holds an index by key and, optionally,
+ * the catalog split into named partitions, so that filtered views are built
+ * once per snapshot instead of once per request.
+ *
+ * @author Kai Presler-Marshall
+ *
+ * @param <T>
+ *            Type of the reference data
+ */
+public class ReferenceDataCache <T> {
+
+    /** Loads the whole catalog */
+    private final Supplier<List<T>>   loader;
+
+    /** Key each entry is indexed by, or null to leave it out of the index */
+    private final Function<T, String> key;
+
+    /** Picks which of two entries with the same key is kept */
+    private final BinaryOperator<T>   duplicates;
+
+    /** Partition each entry belongs to, or null if there are no partitions */
+    private final Function<T, String> partition;
+
+    /** Version of the catalog; goes up every time it is invalidated */
+    private final AtomicLong          version = new AtomicLong();
+
+    /** Number of reads served by a loaded snapshot */
+    private final AtomicLong          hits    = new AtomicLong();
+
+    /** Number of reads that had to load a snapshot */
+    private final AtomicLong          misses  = new AtomicLong();
+
+    /** The current snapshot, or null if it needs to be loaded */
+    private volatile Snapshot<T>      current;
+
+    /**
+     * Creates a cache for a catalog with no partitions
+     *
+     * @param loader
+     *            Loads the whole catalog
+     * @param key
+     *            Key each entry is indexed by; entries with a null key are
+     *            left out of the index
+     * @param duplicates
+     *            Picks which of two entries with the same key is kept
+     */
+    public ReferenceDataCache ( final Supplier<List<T>> loader, final Function<T, String> key,
+            final BinaryOperator<T> duplicates ) {
+        this( loader, key, duplicates, null );
+    }
+
+    /**
+     * Creates a cache for a catalog split into partitions
+     *
+     * @param loader
+     *            Loads the whole catalog
+     * @param key
+     *            Key each entry is indexed by; entries with a null key are
+     *            left out of the index
+     * @param duplicates
+     *            Picks which of two entries with the same key is kept
+     * @param partition
+     *            Name of the partition each entry belongs to
+     */
+    public ReferenceDataCache ( final Supplier<List<T>> loader, final Function<T, String> key,
+            final BinaryOperator<T> duplicates, final Function<T, String> partition ) {
+        this.loader = loader;
+        this.key = key;
+        this.duplicates = duplicates;
+        this.partition = partition;
+    }
+
+    /**
+     * Returns the current snapshot, loading it if needed
+     *
+     * @return The snapshot
+     */
+    public Snapshot<T> get () {
+        final Snapshot<T> snapshot = current;
+        if ( null != snapshot ) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+        misses.incrementAndGet();
+        final long loadingVersion = version.get();
+        final Snapshot<T> loaded = new Snapshot<T>( loadingVersion, loader.get(), key, duplicates, partition );
+        synchronized ( this ) {
+            if ( version.get() == loadingVersion && null == current ) {
+                current = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Throws away the current snapshot. Called whenever the catalog is
+     * written; the next read loads a new snapshot with a higher version.
+     */
+    public void invalidate () {
+        synchronized ( this ) {
+            version.incrementAndGet();
+            current = null;
+        }
+    }
+
+    /**
+     * Current version of the catalog
+     *
+     * @return The version
+     */
+    public long getVersion () {
+        return version.get();
+    }
+
+    /**
+     * Number of reads served by a loaded snapshot
+     *
+     * @return Cache hits
+     */
+    public long getHits () {
+        return hits.get();
+    }
+
+    /**
+     * Number of reads that had to load a snapshot
+     *
+     * @return Cache misses
+     */
+    public long getMisses () {
+        return misses.get();
+    }
+
+    /**
+     * An immutable copy of a catalog
+     *
+     * @param <T>
+     *            Type of the reference data
+     */
+    public static class Snapshot <T> {
+
+        /** Version of the catalog this was loaded at */
+        private final long                 version;
+
+        /** Every entry, in the order they were loaded */
+        private final List<T>              all;
+
+        /** Entries by key */
+        private final Map<String, T>       byKey;
+
+        /** Entries in each partition */
+        private final Map<String, List<T>> partitions;
+
+        /**
+         * Builds a snapshot
+         *
+         * @param version
+         *            Version of the catalog
+         * @param entries
+         *            Every entry
+         * @param key
+         *            Key each entry is indexed by
+         * @param duplicates
+         *            Picks which of two entries with the same key is kept
+         * @param partition
+         *            Partition each entry belongs to, or null
+         */
+        Snapshot ( final long version, final List<T> entries, final Function<T, String> key,
+                final BinaryOperator<T> duplicates, final Function<T, String> partition ) {
+            this.version = version;
+            this.all = Collections.unmodifiableList( new ArrayList<T>( entries ) );
+
+            final Map<String, T> index = new HashMap<String, T>();
+            final Map<String, List<T>> parts = new LinkedHashMap<String, List<T>>();
+            for ( final T entry : entries ) {
+                final String k = key.apply( entry );
+                if ( null != k ) {
+                    index.merge( k, entry, duplicates );
+                }
+                if ( null != partition ) {
+                    parts.computeIfAbsent( partition.apply( entry ), p -> new ArrayList<T>() ).add( entry );
+                }
+            }
+            parts.replaceAll( ( p, list ) -> Collections.unmodifiableList( list ) );
+            this.byKey = Collections.unmodifiableMap( index );
+            this.partitions = Collections.unmodifiableMap( parts );
+        }
+
+        /**
+         * Version of the catalog this snapshot was loaded at
+         *
+         * @return The version
+         */
+        public long getVersion () {
+            return version;
+        }
+
+        /**
+         * Every entry in the catalog
+         *
+         * @return The entries. The list can't be changed.
+         */
+        public List<T> getAll () {
+            return all;
+        }
+
+        /**
+         * Finds an entry by its key
+         *
+         * @param key
+         *            Key to look up
+         * @return The entry, or null if there isn't one
+         */
+        public T get ( final String key ) {
+            return null == key ? null : byKey.get( key );
+        }
+
+        /**
+         * Every entry in a partition
+         *
+         * @param name
+         *            Name of the partition
+         * @return The entries, or an empty list if the partition has none. The
+         *         list can't be changed.
+         */
+        public List<T> getPartition ( final String name ) {
+            return partitions.getOrDefault( name, Collections.emptyList() );
+        }
+
+    }
+
+}
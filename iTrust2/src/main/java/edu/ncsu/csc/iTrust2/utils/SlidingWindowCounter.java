@@ -0,0 +1,116 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count of events over a sliding time window. The window is split
+ * into a fixed number of buckets; each bucket packs the index of the period it
+ * covers and the number of events in that period into a single long, so an
+ * event is recorded with one compare-and-set and stale buckets are reset by
+ * whichever thread next lands on them. Counts are accurate to within one
+ * bucket's width.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class SlidingWindowCounter {
+
+    /** Number of low bits of a bucket holding the count */
+    private static final int      COUNT_BITS = 24;
+
+    /** Mask selecting the count from a bucket */
+    private static final long     COUNT_MASK = ( 1L << COUNT_BITS ) - 1;
+
+    /** Buckets, each holding `period << COUNT_BITS | count` */
+    private final AtomicLongArray buckets;
+
+    /** Width of each bucket, in ms */
+    private final long            bucketMillis;
+
+    /**
+     * Creates a counter
+     *
+     * @param bucketCount
+     *            Number of buckets the window is split into
+     * @param bucketMillis
+     *            Width of each bucket, in ms. The window covers
+     *            `bucketCount * bucketMillis`.
+     */
+    public SlidingWindowCounter ( final int bucketCount, final long bucketMillis ) {
+        if ( bucketCount < 1 || bucketMillis < 1 ) {
+            throw new IllegalArgumentException( "Window must have at least one non-empty bucket" );
+        }
+        this.buckets = new AtomicLongArray( bucketCount );
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Records an event
+     *
+     * @param now
+     *            Time of the event (epoch ms)
+     * @return Number of events in the window ending at `now`, including this
+     *         one
+     */
+    public long increment ( final long now ) {
+        final long period = now / bucketMillis;
+        final int index = (int) ( period % buckets.length() );
+        long current;
+        long next;
+        do {
+            current = buckets.get( index );
+            if ( current >>> COUNT_BITS > period ) {
+                // Older than the whole window; don't overwrite newer events
+                return sum( period );
+            }
+            if ( current >>> COUNT_BITS == period ) {
+                next = ( current & COUNT_MASK ) == COUNT_MASK ? current : current + 1;
+            }
+            else {
+                next = period << COUNT_BITS | 1;
+            }
+        }
+        while ( !buckets.compareAndSet( index, current, next ) );
+        return sum( period );
+    }
+
+    /**
+     * Number of events in the window
+     *
+     * @param now
+     *            Current time (epoch ms)
+     * @return Events counted
+     */
+    public long get ( final long now ) {
+        return sum( now / bucketMillis );
+    }
+
+    /**
+     * Forgets every event recorded so far
+     */
+    public void reset () {
+        for ( int i = 0; i < buckets.length(); i++ ) {
+            buckets.set( i, 0 );
+        }
+    }
+
+    /**
+     * Adds up the buckets that fall within the window ending at `period`
+     *
+     * @param period
+     *            Current period
+     * @return Events counted
+     */
+    private long sum ( final long period ) {
+        long total = 0;
+        for ( int i = 0; i < buckets.length(); i++ ) {
+            final long bucket = buckets.get( i );
+            final long age = period - ( bucket >>> COUNT_BITS );
+            if ( age >= 0 && age < buckets.length() ) {
+                total += bucket & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+}
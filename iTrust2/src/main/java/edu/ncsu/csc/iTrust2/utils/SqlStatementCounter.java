@@ -0,0 +1,65 @@
+package edu.ncsu.csc.iTrust2.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. Counting
+ * is started with `start()` and finished with `stop()`, which returns how many
+ * statements were prepared in between; the web layer does this around every
+ * request (see `SqlStatementInterceptor`). Statements prepared on other
+ * threads, such as by the background log writers, aren't counted.
+ *
+ * Batched inserts and updates are prepared once per batch, so a batch of rows
+ * counts as one statement.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    /** Serial Version of the class */
+    private static final long                serialVersionUID = 1L;
+
+    /** Statements prepared so far on each thread that is counting */
+    private static final ThreadLocal<long[]> COUNT            = new ThreadLocal<long[]>();
+
+    /**
+     * Starts counting statements on this thread, from zero
+     */
+    public void start () {
+        COUNT.set( new long[1] );
+    }
+
+    /**
+     * Statements prepared on this thread since counting started
+     *
+     * @return The number of statements, or 0 if this thread isn't counting
+     */
+    public long current () {
+        final long[] count = COUNT.get();
+        return null == count ? 0 : count[0];
+    }
+
+    /**
+     * Stops counting statements on this thread
+     *
+     * @return The number of statements prepared since counting started
+     */
+    public long stop () {
+        final long count = current();
+        COUNT.remove();
+        return count;
+    }
+
+    @Override
+    public String inspect ( final String sql ) {
+        final long[] count = COUNT.get();
+        if ( null != count ) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+}
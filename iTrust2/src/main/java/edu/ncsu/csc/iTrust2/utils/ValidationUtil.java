@@ -5,7 +5,6 @@ import java.util.Set;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
 
 /**
  * Class with utility methods to be used in forms and entity validation
@@ -15,6 +14,9 @@ import javax.validation.ValidatorFactory;
  */
 public class ValidationUtil {
 
+    /** Shared validator; building one is expensive and they are thread-safe */
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
     private ValidationUtil () {
 
     }
@@ -32,9 +34,7 @@ public class ValidationUtil {
      *             If the provided object cannot be validated properly
      */
     public static <T extends Object> void validate ( final T object ) throws IllegalArgumentException {
-        final ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        final Validator validator = factory.getValidator();
-        final Set<ConstraintViolation<T>> valRes = validator.validate( object );
+        final Set<ConstraintViolation<T>> valRes = VALIDATOR.validate( object );
         if ( !valRes.isEmpty() ) {
             final StringBuilder sb = new StringBuilder( "Validation failed for: " );
             sb.append( object );
@@ -5,8 +5,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.transaction.Transactional;
@@ -184,4 +188,96 @@ public class APIAppointmentRequestTest {
 
     }
 
+    /**
+     * Tests filtering, sorting and paging the list of appointment requests,
+     * and that the lists for the current HCP only hold the status they should
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "hcp", roles = { "HCP" } )
+    @Transactional
+    public void testListAppointmentRequests () throws Exception {
+        final User patient = service.findByName( "patient" );
+        final User hcp = service.findByName( "hcp" );
+
+        final List<AppointmentRequest> requests = new ArrayList<AppointmentRequest>();
+        for ( int i = 0; i < 5; i++ ) {
+            final AppointmentRequest request = new AppointmentRequest();
+            request.setPatient( patient );
+            request.setHcp( hcp );
+            request.setDate( ZonedDateTime.parse( "2030-11-1" + i + "T09:00:00-05:00" ) );
+            request.setType( AppointmentType.GENERAL_CHECKUP );
+            request.setStatus( i < 3 ? Status.PENDING : Status.APPROVED );
+            request.setComments( "Request " + i );
+            requests.add( request );
+        }
+        arService.saveAll( requests );
+
+        mvc.perform( get( "/api/v1/appointmentrequests" ).param( "status", "PENDING" ).param( "sort", "-date" )
+                .param( "page", "1" ).param( "size", "2" ) ).andExpect( status().isOk() )
+                .andExpect( header().string( "X-Total-Count", "3" ) )
+                .andExpect( header().string( "X-Total-Pages", "2" ) ).andExpect( header().string( "X-Page", "1" ) )
+                .andExpect( jsonPath( "$.length()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[0].comments" ).value( "Request 2" ) )
+                .andExpect( jsonPath( "$[1].comments" ).value( "Request 1" ) );
+
+        mvc.perform( get( "/api/v1/appointmentrequests" ).param( "sort", "comments" ) )
+                .andExpect( status().isBadRequest() );
+
+        /* Without paging the whole list comes back, with no page headers */
+        mvc.perform( get( "/api/v1/appointmentrequests" ).param( "patient", "patient" ) )
+                .andExpect( status().isOk() ).andExpect( header().doesNotExist( "X-Total-Count" ) )
+                .andExpect( jsonPath( "$.length()" ).value( 5 ) );
+
+        mvc.perform( get( "/api/v1/appointmentrequestForHCP" ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 3 ) );
+
+        mvc.perform( get( "/api/v1/viewAppointments" ).param( "sort", "date" ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[0].comments" ).value( "Request 3" ) );
+    }
+
+    /**
+     * Tests listing appointment requests as summaries, which carry the
+     * usernames of the patient and HCP rather than the users themselves
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "hcp", roles = { "HCP" } )
+    @Transactional
+    public void testAppointmentSummaries () throws Exception {
+        final User patient = service.findByName( "patient" );
+        final User hcp = service.findByName( "hcp" );
+
+        final List<AppointmentRequest> requests = new ArrayList<AppointmentRequest>();
+        for ( int i = 0; i < 4; i++ ) {
+            final AppointmentRequest request = new AppointmentRequest();
+            request.setPatient( patient );
+            request.setHcp( hcp );
+            request.setDate( ZonedDateTime.parse( "2030-11-1" + i + "T09:00:00-05:00" ) );
+            request.setType( AppointmentType.GENERAL_CHECKUP );
+            request.setStatus( i < 3 ? Status.PENDING : Status.APPROVED );
+            request.setComments( "Request " + i );
+            requests.add( request );
+        }
+        arService.saveAll( requests );
+
+        mvc.perform( get( "/api/v1/appointmentrequests/summary" ).param( "status", "PENDING" )
+                .param( "sort", "-date" ).param( "size", "2" ) ).andExpect( status().isOk() )
+                .andExpect( header().string( "X-Total-Count", "3" ) ).andExpect( jsonPath( "$.length()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[0].comments" ).value( "Request 2" ) )
+                .andExpect( jsonPath( "$[0].patient" ).value( "patient" ) )
+                .andExpect( jsonPath( "$[0].hcp" ).value( "hcp" ) )
+                .andExpect( jsonPath( "$[0].status" ).value( "PENDING" ) );
+
+        mvc.perform( get( "/api/v1/appointmentrequests/summary" ).param( "patient", "patient" ) )
+                .andExpect( status().isOk() ).andExpect( header().doesNotExist( "X-Total-Count" ) )
+                .andExpect( jsonPath( "$.length()" ).value( 4 ) );
+
+        mvc.perform( get( "/api/v1/appointmentrequests/summary" ).param( "sort", "comments" ) )
+                .andExpect( status().isBadRequest() );
+    }
+
 }
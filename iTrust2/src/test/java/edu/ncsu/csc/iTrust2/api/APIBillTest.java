@@ -3,6 +3,8 @@ package edu.ncsu.csc.iTrust2.api;
 import static org.junit.Assert.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.LinkedList;
@@ -302,4 +304,27 @@ public class APIBillTest {
 
     }
 
+    /**
+     * Tests paging, sorting and filtering a patient's bills
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "billing", roles = { "USER", "BILLING" } )
+    @Transactional
+    public void testPatientBillPaging () throws Exception {
+        setupOfficeVisit();
+
+        mvc.perform( get( "/api/v1/patients/patient/bills" ).param( "size", "10000000" ) )
+                .andExpect( status().isOk() ).andExpect( header().string( "X-Total-Count", "1" ) )
+                .andExpect( header().string( "X-Page-Size", "1000" ) ).andExpect( jsonPath( "$.length()" ).value( 1 ) );
+        mvc.perform( get( "/api/v1/patients/patient/bills" ).param( "status", "Paid" ).param( "sort", "-date" ) )
+                .andExpect( status().isOk() ).andExpect( header().doesNotExist( "X-Total-Count" ) )
+                .andExpect( jsonPath( "$.length()" ).value( 0 ) );
+        mvc.perform( get( "/api/v1/patients/patient/bills" ).param( "sort", "password" ) )
+                .andExpect( status().isBadRequest() );
+        mvc.perform( get( "/api/v1/patients/patient/bills" ).param( "status", "Overdue" ) )
+                .andExpect( status().isBadRequest() );
+    }
+
 }
@@ -3,6 +3,8 @@ package edu.ncsu.csc.iTrust2.api;
 import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -248,4 +250,19 @@ public class APIDiagnosisTest {
         Assert.assertEquals( 2, diagnosisService.count() );
 
     }
+
+    /**
+     * Tests paging and sorting a patient's diagnoses
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "patient", roles = { "PATIENT" } )
+    public void testPatientDiagnosesPaging () throws Exception {
+        mvc.perform( get( "/api/v1/diagnoses" ).param( "size", "10000000" ).param( "sort", "-date,code" ) )
+                .andExpect( status().isOk() ).andExpect( header().string( "X-Page-Size", "1000" ) )
+                .andExpect( header().string( "X-Page", "1" ) ).andExpect( header().exists( "X-Total-Count" ) );
+        mvc.perform( get( "/api/v1/diagnoses" ).param( "sort", "note" ) ).andExpect( status().isBadRequest() );
+    }
+
 }
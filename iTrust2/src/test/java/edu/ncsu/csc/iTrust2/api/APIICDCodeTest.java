@@ -30,6 +30,7 @@ import org.springframework.web.context.WebApplicationContext;
 import edu.ncsu.csc.iTrust2.common.TestUtils;
 import edu.ncsu.csc.iTrust2.forms.ICDCodeForm;
 import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.ICDCode;
 import edu.ncsu.csc.iTrust2.models.Personnel;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
@@ -168,4 +169,32 @@ public class APIICDCodeTest {
         assertThat( getContent, containsString( "B13" ) );
         assertThat( getContent, not( containsString( "B12" ) ) );
     }
+
+    /**
+     * Checks that an HCP who isn't an ophthalmologist only sees the general
+     * codes when searching, sorting or paging, as when listing every code
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "hcp", roles = { "HCP" } )
+    public void testPagedCodesWithHCP () throws Exception {
+        final ICDCodeForm general = new ICDCodeForm();
+        general.setCode( "B12" );
+        general.setDescription( "General Code" );
+        general.setIsOphthalmology( false );
+        service.save( new ICDCode( general ) );
+
+        final ICDCodeForm oph = new ICDCodeForm();
+        oph.setCode( "H40" );
+        oph.setDescription( "Ophthalmology Code" );
+        oph.setIsOphthalmology( true );
+        service.save( new ICDCode( oph ) );
+
+        for ( final String query : new String[] { "?page=0", "?sort=code", "?search=code" } ) {
+            final String content = mvc.perform( get( "/api/v1/icdcodes" + query ) ).andExpect( status().isOk() )
+                    .andReturn().getResponse().getContentAsString();
+            assertThat( query, content, containsString( "B12" ) );
+            assertThat( query, content, not( containsString( "H40" ) ) );
+        }
+    }
 }
@@ -30,9 +30,16 @@ import com.google.gson.reflect.TypeToken;
 import edu.ncsu.csc.iTrust2.common.TestUtils;
 import edu.ncsu.csc.iTrust2.controllers.api.comm.LogEntryRequestBody;
 import edu.ncsu.csc.iTrust2.controllers.api.comm.LogEntryTableRow;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.models.security.LogEntry;
+import edu.ncsu.csc.iTrust2.services.UserService;
 import edu.ncsu.csc.iTrust2.services.security.LogEntryService;
+import edu.ncsu.csc.iTrust2.utils.LogEntryWriter;
 
 /**
  * Class for testing logs API.
@@ -52,12 +59,20 @@ public class APILogEntryTest {
     @Autowired
     private LogEntryService       service;
 
+    @Autowired
+    private LogEntryWriter        writer;
+
+    @Autowired
+    private UserService<User>     userService;
+
     /**
      * Sets up test
      */
     @Before
     public void setup () {
         mvc = MockMvcBuilders.webAppContextSetup( context ).build();
+        // Make sure entries logged by earlier tests don't land after the reset
+        writer.flush();
         service.deleteAll();
     }
 
@@ -104,4 +119,110 @@ public class APILogEntryTest {
 
     }
 
+    /**
+     * Tests paging through the log, both by page number and by cursor.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "admin", roles = { "USER", "ADMIN" } )
+    public void testLogPaging () throws Exception {
+        final ZonedDateTime base = ZonedDateTime.parse( "2021-03-01T12:00:00Z" );
+        for ( int i = 0; i < 25; i++ ) {
+            final LogEntry logEntry = new LogEntry();
+            logEntry.setLogCode( TransactionType.LOGIN_SUCCESS );
+            logEntry.setPrimaryUser( "admin" );
+            logEntry.setMessage( "Entry " + i );
+            logEntry.setTime( base.plusMinutes( i ) );
+            service.save( logEntry );
+        }
+        // Someone else's entry should never show up
+        service.save( new LogEntry( TransactionType.LOGIN_SUCCESS, "someoneElse", null, null ) );
+
+        final LogEntryRequestBody body = new LogEntryRequestBody();
+        body.setStartDate( "2021-03-01" );
+        body.setEndDate( "2021-03-01" );
+        body.setPageLength( 10 );
+        body.setPage( 3 );
+
+        final List<LogEntryTableRow> byNumber = fetch( body );
+        assertEquals( "The last page should hold the remaining entries", 5, byNumber.size() );
+        assertEquals( 3, byNumber.get( 0 ).getNumPages() );
+        assertEquals( base.plusMinutes( 4 ).toOffsetDateTime(),
+                ZonedDateTime.parse( byNumber.get( 0 ).getDateTime() ).toOffsetDateTime() );
+
+        // Walk through every page using cursors instead
+        body.setPage( 1 );
+        final List<String> seen = new ArrayList<String>();
+        List<LogEntryTableRow> page = fetch( body );
+        while ( !page.isEmpty() ) {
+            page.forEach( row -> seen.add( row.getDateTime() ) );
+            body.setCursor( page.get( page.size() - 1 ).getCursor() );
+            page = fetch( body );
+        }
+        assertEquals( "Cursors should visit every entry exactly once", 25, seen.size() );
+        assertEquals( "Entries should be newest first", base.plusMinutes( 24 ).toOffsetDateTime(),
+                ZonedDateTime.parse( seen.get( 0 ) ).toOffsetDateTime() );
+        assertEquals( base.toOffsetDateTime(), ZonedDateTime.parse( seen.get( 24 ) ).toOffsetDateTime() );
+
+        body.setCursor( "not a cursor" );
+        mvc.perform( post( "/api/v1/logentries/range" ).contentType( MediaType.APPLICATION_JSON )
+                .content( TestUtils.asJsonString( body ) ) ).andExpect( status().isBadRequest() );
+    }
+
+    /**
+     * Tests that a patient sees the roles of the other users in their log, and
+     * only the entries they are allowed to see.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "logPatient", roles = { "PATIENT" } )
+    public void testPatientLogRoles () throws Exception {
+        userService.saveAll( List.of( new Patient( new UserForm( "logPatient", "123456", Role.ROLE_PATIENT, 1 ) ),
+                new Personnel( new UserForm( "logHcp", "123456", Role.ROLE_HCP, 1 ) ),
+                new Personnel( new UserForm( "logEr", "123456", Role.ROLE_ER, 1 ) ) ) );
+
+        service.save( new LogEntry( TransactionType.OFFICE_VISIT_CREATED, "logHcp", "logPatient", null ) );
+        service.save( new LogEntry( TransactionType.OFFICE_VISIT_CREATED, "logHcp", "logPatient", null ) );
+        service.save( new LogEntry( TransactionType.APPOINTMENT_REQUEST_SUBMITTED, "logPatient", "logEr", null ) );
+        // Not patient-viewable, so should not be shown
+        service.save( new LogEntry( TransactionType.VIEW_USERS, "logPatient", null, null ) );
+
+        final LogEntryRequestBody body = new LogEntryRequestBody();
+        body.setStartDate( "" );
+        body.setEndDate( "" );
+        body.setPageLength( 10 );
+        body.setPage( 2 );
+
+        final List<LogEntryTableRow> rows = fetch( body );
+        assertEquals( 0, rows.size() );
+
+        body.setPage( 1 );
+        final List<LogEntryTableRow> firstPage = fetch( body );
+        assertEquals( 3, firstPage.size() );
+        for ( final LogEntryTableRow row : firstPage ) {
+            assertEquals( "logHcp".equals( row.getPrimary() ) ? "[ROLE_HCP]" : "[ROLE_ER]", row.getRole() );
+        }
+    }
+
+    /**
+     * Requests one page of the log
+     *
+     * @param body
+     *            Request to send
+     * @return Rows returned
+     * @throws Exception
+     */
+    private List<LogEntryTableRow> fetch ( final LogEntryRequestBody body ) throws Exception {
+        final String content = mvc
+                .perform( post( "/api/v1/logentries/range" ).contentType( MediaType.APPLICATION_JSON )
+                        .content( TestUtils.asJsonString( body ) ) )
+                .andExpect( status().isOk() ).andReturn().getResponse().getContentAsString();
+        return TestUtils.gson().fromJson( content, new TypeToken<ArrayList<LogEntryTableRow>>() {
+        }.getType() );
+    }
+
 }
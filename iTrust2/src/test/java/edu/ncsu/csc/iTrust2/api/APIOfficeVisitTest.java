@@ -8,6 +8,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDate;
@@ -28,10 +29,14 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import edu.ncsu.csc.iTrust2.common.TestUtils;
+import edu.ncsu.csc.iTrust2.config.SqlStatementInterceptor;
 import edu.ncsu.csc.iTrust2.forms.AppointmentRequestForm;
 import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
 import edu.ncsu.csc.iTrust2.forms.OfficeVisitForm;
@@ -70,6 +75,9 @@ import edu.ncsu.csc.iTrust2.services.UserService;
 @AutoConfigureMockMvc
 public class APIOfficeVisitTest {
 
+    /** Office visits saved by the tests that count SQL statements */
+    private static final int          STATEMENT_VISITS = 20;
+
     private MockMvc                   mvc;
 
     @Autowired
@@ -522,4 +530,120 @@ public class APIOfficeVisitTest {
 
     }
 
+    /**
+     * Checks the number of SQL statements it takes to list an HCP's office
+     * visits and to get one of them. The visits are read outside of any test
+     * transaction, so that every record the endpoint needs is read by the
+     * request itself; the count doesn't grow with the number of visits.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "hcp", roles = { "HCP" } )
+    public void testHCPOfficeVisitStatements () throws Exception {
+        try {
+            buildOfficeVisits( STATEMENT_VISITS );
+
+            countStatements( get( "/api/v1/officevisits/HCP" ), 8 )
+                    .andExpect( jsonPath( "$.length()" ).value( STATEMENT_VISITS ) );
+            countStatements( get( "/api/v1/officevisits/HCP" ).param( "page", "1" ).param( "size", "4" ), 9 )
+                    .andExpect( jsonPath( "$.length()" ).value( 4 ) );
+
+            final Long id = officeVisitService.findAll().get( 0 ).getId();
+            countStatements( get( "/api/v1/officevisits/" + id ), 7 ).andExpect( jsonPath( "$.id" ).value( id ) );
+        }
+        finally {
+            officeVisitService.deleteAll();
+            cptService.deleteAll();
+        }
+    }
+
+    /**
+     * Checks the number of SQL statements it takes a patient to list their
+     * office visits
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "patient", roles = { "PATIENT" } )
+    public void testMyOfficeVisitStatements () throws Exception {
+        try {
+            buildOfficeVisits( STATEMENT_VISITS );
+
+            countStatements( get( "/api/v1/officevisits/myofficevisits" ), 7 )
+                    .andExpect( jsonPath( "$.length()" ).value( STATEMENT_VISITS / 2 ) );
+        }
+        finally {
+            officeVisitService.deleteAll();
+            cptService.deleteAll();
+        }
+    }
+
+    /**
+     * Saves office visits by the HCP, half of them for each patient, each with
+     * basic health metrics, a bill, and two CPT codes
+     *
+     * @param count
+     *            Number of visits to save
+     */
+    private void buildOfficeVisits ( final int count ) {
+        for ( int code = 99205; code <= 99206; code++ ) {
+            final CPTCode c = new CPTCode();
+            c.setCode( code );
+            c.setCost( 7500 );
+            c.setDescription( "Office visit " + code );
+            c.setIsArchived( false );
+            c.setTimeRangeMax( 30 );
+            c.setTimeRangeMin( 20 );
+            c.setVersion( 1 );
+            cptService.save( c );
+        }
+        final List<CPTCodeForm> codes = cptService.findAll().stream().map( CPTCodeForm::new )
+                .collect( Collectors.toList() );
+
+        final List<OfficeVisit> visits = new ArrayList<OfficeVisit>();
+        for ( int i = 0; i < count; i++ ) {
+            final OfficeVisitForm form = new OfficeVisitForm();
+            form.setDate( "2030-11-" + ( 10 + i ) + "T09:50:00.000-05:00" );
+            form.setHcp( "hcp" );
+            form.setPatient( i % 2 == 0 ? "patient" : "antti" );
+            form.setNotes( "Visit " + i );
+            form.setType( AppointmentType.GENERAL_CHECKUP.toString() );
+            form.setHospital( "iTrust Test Hospital 2" );
+            form.setHdl( 1 );
+            form.setHeight( 1f );
+            form.setWeight( 1f );
+            form.setLdl( 1 );
+            form.setTri( 100 );
+            form.setDiastolic( 1 );
+            form.setSystolic( 1 );
+            form.setHouseSmokingStatus( HouseholdSmokingStatus.NONSMOKING );
+            form.setPatientSmokingStatus( PatientSmokingStatus.FORMER );
+            form.setCptCodes( codes );
+            visits.add( officeVisitService.build( form ) );
+        }
+        officeVisitService.saveAll( visits );
+    }
+
+    /**
+     * Performs a request, and checks it sent no more than a number of SQL
+     * statements
+     *
+     * @param request
+     *            The request
+     * @param most
+     *            Most statements it may send
+     * @return The response, to check further
+     * @throws Exception
+     */
+    private ResultActions countStatements ( final MockHttpServletRequestBuilder request, final long most )
+            throws Exception {
+        final ResultActions actions = mvc.perform( request ).andExpect( status().isOk() );
+        final MvcResult result = actions.andReturn();
+        final long statements = (Long) result.getRequest().getAttribute( SqlStatementInterceptor.STATEMENTS_ATTRIBUTE );
+        Assert.assertTrue( "Expected at most " + most + " statements but the request sent " + statements,
+                statements <= most );
+        return actions;
+    }
+
 }
@@ -20,10 +20,12 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import edu.ncsu.csc.iTrust2.common.TestUtils;
+import edu.ncsu.csc.iTrust2.config.SqlStatementInterceptor;
 import edu.ncsu.csc.iTrust2.forms.OfficeVisitForm;
 import edu.ncsu.csc.iTrust2.forms.SatisfactionSurveyForm;
 import edu.ncsu.csc.iTrust2.forms.UserForm;
@@ -31,6 +33,7 @@ import edu.ncsu.csc.iTrust2.models.Hospital;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.Patient;
 import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
 import edu.ncsu.csc.iTrust2.models.enums.HouseholdSmokingStatus;
@@ -43,6 +46,7 @@ import edu.ncsu.csc.iTrust2.services.HospitalService;
 import edu.ncsu.csc.iTrust2.services.OfficeVisitService;
 import edu.ncsu.csc.iTrust2.services.SatisfactionSurveyService;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
 
 /**
  * Test for the API functionality for interacting with office visits
@@ -75,6 +79,9 @@ public class APISatisfactionSurveyTest {
     @Autowired
     private SatisfactionSurveyService surveyService;
 
+    @Autowired
+    private SqlStatementCounter       counter;
+
     /**
      * Sets up test
      */
@@ -198,4 +205,66 @@ public class APISatisfactionSurveyTest {
 
         Assert.assertEquals( 1, surveyService.count() );
     }
+
+    /**
+     * Tests that submitting a survey writes the survey and the visit in one
+     * transaction, making fewer statements than saving and flushing each of
+     * them on its own
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "patient", roles = { "PATIENT" } )
+    public void testSubmitSurveyStatements () throws Exception {
+        buildOfficeVisit();
+        buildOfficeVisit();
+        final List<OfficeVisit> visits = officeVisitService.findAll();
+        Assert.assertEquals( 2, visits.size() );
+
+        try {
+            // Each write flushed straight away, in its own transaction
+            final SatisfactionSurveyForm first = surveyForm( visits.get( 0 ).getId() );
+            counter.start();
+            final SatisfactionSurvey survey = surveyService.build( first );
+            surveyService.saveAndFlush( survey );
+            final OfficeVisit visit = officeVisitService.findById( first.getOfficeVisitId() );
+            visit.setSatisfactionSurvey( survey );
+            officeVisitService.saveAndFlush( visit );
+            final long flushed = counter.stop();
+
+            final MvcResult result = mvc
+                    .perform( post( "/api/v1/surveys" ).contentType( MediaType.APPLICATION_JSON )
+                            .content( TestUtils.asJsonString( surveyForm( visits.get( 1 ).getId() ) ) ) )
+                    .andExpect( status().isOk() ).andReturn();
+            final long deferred = (Long) result.getRequest()
+                    .getAttribute( SqlStatementInterceptor.STATEMENTS_ATTRIBUTE );
+
+            Assert.assertEquals( 2, surveyService.count() );
+            Assert.assertNotNull( officeVisitService.findById( visits.get( 1 ).getId() ).getSatisfactionSurvey() );
+            Assert.assertTrue( "Submitting a survey took " + deferred + " statements, but saving each part took "
+                    + flushed, deferred < flushed );
+        }
+        finally {
+            officeVisitService.deleteAll();
+            surveyService.deleteAll();
+        }
+    }
+
+    /**
+     * Creates a survey form for a visit
+     *
+     * @param visitId
+     *            ID of the visit
+     * @return The form
+     */
+    private SatisfactionSurveyForm surveyForm ( final Long visitId ) {
+        final SatisfactionSurveyForm sform = new SatisfactionSurveyForm();
+        sform.setOfficeVisitId( visitId );
+        sform.setWaitingRoomTime( WaitTime.LESS_THAN_FIVE );
+        sform.setExaminationResponseTime( WaitTime.FIFTEEN_TO_TWENTY );
+        sform.setTreatmentSatisfaction( 4 );
+        sform.setVisitSatisfaction( 5 );
+        sform.setComments( "Quick and friendly." );
+        return sform;
+    }
 }
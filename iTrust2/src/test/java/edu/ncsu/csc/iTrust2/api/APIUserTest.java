@@ -1,5 +1,9 @@
 package edu.ncsu.csc.iTrust2.api;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import javax.transaction.Transactional;
 
 import org.junit.Assert;
@@ -12,6 +16,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -19,12 +24,16 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import edu.ncsu.csc.iTrust2.common.TestUtils;
 import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Patient;
 import edu.ncsu.csc.iTrust2.models.Personnel;
 import edu.ncsu.csc.iTrust2.models.User;
 import edu.ncsu.csc.iTrust2.models.enums.Role;
 import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.NdjsonExporter;
 
 /**
  * Test for API functionality for interacting with Users.
@@ -209,6 +218,52 @@ public class APIUserTest {
 
     }
 
+    /**
+     * Exports every user as NDJSON
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "admin", roles = { "ADMIN" } )
+    public void testExportUsers () throws Exception {
+        service.saveAll( List.of( new Personnel( new UserForm( USER_1, PW, Role.ROLE_HCP, 1 ) ),
+                new Personnel( new UserForm( USER_2, PW, Role.ROLE_ADMIN, 1 ) ),
+                new Patient( new UserForm( USER_3, PW, Role.ROLE_PATIENT, 1 ) ) ) );
+
+        final MockHttpServletResponse response = mvc
+                .perform( MockMvcRequestBuilders.get( "/api/v1/users/export" ) )
+                .andExpect( MockMvcResultMatchers.status().isOk() ).andReturn().getResponse();
+
+        Assert.assertTrue( response.getContentType().startsWith( NdjsonExporter.NDJSON ) );
+        final String[] lines = response.getContentAsString().split( "\n" );
+        Assert.assertEquals( "There should be one line per user", 3, lines.length );
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final Set<String> usernames = new HashSet<String>();
+        for ( final String line : lines ) {
+            usernames.add( mapper.readTree( line ).get( "username" ).asText() );
+        }
+        Assert.assertEquals( Set.of( USER_1, USER_2, USER_3 ), usernames );
+        service.deleteAll();
+    }
+
+    /**
+     * Checks that a patient can't export users, patients or emails
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser ( username = "patient", roles = { "PATIENT" } )
+    public void testExportForbiddenToPatient () throws Exception {
+        final MockMvc secured = MockMvcBuilders.webAppContextSetup( context )
+                .apply( SecurityMockMvcConfigurers.springSecurity() ).build();
+        for ( final String export : List.of( "/api/v1/users/export", "/api/v1/patients/export",
+                "/api/v1/emails/export" ) ) {
+            secured.perform( MockMvcRequestBuilders.get( export ) )
+                    .andExpect( MockMvcResultMatchers.status().isForbidden() );
+        }
+    }
+
     /**
      * Tests the roles
      *
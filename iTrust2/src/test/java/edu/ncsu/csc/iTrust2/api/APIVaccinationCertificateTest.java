@@ -132,11 +132,14 @@ public class APIVaccinationCertificateTest {
 
         final String content = content1.andReturn().getResponse().getContentAsString();
         final Certificate certElement = TestUtils.gson().fromJson( content, Certificate.class );
-        assertEquals( "2021-11-19T04:50-05:00", certElement.getCelist().get( 0 ).getDateTime() );
+        assertEquals( ZonedDateTime.parse( "2021-11-19T04:50-05:00" ).toInstant(),
+                ZonedDateTime.parse( certElement.getCelist().get( 0 ).getDateTime() ).toInstant() );
         // Null because Patient doesn't officially have first and last name
         assertEquals( "1", certElement.getCelist().get( 0 ).getNumDoses() );
         assertEquals( "vaccinator", certElement.getCelist().get( 0 ).getVaccinator() );
         assertEquals( "Moderna", certElement.getCelist().get( 0 ).getVaccineType() );
+        assertEquals( 2, (int) certElement.getCelist().get( 0 ).getDose() );
+        assertEquals( 2, certElement.getCelist().get( 0 ).getDosesRequired() );
         assertEquals( 1, certElement.getCelist().size() );
 
     }
@@ -187,13 +190,15 @@ public class APIVaccinationCertificateTest {
 
         final String content = content1.andReturn().getResponse().getContentAsString();
         final Certificate certElement = TestUtils.gson().fromJson( content, Certificate.class );
-        assertEquals( "2021-11-19T04:50-05:00", certElement.getCelist().get( 0 ).getDateTime() );
+        assertEquals( ZonedDateTime.parse( "2021-11-19T04:50-05:00" ).toInstant(),
+                ZonedDateTime.parse( certElement.getCelist().get( 0 ).getDateTime() ).toInstant() );
 
         assertEquals( "1", certElement.getCelist().get( 0 ).getNumDoses() );
         assertEquals( "vaccinator", certElement.getCelist().get( 0 ).getVaccinator() );
         assertEquals( "Moderna", certElement.getCelist().get( 0 ).getVaccineType() );
         assertEquals( 2, certElement.getCelist().size() );
-        assertEquals( "2021-12-19T04:50-05:00", certElement.getCelist().get( 1 ).getDateTime() );
+        assertEquals( ZonedDateTime.parse( "2021-12-19T04:50-05:00" ).toInstant(),
+                ZonedDateTime.parse( certElement.getCelist().get( 1 ).getDateTime() ).toInstant() );
 
         assertEquals( "2", certElement.getCelist().get( 1 ).getNumDoses() );
         assertEquals( "vaccinator", certElement.getCelist().get( 1 ).getVaccinator() );
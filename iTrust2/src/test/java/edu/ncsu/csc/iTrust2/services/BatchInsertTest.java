@@ -0,0 +1,83 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.models.ICDCode;
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
+
+/**
+ * Checks that bulk saves are sent to the database in batches, and reports how
+ * many rows per second `saveAll` manages.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class BatchInsertTest {
+
+    /** Number of rows saved */
+    private static final int    ROWS = 2000;
+
+    /** For reporting throughput */
+    private static final Logger LOG  = LoggerFactory.getLogger( BatchInsertTest.class );
+
+    @Autowired
+    private ICDCodeService      service;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Before
+    public void setup () {
+        service.deleteAll();
+    }
+
+    /**
+     * Saves a few thousand codes with `saveAll` and checks that it took far
+     * fewer statements than rows
+     */
+    @Test
+    public void testSaveAllIsBatched () {
+        final List<ICDCode> codes = new ArrayList<ICDCode>( ROWS );
+        for ( int i = 0; i < ROWS; i++ ) {
+            final ICDCode code = new ICDCode();
+            code.setCode( "Z" + i );
+            code.setDescription( "Bulk insert test code " + i );
+            codes.add( code );
+        }
+
+        try {
+            counter.start();
+            final long start = System.nanoTime();
+            service.saveAll( codes );
+            final long elapsed = System.nanoTime() - start;
+            final long statements = counter.stop();
+
+            LOG.info( "saveAll of {} rows: {} statements, {} rows/s", ROWS, statements,
+                    ROWS * 1_000_000_000L / Math.max( 1, elapsed ) );
+
+            Assert.assertEquals( ROWS, service.count() );
+            Assert.assertTrue( "Inserts should be batched and IDs allocated in blocks, but " + ROWS
+                    + " rows took " + statements + " statements", statements < ROWS / 10 );
+        }
+        finally {
+            service.deleteAll();
+        }
+    }
+
+}
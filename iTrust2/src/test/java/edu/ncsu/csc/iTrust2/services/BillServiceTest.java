@@ -14,6 +14,9 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +31,7 @@ import edu.ncsu.csc.iTrust2.models.Hospital;
 import edu.ncsu.csc.iTrust2.models.ICDCode;
 import edu.ncsu.csc.iTrust2.models.OfficeVisit;
 import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Payment;
 import edu.ncsu.csc.iTrust2.models.Personnel;
 import edu.ncsu.csc.iTrust2.models.Prescription;
 import edu.ncsu.csc.iTrust2.models.User;
@@ -225,4 +229,98 @@ public class BillServiceTest {
         Assert.assertEquals( bill.getVisit(), form.getVisit() );
         Assert.assertEquals( bill.getIsPaid(), form.getIsPaid() );
     }
+
+    /**
+     * Tests that payments added through the service are saved along with the
+     * bill's amount paid and balance, and that saving a stale copy of a bill
+     * after someone else has paid it fails
+     */
+    @Test
+    @Transactional
+    public void testAddPayment () {
+        final Bill bill = new Bill( visit );
+        bill.setTotalDue( 500L );
+        service.save( bill );
+        final Long id = service.findByVisit( visit ).getId();
+        final long version = service.findById( id ).getVersion();
+
+        final Payment payment = new Payment();
+        payment.setAmount( 200L );
+        payment.setDate( ZonedDateTime.now() );
+        payment.setPaymentMethod( "Cash" );
+        service.addPayment( id, payment );
+
+        final Bill saved = service.findById( id );
+        Assert.assertEquals( 200L, (long) saved.getAmountPaid() );
+        Assert.assertEquals( 300L, (long) saved.getBalance() );
+        Assert.assertEquals( "Unpaid", saved.getStatus() );
+        Assert.assertEquals( visit.getDate().plusDays( 61 ).toInstant(), saved.getDelinquentOn().toInstant() );
+
+        // Paying more than the remaining balance is refused
+        final Payment overpay = new Payment();
+        overpay.setAmount( 400L );
+        overpay.setDate( ZonedDateTime.now() );
+        overpay.setPaymentMethod( "Cash" );
+        try {
+            service.addPayment( id, overpay );
+            Assert.fail( "Overpaying a bill should fail" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            // expected
+        }
+
+        // A copy read before the first payment can't be used to pay again
+        final Bill stale = new Bill( visit );
+        stale.setId( id );
+        stale.setVersion( version );
+        stale.setTotalDue( 500L );
+        stale.addPayment( overpay );
+        try {
+            service.save( stale );
+            Assert.fail( "Saving a stale bill should fail" );
+        }
+        catch ( final ObjectOptimisticLockingFailureException e ) {
+            // expected
+        }
+        Assert.assertEquals( 300L, (long) service.findById( id ).getBalance() );
+    }
+
+    /**
+     * Tests finding a patient's bills, by status and by ID
+     */
+    @Test
+    @Transactional
+    public void testFindByPatient () {
+        final User alice = userService.findByName( "AliceThirteen" );
+        final User hcp = userService.findByName( "hcp" );
+        final Bill bill = new Bill( visit );
+        bill.setTotalDue( 500L );
+        service.save( bill );
+        final Long id = service.findByVisit( visit ).getId();
+
+        Assert.assertEquals( 1, service.findByPatient( alice, null, Sort.unsorted() ).size() );
+        Assert.assertEquals( 1, service.findByPatient( alice, "unpaid", PageRequest.of( 0, 10 ) ).getTotalElements() );
+        Assert.assertEquals( 0, service.findByPatient( alice, "Paid", Sort.unsorted() ).size() );
+        Assert.assertEquals( 0, service.findByPatient( alice, "Delinquent", Sort.unsorted() ).size() );
+        Assert.assertEquals( 0, service.findByPatient( alice, null, PageRequest.of( 1, 10 ) ).getNumberOfElements() );
+        Assert.assertEquals( 0, service.findByPatient( hcp, null, Sort.unsorted() ).size() );
+        try {
+            service.findByPatient( alice, "Overdue", Sort.unsorted() );
+            Assert.fail( "Unknown statuses should be rejected" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            // expected
+        }
+
+        Assert.assertEquals( id, service.findByIdAndPatient( id, alice ).getId() );
+        Assert.assertNull( service.findByIdAndPatient( id, hcp ) );
+
+        final Payment payment = new Payment();
+        payment.setAmount( 500L );
+        payment.setDate( ZonedDateTime.now() );
+        payment.setPaymentMethod( "Cash" );
+        service.addPayment( id, payment );
+        Assert.assertEquals( 1, service.findByPatient( alice, "PAID", Sort.unsorted() ).size() );
+        Assert.assertEquals( 0, service.findByPatient( alice, "Unpaid", Sort.unsorted() ).size() );
+    }
 }
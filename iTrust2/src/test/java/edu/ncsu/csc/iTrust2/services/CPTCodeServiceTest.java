@@ -2,7 +2,9 @@ package edu.ncsu.csc.iTrust2.services;
 
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import edu.ncsu.csc.iTrust2.TestConfig;
 import edu.ncsu.csc.iTrust2.models.CPTCode;
+import edu.ncsu.csc.iTrust2.repositories.CPTCodeRepository;
 
 /**
  * Provides tests for the CPT Code Service and Repository
@@ -29,12 +32,16 @@ import edu.ncsu.csc.iTrust2.models.CPTCode;
 public class CPTCodeServiceTest {
     /** Service holding CPT codes */
     @Autowired
-    private CPTCodeService service;
+    private CPTCodeService    service;
+
+    /** Repository, for saving codes without a current version */
+    @Autowired
+    private CPTCodeRepository repository;
 
     /** List of CPT codes that are not archived */
-    private List<CPTCode>  active;
+    private List<CPTCode>     active;
     /** List of CPT codes that are archived */
-    private List<CPTCode>  inactive;
+    private List<CPTCode>     inactive;
 
     @Before
     public void setUp () throws Exception {
@@ -217,4 +224,95 @@ public class CPTCodeServiceTest {
         assertNull( code3 );
     }
 
+    /**
+     * Tests that replacing a code keeps its history and moves the current
+     * version marker to the new version
+     */
+    @Test
+    @Transactional
+    public void testCurrentVersion () {
+        final CPTCode first = new CPTCode();
+        first.setCode( 99202 );
+        first.setDescription( "for office visits of 15-29 minutes" );
+        first.setCost( 7500 );
+        first.setVersion( 1 );
+        first.setTimeRangeMin( 15 );
+        first.setTimeRangeMax( 29 );
+        service.save( first );
+
+        final CPTCode other = new CPTCode();
+        other.setCode( 99300 );
+        other.setDescription( "for vacciations of 10-15 minutes" );
+        other.setCost( 5000 );
+        other.setVersion( 1 );
+        service.save( other );
+        Assert.assertTrue( first.isCurrent() );
+
+        final CPTCode second = new CPTCode();
+        second.setCode( 99202 );
+        second.setDescription( "for office visits of 15-30 minutes" );
+        second.setCost( 8000 );
+        second.setTimeRangeMin( 15 );
+        second.setTimeRangeMax( 30 );
+        service.replace( service.findById( first.getId() ), second );
+
+        final CPTCode current = service.findByCode( 99202 );
+        Assert.assertEquals( 2, current.getVersion() );
+        Assert.assertEquals( 8000, current.getCost() );
+        Assert.assertTrue( current.isCurrent() );
+
+        final List<CPTCode> history = service.findHistory( 99202 );
+        Assert.assertEquals( 2, history.size() );
+        Assert.assertEquals( 2, history.get( 0 ).getVersion() );
+        Assert.assertFalse( history.get( 1 ).isCurrent() );
+        Assert.assertTrue( history.get( 1 ).getIsArchived() );
+
+        // Saving an older version again must not take the marker back
+        service.save( history.get( 1 ) );
+        Assert.assertEquals( 2, service.findByCode( 99202 ).getVersion() );
+
+        final Map<Long, CPTCode> found = service.findCurrentByCodes( Arrays.asList( 99202L, 99300L, 2326L ) );
+        Assert.assertEquals( 2, found.size() );
+        Assert.assertEquals( 2, found.get( 99202L ).getVersion() );
+        Assert.assertEquals( 5000, found.get( 99300L ).getCost() );
+    }
+
+    /**
+     * Tests that codes saved before the current version marker existed get
+     * their latest version marked
+     */
+    @Test
+    @Transactional
+    public void testMarkCurrentVersions () {
+        for ( int version = 1; version <= 3; version++ ) {
+            final CPTCode code = new CPTCode();
+            code.setCode( 99202 );
+            code.setDescription( "for office visits, version " + version );
+            code.setCost( 7500 + version );
+            code.setVersion( version );
+            code.setIsArchived( version < 3 );
+            repository.save( code );
+        }
+        final CPTCode other = new CPTCode();
+        other.setCode( 99300 );
+        other.setDescription( "for vacciations of 10-15 minutes" );
+        other.setCost( 5000 );
+        other.setVersion( 1 );
+        repository.save( other );
+        Assert.assertNull( "Codes without a marker can't be found", service.findByCode( 99202 ) );
+
+        service.markCurrentVersions();
+
+        Assert.assertEquals( 3, service.findByCode( 99202 ).getVersion() );
+        Assert.assertEquals( 5000, service.findByCode( 99300 ).getCost() );
+        final List<CPTCode> history = service.findHistory( 99202 );
+        Assert.assertTrue( history.get( 0 ).isCurrent() );
+        Assert.assertFalse( history.get( 1 ).isCurrent() );
+        Assert.assertFalse( history.get( 2 ).isCurrent() );
+
+        // Nothing is left to mark the second time
+        service.markCurrentVersions();
+        Assert.assertEquals( 3, service.findByCode( 99202 ).getVersion() );
+    }
+
 }
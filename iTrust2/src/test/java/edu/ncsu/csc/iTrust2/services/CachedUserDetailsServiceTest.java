@@ -0,0 +1,161 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.services.UserRoleService;
+import edu.ncsu.csc.iTrust2.services.security.CachedUserDetailsService;
+
+/**
+ * Tests loading users for authentication
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class CachedUserDetailsServiceTest {
+
+    @Autowired
+    private CachedUserDetailsService   detailsService;
+
+    @Autowired
+    private PersonnelService           personnelService;
+
+    @Autowired
+    private PasswordEncoder            passwordEncoder;
+
+    @Autowired
+    private UserRoleService            userRoleService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testLoadAndInvalidate () {
+        final Personnel hcp = new Personnel( new UserForm( "detailsHcp", "123456", Role.ROLE_HCP, 1 ) );
+        hcp.addRole( Role.ROLE_OD );
+        personnelService.save( hcp );
+
+        final UserDetails details = detailsService.loadUserByUsername( "detailsHcp" );
+        Assert.assertEquals( "detailsHcp", details.getUsername() );
+        Assert.assertEquals( hcp.getPassword(), details.getPassword() );
+        Assert.assertTrue( details.isEnabled() );
+        Assert.assertEquals( "[ROLE_HCP, ROLE_OD]", details.getAuthorities().stream()
+                .map( GrantedAuthority::getAuthority ).sorted().collect( Collectors.toList() ).toString() );
+
+        // Spring Security does this after a successful login; it must not
+        // affect the next one
+        ( (User) details ).eraseCredentials();
+        Assert.assertEquals( hcp.getPassword(), detailsService.loadUserByUsername( "detailsHcp" ).getPassword() );
+
+        // Changes made through the service are seen straight away
+        hcp.setEnabled( 0 );
+        personnelService.save( hcp );
+        Assert.assertFalse( detailsService.loadUserByUsername( "detailsHcp" ).isEnabled() );
+
+        personnelService.delete( hcp );
+        try {
+            detailsService.loadUserByUsername( "detailsHcp" );
+            Assert.fail( "A deleted user should not be found" );
+        }
+        catch ( final UsernameNotFoundException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRehashOnLogin () {
+        final Personnel hcp = new Personnel( new UserForm( "rehashHcp", "123456", Role.ROLE_HCP, 1 ) );
+        hcp.setPassword( new BCryptPasswordEncoder( 4 ).encode( "123456" ) );
+        personnelService.save( hcp );
+
+        final UserDetails before = detailsService.loadUserByUsername( "rehashHcp" );
+        Assert.assertTrue( "A hash with a different cost should be upgraded",
+                passwordEncoder.upgradeEncoding( before.getPassword() ) );
+
+        // What Spring Security does after a successful login with such a hash
+        final String rehashed = passwordEncoder.encode( "123456" );
+        detailsService.updatePassword( before, rehashed );
+
+        Assert.assertEquals( rehashed, personnelService.findByName( "rehashHcp" ).getPassword() );
+        final UserDetails after = detailsService.loadUserByUsername( "rehashHcp" );
+        Assert.assertEquals( "The new hash should replace the cached one", rehashed, after.getPassword() );
+        Assert.assertFalse( passwordEncoder.upgradeEncoding( after.getPassword() ) );
+        Assert.assertTrue( passwordEncoder.matches( "123456", after.getPassword() ) );
+
+        personnelService.delete( hcp );
+    }
+
+    @Test
+    public void testNewUserPassword () {
+        final Personnel hcp = new Personnel( new UserForm( "hashedHcp", "123456", Role.ROLE_HCP, 1 ) );
+        Assert.assertNull( "The password should be hashed when the user is saved", hcp.getPassword() );
+        personnelService.save( hcp );
+
+        final String hash = personnelService.findByName( "hashedHcp" ).getPassword();
+        Assert.assertTrue( passwordEncoder.matches( "123456", hash ) );
+        Assert.assertFalse( "New users should be hashed with the configured cost",
+                passwordEncoder.upgradeEncoding( hash ) );
+
+        // Saving the user again must not hash the password again
+        personnelService.save( hcp );
+        Assert.assertEquals( hash, personnelService.findByName( "hashedHcp" ).getPassword() );
+
+        personnelService.delete( hcp );
+    }
+
+    @Test
+    public void testEvictAfterCommit () {
+        final Personnel hcp = new Personnel( new UserForm( "revokedHcp", "123456", Role.ROLE_HCP, 1 ) );
+        hcp.addRole( Role.ROLE_OD );
+        personnelService.save( hcp );
+
+        new TransactionTemplate( transactionManager ).execute( status -> {
+            final Personnel stored = (Personnel) personnelService.findByName( "revokedHcp" );
+            stored.setRoles( EnumSet.of( Role.ROLE_HCP ) );
+            stored.setEnabled( 0 );
+            personnelService.save( stored );
+
+            // Another request reads the user before the change is committed,
+            // and caches what is still in the database
+            CompletableFuture.runAsync( () -> {
+                Assert.assertTrue( detailsService.loadUserByUsername( "revokedHcp" ).isEnabled() );
+                Assert.assertEquals( Set.of( Role.ROLE_HCP, Role.ROLE_OD ),
+                        userRoleService.findRolesByNames( Set.of( "revokedHcp" ) ).get( "revokedHcp" ) );
+            } ).join();
+            return null;
+        } );
+
+        Assert.assertFalse( "The change should be seen once it is committed",
+                detailsService.loadUserByUsername( "revokedHcp" ).isEnabled() );
+        Assert.assertEquals( Set.of( Role.ROLE_HCP ),
+                userRoleService.findRolesByNames( Set.of( "revokedHcp" ) ).get( "revokedHcp" ) );
+
+        personnelService.delete( (Personnel) personnelService.findByName( "revokedHcp" ) );
+    }
+
+}
@@ -0,0 +1,212 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.DiagnosisForm;
+import edu.ncsu.csc.iTrust2.forms.DiagnosisListForm;
+import edu.ncsu.csc.iTrust2.forms.OfficeVisitForm;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Hospital;
+import edu.ncsu.csc.iTrust2.models.ICDCode;
+import edu.ncsu.csc.iTrust2.models.OfficeVisit;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
+
+/**
+ * Tests for listing a patient's diagnoses
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class DiagnosisServiceTest {
+
+    /** Number of visits the patient has had */
+    private static final int    VISITS = 30;
+
+    @Autowired
+    private DiagnosisService    diagnosisService;
+
+    @Autowired
+    private OfficeVisitService  officeVisitService;
+
+    @Autowired
+    private UserService<User>   userService;
+
+    @Autowired
+    private HospitalService     hospitalService;
+
+    @Autowired
+    private ICDCodeService      icdCodeService;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Before
+    public void setup () {
+        officeVisitService.deleteAll();
+        userService.saveAll( List.of( new Personnel( new UserForm( "hcp", "123456", Role.ROLE_HCP, 1 ) ),
+                new Personnel( new UserForm( "otherhcp", "123456", Role.ROLE_HCP, 1 ) ),
+                new Patient( new UserForm( "patient", "123456", Role.ROLE_PATIENT, 1 ) ) ) );
+        hospitalService.save( new Hospital( "Diagnosis Test Hospital", "123 Main St", "12345", "NC" ) );
+        for ( final String c : List.of( "D10", "D20" ) ) {
+            if ( null == icdCodeService.findByCode( c ) ) {
+                final ICDCode code = new ICDCode();
+                code.setCode( c );
+                code.setDescription( "Test code " + c );
+                icdCodeService.save( code );
+            }
+        }
+
+        // One visit a day through April 2048, alternating HCPs. Every visit
+        // has a D10 diagnosis and every third one a D20 as well.
+        final List<OfficeVisit> visits = new ArrayList<OfficeVisit>();
+        for ( int i = 0; i < VISITS; i++ ) {
+            visits.add( officeVisitService.build( form( i ) ) );
+        }
+        officeVisitService.saveAll( visits );
+    }
+
+    @After
+    public void tearDown () {
+        officeVisitService.deleteAll();
+    }
+
+    /**
+     * Tests that a patient's diagnoses are listed in the same number of
+     * queries however many visits they have had
+     */
+    @Test
+    public void testListQueryCount () {
+        final User patient = userService.findByName( "patient" );
+
+        counter.start();
+        final List<DiagnosisListForm> all = diagnosisService.listByPatient( patient, null, null, null,
+                Sort.unsorted() );
+        final long queries = counter.stop();
+
+        Assert.assertEquals( VISITS + VISITS / 3, all.size() );
+        Assert.assertTrue( "Listing diagnoses for " + VISITS + " visits took " + queries + " queries",
+                queries <= 2 );
+        Assert.assertEquals( diagnosisService.findByPatient( patient ).size(), all.size() );
+    }
+
+    /**
+     * Tests filtering by date and code, and paging
+     */
+    @Test
+    public void testFiltersAndPaging () {
+        final User patient = userService.findByName( "patient" );
+
+        final List<DiagnosisListForm> all = diagnosisService.listByPatient( patient, null, null, null,
+                Sort.unsorted() );
+        Assert.assertEquals( "Most recent visit first", 30, all.get( 0 ).getVisitDate().getDayOfMonth() );
+        Assert.assertEquals( "D10", all.get( all.size() - 1 ).getCode().getCode() );
+        Assert.assertEquals( "Test code D10", all.get( all.size() - 1 ).getCode().getDescription() );
+        Assert.assertEquals( "hcp", all.get( all.size() - 1 ).getHcp().getUsername() );
+        Assert.assertEquals( "otherhcp", all.get( 0 ).getHcp().getUsername() );
+
+        final List<DiagnosisListForm> d20 = diagnosisService.listByPatient( patient, null, null, "D20",
+                Sort.unsorted() );
+        Assert.assertEquals( VISITS / 3, d20.size() );
+        Assert.assertTrue( d20.stream().allMatch( d -> "D20".equals( d.getCode().getCode() ) ) );
+
+        // April 10th-12th, inclusive
+        final List<DiagnosisListForm> range = diagnosisService.listByPatient( patient, day( 10 ), day( 13 ), null,
+                Sort.unsorted() );
+        Assert.assertEquals( 4, range.size() );
+        Assert.assertTrue( range.stream().allMatch( d -> d.getVisitDate().getDayOfMonth() >= 10
+                && d.getVisitDate().getDayOfMonth() <= 12 ) );
+
+        final Page<DiagnosisListForm> second = diagnosisService.listByPatient( patient, null, null, "D10",
+                PageRequest.of( 1, 10 ) );
+        Assert.assertEquals( 10, second.getNumberOfElements() );
+        Assert.assertEquals( VISITS, second.getTotalElements() );
+        Assert.assertEquals( 20, second.getContent().get( 0 ).getVisitDate().getDayOfMonth() );
+
+        final List<DiagnosisListForm> oldest = diagnosisService.listByPatient( patient, null, null, "D10",
+                Sort.by( "visitDate" ) );
+        Assert.assertEquals( "Oldest visit first when asked", 1, oldest.get( 0 ).getVisitDate().getDayOfMonth() );
+    }
+
+    /**
+     * Start of a day in April 2048
+     *
+     * @param day
+     *            Day of the month
+     * @return Midnight at the start of the day
+     */
+    private static ZonedDateTime day ( final int day ) {
+        return LocalDate.of( 2048, 4, day ).atStartOfDay( ZoneId.systemDefault() );
+    }
+
+    /**
+     * Creates the form for one of the patient's visits
+     *
+     * @param i
+     *            Number of the visit
+     * @return The form
+     */
+    private OfficeVisitForm form ( final int i ) {
+        final OfficeVisitForm form = new OfficeVisitForm();
+        form.setDate( day( i + 1 ).plusHours( 9 ).toOffsetDateTime().toString() );
+        form.setHcp( 0 == i % 2 ? "hcp" : "otherhcp" );
+        form.setPatient( "patient" );
+        form.setNotes( "Test office visit " + i );
+        form.setType( AppointmentType.GENERAL_CHECKUP.toString() );
+        form.setHospital( "Diagnosis Test Hospital" );
+        form.setHeight( 60f );
+        form.setWeight( 150f );
+        form.setSystolic( 120 );
+        form.setDiastolic( 80 );
+
+        final List<DiagnosisForm> diagnoses = new ArrayList<DiagnosisForm>();
+        diagnoses.add( diagnosis( "D10", "Visit " + i ) );
+        if ( 0 == i % 3 ) {
+            diagnoses.add( diagnosis( "D20", "Visit " + i ) );
+        }
+        form.setDiagnoses( diagnoses );
+        return form;
+    }
+
+    /**
+     * Creates a diagnosis form
+     *
+     * @param code
+     *            ICD-10 code
+     * @param note
+     *            Note
+     * @return The form
+     */
+    private static DiagnosisForm diagnosis ( final String code, final String note ) {
+        final DiagnosisForm d = new DiagnosisForm();
+        d.setCode( code );
+        d.setNote( note );
+        return d;
+    }
+
+}
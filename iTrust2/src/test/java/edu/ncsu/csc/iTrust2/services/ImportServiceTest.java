@@ -0,0 +1,198 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.forms.display.ImportReport;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.BloodType;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
+import edu.ncsu.csc.iTrust2.services.ImportService.Format;
+import edu.ncsu.csc.iTrust2.services.ImportService.Kind;
+import edu.ncsu.csc.iTrust2.services.security.LogEntryService;
+import edu.ncsu.csc.iTrust2.utils.LogEntryWriter;
+
+/**
+ * Tests for importing users, demographics and catalogs from files
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class ImportServiceTest {
+
+    /** Users created by these tests */
+    private static final List<String> USERS    = List.of( "importPatient", "importHcp", "importExisting",
+            "importOther" );
+
+    /** Who the imports are logged against */
+    private static final String       IMPORTER = "importTester";
+
+    @Autowired
+    private ImportService             importService;
+
+    @Autowired
+    private UserService<User>         userService;
+
+    @Autowired
+    private ICDCodeService            icdCodeService;
+
+    @Autowired
+    private LogEntryService           logEntryService;
+
+    @Autowired
+    private LogEntryWriter            writer;
+
+    @Before
+    public void setup () {
+        cleanup();
+        writer.flush();
+        logEntryService.deleteAll();
+    }
+
+    @After
+    public void cleanup () {
+        userService.findByNames( USERS ).values().forEach( userService::delete );
+        icdCodeService.deleteAll();
+    }
+
+    /**
+     * Imports users from a CSV file with some bad rows, and checks the good
+     * ones are imported and the bad ones reported
+     */
+    @Test
+    public void testImportUsers () throws IOException {
+        userService.save( new Personnel( new UserForm( "importExisting", "123456", Role.ROLE_HCP, 1 ) ) );
+
+        final String csv = "username,password,password2,roles,enabled\n"
+                + "importPatient,123456,123456,ROLE_PATIENT,1\n" + "importHcp,123456,123456,ROLE_HCP,1\n"
+                + "importPatient,123456,123456,ROLE_PATIENT,1\n" + "importExisting,123456,123456,ROLE_HCP,1\n"
+                + "importOther,123,123,ROLE_HCP,1\n" + "importOther,123456,123456,ROLE_NOBODY,1\n"
+                + "importOther,123456\n";
+
+        final ImportReport report = importService.importFile( Kind.USERS, Format.CSV, stream( csv ), IMPORTER,
+                null );
+
+        Assert.assertTrue( report.isDone() );
+        Assert.assertEquals( 7, report.getRead() );
+        Assert.assertEquals( 2, report.getImported() );
+        Assert.assertEquals( 5, report.getFailed() );
+        final Map<Integer, String> errors = report.getErrors().stream()
+                .collect( Collectors.toMap( ImportReport.RowError::getRecord, ImportReport.RowError::getMessage ) );
+        Assert.assertEquals( "Each bad row should be reported by its number", Set.of( 3, 4, 5, 6, 7 ),
+                errors.keySet() );
+        Assert.assertEquals( "Duplicate record", errors.get( 3 ) );
+        Assert.assertEquals( "User already exists", errors.get( 4 ) );
+
+        Assert.assertTrue( userService.findByName( "importPatient" ) instanceof Patient );
+        Assert.assertTrue( userService.findByName( "importHcp" ) instanceof Personnel );
+        Assert.assertNull( userService.findByName( "importOther" ) );
+    }
+
+    /**
+     * Imports demographics for existing patients
+     */
+    @Test
+    public void testImportDemographics () throws IOException {
+        userService.saveAll( List.of( new Patient( new UserForm( "importPatient", "123456", Role.ROLE_PATIENT, 1 ) ),
+                new Personnel( new UserForm( "importHcp", "123456", Role.ROLE_HCP, 1 ) ) ) );
+
+        final String ndjson = demographics( "importPatient" ) + "\n" + demographics( "importHcp" ) + "\n"
+                + demographics( "importNobody" ) + "\n";
+        final ImportReport report = importService.importFile( Kind.PATIENTS, Format.NDJSON, stream( ndjson ),
+                IMPORTER, null );
+
+        Assert.assertEquals( 1, report.getImported() );
+        Assert.assertEquals( 2, report.getFailed() );
+        final Patient patient = (Patient) userService.findByName( "importPatient" );
+        Assert.assertEquals( "Import", patient.getFirstName() );
+        Assert.assertEquals( BloodType.APos, patient.getBloodType() );
+    }
+
+    /**
+     * Imports a catalog bigger than one chunk, and checks each chunk is
+     * audited once
+     */
+    @Test
+    public void testImportCatalogInChunks () throws IOException {
+        final StringBuilder ndjson = new StringBuilder();
+        for ( int i = 0; i < 1200; i++ ) {
+            ndjson.append( "{\"code\":\"Z" ).append( 10 + i / 100 ).append( "." ).append( i % 100 )
+                    .append( "\",\"description\":\"Import code " )
+                    .append( i ).append( "\"}\n" );
+        }
+        ndjson.append( "not json\n" );
+
+        final List<Integer> progress = new ArrayList<Integer>();
+        final ImportReport report = importService.importFile( Kind.ICD_CODES, Format.NDJSON,
+                stream( ndjson.toString() ), IMPORTER, r -> progress.add( r.getImported() ) );
+
+        Assert.assertEquals( 1201, report.getRead() );
+        Assert.assertEquals( 1200, report.getImported() );
+        Assert.assertEquals( 1, report.getFailed() );
+        Assert.assertEquals( 3, report.getChunks() );
+        Assert.assertEquals( List.of( 500, 1000, 1200 ), progress );
+        Assert.assertEquals( 1200, icdCodeService.count() );
+        Assert.assertEquals( "Z21.99", icdCodeService.findByCode( "Z21.99" ).getCode() );
+
+        writer.flush();
+        Assert.assertEquals( "Each chunk should be audited once", 3, logEntryService.findAllForUser( IMPORTER )
+                .stream().filter( e -> TransactionType.BULK_IMPORT == e.getLogCode() ).count() );
+
+        final ImportReport again = importService.importFile( Kind.ICD_CODES, Format.NDJSON,
+                stream( "{\"code\":\"Z10.0\",\"description\":\"Again\"}" ), IMPORTER, null );
+        Assert.assertEquals( "Code already exists", again.getErrors().get( 0 ).getMessage() );
+        Assert.assertEquals( 1200, icdCodeService.count() );
+    }
+
+    /**
+     * Demographics of a patient, as a line of NDJSON
+     *
+     * @param username
+     *            The patient
+     * @return The line
+     */
+    private String demographics ( final String username ) {
+        return "{\"username\":\"" + username + "\",\"firstName\":\"Import\",\"lastName\":\"Test\","
+                + "\"email\":\"import@example.com\",\"address1\":\"1 Main St\",\"city\":\"Raleigh\","
+                + "\"state\":\"NC\",\"zip\":\"27606\",\"phone\":\"919-555-0100\",\"dateOfBirth\":\"1990-01-01\","
+                + "\"bloodType\":\"A+\",\"ethnicity\":\"Caucasian\",\"gender\":\"Female\","
+                + "\"vaccinationStatus\":\"NOT_VACCINATED\",\"doses\":\"0\",\"fastingLimit\":100,\"mealLimit\":140}";
+    }
+
+    /**
+     * A file's contents as a stream
+     *
+     * @param contents
+     *            The file
+     * @return The stream
+     */
+    private InputStream stream ( final String contents ) {
+        return new ByteArrayInputStream( contents.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+}
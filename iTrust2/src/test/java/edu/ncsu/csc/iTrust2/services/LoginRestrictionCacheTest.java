@@ -0,0 +1,187 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.time.ZonedDateTime;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.models.security.LoginBan;
+import edu.ncsu.csc.iTrust2.models.security.LoginLockout;
+import edu.ncsu.csc.iTrust2.repositories.security.LoginBanRepository;
+import edu.ncsu.csc.iTrust2.repositories.security.LoginLockoutRepository;
+import edu.ncsu.csc.iTrust2.services.security.LoginBanService;
+import edu.ncsu.csc.iTrust2.services.security.LoginLockoutService;
+import edu.ncsu.csc.iTrust2.services.security.LoginRestrictionCache;
+
+/**
+ * Tests that the in-memory bans and lockouts stay in step with the database
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class LoginRestrictionCacheTest {
+
+    private static final String        IP = "10.1.2.3";
+
+    @Autowired
+    private LoginRestrictionCache      cache;
+
+    @Autowired
+    private LoginBanService            banService;
+
+    @Autowired
+    private LoginLockoutService        lockoutService;
+
+    @Autowired
+    private LoginBanRepository         banRepository;
+
+    @Autowired
+    private LoginLockoutRepository     lockoutRepository;
+
+    @Autowired
+    private UserService<User>          userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    @After
+    public void clear () {
+        banService.deleteAll();
+        lockoutService.deleteAll();
+    }
+
+    @Test
+    public void testLockoutsWriteThrough () {
+        Assert.assertFalse( cache.isIPLocked( IP ) );
+
+        final LoginLockout lockout = new LoginLockout();
+        lockout.setIp( IP );
+        lockout.setTime( ZonedDateTime.now() );
+        lockoutService.save( lockout );
+
+        Assert.assertTrue( "Saving a lockout should lock the IP", cache.isIPLocked( IP ) );
+        Assert.assertTrue( lockoutService.isIPLocked( IP ) );
+        Assert.assertFalse( cache.isIPLocked( "10.1.2.4" ) );
+
+        lockoutService.clearIP( IP );
+        Assert.assertFalse( "Clearing lockouts should unlock the IP", cache.isIPLocked( IP ) );
+
+        final LoginLockout old = new LoginLockout();
+        old.setIp( IP );
+        old.setTime( ZonedDateTime.now().minusMinutes( 61 ) );
+        lockoutService.save( old );
+        Assert.assertFalse( "A lockout older than an hour should have no effect", cache.isIPLocked( IP ) );
+    }
+
+    @Test
+    public void testBansWriteThrough () {
+        final User user = new Personnel( new UserForm( "bannedHcp", "123456", Role.ROLE_HCP, 1 ) );
+        userService.save( user );
+
+        final LoginBan ipBan = new LoginBan();
+        ipBan.setIp( IP );
+        ipBan.setTime( ZonedDateTime.now() );
+        banService.save( ipBan );
+
+        final LoginBan userBan = new LoginBan();
+        userBan.setUser( user );
+        userBan.setTime( ZonedDateTime.now() );
+        banService.save( userBan );
+
+        Assert.assertTrue( banService.isIPBanned( IP ) );
+        Assert.assertTrue( banService.isUserBanned( user ) );
+
+        banService.delete( ipBan );
+        Assert.assertFalse( "Deleting the only ban should lift it", cache.isIPBanned( IP ) );
+        Assert.assertTrue( cache.isUserBanned( "bannedHcp" ) );
+
+        banService.clearUser( user );
+        Assert.assertFalse( banService.isUserBanned( user ) );
+
+        userService.delete( user );
+    }
+
+    @Test
+    public void testReloadFromDatabase () {
+        // Written behind the cache's back, as another instance would
+        final LoginBan ban = new LoginBan();
+        ban.setIp( IP );
+        ban.setTime( ZonedDateTime.now() );
+        banRepository.saveAndFlush( ban );
+
+        final LoginLockout lockout = new LoginLockout();
+        lockout.setIp( "10.1.2.4" );
+        lockout.setTime( ZonedDateTime.now().minusMinutes( 30 ) );
+        lockoutRepository.saveAndFlush( lockout );
+
+        final LoginLockout expired = new LoginLockout();
+        expired.setIp( "10.1.2.5" );
+        expired.setTime( ZonedDateTime.now().minusHours( 2 ) );
+        lockoutRepository.saveAndFlush( expired );
+
+        Assert.assertFalse( cache.isIPBanned( IP ) );
+
+        cache.reload();
+        Assert.assertTrue( cache.isIPBanned( IP ) );
+        Assert.assertTrue( cache.isIPLocked( "10.1.2.4" ) );
+        Assert.assertFalse( cache.isIPLocked( "10.1.2.5" ) );
+    }
+
+    @Test
+    public void testOnlyCommittedWrites () {
+        final TransactionTemplate transaction = new TransactionTemplate( transactionManager );
+
+        transaction.execute( status -> {
+            final LoginBan ban = new LoginBan();
+            ban.setIp( IP );
+            ban.setTime( ZonedDateTime.now() );
+            banService.save( ban );
+
+            final LoginLockout lockout = new LoginLockout();
+            lockout.setIp( IP );
+            lockout.setTime( ZonedDateTime.now() );
+            lockoutService.save( lockout );
+
+            Assert.assertFalse( "Nothing should change until the transaction commits", cache.isIPBanned( IP ) );
+            status.setRollbackOnly();
+            return null;
+        } );
+        Assert.assertFalse( "A ban that was rolled back should have no effect", cache.isIPBanned( IP ) );
+        Assert.assertFalse( "A lockout that was rolled back should have no effect", cache.isIPLocked( IP ) );
+
+        transaction.execute( status -> {
+            final LoginBan ban = new LoginBan();
+            ban.setIp( IP );
+            ban.setTime( ZonedDateTime.now() );
+            banService.save( ban );
+            return null;
+        } );
+        Assert.assertTrue( cache.isIPBanned( IP ) );
+
+        transaction.execute( status -> {
+            banService.clearIP( IP );
+            status.setRollbackOnly();
+            return null;
+        } );
+        Assert.assertTrue( "Clearing a ban that was rolled back should have no effect", cache.isIPBanned( IP ) );
+    }
+
+}
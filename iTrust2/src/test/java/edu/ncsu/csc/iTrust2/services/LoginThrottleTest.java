@@ -0,0 +1,121 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.services.security.LoginBanService;
+import edu.ncsu.csc.iTrust2.services.security.LoginLockoutService;
+import edu.ncsu.csc.iTrust2.services.security.LoginRestrictionCache;
+import edu.ncsu.csc.iTrust2.services.security.LoginThrottle;
+import edu.ncsu.csc.iTrust2.services.security.LoginThrottle.Outcome;
+
+/**
+ * Tests the rules for locking out and banning IPs and users after failed
+ * logins
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class LoginThrottleTest {
+
+    @Autowired
+    private LoginThrottle         throttle;
+
+    @Autowired
+    private LoginRestrictionCache restrictions;
+
+    @Autowired
+    private LoginBanService       banService;
+
+    @Autowired
+    private LoginLockoutService   lockoutService;
+
+    @Autowired
+    private UserService<User>     userService;
+
+    @Before
+    @After
+    public void clear () {
+        throttle.flush();
+        banService.deleteAll();
+        lockoutService.deleteAll();
+    }
+
+    @Test
+    public void testIPLockoutThenBan () {
+        final String ip = "10.9.8.1";
+
+        for ( int lockout = 1; lockout <= 2; lockout++ ) {
+            for ( int i = 0; i < LoginThrottle.MAX_IP_FAILURES; i++ ) {
+                Assert.assertEquals( Outcome.NONE, throttle.recordIPFailure( ip ) );
+            }
+            Assert.assertEquals( Outcome.IP_LOCKED, throttle.recordIPFailure( ip ) );
+            Assert.assertTrue( "A lockout should take effect immediately", restrictions.isIPLocked( ip ) );
+        }
+
+        throttle.flush();
+        Assert.assertEquals( "Each lockout should be saved", 2, lockoutService.count() );
+        Assert.assertEquals( 2, lockoutService.getRecentIPLockouts( ip ) );
+
+        for ( int i = 0; i < LoginThrottle.MAX_IP_FAILURES; i++ ) {
+            Assert.assertEquals( Outcome.NONE, throttle.recordIPFailure( ip ) );
+        }
+        Assert.assertEquals( Outcome.IP_BANNED, throttle.recordIPFailure( ip ) );
+        Assert.assertTrue( restrictions.isIPBanned( ip ) );
+
+        throttle.flush();
+        Assert.assertTrue( banService.isIPBanned( ip ) );
+        Assert.assertEquals( 1, banService.count() );
+        Assert.assertEquals( "Lockouts should be cleared by a ban", 0, lockoutService.count() );
+    }
+
+    @Test
+    public void testSuccessClearsFailures () {
+        final String ip = "10.9.8.2";
+
+        for ( int i = 0; i < LoginThrottle.MAX_IP_FAILURES; i++ ) {
+            throttle.recordIPFailure( ip );
+        }
+        throttle.recordSuccess( ip, null );
+        Assert.assertEquals( "Failures before a successful login should be forgotten", Outcome.NONE,
+                throttle.recordIPFailure( ip ) );
+    }
+
+    @Test
+    public void testUserLockout () {
+        final User user = new Personnel( new UserForm( "throttledHcp", "123456", Role.ROLE_HCP, 1 ) );
+        userService.save( user );
+
+        for ( int i = 0; i < LoginThrottle.MAX_USER_FAILURES; i++ ) {
+            Assert.assertEquals( Outcome.NONE, throttle.recordUserFailure( "throttledHcp" ) );
+        }
+        Assert.assertEquals( Outcome.USER_LOCKED, throttle.recordUserFailure( "throttledHcp" ) );
+        Assert.assertTrue( restrictions.isUserLocked( "throttledHcp" ) );
+
+        // Users that don't exist are never locked out
+        for ( int i = 0; i <= LoginThrottle.MAX_USER_FAILURES; i++ ) {
+            Assert.assertEquals( Outcome.NONE, throttle.recordUserFailure( "noSuchUser" ) );
+        }
+
+        throttle.flush();
+        Assert.assertTrue( lockoutService.isUserLocked( user ) );
+        lockoutService.clearUser( user );
+        userService.delete( user );
+    }
+
+}
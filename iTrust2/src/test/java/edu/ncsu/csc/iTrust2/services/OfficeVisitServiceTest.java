@@ -0,0 +1,183 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.CPTCodeForm;
+import edu.ncsu.csc.iTrust2.forms.DiagnosisForm;
+import edu.ncsu.csc.iTrust2.forms.OfficeVisitForm;
+import edu.ncsu.csc.iTrust2.forms.PrescriptionForm;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.CPTCode;
+import edu.ncsu.csc.iTrust2.models.Drug;
+import edu.ncsu.csc.iTrust2.models.Hospital;
+import edu.ncsu.csc.iTrust2.models.ICDCode;
+import edu.ncsu.csc.iTrust2.models.OfficeVisit;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.AppointmentType;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
+
+/**
+ * Tests for building office visits from forms
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class OfficeVisitServiceTest {
+
+    @Autowired
+    private OfficeVisitService  officeVisitService;
+
+    @Autowired
+    private UserService<User>   userService;
+
+    @Autowired
+    private HospitalService     hospitalService;
+
+    @Autowired
+    private ICDCodeService      icdCodeService;
+
+    @Autowired
+    private DrugService         drugService;
+
+    @Autowired
+    private CPTCodeService      cptCodeService;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Before
+    public void setup () {
+        officeVisitService.deleteAll();
+        userService.saveAll( List.of( new Personnel( new UserForm( "hcp", "123456", Role.ROLE_HCP, 1 ) ),
+                new Patient( new UserForm( "patient", "123456", Role.ROLE_PATIENT, 1 ) ) ) );
+    }
+
+    /**
+     * Tests that building a visit costs the same number of queries however
+     * many diagnoses, prescriptions and CPT codes it has
+     */
+    @Test
+    @Transactional
+    public void testBuildQueryCount () {
+        hospitalService.save( new Hospital( "Build Test Hospital", "123 Main St", "12345", "NC" ) );
+        for ( int i = 0; i < 10; i++ ) {
+            final ICDCode code = new ICDCode();
+            code.setCode( "B" + ( 10 + i ) );
+            code.setDescription( "Test code " + i );
+            icdCodeService.save( code );
+        }
+        for ( int i = 0; i < 5; i++ ) {
+            final Drug drug = new Drug();
+            drug.setCode( "1234-432" + i + "-89" );
+            drug.setName( "Drug " + i );
+            drug.setDescription( "Test drug " + i );
+            drugService.save( drug );
+        }
+        for ( int i = 0; i < 8; i++ ) {
+            final CPTCode code = new CPTCode();
+            code.setCode( 99210 + i );
+            code.setDescription( "Test CPT code " + i );
+            code.setCost( 1000 + i );
+            code.setVersion( 1 );
+            cptCodeService.save( code );
+        }
+
+        // Load the reference catalogs, so that only the visit itself is
+        // measured
+        officeVisitService.build( form( 1, 1, 1 ) );
+
+        counter.start();
+        final OfficeVisit small = officeVisitService.build( form( 1, 1, 1 ) );
+        final long smallQueries = counter.stop();
+
+        counter.start();
+        final OfficeVisit large = officeVisitService.build( form( 10, 5, 8 ) );
+        final long largeQueries = counter.stop();
+
+        Assert.assertEquals( 1, small.getDiagnoses().size() );
+        Assert.assertEquals( 10, large.getDiagnoses().size() );
+        Assert.assertEquals( 5, large.getPrescriptions().size() );
+        Assert.assertEquals( 8, large.getCptCodes().size() );
+        Assert.assertEquals( "patient", large.getPrescriptions().get( 4 ).getPatient().getUsername() );
+        Assert.assertEquals( "1234-4324-89", large.getPrescriptions().get( 4 ).getDrug().getCode() );
+        Assert.assertEquals( "B19", large.getDiagnoses().get( 9 ).getCode().getCode() );
+        Assert.assertEquals( cptCodeService.findByCode( 99217 ).getId(), large.getCptCodes().get( 7 ).getId() );
+
+        Assert.assertTrue( "Users should be looked up together, but took " + smallQueries + " queries",
+                smallQueries <= 1 );
+        Assert.assertEquals( "A larger visit should not need more queries", smallQueries, largeQueries );
+    }
+
+    /**
+     * Creates a visit form
+     *
+     * @param diagnoses
+     *            Number of diagnoses
+     * @param prescriptions
+     *            Number of prescriptions
+     * @param cptCodes
+     *            Number of CPT codes
+     * @return The form
+     */
+    private OfficeVisitForm form ( final int diagnoses, final int prescriptions, final int cptCodes ) {
+        final OfficeVisitForm form = new OfficeVisitForm();
+        form.setDate( "2048-04-16T09:50:00.000-04:00" );
+        form.setHcp( "hcp" );
+        form.setPatient( "patient" );
+        form.setNotes( "Test office visit" );
+        form.setType( AppointmentType.GENERAL_CHECKUP.toString() );
+        form.setHospital( "Build Test Hospital" );
+        form.setHeight( 60f );
+        form.setWeight( 150f );
+        form.setSystolic( 120 );
+        form.setDiastolic( 80 );
+
+        final List<DiagnosisForm> diagnosisForms = new ArrayList<DiagnosisForm>();
+        for ( int i = 0; i < diagnoses; i++ ) {
+            final DiagnosisForm d = new DiagnosisForm();
+            d.setCode( "B" + ( 10 + i ) );
+            d.setNote( "Note " + i );
+            diagnosisForms.add( d );
+        }
+        form.setDiagnoses( diagnosisForms );
+
+        final List<PrescriptionForm> prescriptionForms = new ArrayList<PrescriptionForm>();
+        for ( int i = 0; i < prescriptions; i++ ) {
+            final PrescriptionForm p = new PrescriptionForm();
+            p.setDrug( "1234-432" + i + "-89" );
+            p.setDosage( 100 );
+            p.setRenewals( 1 );
+            p.setPatient( "patient" );
+            p.setStartDate( "2048-04-16" );
+            p.setEndDate( "2048-05-16" );
+            prescriptionForms.add( p );
+        }
+        form.setPrescriptions( prescriptionForms );
+
+        final List<CPTCodeForm> cptCodeForms = new ArrayList<CPTCodeForm>();
+        for ( int i = 0; i < cptCodes; i++ ) {
+            cptCodeForms.add( new CPTCodeForm( cptCodeService.findByCode( 99210 + i ) ) );
+        }
+        form.setCptCodes( cptCodeForms );
+        return form;
+    }
+
+}
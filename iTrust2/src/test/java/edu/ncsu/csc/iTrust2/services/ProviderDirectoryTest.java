@@ -0,0 +1,118 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.forms.display.ProviderSummary;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+
+/**
+ * Tests that the provider directory lists the right people and keeps up with
+ * users being saved and deleted
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class ProviderDirectoryTest {
+
+    @Autowired
+    private ProviderDirectory directory;
+
+    @Autowired
+    private UserService<User> userService;
+
+    @Before
+    @After
+    public void clean () {
+        for ( final String name : List.of( "dirHcpA", "dirHcpB", "dirLab", "dirPatient" ) ) {
+            final User u = userService.findByName( name );
+            if ( null != u ) {
+                userService.delete( u );
+            }
+        }
+    }
+
+    @Test
+    public void testDirectory () {
+        final Personnel b = personnel( "dirHcpB", "Bea", "Zimmer", Role.ROLE_HCP );
+        final Personnel lab = personnel( "dirLab", "Lou", "Lab", Role.ROLE_LABTECH );
+        final User patient = new Patient( new UserForm( "dirPatient", "123456", Role.ROLE_PATIENT, 1 ) );
+        userService.saveAll( List.of( b, lab, patient ) );
+
+        // Loaded from the database the first time
+        Assert.assertTrue( usernames( Role.ROLE_HCP ).contains( "dirHcpB" ) );
+        Assert.assertFalse( usernames( Role.ROLE_HCP ).contains( "dirLab" ) );
+        Assert.assertFalse( usernames( Role.ROLE_HCP ).contains( "dirPatient" ) );
+        Assert.assertTrue( usernames( Role.ROLE_LABTECH ).contains( "dirLab" ) );
+
+        // New providers are added in order
+        final Personnel a = personnel( "dirHcpA", "Al", "Adams", Role.ROLE_HCP );
+        userService.save( a );
+        final List<String> hcps = usernames( Role.ROLE_HCP );
+        Assert.assertTrue( hcps.indexOf( "dirHcpA" ) >= 0 );
+        Assert.assertTrue( hcps.indexOf( "dirHcpA" ) < hcps.indexOf( "dirHcpB" ) );
+        final List<ProviderSummary> sorted = directory.findByRole( Role.ROLE_HCP ).stream()
+                .sorted( ProviderSummary.ORDER ).collect( Collectors.toList() );
+        Assert.assertEquals( sorted, directory.findByRole( Role.ROLE_HCP ) );
+
+        // Changed details and roles are picked up
+        b.setRoles( Set.of( Role.ROLE_HCP, Role.ROLE_ER ) );
+        b.setLastName( "Aardvark" );
+        userService.save( b );
+        final ProviderSummary first = directory.findByRole( Role.ROLE_HCP ).stream()
+                .filter( p -> p.getUsername().startsWith( "dir" ) ).findFirst().get();
+        Assert.assertEquals( "dirHcpB", first.getUsername() );
+        Assert.assertEquals( "Aardvark", first.getLastName() );
+
+        lab.setRoles( Set.of( Role.ROLE_HCP ) );
+        userService.save( lab );
+        Assert.assertFalse( usernames( Role.ROLE_LABTECH ).contains( "dirLab" ) );
+        Assert.assertTrue( usernames( Role.ROLE_HCP ).contains( "dirLab" ) );
+
+        // Deleted providers are dropped
+        userService.delete( a );
+        Assert.assertFalse( usernames( Role.ROLE_HCP ).contains( "dirHcpA" ) );
+
+        // And the directory agrees with the database
+        final List<String> cached = usernames( Role.ROLE_HCP );
+        directory.clear();
+        Assert.assertEquals( cached, usernames( Role.ROLE_HCP ) );
+    }
+
+    @Test ( expected = UnsupportedOperationException.class )
+    public void testListsAreImmutable () {
+        directory.findByRole( Role.ROLE_HCP ).clear();
+    }
+
+    private List<String> usernames ( final Role role ) {
+        return directory.findByRole( role ).stream().map( ProviderSummary::getUsername )
+                .collect( Collectors.toList() );
+    }
+
+    private Personnel personnel ( final String username, final String first, final String last, final Role role ) {
+        final Personnel p = new Personnel( new UserForm( username, "123456", role, 1 ) );
+        p.setFirstName( first );
+        p.setLastName( last );
+        return p;
+    }
+
+}
@@ -0,0 +1,154 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.forms.display.SatisfactionSurveyDistribution;
+import edu.ncsu.csc.iTrust2.models.Hospital;
+import edu.ncsu.csc.iTrust2.models.Patient;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.SatisfactionSurvey;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.models.enums.WaitTime;
+import edu.ncsu.csc.iTrust2.repositories.SatisfactionSurveyDailySummaryRepository;
+
+/**
+ * Tests that survey answers are summarised per HCP, hospital and day, and that
+ * distributions are read back from the summaries
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class SatisfactionSurveyDistributionServiceTest {
+
+    @Autowired
+    private SatisfactionSurveyDistributionService    service;
+
+    @Autowired
+    private SatisfactionSurveyDailySummaryRepository summaryRepository;
+
+    @Autowired
+    private SatisfactionSurveyService                surveyService;
+
+    @Autowired
+    private UserService<User>                        userService;
+
+    @Autowired
+    private PlatformTransactionManager               transactionManager;
+
+    private User                                     hcp;
+
+    private User                                     patient;
+
+    private final List<SatisfactionSurvey>           surveys = new ArrayList<>();
+
+    @Before
+    public void setUp () {
+        summaryRepository.deleteAll();
+        hcp = new Personnel( new UserForm( "distHcp", "123456", Role.ROLE_HCP, 1 ) );
+        patient = new Patient( new UserForm( "distPatient", "123456", Role.ROLE_PATIENT, 1 ) );
+        userService.saveAll( List.of( hcp, patient ) );
+    }
+
+    @After
+    public void tearDown () {
+        summaryRepository.deleteAll();
+        surveys.forEach( surveyService::delete );
+    }
+
+    @Test
+    public void testRecordAndDistribution () {
+        final Hospital general = new Hospital( "Dist General", "1 Main St", "12345", "NC" );
+        final Hospital clinic = new Hospital( "Dist Clinic", "2 Main St", "12345", "NC" );
+        final ZonedDateTime today = ZonedDateTime.now();
+
+        // Waiting room times today: 4 x FIVE_TO_TEN, 1 x OVER_TWENTY_FIVE
+        for ( int i = 0; i < 4; i++ ) {
+            service.record( survey( WaitTime.FIVE_TO_TEN, 4 ), general, today );
+        }
+        service.record( survey( WaitTime.OVER_TWENTY_FIVE, 1 ), clinic, today );
+        // A week ago, at the same hospital
+        service.record( survey( WaitTime.LESS_THAN_FIVE, 5 ), general, today.minusDays( 7 ) );
+
+        // One row per HCP, hospital and day
+        Assert.assertEquals( 3, summaryRepository.count() );
+
+        final LocalDate day = LocalDate.now();
+        final SatisfactionSurveyDistribution lastDay = service.findForHcp( "distHcp", day, day );
+        Assert.assertEquals( 5, lastDay.getNumberOfSurveys() );
+        Assert.assertEquals( WaitTime.FIVE_TO_TEN, lastDay.getMedianWaitingRoomTime() );
+        Assert.assertEquals( WaitTime.OVER_TWENTY_FIVE, lastDay.getP90WaitingRoomTime() );
+        Assert.assertEquals( List.of( 0L, 4L, 0L, 0L, 0L, 1L ), lastDay.getWaitingRoomTimes() );
+        Assert.assertEquals( List.of( 0L, 1L, 0L, 0L, 4L, 0L ), lastDay.getVisitSatisfactions() );
+
+        final SatisfactionSurveyDistribution lastMonth = service.findForHcp( "distHcp", day.minusDays( 29 ), day );
+        Assert.assertEquals( 6, lastMonth.getNumberOfSurveys() );
+        Assert.assertEquals( List.of( 1L, 4L, 0L, 0L, 0L, 1L ), lastMonth.getWaitingRoomTimes() );
+
+        final SatisfactionSurveyDistribution hospital = service.findForHospital( "Dist General",
+                day.minusDays( 29 ), day );
+        Assert.assertEquals( 5, hospital.getNumberOfSurveys() );
+        Assert.assertEquals( WaitTime.FIVE_TO_TEN, hospital.getP90WaitingRoomTime() );
+
+        final SatisfactionSurveyDistribution none = service.findForHcp( "nobody", day, day );
+        Assert.assertEquals( 0, none.getNumberOfSurveys() );
+        Assert.assertNull( none.getMedianWaitingRoomTime() );
+    }
+
+    /**
+     * Checks that a summary is only changed if the transaction recording the
+     * survey commits
+     */
+    @Test
+    public void testRecordRolledBack () {
+        final Hospital general = new Hospital( "Dist General", "1 Main St", "12345", "NC" );
+        final SatisfactionSurvey survey = survey( WaitTime.FIVE_TO_TEN, 4 );
+
+        new TransactionTemplate( transactionManager ).execute( status -> {
+            service.record( survey, general, ZonedDateTime.now() );
+            status.setRollbackOnly();
+            return null;
+        } );
+        Assert.assertEquals( 0, summaryRepository.count() );
+
+        service.record( survey, general, ZonedDateTime.now() );
+        Assert.assertEquals( 1, summaryRepository.count() );
+    }
+
+    /**
+     * Creates and saves a survey for the test HCP
+     */
+    private SatisfactionSurvey survey ( final WaitTime waitingRoom, final int satisfaction ) {
+        final SatisfactionSurvey survey = new SatisfactionSurvey();
+        survey.setPatient( patient );
+        survey.setHcp( hcp );
+        survey.setWaitingRoomTime( waitingRoom );
+        survey.setExaminationResponseTime( WaitTime.LESS_THAN_FIVE );
+        survey.setVisitSatisfaction( satisfaction );
+        survey.setTreatmentSatisfaction( satisfaction );
+        surveyService.save( survey );
+        surveys.add( survey );
+        return survey;
+    }
+
+}
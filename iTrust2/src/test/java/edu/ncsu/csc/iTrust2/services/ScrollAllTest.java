@@ -0,0 +1,86 @@
+package edu.ncsu.csc.iTrust2.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.models.Drug;
+
+/**
+ * Tests for reading a whole table through a cursor
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class ScrollAllTest {
+
+    /** Number of rows scrolled through; more than one fetch */
+    private static final int ROWS = 1200;
+
+    @Autowired
+    private DrugService      drugService;
+
+    @PersistenceContext
+    private EntityManager    entityManager;
+
+    @Before
+    public void setup () {
+        drugService.deleteAll();
+        final List<Drug> drugs = new ArrayList<Drug>( ROWS );
+        for ( int i = 0; i < ROWS; i++ ) {
+            final Drug drug = new Drug();
+            drug.setCode( String.format( "%04d-%04d-%02d", i / 100, i, i % 100 ) );
+            drug.setName( "Scroll " + i );
+            drug.setDescription( "Scroll test drug " + i );
+            drugs.add( drug );
+        }
+        drugService.saveAll( drugs );
+    }
+
+    @After
+    public void cleanup () {
+        drugService.deleteAll();
+    }
+
+    /**
+     * Scrolls through every row, checking each is seen once and that the
+     * session doesn't keep them all
+     */
+    @Test
+    public void testScrollAllKeepsSessionSmall () {
+        final List<String> codes = new ArrayList<String>();
+        final int[] largest = new int[1];
+
+        final long count = drugService.scrollAll( drug -> {
+            codes.add( drug.getCode() );
+            // The action runs in the scroll's transaction, so this is the
+            // session being scrolled
+            final Session session = entityManager.unwrap( Session.class );
+            largest[0] = Math.max( largest[0], session.getStatistics().getEntityCount() );
+        } );
+
+        Assert.assertEquals( ROWS, count );
+        Assert.assertEquals( ROWS, codes.size() );
+        Assert.assertEquals( ROWS, codes.stream().distinct().count() );
+        Assert.assertTrue( "Rows should be detached as they are read, but the session held " + largest[0],
+                largest[0] < ROWS / 2 );
+    }
+
+}
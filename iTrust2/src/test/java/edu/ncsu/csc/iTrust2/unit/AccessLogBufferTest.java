@@ -0,0 +1,139 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc.iTrust2.utils.AccessLogBuffer;
+import edu.ncsu.csc.iTrust2.utils.AccessLogBuffer.AccessRecord;
+
+/**
+ * Tests for the ring buffer behind the HTTP access log
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class AccessLogBufferTest {
+
+    @Test
+    public void testRoundTrip () {
+        final AccessLogBuffer buffer = new AccessLogBuffer( 4 );
+        final AccessRecord record = new AccessRecord();
+
+        Assert.assertFalse( "An empty buffer should have nothing to read", buffer.poll( record ) );
+
+        Assert.assertTrue( buffer.offer( 1234L, "GET", "/api/v1/patients/{username}", 200, 1500, "hcp",
+                "127.0.0.1" ) );
+        Assert.assertTrue( buffer.offer( 1235L, "PATCH", "/api/v1/bills/{id}", 404, 20, null, "::1" ) );
+        Assert.assertEquals( 2, buffer.size() );
+
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( 1234L, record.getTime() );
+        Assert.assertEquals( "GET", record.getMethod() );
+        Assert.assertEquals( "/api/v1/patients/{username}", record.getUri() );
+        Assert.assertEquals( 200, record.getStatus() );
+        Assert.assertEquals( 1500, record.getLatencyMicros() );
+        Assert.assertEquals( "hcp", record.getUser() );
+        Assert.assertEquals( "127.0.0.1", record.getIp() );
+
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( "PATCH", record.getMethod() );
+        Assert.assertEquals( 404, record.getStatus() );
+        Assert.assertNull( "A missing user should come back as null", record.getUser() );
+        Assert.assertEquals( "::1", record.getIp() );
+
+        Assert.assertFalse( buffer.poll( record ) );
+        Assert.assertEquals( 0, buffer.size() );
+    }
+
+    @Test
+    public void testFullBufferDrops () {
+        final AccessLogBuffer buffer = new AccessLogBuffer( 2 );
+        final AccessRecord record = new AccessRecord();
+
+        Assert.assertTrue( buffer.offer( 1L, "GET", "/a", 200, 1, "u", "ip" ) );
+        Assert.assertTrue( buffer.offer( 2L, "GET", "/b", 200, 1, "u", "ip" ) );
+        Assert.assertFalse( "A full buffer should drop new records", buffer.offer( 3L, "GET", "/c", 200, 1, "u", "ip" ) );
+        Assert.assertEquals( 1, buffer.getDropped() );
+
+        // Reading a record frees its slot for the next one
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( "/a", record.getUri() );
+        Assert.assertTrue( buffer.offer( 4L, "GET", "/d", 200, 1, "u", "ip" ) );
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( "/b", record.getUri() );
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( "/d", record.getUri() );
+    }
+
+    @Test
+    public void testLongValuesTruncated () {
+        final AccessLogBuffer buffer = new AccessLogBuffer( 1 );
+        final AccessRecord record = new AccessRecord();
+
+        final StringBuilder uri = new StringBuilder();
+        for ( int i = 0; i < 300; i++ ) {
+            uri.append( 'x' );
+        }
+        Assert.assertTrue( buffer.offer( 1L, "BREW", uri.toString(), 418, -5, "user", "ip" ) );
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( "OTHER", record.getMethod() );
+        Assert.assertTrue( record.getUri().length() < uri.length() );
+        Assert.assertEquals( 0, record.getLatencyMicros() );
+    }
+
+    @Test
+    public void testMultiByteValuesTruncated () {
+        final AccessLogBuffer buffer = new AccessLogBuffer( 1 );
+        final AccessRecord record = new AccessRecord();
+
+        // 'é' takes two bytes, so an odd limit would split the last one
+        final StringBuilder user = new StringBuilder();
+        for ( int i = 0; i < 40; i++ ) {
+            user.append( '\u00e9' );
+        }
+        Assert.assertTrue( buffer.offer( 1L, "GET", "/x", 200, 1, user.toString(), "ip" ) );
+        Assert.assertTrue( buffer.poll( record ) );
+        Assert.assertEquals( user.substring( 0, 15 ), record.getUser() );
+    }
+
+    @Test
+    public void testConcurrentProducers () throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 5000;
+        final AccessLogBuffer buffer = new AccessLogBuffer( 256 );
+
+        final List<Thread> threads = new ArrayList<Thread>();
+        for ( int p = 0; p < producers; p++ ) {
+            final int id = p;
+            final Thread t = new Thread( () -> {
+                for ( int i = 0; i < perProducer; i++ ) {
+                    while ( !buffer.offer( i, "GET", "/p" + id + "/" + i, 200, i, "user" + id, "ip" ) ) {
+                        Thread.yield();
+                    }
+                }
+            } );
+            threads.add( t );
+            t.start();
+        }
+
+        final Set<String> seen = new HashSet<String>();
+        final AccessRecord record = new AccessRecord();
+        while ( seen.size() < producers * perProducer ) {
+            if ( buffer.poll( record ) ) {
+                Assert.assertTrue( "Each record should be read exactly once", seen.add( record.getUri() ) );
+                Assert.assertEquals( "Fields of a record should not be mixed up",
+                        "/p" + record.getUser().substring( 4 ) + "/" + record.getLatencyMicros(), record.getUri() );
+            }
+        }
+        for ( final Thread t : threads ) {
+            t.join();
+        }
+        Assert.assertEquals( 0, buffer.size() );
+    }
+
+}
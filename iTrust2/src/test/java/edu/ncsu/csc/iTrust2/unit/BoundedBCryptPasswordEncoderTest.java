@@ -0,0 +1,112 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import edu.ncsu.csc.iTrust2.config.BoundedBCryptPasswordEncoder;
+import edu.ncsu.csc.iTrust2.config.BoundedBCryptPasswordEncoder.BusyException;
+
+/**
+ * Tests for the bounded BCrypt password encoder
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class BoundedBCryptPasswordEncoderTest {
+
+    @Test
+    public void testEncodeAndMatch () {
+        final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder( 4, 2, 4, 5000 );
+        try {
+            final String hash = encoder.encode( "123456" );
+            Assert.assertTrue( hash.startsWith( "$2a$04$" ) );
+            Assert.assertTrue( encoder.matches( "123456", hash ) );
+            Assert.assertFalse( encoder.matches( "654321", hash ) );
+
+            // Hashes made elsewhere with the same algorithm are still accepted
+            Assert.assertTrue( encoder.matches( "123456", new BCryptPasswordEncoder( 5 ).encode( "123456" ) ) );
+        }
+        finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testUpgradeEncoding () {
+        final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder( 5, 1, 1, 5000 );
+        try {
+            Assert.assertFalse( encoder.upgradeEncoding( encoder.encode( "123456" ) ) );
+            Assert.assertTrue( "A weaker hash should be upgraded",
+                    encoder.upgradeEncoding( new BCryptPasswordEncoder( 4 ).encode( "123456" ) ) );
+            Assert.assertTrue( "A stronger hash should be brought back to the configured cost",
+                    encoder.upgradeEncoding( new BCryptPasswordEncoder( 6 ).encode( "123456" ) ) );
+            Assert.assertFalse( encoder.upgradeEncoding( "not a hash" ) );
+            Assert.assertFalse( encoder.upgradeEncoding( null ) );
+        }
+        finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenBusy () throws InterruptedException {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor( 1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>( 1 ) );
+        final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder( 4, executor, 5000 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        try {
+            // Occupy the only hashing thread, and the only place in the queue
+            final Runnable blocker = () -> {
+                try {
+                    release.await();
+                }
+                catch ( final InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            executor.execute( blocker );
+            executor.execute( blocker );
+
+            try {
+                encoder.encode( "123456" );
+                Assert.fail( "Hashing should be refused while the pool is full" );
+            }
+            catch ( final BusyException e ) {
+                Assert.assertEquals( 1, encoder.getRejected() );
+            }
+
+            // Once they finish, hashing works again
+            release.countDown();
+            while ( !executor.getQueue().isEmpty() ) {
+                Thread.sleep( 10 );
+            }
+            Assert.assertTrue( encoder.matches( "123456", encoder.encode( "123456" ) ) );
+        }
+        finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimesOut () {
+        final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder( 16, 1, 1, 1 );
+        try {
+            encoder.encode( "123456" );
+            Assert.fail( "A hash that takes too long should be abandoned" );
+        }
+        catch ( final BusyException e ) {
+            Assert.assertEquals( 1, encoder.getRejected() );
+        }
+        finally {
+            encoder.shutdown();
+        }
+    }
+
+}
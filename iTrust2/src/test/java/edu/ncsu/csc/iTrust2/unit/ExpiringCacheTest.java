@@ -0,0 +1,67 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc.iTrust2.utils.ExpiringCache;
+
+/**
+ * Tests for the bounded, expiring cache
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class ExpiringCacheTest {
+
+    @Test
+    public void testExpiry () {
+        final AtomicLong now = new AtomicLong( 1000 );
+        final ExpiringCache<String, String> cache = new ExpiringCache<String, String>( 10, 100, now::get );
+
+        cache.put( "a", "1" );
+        Assert.assertEquals( "1", cache.get( "a" ) );
+
+        now.addAndGet( 99 );
+        Assert.assertEquals( "Entries should be valid until the TTL passes", "1", cache.get( "a" ) );
+
+        now.addAndGet( 1 );
+        Assert.assertNull( "Entries should expire after the TTL", cache.get( "a" ) );
+        Assert.assertEquals( "Expired entries should be removed", 0, cache.size() );
+
+        Assert.assertEquals( 2, cache.getHits() );
+        Assert.assertEquals( 1, cache.getMisses() );
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed () {
+        final ExpiringCache<String, String> cache = new ExpiringCache<String, String>( 2, 60000 );
+
+        cache.put( "a", "1" );
+        cache.put( "b", "2" );
+        cache.get( "a" ); // b is now the least recently used
+        cache.put( "c", "3" );
+
+        Assert.assertEquals( 2, cache.size() );
+        Assert.assertEquals( "1", cache.get( "a" ) );
+        Assert.assertNull( cache.get( "b" ) );
+        Assert.assertEquals( "3", cache.get( "c" ) );
+    }
+
+    @Test
+    public void testInvalidate () {
+        final ExpiringCache<String, String> cache = new ExpiringCache<String, String>( 10, 60000 );
+
+        cache.put( "a", "1" );
+        cache.put( "b", "2" );
+        cache.invalidate( "a" );
+        Assert.assertNull( cache.get( "a" ) );
+        Assert.assertEquals( "2", cache.get( "b" ) );
+
+        cache.clear();
+        Assert.assertNull( cache.get( "b" ) );
+        Assert.assertEquals( 0, cache.size() );
+    }
+
+}
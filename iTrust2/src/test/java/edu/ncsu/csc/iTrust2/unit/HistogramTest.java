@@ -0,0 +1,62 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.ncsu.csc.iTrust2.utils.Histogram;
+
+/**
+ * Tests for the Histogram used to summarise survey answers
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class HistogramTest {
+
+    @Test
+    public void testQuantiles () {
+        final Histogram h = new Histogram( 6 );
+        assertEquals( -1, h.quantile( 0.5 ) );
+
+        // Ten values: 1 x bucket 0, 4 x bucket 1, 4 x bucket 2, 1 x bucket 5
+        h.add( 0 );
+        for ( int i = 0; i < 4; i++ ) {
+            h.add( 1 );
+            h.add( 2 );
+        }
+        h.add( 5 );
+        assertEquals( 10, h.total() );
+        assertEquals( 0, h.quantile( 0 ) );
+        assertEquals( 0, h.quantile( 0.1 ) );
+        assertEquals( 1, h.quantile( 0.5 ) );
+        assertEquals( 2, h.quantile( 0.51 ) );
+        assertEquals( 2, h.quantile( 0.9 ) );
+        assertEquals( 5, h.quantile( 1 ) );
+    }
+
+    @Test
+    public void testMergeAndStorage () {
+        final Histogram a = new Histogram( 4 );
+        a.add( 0 );
+        a.add( 3 );
+        final Histogram b = Histogram.parse( "1,2,0,0" );
+        a.merge( b );
+        assertEquals( List.of( 2L, 2L, 0L, 1L ), a.toList() );
+        assertEquals( "2,2,0,1", a.toString() );
+        assertEquals( a, Histogram.parse( a.toString() ) );
+    }
+
+    @Test ( expected = IllegalArgumentException.class )
+    public void testMergeMismatched () {
+        new Histogram( 4 ).merge( new Histogram( 6 ) );
+    }
+
+    @Test ( expected = IllegalArgumentException.class )
+    public void testParseNegative () {
+        Histogram.parse( "1,-1" );
+    }
+
+}
@@ -0,0 +1,97 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ncsu.csc.iTrust2.utils.ImportReader;
+
+/**
+ * Tests for reading CSV and NDJSON import files
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class ImportReaderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testCsv () throws IOException {
+        final ImportReader reader = ImportReader.csv( new StringReader( "code,description\r\n"
+                + "A01,\"Typhoid, paratyphoid\"\r\n" + "\n" + "A02,\"Say \"\"hi\"\"\"\n" + "A03,\n"
+                + "A04,too,many\n" + "\"A05\",\"Two\nlines\"" ), mapper );
+
+        JsonNode node = reader.next();
+        Assert.assertEquals( 1, reader.getRecord() );
+        Assert.assertEquals( "A01", node.get( "code" ).asText() );
+        Assert.assertEquals( "Quoted commas belong to the field", "Typhoid, paratyphoid",
+                node.get( "description" ).asText() );
+
+        node = reader.next();
+        Assert.assertEquals( "Blank lines should be skipped", 2, reader.getRecord() );
+        Assert.assertEquals( "Say \"hi\"", node.get( "description" ).asText() );
+
+        node = reader.next();
+        Assert.assertFalse( "Empty cells should be left out", node.has( "description" ) );
+
+        try {
+            reader.next();
+            Assert.fail( "A row with extra fields should be rejected" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            Assert.assertEquals( 4, reader.getRecord() );
+        }
+
+        node = reader.next();
+        Assert.assertEquals( "A05", node.get( "code" ).asText() );
+        Assert.assertEquals( "Two\nlines", node.get( "description" ).asText() );
+        Assert.assertNull( reader.next() );
+        reader.close();
+    }
+
+    @Test
+    public void testCsvUnclosedQuote () throws IOException {
+        final ImportReader reader = ImportReader.csv( new StringReader( "code\n\"A01" ), mapper );
+        try {
+            reader.next();
+            Assert.fail( "An unclosed quote should be rejected" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            Assert.assertEquals( 1, reader.getRecord() );
+        }
+        Assert.assertNull( reader.next() );
+    }
+
+    @Test
+    public void testNdjson () throws IOException {
+        final ImportReader reader = ImportReader.ndjson( new StringReader(
+                "{\"code\":\"A01\"}\n\n   \n{\"code\":\n[1,2]\n{\"code\":\"A02\",\"description\":\"x\"}" ),
+                mapper );
+
+        Assert.assertEquals( "A01", reader.next().get( "code" ).asText() );
+        try {
+            reader.next();
+            Assert.fail( "Malformed JSON should be rejected" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            Assert.assertTrue( e.getMessage().startsWith( "Malformed JSON" ) );
+            Assert.assertEquals( "Blank lines should not be counted", 2, reader.getRecord() );
+        }
+        try {
+            reader.next();
+            Assert.fail( "Records should be objects" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            Assert.assertEquals( 3, reader.getRecord() );
+        }
+        Assert.assertEquals( "x", reader.next().get( "description" ).asText() );
+        Assert.assertNull( reader.next() );
+    }
+
+}
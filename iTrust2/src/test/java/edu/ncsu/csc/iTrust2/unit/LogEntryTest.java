@@ -19,6 +19,8 @@ import edu.ncsu.csc.iTrust2.TestConfig;
 import edu.ncsu.csc.iTrust2.models.enums.TransactionType;
 import edu.ncsu.csc.iTrust2.models.security.LogEntry;
 import edu.ncsu.csc.iTrust2.services.security.LogEntryService;
+import edu.ncsu.csc.iTrust2.utils.LogEntryWriter;
+import edu.ncsu.csc.iTrust2.utils.LoggerUtil;
 
 @RunWith ( SpringRunner.class )
 @EnableAutoConfiguration
@@ -28,12 +30,19 @@ public class LogEntryTest {
     @Autowired
     private LogEntryService     service;
 
+    @Autowired
+    private LoggerUtil          loggerUtil;
+
+    @Autowired
+    private LogEntryWriter      writer;
+
     private static final String USER_1 = "testUser123";
 
     private static final String USER_2 = "testUser1234";
 
     @Before
     public void setup () {
+        writer.flush();
         service.deleteAll();
     }
 
@@ -78,5 +87,26 @@ public class LogEntryTest {
                 "Creating a Log Entry with a secondary user should still find the Log Entry when querying by the primary user",
                 3, service.findAllForUser( USER_1 ).size() );
 
+        Assert.assertEquals( "Searching by date should find entries where the user is the secondary user", 2,
+                service.findByDateRange( USER_2, today, tomorrow ).size() );
+
+        Assert.assertEquals( "Entries outside of the date range should not be found", 0,
+                service.findByDateRange( USER_1, tomorrow, tomorrow.plusDays( 1 ) ).size() );
+
+    }
+
+    @Test
+    public void testLoggerUtilWritesEntries () {
+        for ( int i = 0; i < 25; i++ ) {
+            loggerUtil.log( TransactionType.LOGIN_SUCCESS, USER_1, USER_2, "Log entry " + i );
+        }
+        loggerUtil.log( TransactionType.LOGOUT, USER_2 );
+
+        // Entries are written in the background; wait for them to land
+        writer.flush();
+
+        Assert.assertEquals( "Every logged event should be saved", 26, service.count() );
+        Assert.assertEquals( "Entries should be found by either user", 25, service.findAllForUser( USER_1 ).size() );
+        Assert.assertEquals( "Entries should be found by either user", 26, service.findAllForUser( USER_2 ).size() );
     }
 }
@@ -0,0 +1,66 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import edu.ncsu.csc.iTrust2.forms.PageForm;
+
+/**
+ * Tests for turning paging and sorting parameters into Pageables and Sorts
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class PageFormTest {
+
+    private static final Map<String, String> SORTABLE = Map.of( "date", "date", "patient", "patient.username" );
+
+    @Test
+    public void testUnpaged () {
+        final PageForm form = new PageForm();
+        Assert.assertFalse( form.isPaged() );
+        Assert.assertFalse( form.isSorted() );
+        Assert.assertTrue( form.toSort( SORTABLE ).isUnsorted() );
+
+        Assert.assertFalse( "Blank sort fields should be ignored",
+                new PageForm( null, null, List.of( " ", "" ) ).isSorted() );
+    }
+
+    @Test
+    public void testSort () {
+        final Sort sort = new PageForm( null, null, List.of( "-date", " patient " ) ).toSort( SORTABLE );
+        Assert.assertEquals( Sort.by( Sort.Order.desc( "date" ), Sort.Order.asc( "patient.username" ) ), sort );
+
+        try {
+            new PageForm( null, null, List.of( "password" ) ).toSort( SORTABLE );
+            Assert.fail( "Sorting by a field that isn't sortable should be rejected" );
+        }
+        catch ( final IllegalArgumentException e ) {
+            Assert.assertTrue( e.getMessage().startsWith( "Cannot sort by password" ) );
+        }
+    }
+
+    @Test
+    public void testPageable () {
+        Pageable page = new PageForm( 3, 10, null ).toPageable( SORTABLE );
+        Assert.assertEquals( "Pages should be counted from 1", 2, page.getPageNumber() );
+        Assert.assertEquals( 10, page.getPageSize() );
+
+        page = new PageForm( null, null, List.of( "date" ) ).toPageable( SORTABLE );
+        Assert.assertEquals( 0, page.getPageNumber() );
+        Assert.assertEquals( PageForm.DEFAULT_SIZE, page.getPageSize() );
+        Assert.assertTrue( page.getSort().isSorted() );
+
+        page = new PageForm( 0, 1000000, null ).toPageable( SORTABLE );
+        Assert.assertEquals( 0, page.getPageNumber() );
+        Assert.assertEquals( "Pages should be no bigger than the most allowed", PageForm.MAX_SIZE,
+                page.getPageSize() );
+        Assert.assertTrue( new PageForm( 1, null, null ).isPaged() );
+    }
+
+}
@@ -0,0 +1,89 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc.iTrust2.utils.ReferenceDataCache;
+
+/**
+ * Tests for the versioned reference data cache
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class ReferenceDataCacheTest {
+
+    @Test
+    public void testLoadsOnceUntilInvalidated () {
+        final AtomicInteger loads = new AtomicInteger();
+        final List<String> catalog = new ArrayList<String>( Arrays.asList( "a1", "b1" ) );
+        final ReferenceDataCache<String> cache = new ReferenceDataCache<String>( () -> {
+            loads.incrementAndGet();
+            return catalog;
+        }, s -> s.substring( 0, 1 ), ( a, b ) -> a );
+
+        final ReferenceDataCache.Snapshot<String> first = cache.get();
+        Assert.assertSame( "The snapshot should be reused", first, cache.get() );
+        Assert.assertEquals( "b1", cache.get().get( "b" ) );
+        Assert.assertNull( cache.get().get( "c" ) );
+        Assert.assertEquals( 1, loads.get() );
+        Assert.assertEquals( 1, cache.getMisses() );
+        Assert.assertEquals( 3, cache.getHits() );
+
+        catalog.add( "c1" );
+        Assert.assertEquals( "Snapshots should not see later changes", 2, first.getAll().size() );
+
+        cache.invalidate();
+        final ReferenceDataCache.Snapshot<String> second = cache.get();
+        Assert.assertEquals( 2, loads.get() );
+        Assert.assertEquals( 3, second.getAll().size() );
+        Assert.assertTrue( "Each invalidation should raise the version", second.getVersion() > first.getVersion() );
+    }
+
+    @Test
+    public void testStaleLoadIsNotInstalled () {
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicReference<ReferenceDataCache<String>> holder = new AtomicReference<>();
+        holder.set( new ReferenceDataCache<String>( () -> {
+            if ( 1 == loads.incrementAndGet() ) {
+                // The catalog is written while the first load is running
+                holder.get().invalidate();
+            }
+            return Arrays.asList( "a" + loads.get() );
+        }, s -> s.substring( 0, 1 ), ( a, b ) -> a ) );
+
+        Assert.assertEquals( "a1", holder.get().get().get( "a" ) );
+        Assert.assertEquals( "A load overtaken by a write should be reloaded next time", "a2",
+                holder.get().get().get( "a" ) );
+        Assert.assertEquals( "a2", holder.get().get().get( "a" ) );
+        Assert.assertEquals( 2, loads.get() );
+    }
+
+    @Test
+    public void testPartitionsAndDuplicates () {
+        final ReferenceDataCache<String> cache = new ReferenceDataCache<String>(
+                () -> Arrays.asList( "x1", "y1", "x3", "x2" ), s -> s.substring( 0, 1 ),
+                ( a, b ) -> a.compareTo( b ) < 0 ? b : a,
+                s -> Integer.parseInt( s.substring( 1 ) ) % 2 == 0 ? "even" : "odd" );
+
+        final ReferenceDataCache.Snapshot<String> snapshot = cache.get();
+        Assert.assertEquals( "The largest duplicate should be kept", "x3", snapshot.get( "x" ) );
+        Assert.assertEquals( Arrays.asList( "x1", "y1", "x3" ), snapshot.getPartition( "odd" ) );
+        Assert.assertEquals( Arrays.asList( "x2" ), snapshot.getPartition( "even" ) );
+        Assert.assertTrue( snapshot.getPartition( "none" ).isEmpty() );
+        try {
+            snapshot.getAll().add( "z1" );
+            Assert.fail( "Snapshots should not be changeable" );
+        }
+        catch ( final UnsupportedOperationException e ) {
+            // expected
+        }
+    }
+
+}
@@ -231,4 +231,69 @@ public class SatisfactionSurveyTest {
 
     }
 
+    /**
+     * Tests that statistics for several HCPs are summarised correctly from the
+     * grouped queries, including HCPs without any surveys
+     */
+    @Test
+    @Transactional
+    public void testStatisticsForSeveralHcps () {
+        final User hcpA = new Personnel( new UserForm( "statsHcpA", "123456", Role.ROLE_HCP, 1 ) );
+        final User hcpB = new Personnel( new UserForm( "statsHcpB", "123456", Role.ROLE_HCP, 1 ) );
+        userService.saveAll( List.of( hcpA, hcpB ) );
+        final User alice = userService.findByName( "AliceThirteen" );
+
+        satisfactionSurveyService.save( survey( alice, hcpA, WaitTime.LESS_THAN_FIVE, WaitTime.FIVE_TO_TEN, 5, 4,
+                "Great" ) );
+        satisfactionSurveyService.save( survey( alice, hcpA, WaitTime.TEN_TO_FIFTEEN, WaitTime.FIVE_TO_TEN, 2, 1,
+                "Slow" ) );
+        satisfactionSurveyService.save( survey( alice, hcpA, WaitTime.TEN_TO_FIFTEEN, WaitTime.OVER_TWENTY_FIVE, 4,
+                4, null ) );
+
+        final List<SatisfactionSurveyStatistics> statistics = satisfactionSurveyStatisticsService
+                .findForHcps( List.of( hcpB, hcpA ) );
+        assertEquals( 2, statistics.size() );
+
+        final SatisfactionSurveyStatistics b = statistics.get( 0 );
+        assertEquals( "statsHcpB", b.getHcp().getUsername() );
+        assertEquals( 0, b.getNumberOfSurveys().intValue() );
+        assertEquals( 0, b.getAverageVisitSatisfaction().intValue() );
+        assertNull( b.getAverageWaitingRoomTime() );
+        assertEquals( 0, b.getNotes().size() );
+
+        final SatisfactionSurveyStatistics a = statistics.get( 1 );
+        assertEquals( "statsHcpA", a.getHcp().getUsername() );
+        assertEquals( 3, a.getNumberOfSurveys().intValue() );
+        // (5 + 2 + 4) / 3 and (4 + 1 + 4) / 3, truncated
+        assertEquals( 3, a.getAverageVisitSatisfaction().intValue() );
+        assertEquals( 3, a.getAverageTreatmentSatisfaction().intValue() );
+        // Codes (1 + 3 + 3) / 3 and (2 + 2 + 6) / 3, truncated
+        assertEquals( WaitTime.FIVE_TO_TEN, a.getAverageWaitingRoomTime() );
+        assertEquals( WaitTime.TEN_TO_FIFTEEN, a.getAverageExaminationResponseTime() );
+        assertEquals( 3, a.getNotes().size() );
+        assertEquals( "Great", a.getNotes().get( 0 ).getComments() );
+        assertEquals( 4, a.getNotes().get( 0 ).getAverageSatisfaction().intValue() );
+        assertEquals( 1, a.getNotes().get( 1 ).getAverageSatisfaction().intValue() );
+
+        final long hcps = satisfactionSurveyStatisticsService.findAll().stream()
+                .filter( s -> s.getHcp().getUsername().startsWith( "statsHcp" ) ).count();
+        assertEquals( 2, hcps );
+    }
+
+    /**
+     * Creates a satisfaction survey
+     */
+    private SatisfactionSurvey survey ( final User patient, final User hcp, final WaitTime waitingRoom,
+            final WaitTime examination, final int visit, final int treatment, final String comments ) {
+        final SatisfactionSurvey survey = new SatisfactionSurvey();
+        survey.setPatient( patient );
+        survey.setHcp( hcp );
+        survey.setWaitingRoomTime( waitingRoom );
+        survey.setExaminationResponseTime( examination );
+        survey.setVisitSatisfaction( visit );
+        survey.setTreatmentSatisfaction( treatment );
+        survey.setComments( comments );
+        return survey;
+    }
+
 }
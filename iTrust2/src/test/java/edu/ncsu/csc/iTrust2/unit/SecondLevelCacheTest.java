@@ -0,0 +1,134 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.ncsu.csc.iTrust2.TestConfig;
+import edu.ncsu.csc.iTrust2.forms.UserForm;
+import edu.ncsu.csc.iTrust2.models.Hospital;
+import edu.ncsu.csc.iTrust2.models.Personnel;
+import edu.ncsu.csc.iTrust2.models.User;
+import edu.ncsu.csc.iTrust2.models.enums.Role;
+import edu.ncsu.csc.iTrust2.services.HospitalService;
+import edu.ncsu.csc.iTrust2.services.UserService;
+import edu.ncsu.csc.iTrust2.utils.SqlStatementCounter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests for the Hibernate second-level cache, which holds the reference
+ * catalogs and users' roles. Runs outside of a transaction, so that each read
+ * has a session of its own and can only skip the database by using the cache.
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+@RunWith ( SpringRunner.class )
+@EnableAutoConfiguration
+@SpringBootTest ( classes = TestConfig.class )
+public class SecondLevelCacheTest {
+
+    private static final String  HOSPITAL = "Cache Test Hospital";
+
+    private static final String  USER     = "cacheTestUser";
+
+    @Autowired
+    private HospitalService      hospitalService;
+
+    @Autowired
+    private UserService<User>    userService;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private SqlStatementCounter  counter;
+
+    @Autowired
+    private MeterRegistry        registry;
+
+    @Before
+    public void setup () {
+        cleanup();
+        emf.getCache().evictAll();
+    }
+
+    @After
+    public void cleanup () {
+        final Hospital hospital = hospitalService.findById( HOSPITAL );
+        if ( null != hospital ) {
+            hospitalService.delete( hospital );
+        }
+        final User user = userService.findByName( USER );
+        if ( null != user ) {
+            userService.delete( user );
+        }
+    }
+
+    /**
+     * Reads a hospital twice, and checks the second read comes from the cache
+     * and a change to it is seen by later reads
+     */
+    @Test
+    public void testCatalogCache () {
+        hospitalService.save( new Hospital( HOSPITAL, "1 Cache Road", "27606", "NC" ) );
+        emf.getCache().evictAll();
+
+        counter.start();
+        hospitalService.findById( HOSPITAL );
+        Assert.assertEquals( "The first read should go to the database", 1, counter.stop() );
+
+        counter.start();
+        final Hospital hospital = hospitalService.findById( HOSPITAL );
+        Assert.assertEquals( "The second read should come from the cache", 0, counter.stop() );
+        Assert.assertEquals( "1 Cache Road", hospital.getAddress() );
+
+        hospital.setAddress( "2 Cache Road" );
+        hospitalService.save( hospital );
+        Assert.assertEquals( "Changes should be seen through the cache", "2 Cache Road",
+                hospitalService.findById( HOSPITAL ).getAddress() );
+
+        Assert.assertTrue( "Cache hits should be published as metrics",
+                registry.get( "cache.gets" ).tags( "cache", "hospitals", "result", "hit" ).functionCounter()
+                        .count() >= 1 );
+        Assert.assertTrue( registry.get( "hibernate.second.level.cache.requests" ).tags( "result", "hit" )
+                .functionCounter().count() >= 1 );
+    }
+
+    /**
+     * Reads a user twice, and checks their roles come from the cache the
+     * second time and a change to them is seen by later reads
+     */
+    @Test
+    public void testUserRolesCache () {
+        userService.save( new Personnel( new UserForm( USER, "123456", Role.ROLE_HCP, 1 ) ) );
+        emf.getCache().evictAll();
+
+        counter.start();
+        userService.findByName( USER );
+        final long first = counter.stop();
+
+        counter.start();
+        User user = userService.findByName( USER );
+        Assert.assertEquals( "Only the user should be read; their roles should come from the cache", first - 1,
+                counter.stop() );
+        Assert.assertEquals( Set.of( Role.ROLE_HCP ), user.getRoles() );
+
+        user.addRole( Role.ROLE_ER );
+        userService.save( user );
+        user = userService.findByName( USER );
+        Assert.assertEquals( Set.of( Role.ROLE_HCP, Role.ROLE_ER ), user.getRoles() );
+    }
+
+}
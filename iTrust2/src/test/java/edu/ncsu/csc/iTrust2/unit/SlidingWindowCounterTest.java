@@ -0,0 +1,77 @@
+package edu.ncsu.csc.iTrust2.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc.iTrust2.utils.SlidingWindowCounter;
+
+/**
+ * Tests for the sliding-window event counter
+ *
+ * @author Kai Presler-Marshall
+ *
+ */
+public class SlidingWindowCounterTest {
+
+    @Test
+    public void testWindowSlides () {
+        // Four buckets of 10 ms: a 40 ms window
+        final SlidingWindowCounter counter = new SlidingWindowCounter( 4, 10 );
+
+        Assert.assertEquals( 1, counter.increment( 1000 ) );
+        Assert.assertEquals( 2, counter.increment( 1005 ) );
+        Assert.assertEquals( 3, counter.increment( 1015 ) );
+        Assert.assertEquals( 3, counter.get( 1039 ) );
+
+        // The first bucket has dropped out of the window
+        Assert.assertEquals( 1, counter.get( 1040 ) );
+        Assert.assertEquals( 2, counter.increment( 1041 ) );
+
+        Assert.assertEquals( "Everything should expire once the window has passed", 0, counter.get( 2000 ) );
+    }
+
+    @Test
+    public void testOldEventsIgnored () {
+        final SlidingWindowCounter counter = new SlidingWindowCounter( 4, 10 );
+
+        counter.increment( 1040 );
+        // Lands on the same bucket, but is too old to count
+        counter.increment( 1000 );
+        Assert.assertEquals( 1, counter.get( 1040 ) );
+    }
+
+    @Test
+    public void testReset () {
+        final SlidingWindowCounter counter = new SlidingWindowCounter( 4, 10 );
+        counter.increment( 1000 );
+        counter.increment( 1010 );
+        counter.reset();
+        Assert.assertEquals( 0, counter.get( 1010 ) );
+        Assert.assertEquals( 1, counter.increment( 1010 ) );
+    }
+
+    @Test
+    public void testConcurrentIncrements () throws InterruptedException {
+        final SlidingWindowCounter counter = new SlidingWindowCounter( 6, 60000 );
+        final long now = System.currentTimeMillis();
+
+        final List<Thread> threads = new ArrayList<Thread>();
+        for ( int i = 0; i < 8; i++ ) {
+            final Thread t = new Thread( () -> {
+                for ( int j = 0; j < 10000; j++ ) {
+                    counter.increment( now );
+                }
+            } );
+            threads.add( t );
+            t.start();
+        }
+        for ( final Thread t : threads ) {
+            t.join();
+        }
+        Assert.assertEquals( "No increments should be lost", 80000, counter.get( now ) );
+    }
+
+}